@@ -16,6 +16,7 @@
 package simMPLS.hardware.dmgp;
 
 import java.util.LinkedList;
+import simMPLS.hardware.timer.TTimeout;
 
 /**
  * This class implements an entry that will store data related to a
@@ -43,6 +44,7 @@ public class TGPSRPRequestEntry implements Comparable {
         this.outgoingPort = -1;
         this.crossedNodes = new LinkedList();
         this.order = incomingOrder;
+        this.timer = new TTimeout(this);
     }
 
     /**
@@ -157,30 +159,33 @@ public class TGPSRPRequestEntry implements Comparable {
     }
 
     /**
-     * This method decreases the retransmission TimeOut.
+     * This method returns the retransmission TimeOut that remains for this
+     * entry.
      *
-     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
-     * @param nanoseconds Number of nanoseconds to decrease from the timeout.
+     * @author The OpenSimMPLS contributors
+     * @return The remaining retransmission TimeOut, in nanoseconds.
      * @since 2.0
      */
-    public void decreaseTimeout(int nanoseconds) {
-        this.timeout -= nanoseconds;
-        if (this.timeout < 0) {
-            this.timeout = 0;
+    public int getTimeout() {
+        if (this.timer.isIdle()) {
+            return this.timeout;
         }
+        return (int) this.timer.getRemainingTime();
     }
 
     /**
-     * This method restores the retransmission TimeOut to its original value.
+     * This method restores the retransmission TimeOut to its original value,
+     * if it has expired, and starts it again in the timing wheel.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     public void resetTimeout() {
-        if (this.timeout == 0) {
+        if (getTimeout() == 0) {
             if (this.attempts > 0) {
                 this.timeout = TGPSRPRequestsMatrix.TIMEOUT;
                 this.attempts--;
+                this.timer.reschedule(this.timeout);
             }
         }
     }
@@ -199,6 +204,7 @@ public class TGPSRPRequestEntry implements Comparable {
             attempts = 0;
             timeout = 0;
         }
+        this.timer.reschedule(this.timeout);
     }
 
     /**
@@ -211,7 +217,7 @@ public class TGPSRPRequestEntry implements Comparable {
      */
     public boolean isRetryable() {
         if (this.attempts > 0) {
-            if (this.timeout == 0) {
+            if (getTimeout() == 0) {
                 if (this.crossedNodes.size() > 0) {
                     return true;
                 }
@@ -233,13 +239,25 @@ public class TGPSRPRequestEntry implements Comparable {
             return true;
         }
         if (this.attempts == 0) {
-            if (this.timeout == 0) {
+            if (getTimeout() == 0) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * This method gets the retransmission TimeOut of this entry, as scheduled
+     * in the timing wheel of its table.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The retransmission TimeOut of this entry.
+     * @since 2.0
+     */
+    TTimeout getTimer() {
+        return this.timer;
+    }
+
     /**
      * This method compares the current instance with another of the same type
      * passed as an argument to know the order to be inserted in a collection.
@@ -274,4 +292,5 @@ public class TGPSRPRequestEntry implements Comparable {
     private LinkedList crossedNodes;
     private int order;
     private int attempts;
+    private TTimeout timer;
 }
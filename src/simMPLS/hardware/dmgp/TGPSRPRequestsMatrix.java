@@ -17,6 +17,7 @@ package simMPLS.hardware.dmgp;
 
 import java.util.Iterator;
 import java.util.TreeSet;
+import simMPLS.hardware.timer.TTimingWheel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.utils.TRotaryIDGenerator;
 import simMPLS.utils.TMonitor;
@@ -41,6 +42,20 @@ public class TGPSRPRequestsMatrix {
         this.entries = new TreeSet();
         this.idGenerator = new TRotaryIDGenerator();
         this.monitor = new TMonitor();
+        this.timingWheel = null;
+    }
+
+    /**
+     * This method sets the timing wheel where the entries of this table
+     * schedule their retransmission timeouts. It has to be set before adding
+     * any entry; without it, no timeout is scheduled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timingWheel The timing wheel of the node that owns this table.
+     * @since 2.0
+     */
+    public void setTimingWheel(TTimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
     }
 
     /**
@@ -51,6 +66,10 @@ public class TGPSRPRequestsMatrix {
      * @since 2.0
      */
     public void reset() {
+        Iterator iterator = this.entries.iterator();
+        while (iterator.hasNext()) {
+            ((TGPSRPRequestEntry) iterator.next()).getTimer().cancel();
+        }
         this.entries = null;
         this.idGenerator = null;
         this.monitor = null;
@@ -97,6 +116,7 @@ public class TGPSRPRequestsMatrix {
         while (iterator.hasNext()) {
             gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
             if (gpsrpRequestEntry.getOutgoingPort() == oldOutgoingPort) {
+                gpsrpRequestEntry.getTimer().cancel();
                 iterator.remove();
             }
         }
@@ -130,6 +150,9 @@ public class TGPSRPRequestsMatrix {
             }
         }
         entries.add(gpsrpRequestEntry);
+        if (this.timingWheel != null) {
+            this.timingWheel.schedule(gpsrpRequestEntry.getTimer(), TGPSRPRequestsMatrix.TIMEOUT);
+        }
         this.monitor.unLock();
         return gpsrpRequestEntry;
     }
@@ -150,6 +173,7 @@ public class TGPSRPRequestsMatrix {
             gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
             if (gpsrpRequestEntry.getFlowID() == flowID) {
                 if (gpsrpRequestEntry.getPacketID() == packetID) {
+                    gpsrpRequestEntry.getTimer().cancel();
                     iterator.remove();
                 }
             }
@@ -183,46 +207,6 @@ public class TGPSRPRequestsMatrix {
         return null;
     }
 
-    /**
-     * This method updates the table. It removes all entries for which no
-     * retransmission attemps are available and their timeouts have expired.
-     *
-     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
-     * @since 2.0
-     */
-    public void updateEntries() {
-        this.monitor.lock();
-        Iterator iterator = this.entries.iterator();
-        TGPSRPRequestEntry gpsrpRequestEntry = null;
-        while (iterator.hasNext()) {
-            gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
-            if (gpsrpRequestEntry.isPurgeable()) {
-                iterator.remove();
-            } else {
-                gpsrpRequestEntry.resetTimeout();
-            }
-        }
-        this.monitor.unLock();
-    }
-
-    /**
-     * This method drecreases the timeout for all entries of the table.
-     *
-     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
-     * @param nanoseconds Number of nanoseconds to be decreased from all entries timeouts.
-     * @since 2.0
-     */
-    public void decreaseTimeout(int nanoseconds) {
-        this.monitor.lock();
-        Iterator iterator = this.entries.iterator();
-        TGPSRPRequestEntry gpsrpRequestEntry = null;
-        while (iterator.hasNext()) {
-            gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
-            gpsrpRequestEntry.decreaseTimeout(nanoseconds);
-        }
-        this.monitor.unLock();
-    }
-
     /**
      * This method obtains the outgoing port of a specific entry.
      *
@@ -315,4 +299,5 @@ public class TGPSRPRequestsMatrix {
     private TreeSet entries;
     private TRotaryIDGenerator idGenerator;
     private TMonitor monitor;
+    private TTimingWheel timingWheel;
 }
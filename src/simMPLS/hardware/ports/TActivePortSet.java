@@ -315,6 +315,24 @@ public class TActivePortSet extends TPortSet {
         return this.isAnyPacketToSwitch();
     }
 
+    /**
+     * This method checks whether there are packets waiting to be switched,
+     * either in the incoming buffer or already selected as the next packet to
+     * be read but not switched yet for lack of time.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if there is at least one packet waiting to be
+     * switched/routed. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    @Override
+    public boolean isAnyPacketPending() {
+        if (this.nextPacketToBeRead != null) {
+            return true;
+        }
+        return this.isAnyPacketToSwitch();
+    }
+
     /**
      * This method check if the next packet can be switched, taking as a
      * reference the number of octects that the parent parentNode can switch at
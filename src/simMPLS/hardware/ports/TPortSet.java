@@ -180,6 +180,21 @@ public abstract class TPortSet {
      */
     public abstract boolean isThereAnyPacketToRoute();
 
+    /**
+     * This method checks whether there are packets waiting to be switched,
+     * either in the incoming buffer or already taken from it by the set of
+     * ports as the next packet to be switched. A node holding such a packet is
+     * not quiescent, even if its buffers are empty.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if there is at least one packet waiting to be
+     * switched/routed. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isAnyPacketPending() {
+        return this.isAnyPacketToSwitch();
+    }
+
     /**
      * This method, when implemented, will check if the next packet can be
      * switched, taking as a reference the number of octects that the parent
@@ -57,7 +57,9 @@ public class TSimulationCollector implements ISimulationEventListener {
 
     /**
      * This method, when implemented, will capture simulation events. It also
-     * delivers them to the simulation panel to be displayed.
+     * delivers them to the simulation panel to be displayed. Events are
+     * discarded if there is not any simulation panel, as happens when the
+     * simulation runs without GUI.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
@@ -65,6 +67,9 @@ public class TSimulationCollector implements ISimulationEventListener {
      */
     @Override
     public synchronized void captureSimulationEvents(TSimulationEvent simulationEvent) {
+        if (this.simulationPanel == null) {
+            return;
+        }
         switch (simulationEvent.getSubtype()) {
             case TSimulationEvent.PACKET_GENERATED: {
                 this.simulationPanel.addEvent(simulationEvent);
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.EventListener;
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.scenario.TLink;
+
+/**
+ * This interface has to be implemented by classes that simulate a partition
+ * of the topology somewhere else, for instance, in another process. They
+ * receive the packets sent to that partition instead of the partition itself.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public interface IRemotePartitionListener extends EventListener {
+
+    /**
+     * This method, when implemented, will capture the packets sent to a
+     * partition that is simulated remotely.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     * @param partition The partition the packet is sent to.
+     * @param instant The instant the packet arrives, in nanoseconds.
+     * @param packet The packet.
+     * @param link The link the packet travels through.
+     * @param linkEnd The end of the link the packet arrives to.
+     * TLink.END_NODE_1 or TLink.END_NODE_2.
+     */
+    public void captureRemoteDelivery(TTimerPartition partition, long instant, TAbstractPDU packet, TLink link, int linkEnd);
+}
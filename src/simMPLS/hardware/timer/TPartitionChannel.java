@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.scenario.TLink;
+
+/**
+ * This class implements the message channel that replaces a link whose ends
+ * belong to different partitions of the topology. Instead of travelling
+ * through the buffer of the link, packets are handed to the partition of the
+ * destination node together with the instant at which they arrive, so that
+ * both partitions do not need to be synchronized tick by tick.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TPartitionChannel {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TPartitionChannel for the specified link.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param link The link replaced by this channel.
+     * @param partitionOfEnd1 The partition that simulates the first end of
+     * the link.
+     * @param partitionOfEnd2 The partition that simulates the second end of
+     * the link.
+     * @param tick The tick of the simulation, in nanoseconds.
+     * @since 2.0
+     */
+    public TPartitionChannel(TLink link, TTimerPartition partitionOfEnd1, TTimerPartition partitionOfEnd2, int tick) {
+        this.link = link;
+        this.partitionOfEnd1 = partitionOfEnd1;
+        this.partitionOfEnd2 = partitionOfEnd2;
+        this.tick = tick;
+    }
+
+    /**
+     * This method sends a packet through the channel. The packet will be put
+     * in the port of the destination node at the end of the first tick at or
+     * after the instant in which it reaches the end of the link.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param packet The packet to be sent.
+     * @param destination The end of the link the packet is sent to.
+     * TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @since 2.0
+     */
+    public void send(TAbstractPDU packet, int destination) {
+        if (destination == TLink.END_NODE_1) {
+            this.partitionOfEnd1.scheduleDelivery(this.partitionOfEnd2.getCurrentInstant() + getTransitTime(), packet, this.link.getEnd1(), this.link.obtenerPuertoExtremo1(), this.link);
+        } else {
+            this.partitionOfEnd2.scheduleDelivery(this.partitionOfEnd1.getCurrentInstant() + getTransitTime(), packet, this.link.getEnd2(), this.link.obtenerPuertoExtremo2(), this.link);
+        }
+    }
+
+    /**
+     * This method computes the time a packet needs to go through the channel,
+     * that is, the delay of the link rounded up to a whole number of ticks.
+     * It is the lookahead the partitions at both ends of the channel can use.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The transit time of the channel, in nanoseconds.
+     * @since 2.0
+     */
+    public long getTransitTime() {
+        long ticksInTransit = (this.link.obtenerDelay() + this.tick - 1) / this.tick;
+        return Math.max(ticksInTransit, 1) * this.tick;
+    }
+
+    /**
+     * This method returns the link replaced by this channel.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The link replaced by this channel.
+     * @since 2.0
+     */
+    public TLink getLink() {
+        return this.link;
+    }
+
+    private TLink link;
+    private TTimerPartition partitionOfEnd1;
+    private TTimerPartition partitionOfEnd2;
+    private int tick;
+}
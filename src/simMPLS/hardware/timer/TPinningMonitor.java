@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class measures how long virtual threads stay pinned to their carrier
+ * thread inside a synchronized region of the simulator. A virtual thread that
+ * blocks while it holds a monitor can not be unmounted, so these regions limit
+ * how far the simulation scales on virtual threads. Each instrumented region
+ * registers its own monitor. Measures are only taken when the timer runs
+ * topology elements on virtual threads, so the rest of the time the cost is a
+ * single check.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TPinningMonitor {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TPinningMonitor.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param lockName The name of the synchronized region.
+     * @since 2.0
+     */
+    private TPinningMonitor(String lockName) {
+        this.lockName = lockName;
+        this.pinnedEntries = new AtomicLong(0);
+        this.pinnedTime = new AtomicLong(0);
+        this.waitingTime = new AtomicLong(0);
+    }
+
+    /**
+     * This method creates the monitor of a synchronized region and adds it to
+     * the report. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param lockName The name of the synchronized region, usually the class
+     * and the method.
+     * @return The monitor of the region.
+     * @since 2.0
+     */
+    public static synchronized TPinningMonitor register(String lockName) {
+        TPinningMonitor monitor = new TPinningMonitor(lockName);
+        TPinningMonitor.monitors.add(monitor);
+        return monitor;
+    }
+
+    /**
+     * This method enables or disables the measures of every monitor.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param enabled TRUE, to measure the synchronized regions entered by
+     * virtual threads. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public static void setEnabled(boolean enabled) {
+        TPinningMonitor.enabled = enabled;
+    }
+
+    /**
+     * This method returns whether the measures are enabled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the measures are enabled. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public static boolean isEnabled() {
+        return TPinningMonitor.enabled;
+    }
+
+    /**
+     * This method has to be called just before entering the synchronized
+     * region.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The instant the lock was requested at, in nanoseconds, or -1 if
+     * the entry is not measured.
+     * @since 2.0
+     */
+    public long lockRequested() {
+        if ((!TPinningMonitor.enabled) || (!isVirtualThread())) {
+            return -1;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * This method has to be called as soon as the synchronized region has
+     * been entered.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param requestInstant The value returned by lockRequested().
+     * @return The instant the lock was acquired at, in nanoseconds, or -1 if
+     * the entry is not measured.
+     * @since 2.0
+     */
+    public long lockAcquired(long requestInstant) {
+        if (requestInstant < 0) {
+            return -1;
+        }
+        long acquireInstant = System.nanoTime();
+        this.waitingTime.addAndGet(acquireInstant - requestInstant);
+        return acquireInstant;
+    }
+
+    /**
+     * This method has to be called just before leaving the synchronized
+     * region.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param acquireInstant The value returned by lockAcquired().
+     * @since 2.0
+     */
+    public void lockReleased(long acquireInstant) {
+        if (acquireInstant < 0) {
+            return;
+        }
+        this.pinnedEntries.incrementAndGet();
+        this.pinnedTime.addAndGet(System.nanoTime() - acquireInstant);
+    }
+
+    /**
+     * This method returns the name of the synchronized region.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The name of the region.
+     * @since 2.0
+     */
+    public String getLockName() {
+        return this.lockName;
+    }
+
+    /**
+     * This method returns how many times a virtual thread has entered the
+     * synchronized region.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of measured entries.
+     * @since 2.0
+     */
+    public long getPinnedEntries() {
+        return this.pinnedEntries.get();
+    }
+
+    /**
+     * This method returns the time virtual threads have spent pinned inside
+     * the synchronized region.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The pinned time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getPinnedTime() {
+        return this.pinnedTime.get();
+    }
+
+    /**
+     * This method returns the time virtual threads have spent waiting to
+     * enter the synchronized region.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The waiting time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getWaitingTime() {
+        return this.waitingTime.get();
+    }
+
+    /**
+     * This method sets to zero the measures of every monitor. This method is a
+     * synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public static synchronized void resetAll() {
+        Iterator iterator = TPinningMonitor.monitors.iterator();
+        TPinningMonitor monitor;
+        while (iterator.hasNext()) {
+            monitor = (TPinningMonitor) iterator.next();
+            monitor.pinnedEntries.set(0);
+            monitor.pinnedTime.set(0);
+            monitor.waitingTime.set(0);
+        }
+    }
+
+    /**
+     * This method returns a report with a line per synchronized region
+     * entered by a virtual thread: the number of entries, the time spent
+     * pinned inside the region and the time spent waiting to enter it. This
+     * method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The report.
+     * @since 2.0
+     */
+    public static synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        Iterator iterator = TPinningMonitor.monitors.iterator();
+        TPinningMonitor monitor;
+        while (iterator.hasNext()) {
+            monitor = (TPinningMonitor) iterator.next();
+            if (monitor.getPinnedEntries() > 0) {
+                report.append(monitor.getLockName());
+                report.append(": ").append(monitor.getPinnedEntries()).append(" entries, ");
+                report.append(monitor.getPinnedTime() / 1000000).append(" ms pinned, ");
+                report.append(monitor.getWaitingTime() / 1000000).append(" ms waiting\n");
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * This method checks whether the current thread is a virtual one. Virtual
+     * threads are looked up by reflection because the simulator is still
+     * built for Java 8.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the current thread is a virtual thread. Otherwise,
+     * FALSE.
+     * @since 2.0
+     */
+    public static boolean isVirtualThread() {
+        if (TPinningMonitor.IS_VIRTUAL_METHOD == null) {
+            return false;
+        }
+        try {
+            return ((Boolean) TPinningMonitor.IS_VIRTUAL_METHOD.invoke(Thread.currentThread())).booleanValue();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method looks up Thread.isVirtual(), available since Java 21.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The method, or NULL if the running JVM has no virtual threads.
+     * @since 2.0
+     */
+    private static Method lookUpIsVirtualMethod() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private final String lockName;
+    private final AtomicLong pinnedEntries;
+    private final AtomicLong pinnedTime;
+    private final AtomicLong waitingTime;
+
+    private static volatile boolean enabled = false;
+    private static final LinkedList monitors = new LinkedList();
+    private static final Method IS_VIRTUAL_METHOD = lookUpIsVirtualMethod();
+}
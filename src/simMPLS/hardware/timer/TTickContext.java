@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+/**
+ * This class implements the interval of simulated time carried out by a tick,
+ * as two primitive values in nanoseconds. The timer owns a single instance and
+ * updates it before every tick, so running a tick does not create new objects.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTickContext {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTickContext.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param startInstant The start of the interval, in nanoseconds.
+     * @param endInstant The end of the interval, in nanoseconds.
+     * @since 2.0
+     */
+    public TTickContext(long startInstant, long endInstant) {
+        this.startInstant = startInstant;
+        this.endInstant = endInstant;
+    }
+
+    /**
+     * This method sets the interval carried out by the next tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param startInstant The start of the interval, in nanoseconds.
+     * @param endInstant The end of the interval, in nanoseconds.
+     * @since 2.0
+     */
+    public void setInterval(long startInstant, long endInstant) {
+        this.startInstant = startInstant;
+        this.endInstant = endInstant;
+    }
+
+    /**
+     * This method returns the start of the interval.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The start of the interval, in nanoseconds.
+     * @since 2.0
+     */
+    public long getStartInstant() {
+        return this.startInstant;
+    }
+
+    /**
+     * This method returns the end of the interval.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The end of the interval, in nanoseconds.
+     * @since 2.0
+     */
+    public long getEndInstant() {
+        return this.endInstant;
+    }
+
+    /**
+     * This method returns the duration of the interval.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The duration of the interval, in nanoseconds.
+     * @since 2.0
+     */
+    public int getStepDuration() {
+        return (int) (this.endInstant - this.startInstant);
+    }
+
+    private long startInstant;
+    private long endInstant;
+}
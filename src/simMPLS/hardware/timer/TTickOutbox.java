@@ -0,0 +1,290 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+
+/**
+ * This class implements the private outbox of a topology element. During the
+ * compute phase of a tick, the element only reads its own input buffers and
+ * writes here the packets it sends to links or nodes. Nobody else writes to
+ * the outbox, so no lock is needed. At the barrier, the timer commits every
+ * outbox, one after another and always in the same order, so the result of
+ * the tick does not depend on how the threads were interleaved. Each packet
+ * keeps the instant it was sent at or arrives at, so an outbox can also
+ * gather the packets of several ticks when the timer elides barriers.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTickOutbox {
+
+    /**
+     * This method is the constructor of the class. It creates a new, empty,
+     * instance of TTickOutbox.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public TTickOutbox() {
+        this.targets = new Object[TTickOutbox.INITIAL_CAPACITY];
+        this.packets = new TAbstractPDU[TTickOutbox.INITIAL_CAPACITY];
+        this.targetPorts = new int[TTickOutbox.INITIAL_CAPACITY];
+        this.instants = new long[TTickOutbox.INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * This method stores a packet that has to be put on a link at the end of
+     * the tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param link The link the packet is put on.
+     * @param packet The packet.
+     * @param linkEnd The end of the link the packet is sent to.
+     * TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @param instant The instant the packet is sent at, in nanoseconds.
+     * @since 2.0
+     */
+    public void addPacketToLink(TLink link, TAbstractPDU packet, int linkEnd, long instant) {
+        add(link, packet, linkEnd, instant);
+    }
+
+    /**
+     * This method stores a packet that has to be put in a port of a node at
+     * the end of the tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param node The node the packet is delivered to.
+     * @param packet The packet.
+     * @param port The port of the node the packet is put in.
+     * @param instant The instant the packet arrives at, in nanoseconds.
+     * @since 2.0
+     */
+    public void addPacketToNode(TNode node, TAbstractPDU packet, int port, long instant) {
+        add(node, packet, port, instant);
+    }
+
+    /**
+     * This method checks whether the outbox has packets waiting to be
+     * committed.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the outbox is empty. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * This method returns the number of packets stored in the outbox.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of packets stored.
+     * @since 2.0
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * This method returns the destination of a stored packet.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The position of the packet in the outbox.
+     * @return The link or node the packet is sent to.
+     * @since 2.0
+     */
+    public Object getTarget(int index) {
+        return this.targets[index];
+    }
+
+    /**
+     * This method returns a stored packet.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The position of the packet in the outbox.
+     * @return The packet.
+     * @since 2.0
+     */
+    public TAbstractPDU getPacket(int index) {
+        return this.packets[index];
+    }
+
+    /**
+     * This method returns the end of the link or the port of the node a stored
+     * packet is sent to.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The position of the packet in the outbox.
+     * @return The end of the link or the port of the node.
+     * @since 2.0
+     */
+    public int getTargetPort(int index) {
+        return this.targetPorts[index];
+    }
+
+    /**
+     * This method returns the instant a stored packet was sent at or arrives
+     * at.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The position of the packet in the outbox.
+     * @return The instant of the packet, in nanoseconds.
+     * @since 2.0
+     */
+    public long getInstant(int index) {
+        return this.instants[index];
+    }
+
+    /**
+     * This method hands every stored packet to its destination, in the same
+     * order they were stored, and leaves the outbox empty. It has to be called
+     * by the timer, at the barrier, when no element is running.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void commit() {
+        for (int i = 0; i < this.size; i++) {
+            if (this.targets[i] instanceof TLink) {
+                ((TLink) this.targets[i]).commitPacket(this.packets[i], this.targetPorts[i]);
+            } else {
+                ((TNode) this.targets[i]).ponerPaquete(this.packets[i], this.targetPorts[i]);
+            }
+            this.targets[i] = null;
+            this.packets[i] = null;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * This method hands every stored packet to its destination, as commit()
+     * does, at the end of a batch of ticks. Packets put on a link have been
+     * travelling since they were sent, so the time elapsed until the
+     * specified instant is discounted from their delay.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant The end of the batch of ticks, in nanoseconds.
+     * @since 2.0
+     */
+    public void commit(long instant) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.targets[i] instanceof TLink) {
+                ((TLink) this.targets[i]).commitPacket(this.packets[i], this.targetPorts[i], instant - this.instants[i]);
+            } else {
+                ((TNode) this.targets[i]).ponerPaquete(this.packets[i], this.targetPorts[i]);
+            }
+            this.targets[i] = null;
+            this.packets[i] = null;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * This method hands to their destination, in the same order they were
+     * stored, the packets whose instant is not later than the specified one.
+     * The rest of them are kept in the outbox, in the same order.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant The latest instant of the packets to be committed, in
+     * nanoseconds.
+     * @since 2.0
+     */
+    public void commitUntil(long instant) {
+        int keptPackets = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.instants[i] <= instant) {
+                if (this.targets[i] instanceof TLink) {
+                    ((TLink) this.targets[i]).commitPacket(this.packets[i], this.targetPorts[i]);
+                } else {
+                    ((TNode) this.targets[i]).ponerPaquete(this.packets[i], this.targetPorts[i]);
+                }
+            } else {
+                this.targets[keptPackets] = this.targets[i];
+                this.packets[keptPackets] = this.packets[i];
+                this.targetPorts[keptPackets] = this.targetPorts[i];
+                this.instants[keptPackets] = this.instants[i];
+                keptPackets++;
+            }
+        }
+        for (int i = keptPackets; i < this.size; i++) {
+            this.targets[i] = null;
+            this.packets[i] = null;
+        }
+        this.size = keptPackets;
+    }
+
+    /**
+     * This method discards every stored packet.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.targets[i] = null;
+            this.packets[i] = null;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * This method stores a packet and its destination, growing the internal
+     * arrays if needed. Arrays are never shrunk, so a steady simulation does
+     * not allocate memory here.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param target The link or node the packet is sent to.
+     * @param packet The packet.
+     * @param targetPort The end of the link or the port of the node.
+     * @param instant The instant of the packet, in nanoseconds.
+     * @since 2.0
+     */
+    private void add(Object target, TAbstractPDU packet, int targetPort, long instant) {
+        if (this.size == this.targets.length) {
+            int newCapacity = this.targets.length * 2;
+            Object[] newTargets = new Object[newCapacity];
+            TAbstractPDU[] newPackets = new TAbstractPDU[newCapacity];
+            int[] newTargetPorts = new int[newCapacity];
+            long[] newInstants = new long[newCapacity];
+            System.arraycopy(this.targets, 0, newTargets, 0, this.size);
+            System.arraycopy(this.packets, 0, newPackets, 0, this.size);
+            System.arraycopy(this.targetPorts, 0, newTargetPorts, 0, this.size);
+            System.arraycopy(this.instants, 0, newInstants, 0, this.size);
+            this.targets = newTargets;
+            this.packets = newPackets;
+            this.targetPorts = newTargetPorts;
+            this.instants = newInstants;
+        }
+        this.targets[this.size] = target;
+        this.packets[this.size] = packet;
+        this.targetPorts[this.size] = targetPort;
+        this.instants[this.size] = instant;
+        this.size++;
+    }
+
+    private Object[] targets;
+    private TAbstractPDU[] packets;
+    private int[] targetPorts;
+    private long[] instants;
+    private int size;
+
+    private static final int INITIAL_CAPACITY = 16;
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+/**
+ * This class implements a timeout that can be scheduled in a timing wheel. A
+ * timeout belongs to an owner (a switching entry, a GPSRP request...) that is
+ * given back by the timing wheel when the timeout expires, so that the node
+ * only has to visit the owners whose timeouts have actually expired.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimeout implements Comparable {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTimeout, not scheduled in any timing wheel.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param owner The object this timeout belongs to.
+     * @since 2.0
+     */
+    public TTimeout(Object owner) {
+        this.owner = owner;
+        this.timingWheel = null;
+        this.status = TTimeout.IDLE;
+        this.deadline = 0;
+        this.sequence = 0;
+        this.level = -1;
+        this.slot = -1;
+        this.next = null;
+        this.previous = null;
+    }
+
+    /**
+     * This method returns the object this timeout belongs to.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The owner of the timeout.
+     * @since 2.0
+     */
+    public Object getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * This method checks whether the timeout is scheduled and has not expired
+     * yet.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the timeout is running. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isPending() {
+        return (this.status == TTimeout.PENDING);
+    }
+
+    /**
+     * This method checks whether the timeout is neither running nor expired,
+     * that is, it has never been scheduled or it has been cancelled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the timeout is idle. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isIdle() {
+        return (this.status == TTimeout.IDLE);
+    }
+
+    /**
+     * This method computes how long it will be until the timeout expires.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The remaining time, in nanoseconds. 0 if the timeout has
+     * expired and -1 if it is idle.
+     * @since 2.0
+     */
+    public long getRemainingTime() {
+        TTimingWheel timingWheelAux = this.timingWheel;
+        if (timingWheelAux == null) {
+            return -1;
+        }
+        return timingWheelAux.getRemainingTime(this);
+    }
+
+    /**
+     * This method schedules again the timeout in the timing wheel where it was
+     * last scheduled, so that it expires after the specified time. If the
+     * timeout has never been scheduled, it does nothing.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param nanoseconds Time until the timeout expires, in nanoseconds.
+     * @since 2.0
+     */
+    public void reschedule(long nanoseconds) {
+        TTimingWheel timingWheelAux = this.timingWheel;
+        if (timingWheelAux != null) {
+            timingWheelAux.schedule(this, nanoseconds);
+        }
+    }
+
+    /**
+     * This method cancels the timeout. After that, it is idle.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void cancel() {
+        TTimingWheel timingWheelAux = this.timingWheel;
+        if (timingWheelAux != null) {
+            timingWheelAux.cancel(this);
+        }
+    }
+
+    /**
+     * This method compares this timeout with another one, to sort them by
+     * expiration instant and, for the same instant, by scheduling order.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param o The timeout to be compared with this one.
+     * @return -1, 0 or 1, if this timeout expires before, at the same time or
+     * after the specified one.
+     * @since 2.0
+     */
+    @Override
+    public int compareTo(Object o) {
+        TTimeout timeoutAux = (TTimeout) o;
+        if (this.deadline != timeoutAux.deadline) {
+            return (this.deadline < timeoutAux.deadline) ? -1 : 1;
+        }
+        if (this.sequence != timeoutAux.sequence) {
+            return (this.sequence < timeoutAux.sequence) ? -1 : 1;
+        }
+        return 0;
+    }
+
+    static final int IDLE = 0;
+    static final int PENDING = 1;
+    static final int EXPIRED = 2;
+
+    private final Object owner;
+    // The following attributes are handled by the timing wheel, holding its
+    // lock.
+    TTimingWheel timingWheel;
+    int status;
+    long deadline;
+    long sequence;
+    int level;
+    int slot;
+    TTimeout next;
+    TTimeout previous;
+}
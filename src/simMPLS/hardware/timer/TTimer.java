@@ -15,17 +15,14 @@
  */
 package simMPLS.hardware.timer;
 
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.TreeSet;
-import simMPLS.scenario.TExternalLink;
-import simMPLS.scenario.TInternalLink;
-import simMPLS.scenario.TActiveLERNode;
-import simMPLS.scenario.TLERNode;
-import simMPLS.scenario.TActiveLSRNode;
-import simMPLS.scenario.TLSRNode;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import simMPLS.hardware.tldp.TSwitchingMatrix;
 import simMPLS.scenario.TLink;
 import simMPLS.scenario.TNode;
-import simMPLS.scenario.TReceiverNode;
 import simMPLS.scenario.TSenderNode;
 import simMPLS.scenario.TTopologyElement;
 import simMPLS.utils.EIDGeneratorOverflow;
@@ -55,14 +52,38 @@ public class TTimer implements Runnable {
         this.timerEventListenerNodes = new TreeSet();
         this.timerEventListenerLInks = new TreeSet();
         this.progressEventListener = null;
+        this.workerPool = new TTimerWorkerPool();
         this.longIdentifierGenerator = new TLongIDGenerator();
-        this.currentTimestamp = new TTimestamp(0, 0);
-        this.previousTimestamp = new TTimestamp(0, 0);
-        this.finishTimestamp = new TTimestamp(0, 100000);
-        this.currentTimestampAux = new TTimestamp(0, 0);
-        this.previousTimestampAux = new TTimestamp(0, 0);
-        this.finishTimestampAux = new TTimestamp(0, 100000);
+        this.currentInstant = 0;
+        this.previousInstant = 0;
+        this.finishInstant = 100000;
+        this.currentInstantAux = 0;
+        this.previousInstantAux = 0;
+        this.finishInstantAux = 100000;
+        this.lastProgress = -1;
+        this.tickContext = new TTickContext(0, 0);
+        this.timerEvent = new TTimerEvent(this, this.tickContext);
+        this.nodesSnapshot = new TTopologyElement[0];
+        this.linksSnapshot = new TTopologyElement[0];
+        this.listenersChanged = false;
         this.tick = 1000;
+        this.engineMode = TTimer.FIXED_TICK_ENGINE;
+        this.eventQueue = new TTimerEventQueue();
+        this.dispatchedInstant = 0;
+        this.idleFastForward = false;
+        this.skippedTicks = 0;
+        this.activeSetScheduling = false;
+        this.skippedTimerEvents = 0;
+        this.nodesIdleAtStart = new boolean[0];
+        this.linksIdleAtStart = new boolean[0];
+        this.barrierElision = false;
+        this.linkStateChanged = false;
+        this.elidedBarriers = 0;
+        this.nodesBatchTasks = new TBatchTask[0];
+        this.linksBatchTasks = new TBatchTask[0];
+        this.nodeIndexes = new IdentityHashMap();
+        this.numberOfPartitions = Runtime.getRuntime().availableProcessors();
+        this.partitioner = null;
         this.running = false;
         this.isFinished = true;
         this.paused = false;
@@ -76,10 +97,21 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void reset() {
-        this.currentTimestamp = new TTimestamp(0, 0);
-        this.previousTimestamp = new TTimestamp(0, 0);
+        this.currentInstant = 0;
+        this.previousInstant = 0;
+        this.lastProgress = -1;
         this.running = false;
         this.longIdentifierGenerator.reset();
+        this.eventQueue.reset();
+        this.dispatchedInstant = 0;
+        this.skippedTicks = 0;
+        this.skippedTimerEvents = 0;
+        this.elidedBarriers = 0;
+        this.linkStateChanged = false;
+        TPinningMonitor.resetAll();
+        clearOutboxes();
+        releasePartitions();
+        this.workerPool.stopWorkers();
         this.isFinished = true;
         this.paused = false;
         generateProgressEvent();
@@ -95,8 +127,20 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void setFinishTimestamp(TTimestamp finishTimestamp) {
-        this.finishTimestamp.setMillisecond(finishTimestamp.getMillisecond());
-        this.finishTimestamp.setNanosecond(finishTimestamp.getNanosecond());
+        this.finishInstant = finishTimestamp.getTotalAsNanoseconds();
+    }
+
+    /**
+     * This method allows establishing the end of the simulation as a number of
+     * nanoseconds.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param finishInstant The instant the timer has to reach to finish the
+     * simulation, in nanoseconds.
+     * @since 2.0
+     */
+    public void setFinishInstant(long finishInstant) {
+        this.finishInstant = finishInstant;
     }
 
     /**
@@ -113,6 +157,286 @@ public class TTimer implements Runnable {
         this.tick = tick;
     }
 
+    /**
+     * This method establishes how the timer advances the simulation time. It
+     * can generate a timer event every tick (FIXED_TICK_ENGINE), jump
+     * straight from one scheduled event to the next one
+     * (DISCRETE_EVENT_ENGINE) or split the topology into partitions simulated
+     * in parallel (PARTITIONED_ENGINE).
+     *
+     * @author The OpenSimMPLS contributors
+     * @param engineMode FIXED_TICK_ENGINE, DISCRETE_EVENT_ENGINE or
+     * PARTITIONED_ENGINE.
+     * @since 2.0
+     */
+    public void setEngineMode(int engineMode) {
+        this.engineMode = engineMode;
+    }
+
+    /**
+     * This method returns how the timer advances the simulation time.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return FIXED_TICK_ENGINE, DISCRETE_EVENT_ENGINE or PARTITIONED_ENGINE.
+     * @since 2.0
+     */
+    public int getEngineMode() {
+        return this.engineMode;
+    }
+
+    /**
+     * This method establishes into how many partitions the topology is split
+     * when the timer works as a partitioned parallel engine. Each partition is
+     * simulated on its own worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param numberOfPartitions The desired number of partitions. Values lower
+     * than 1 are treated as 1.
+     * @since 2.0
+     */
+    public void setNumberOfPartitions(int numberOfPartitions) {
+        this.numberOfPartitions = Math.max(numberOfPartitions, 1);
+    }
+
+    /**
+     * This method returns into how many partitions the topology is split when
+     * the timer works as a partitioned parallel engine.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The desired number of partitions.
+     * @since 2.0
+     */
+    public int getNumberOfPartitions() {
+        return this.numberOfPartitions;
+    }
+
+    /**
+     * This method enables or disables the idle fast-forward of the fixed-tick
+     * engine. When enabled, if after a tick the topology is quiescent (no
+     * packet waiting in any port, no packet in transit through any link and no
+     * TLDP or GPSRP timeout running) the timer merges all the ticks until the
+     * next emission of a sender into a single simulation step.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param idleFastForward TRUE, to enable the idle fast-forward. FALSE, to
+     * disable it.
+     * @since 2.0
+     */
+    public void setIdleFastForward(boolean idleFastForward) {
+        this.idleFastForward = idleFastForward;
+    }
+
+    /**
+     * This method checks whether the idle fast-forward of the fixed-tick
+     * engine is enabled or not.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the idle fast-forward is enabled. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isIdleFastForward() {
+        return this.idleFastForward;
+    }
+
+    /**
+     * This method returns the number of ticks that have not been simulated one
+     * by one during the current simulation because the topology was quiescent
+     * and the idle fast-forward merged them into a single step.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of skipped ticks.
+     * @since 2.0
+     */
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+
+    /**
+     * This method enables or disables the active-set scheduling. When it is
+     * enabled, an element that starts a tick with nothing to do runs that tick
+     * and then falls asleep: it does not receive timer events again until a
+     * packet lands in it or something it depends on changes. Senders stay
+     * awake while they have a rate to emit at. Elements keep a pending TLDP or
+     * GPSRP timeout awake too.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param activeSetScheduling TRUE, to enable the active-set scheduling.
+     * FALSE, to send timer events to every element every tick.
+     * @since 2.0
+     */
+    public void setActiveSetScheduling(boolean activeSetScheduling) {
+        this.activeSetScheduling = activeSetScheduling;
+    }
+
+    /**
+     * This method returns whether the active-set scheduling is enabled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the active-set scheduling is enabled. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isActiveSetScheduling() {
+        return this.activeSetScheduling;
+    }
+
+    /**
+     * This method returns the number of timer events that have not been sent
+     * during the current simulation because the element was asleep.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of skipped timer events.
+     * @since 2.0
+     */
+    public long getSkippedTimerEvents() {
+        return this.skippedTimerEvents;
+    }
+
+    /**
+     * This method enables or disables the barrier elision of the fixed-tick
+     * engine. A packet put on a link can not reach the other end before the
+     * delay of the link has elapsed, so, when every link is slower than
+     * several ticks, nodes can not affect each other during that many ticks.
+     * In that case the timer runs that batch of ticks with only two barriers:
+     * links first and nodes after them. Broken links and link state changes
+     * make the timer go back to a barrier per tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param barrierElision TRUE, to run batches of ticks when it is safe.
+     * FALSE, to run a barrier per tick.
+     * @since 2.0
+     */
+    public void setBarrierElision(boolean barrierElision) {
+        this.barrierElision = barrierElision;
+    }
+
+    /**
+     * This method returns whether the barrier elision is enabled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the barrier elision is enabled. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isBarrierElision() {
+        return this.barrierElision;
+    }
+
+    /**
+     * This method returns the instant of the last tick, or the end of the last
+     * batch of ticks, sent to the topology elements.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The instant of the last dispatched tick, in nanoseconds.
+     * @since 2.0
+     */
+    public long getDispatchedInstant() {
+        return this.dispatchedInstant;
+    }
+
+    /**
+     * This method returns the number of barriers that have been saved during
+     * the current simulation by running batches of ticks.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of elided barriers.
+     * @since 2.0
+     */
+    public long getElidedBarriers() {
+        return this.elidedBarriers;
+    }
+
+    /**
+     * This method selects whether topology elements run their work on virtual
+     * threads, one per timer event, or on the long-lived workers of the pool.
+     * On virtual threads, the time spent pinned inside the synchronized regions
+     * of the simulator is measured and logged at the end of each run. If the
+     * running JVM has no virtual threads, the long-lived workers are kept. It
+     * has to be called while the timer is stopped.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param virtualThreads TRUE, to run topology elements on virtual threads.
+     * FALSE, to run them on the long-lived workers.
+     * @since 2.0
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        if (virtualThreads != this.workerPool.isVirtual()) {
+            TTimerWorkerPool newWorkerPool = new TTimerWorkerPool(virtualThreads);
+            if (newWorkerPool.isVirtual() != this.workerPool.isVirtual()) {
+                this.workerPool.shutdown();
+                this.workerPool = newWorkerPool;
+                Iterator nodesIterator = this.timerEventListenerNodes.iterator();
+                while (nodesIterator.hasNext()) {
+                    ((TTopologyElement) nodesIterator.next()).setWorkerPool(this.workerPool);
+                }
+                Iterator linksIterator = this.timerEventListenerLInks.iterator();
+                while (linksIterator.hasNext()) {
+                    ((TTopologyElement) linksIterator.next()).setWorkerPool(this.workerPool);
+                }
+            } else {
+                newWorkerPool.shutdown();
+            }
+        }
+        TPinningMonitor.setEnabled(this.workerPool.isVirtual());
+    }
+
+    /**
+     * This method returns whether topology elements run on virtual threads.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if topology elements run on virtual threads. Otherwise,
+     * FALSE.
+     * @since 2.0
+     */
+    public boolean isVirtualThreads() {
+        return this.workerPool.isVirtual();
+    }
+
+    /**
+     * This method is called by a link when it breaks or recovers. Links that
+     * change their state may carry packets faster than expected, so the next
+     * tick is simulated alone, with its own barrier.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void notifyLinkStateChange() {
+        this.linkStateChanged = true;
+    }
+
+    /**
+     * This method schedules an event at the specified simulation instant, so
+     * that the timer will generate a timer event ending at the first tick
+     * boundary at or after that instant. Events are aligned to ticks so that
+     * the simulation keeps the same time resolution as the fixed-tick engine
+     * and all events of the same tick are processed together. It only has
+     * effect when the timer works as a discrete-event engine.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant The simulation instant of the event, in nanoseconds.
+     * @since 2.0
+     */
+    public void scheduleEvent(long instant) {
+        if (this.engineMode == TTimer.DISCRETE_EVENT_ENGINE) {
+            long alignedInstant = ((instant + this.tick - 1) / this.tick) * this.tick;
+            this.eventQueue.schedule(alignedInstant);
+        }
+    }
+
+    /**
+     * This method schedules an event the specified number of nanoseconds after
+     * the end of the timer event currently being processed. It only has effect
+     * when the timer works as a discrete-event engine.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param nanoseconds Nanoseconds from the end of the current timer event
+     * to the scheduled event. Negative values are ignored.
+     * @since 2.0
+     */
+    public void scheduleEventAfter(long nanoseconds) {
+        if (nanoseconds >= 0) {
+            scheduleEvent(this.dispatchedInstant + Math.max(nanoseconds, 1));
+        }
+    }
+
     /**
      * This method let a topology element (nodes and/or links) to subscribe the
      * timer to receive timer events.
@@ -122,6 +446,10 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void addTimerEventListener(TTopologyElement timerEventListener) {
+        timerEventListener.setWorkerPool(this.workerPool);
+        timerEventListener.setOutbox(new TTickOutbox());
+        timerEventListener.wakeUp();
+        this.listenersChanged = true;
         if (timerEventListener.getElementType() == TTopologyElement.LINK) {
             this.timerEventListenerLInks.add(timerEventListener);
         } else {
@@ -139,6 +467,9 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void removeTimerEventListener(TTopologyElement timerEventListener) {
+        timerEventListener.setWorkerPool(null);
+        timerEventListener.setOutbox(null);
+        this.listenersChanged = true;
         if (timerEventListener.getElementType() == TTopologyElement.LINK) {
             Iterator iterator = this.timerEventListenerLInks.iterator();
             TLink linkAux;
@@ -170,6 +501,7 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void purgeTimerEventListeners() {
+        this.listenersChanged = true;
         Iterator linksIterator = this.timerEventListenerLInks.iterator();
         TLink linkAux;
         while (linksIterator.hasNext()) {
@@ -228,64 +560,174 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     private void generateTimerEvent() {
-        Iterator linksIterator = this.timerEventListenerLInks.iterator();
-        Iterator nodesIterator = this.timerEventListenerNodes.iterator();
-        TNode nodeAux;
-        TLink linkAux;
-        TTimestamp startOfSimulationInterval = new TTimestamp(this.previousTimestamp.getMillisecond(), this.previousTimestamp.getNanosecond());
-        TTimestamp endOfSimulationInterval = new TTimestamp(this.currentTimestamp.getMillisecond(), this.currentTimestamp.getNanosecond());
-        while (nodesIterator.hasNext()) {
-            nodeAux = (TNode) nodesIterator.next();
-            switch (nodeAux.getNodeType()) {
-                case TNode.SENDER: {
-                    nodeAux = (TSenderNode) nodeAux;
-                    break;
-                }
-                case TNode.LER: {
-                    nodeAux = (TLERNode) nodeAux;
-                    break;
-                }
-                case TNode.LERA: {
-                    nodeAux = (TActiveLERNode) nodeAux;
-                    break;
-                }
-                case TNode.LSR: {
-                    nodeAux = (TLSRNode) nodeAux;
-                    break;
-                }
-                case TNode.LSRA: {
-                    nodeAux = (TActiveLSRNode) nodeAux;
-                    break;
-                }
-                case TNode.RECEIVER: {
-                    nodeAux = (TReceiverNode) nodeAux;
-                    break;
-                }
-            }
-            try {
-                TTimerEvent timerEvent = new TTimerEvent(this, this.longIdentifierGenerator.getNextID(), startOfSimulationInterval, endOfSimulationInterval);
-                nodeAux.receiveTimerEvent(timerEvent);
-            } catch (EIDGeneratorOverflow e) {
-                e.printStackTrace();
+        if (this.listenersChanged) {
+            refreshListenerSnapshots();
+        }
+        this.tickContext.setInterval(this.previousInstant, this.currentInstant);
+        this.dispatchedInstant = this.currentInstant;
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            this.nodesIdleAtStart[i] = sendTimerEvent(this.nodesSnapshot[i]);
+        }
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            this.linksIdleAtStart[i] = sendTimerEvent(this.linksSnapshot[i]);
+        }
+    }
+
+    /**
+     * This method sends the timer event of the current tick to an element,
+     * unless the active-set scheduling is enabled and the element is asleep.
+     * The clock of a sleeping element is still advanced, so that the events
+     * it generates when a packet lands in it carry the right instant, and a
+     * sleeping node still takes its congestion sample of the tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param element The element the timer event is sent to.
+     * @return TRUE, if the active-set scheduling is enabled and the element
+     * starts the tick with nothing to do. Otherwise, FALSE.
+     * @since 2.0
+     */
+    private boolean sendTimerEvent(TTopologyElement element) {
+        if (!this.activeSetScheduling) {
+            element.receiveTimerEvent(this.timerEvent);
+            return false;
+        }
+        if (element.isAsleep()) {
+            element.setTimeInstant(this.dispatchedInstant);
+            generateCongestionSample(element, this.dispatchedInstant);
+            this.skippedTimerEvents++;
+            return false;
+        }
+        element.clearWakeUp();
+        boolean idle = element.isIdle();
+        element.receiveTimerEvent(this.timerEvent);
+        return idle;
+    }
+
+    /**
+     * This method makes a node take the congestion sample of a tick in which
+     * it does not receive a timer event. Links do not take samples.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param element The element that skips the tick.
+     * @param instant The end of the skipped tick, in nanoseconds.
+     * @since 2.0
+     */
+    private void generateCongestionSample(TTopologyElement element, long instant) {
+        if (element.getElementType() == TTopologyElement.NODO) {
+            ((TNode) element).generarMuestraDeCongestion(instant);
+        }
+    }
+
+    /**
+     * This method makes every node take the congestion samples of the ticks
+     * that are simulated in a single step because the topology is quiescent,
+     * except the last one, which is taken by the node itself when it runs the
+     * step. In this way, the congestion samples do not depend on the engine.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param fromInstant The start of the first skipped tick, in nanoseconds.
+     * @param toInstant The end of the last skipped tick, in nanoseconds.
+     * @since 2.0
+     */
+    private void generateCongestionSamples(long fromInstant, long toInstant) {
+        if (this.listenersChanged) {
+            refreshListenerSnapshots();
+        }
+        for (long instant = fromInstant + this.tick; instant <= toInstant; instant += this.tick) {
+            for (int i = 0; i < this.nodesSnapshot.length; i++) {
+                generateCongestionSample(this.nodesSnapshot[i], instant);
             }
         }
-        while (linksIterator.hasNext()) {
-            linkAux = (TLink) linksIterator.next();
-            switch (linkAux.getLinkType()) {
-                case TLink.EXTERNAL: {
-                    linkAux = (TExternalLink) linkAux;
-                    break;
-                }
-                case TLink.INTERNAL: {
-                    linkAux = (TInternalLink) linkAux;
-                    break;
-                }
+    }
+
+    /**
+     * This method is called once the outboxes have been committed. Every
+     * element that started the tick with nothing to do, is still idle and has
+     * not been woken up meanwhile falls asleep.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void updateActiveSet() {
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            if ((this.nodesIdleAtStart[i]) && (this.nodesSnapshot[i].isIdle())) {
+                this.nodesSnapshot[i].sleepIfNotWokenUp();
             }
-            try {
-                linkAux.receiveTimerEvent(new TTimerEvent(this, this.longIdentifierGenerator.getNextID(), startOfSimulationInterval, endOfSimulationInterval));
-            } catch (EIDGeneratorOverflow e) {
-                e.printStackTrace();
+            this.nodesIdleAtStart[i] = false;
+        }
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            if ((this.linksIdleAtStart[i]) && (this.linksSnapshot[i].isIdle())) {
+                this.linksSnapshot[i].sleepIfNotWokenUp();
             }
+            this.linksIdleAtStart[i] = false;
+        }
+    }
+
+    /**
+     * This method copies the nodes and links subscribed to receive timer
+     * events into arrays, so the tick loop can go through them without
+     * creating iterators.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void refreshListenerSnapshots() {
+        this.listenersChanged = false;
+        this.nodesSnapshot = (TTopologyElement[]) this.timerEventListenerNodes.toArray(new TTopologyElement[this.timerEventListenerNodes.size()]);
+        this.linksSnapshot = (TTopologyElement[]) this.timerEventListenerLInks.toArray(new TTopologyElement[this.timerEventListenerLInks.size()]);
+        this.nodesIdleAtStart = new boolean[this.nodesSnapshot.length];
+        this.linksIdleAtStart = new boolean[this.linksSnapshot.length];
+        this.nodesBatchTasks = new TBatchTask[this.nodesSnapshot.length];
+        this.linksBatchTasks = new TBatchTask[this.linksSnapshot.length];
+        this.nodeIndexes.clear();
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            this.nodesBatchTasks[i] = new TBatchTask(this.nodesSnapshot[i], new TTickOutbox());
+            this.nodeIndexes.put(this.nodesSnapshot[i], Integer.valueOf(i));
+        }
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            this.linksBatchTasks[i] = new TBatchTask(this.linksSnapshot[i], null);
+        }
+    }
+
+    /**
+     * This method is the commit phase of a tick. Once every element has
+     * finished its work, it hands the packets stored in their outboxes to the
+     * destination links and ports, first those of the nodes and then those of
+     * the links, always in order of identifier. So, the result of a tick is
+     * always the same, no matter how the workers were interleaved.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void commitOutboxes() {
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            this.nodesSnapshot[i].getOutbox().commit();
+        }
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            this.linksSnapshot[i].getOutbox().commit();
+        }
+    }
+
+    /**
+     * This method discards the packets stored in the outboxes of every
+     * element and wakes every element up.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void clearOutboxes() {
+        Iterator nodesIterator = this.timerEventListenerNodes.iterator();
+        Iterator linksIterator = this.timerEventListenerLInks.iterator();
+        TTopologyElement elementAux;
+        while (nodesIterator.hasNext()) {
+            elementAux = (TTopologyElement) nodesIterator.next();
+            elementAux.getOutbox().clear();
+            elementAux.wakeUp();
+        }
+        while (linksIterator.hasNext()) {
+            elementAux = (TTopologyElement) linksIterator.next();
+            elementAux.getOutbox().clear();
+            elementAux.wakeUp();
         }
     }
 
@@ -298,11 +740,13 @@ public class TTimer implements Runnable {
      */
     public void generateProgressEvent() {
         int computedProgress = 0;
-        long simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
-        long currentTime = this.currentTimestamp.getTotalAsNanoseconds();
-        if (simulationDuration != 0) {
-            computedProgress = (int) Math.round((currentTime * 100) / simulationDuration);
+        if (this.finishInstant != 0) {
+            computedProgress = (int) Math.round((this.currentInstant * 100) / this.finishInstant);
+        }
+        if (computedProgress == this.lastProgress) {
+            return;
         }
+        this.lastProgress = computedProgress;
         try {
             if (this.progressEventListener != null) {
                 this.progressEventListener.receiveProgressEvent(new TProgressEvent(this, this.longIdentifierGenerator.getNextID(), computedProgress));
@@ -364,15 +808,15 @@ public class TTimer implements Runnable {
         if ((this.paused) && (pause)) {
             // Do nothing. The timer is already paused.
         } else if ((this.paused) && (!pause)) {
-            this.currentTimestamp.setTimestamp(this.currentTimestampAux);
-            this.previousTimestamp.setTimestamp(this.previousTimestampAux);
-            this.finishTimestamp.setTimestamp(this.finishTimestampAux);
+            this.currentInstant = this.currentInstantAux;
+            this.previousInstant = this.previousInstantAux;
+            this.finishInstant = this.finishInstantAux;
             this.paused = pause;
             restart();
         } else if ((!this.paused) && (pause)) {
-            this.currentTimestampAux.setTimestamp(this.currentTimestamp);
-            this.previousTimestampAux.setTimestamp(this.previousTimestamp);
-            this.finishTimestampAux.setTimestamp(this.finishTimestamp);
+            this.currentInstantAux = this.currentInstant;
+            this.previousInstantAux = this.previousInstant;
+            this.finishInstantAux = this.finishInstant;
             this.paused = pause;
             this.isFinished = true;
         } else if ((!this.paused) && (!pause)) {
@@ -395,75 +839,505 @@ public class TTimer implements Runnable {
      * If the thread of this timer is alive and operative, this method will
      * simulate and synchronize all topology elements continuously. This method
      * orchestrate everything by sending timer events to al elements an wait
-     * until they finishing using this event to simulate whatever.
+     * until they finishing using this event to simulate whatever. If the
+     * work of an element fails, the simulation stops and the failure is
+     * thrown. When the simulation finishes or is paused, the workers that run
+     * the elements are stopped.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     public void run() {
+        try {
+            if (this.engineMode == TTimer.DISCRETE_EVENT_ENGINE) {
+                runDiscreteEventEngine();
+            } else if (this.engineMode == TTimer.PARTITIONED_ENGINE) {
+                runPartitionedEngine();
+            } else {
+                runFixedTickEngine();
+            }
+        } finally {
+            this.running = false;
+            stopWorkers();
+            logPinningReport();
+            logSwitchingMatrixContention();
+        }
+    }
+
+    /**
+     * This method logs the report of TPinningMonitor at the end of a run on
+     * virtual threads, when any of them has entered a synchronized region of
+     * the simulator.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void logPinningReport() {
+        if (this.workerPool.isVirtual()) {
+            String report = TPinningMonitor.getReport();
+            if (!report.isEmpty()) {
+                Logger.getLogger(TTimer.class.getName()).log(Level.INFO, java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TTimer.PinningReport"), report);
+            }
+        }
+    }
+
+    /**
+     * This method logs, at the end of a run, how the lookups and the writes on
+     * the switching matrices of the nodes have been served, so that it can be
+     * checked that the forwarding path does not wait for the TLDP signaling.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void logSwitchingMatrixContention() {
+        long optimisticLookups = 0;
+        long retriedLookups = 0;
+        long blockedLookups = 0;
+        long writes = 0;
+        long blockedWrites = 0;
+        Iterator nodesIterator = this.timerEventListenerNodes.iterator();
+        TSwitchingMatrix switchingMatrixAux;
+        while (nodesIterator.hasNext()) {
+            switchingMatrixAux = ((TNode) nodesIterator.next()).getSwitchingMatrix();
+            if (switchingMatrixAux != null) {
+                optimisticLookups += switchingMatrixAux.getOptimisticLookups();
+                retriedLookups += switchingMatrixAux.getRetriedLookups();
+                blockedLookups += switchingMatrixAux.getBlockedLookups();
+                writes += switchingMatrixAux.getWrites();
+                blockedWrites += switchingMatrixAux.getBlockedWrites();
+            }
+        }
+        if ((optimisticLookups + retriedLookups + blockedLookups + writes) > 0) {
+            Logger.getLogger(TTimer.class.getName()).log(Level.INFO, java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TTimer.SwitchingMatrixContention"), new Object[]{optimisticLookups, retriedLookups, blockedLookups, writes, blockedWrites});
+        }
+    }
+
+    /**
+     * This method stops the workers of the timer and of the partitions, if
+     * any. They are started again by the next simulation run.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void stopWorkers() {
+        this.workerPool.stopWorkers();
+        if (this.partitioner != null) {
+            this.partitioner.stopWorkers();
+        }
+    }
+
+    /**
+     * This method runs the simulation with the fixed-tick engine: every tick
+     * is sent to the elements that have work to do, and a barrier waits for
+     * all of them before the next tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void runFixedTickEngine() {
         this.running = true;
-        long currentSimulatedTime;
-        long previousSimulatedTime;
-        long simulationDuration;
         boolean simulationFinished = false;
         this.isFinished = false;
-        this.currentTimestamp.increaseNanoseconds(this.tick);
-        currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
-        simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
-        if (currentSimulatedTime == simulationDuration) {
+        this.currentInstant += this.tick;
+        if (this.currentInstant == this.finishInstant) {
             simulationFinished = true;
         }
-        while ((this.currentTimestamp.compareTo(this.finishTimestamp) != TTimestamp.ARGUMENT_IS_LOWER) && (!this.isFinished)) {
+        int batchSize;
+        while ((this.currentInstant <= this.finishInstant) && (!this.isFinished)) {
             // Let's simulate
             generateProgressEvent();
-            generateTimerEvent();
+            batchSize = getSafeBatchSize();
+            if (batchSize > 2) {
+                runBatch(batchSize);
+                this.currentInstant += (long) (batchSize - 1) * this.tick;
+            } else {
+                generateTimerEvent();
+            }
             // ------------------
-            this.previousTimestamp.setMillisecond(this.currentTimestamp.getMillisecond());
-            this.previousTimestamp.setNanosecond(this.currentTimestamp.getNanosecond());
-            currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
-            simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
-            if (currentSimulatedTime + this.tick > simulationDuration) {
+            this.previousInstant = this.currentInstant;
+            if (this.currentInstant + this.tick > this.finishInstant) {
                 if (!simulationFinished) {
-                    currentTimestamp.setMillisecond(this.finishTimestamp.getMillisecond());
-                    currentTimestamp.setNanosecond(this.finishTimestamp.getNanosecond());
+                    this.currentInstant = this.finishInstant;
                     simulationFinished = true;
                 } else {
-                    this.currentTimestamp.increaseNanoseconds(this.tick);
+                    this.currentInstant += this.tick;
                 }
             } else {
-                this.currentTimestamp.increaseNanoseconds(this.tick);
+                this.currentInstant += this.tick;
             }
-            currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
-            previousSimulatedTime = this.previousTimestamp.getTotalAsNanoseconds();
-            if (previousSimulatedTime == currentSimulatedTime) {
+            if (this.previousInstant == this.currentInstant) {
                 this.isFinished = true;
             }
+            if (batchSize <= 2) {
+                waitUntilTimerEventListenersFinishTheirWork();
+                commitOutboxes();
+                updateActiveSet();
+            }
+            if ((this.idleFastForward) && (!this.isFinished)) {
+                fastForwardIfIdle();
+            }
+        }
+        this.running = false;
+    }
+
+    /**
+     * This method computes how many ticks, starting with the current one, can
+     * be simulated without a barrier between them. It is the number of ticks
+     * the fastest link needs to carry a packet from one end to the other,
+     * limited by the ticks remaining until the end of the simulation.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of ticks of the next batch. 1 if the next tick has to
+     * be simulated alone.
+     * @since 2.0
+     */
+    private int getSafeBatchSize() {
+        boolean linkStateChangedAux = this.linkStateChanged;
+        this.linkStateChanged = false;
+        if ((!this.barrierElision) || (linkStateChangedAux)) {
+            return 1;
+        }
+        if (this.currentInstant - this.previousInstant != this.tick) {
+            return 1;
+        }
+        if (this.listenersChanged) {
+            refreshListenerSnapshots();
+        }
+        long batchSize = Math.min(((this.finishInstant - this.currentInstant) / this.tick) + 1, TTimer.MAX_BATCH_SIZE);
+        TLink linkAux;
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            linkAux = (TLink) this.linksSnapshot[i];
+            if (linkAux.isBroken()) {
+                return 1;
+            }
+            batchSize = Math.min(batchSize, (linkAux.obtenerDelay() + this.tick - 1) / this.tick);
+        }
+        return (int) Math.max(batchSize, 1);
+    }
+
+    /**
+     * This method simulates a batch of ticks with only two barriers. First,
+     * every link runs all the ticks of the batch. No packet sent by a node
+     * during the batch can reach the end of a link before the batch finishes,
+     * so links only deliver packets that were already travelling. Then every
+     * node runs all the ticks of the batch, receiving each packet delivered by
+     * a link at the beginning of the tick after the one it arrived in, as if
+     * there was a barrier per tick. Finally, packets sent by nodes are put on
+     * the links, discounting the time they have already been travelling.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param batchSize The number of ticks of the batch.
+     * @since 2.0
+     */
+    private void runBatch(int batchSize) {
+        long batchStart = this.previousInstant;
+        long batchEnd = this.currentInstant + (long) (batchSize - 1) * this.tick;
+        this.dispatchedInstant = batchEnd;
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            this.linksIdleAtStart[i] = sendBatch(this.linksBatchTasks[i], batchStart, batchSize);
+        }
+        waitUntilTimerEventListenersFinishTheirWork();
+        TTickOutbox linkOutbox;
+        TNode nodeAux;
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            linkOutbox = this.linksSnapshot[i].getOutbox();
+            for (int j = 0; j < linkOutbox.size(); j++) {
+                nodeAux = (TNode) linkOutbox.getTarget(j);
+                Integer nodeIndex = (Integer) this.nodeIndexes.get(nodeAux);
+                if (nodeIndex != null) {
+                    this.nodesBatchTasks[nodeIndex.intValue()].arrivals.addPacketToNode(nodeAux, linkOutbox.getPacket(j), linkOutbox.getTargetPort(j), linkOutbox.getInstant(j));
+                    nodeAux.wakeUp();
+                } else {
+                    nodeAux.ponerPaquete(linkOutbox.getPacket(j), linkOutbox.getTargetPort(j));
+                }
+            }
+            linkOutbox.clear();
+        }
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            this.nodesIdleAtStart[i] = sendBatch(this.nodesBatchTasks[i], batchStart, batchSize);
+        }
+        waitUntilTimerEventListenersFinishTheirWork();
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            this.nodesSnapshot[i].getOutbox().commit(batchEnd);
+            this.nodesBatchTasks[i].arrivals.commit();
+        }
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            this.linksSnapshot[i].getOutbox().commit();
+        }
+        updateActiveSet();
+        this.elidedBarriers += batchSize - 2;
+    }
+
+    /**
+     * This method hands a batch of ticks to the worker pool, unless the
+     * active-set scheduling is enabled and the element is asleep.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param batchTask The batch task of the element.
+     * @param batchStart The start of the first tick of the batch, in
+     * nanoseconds.
+     * @param batchSize The number of ticks of the batch.
+     * @return TRUE, if the active-set scheduling is enabled and the element
+     * starts the batch with nothing to do. Otherwise, FALSE.
+     * @since 2.0
+     */
+    private boolean sendBatch(TBatchTask batchTask, long batchStart, int batchSize) {
+        boolean idle = false;
+        if (this.activeSetScheduling) {
+            if (batchTask.element.isAsleep()) {
+                batchTask.element.setTimeInstant(this.dispatchedInstant);
+                for (int i = 1; i <= batchSize; i++) {
+                    generateCongestionSample(batchTask.element, batchStart + i * this.tick);
+                }
+                this.skippedTimerEvents += batchSize;
+                return false;
+            }
+            batchTask.element.clearWakeUp();
+            idle = batchTask.element.isIdle() && ((batchTask.arrivals == null) || (batchTask.arrivals.isEmpty()));
+        }
+        batchTask.setBatch(batchStart, batchSize);
+        this.workerPool.execute(batchTask);
+        return idle;
+    }
+
+    /**
+     * This method is called between two ticks of the fixed-tick engine. If the
+     * topology is quiescent, nothing can happen until the next sender is able
+     * to emit a packet, so the next tick is stretched to cover all the idle
+     * ticks until then. The tick in which the sender emits is still simulated
+     * as a regular tick, so that elements receive the same per-tick credit
+     * they would receive without fast-forward. Nodes still take the
+     * congestion samples of the skipped ticks.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void fastForwardIfIdle() {
+        if (!isTopologyIdle()) {
+            return;
+        }
+        TNode nodeAux;
+        long lastInstant = this.previousInstant;
+        long plannedInstant = this.currentInstant;
+        long targetInstant = this.finishInstant;
+        long nanosecondsUntilEmission;
+        long emissionInstant;
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            nodeAux = (TNode) this.nodesSnapshot[i];
+            if (nodeAux.getNodeType() == TNode.SENDER) {
+                nanosecondsUntilEmission = ((TSenderNode) nodeAux).getNanosecondsUntilNextEmission();
+                if (nanosecondsUntilEmission >= 0) {
+                    emissionInstant = lastInstant + (((nanosecondsUntilEmission + this.tick - 1) / this.tick) * this.tick);
+                    if (emissionInstant < targetInstant) {
+                        targetInstant = emissionInstant;
+                    }
+                }
+            }
+        }
+        // The idle step ends with the last whole tick before the target, as
+        // the last tick of the simulation may be shorter than the others.
+        long idleStepEnd = lastInstant + (((targetInstant - lastInstant - 1) / this.tick) * this.tick);
+        if (idleStepEnd > plannedInstant) {
+            generateCongestionSamples(lastInstant, idleStepEnd - this.tick);
+            this.skippedTicks += (idleStepEnd - plannedInstant) / this.tick;
+            this.currentInstant = idleStepEnd;
+        }
+    }
+
+    /**
+     * This method checks whether the topology is quiescent, that is, there is
+     * not any packet waiting in the ports of a node, not any packet in transit
+     * through a link and not any TLDP or GPSRP timeout running in a node.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the topology is quiescent. Otherwise, FALSE.
+     * @since 2.0
+     */
+    private boolean isTopologyIdle() {
+        TNode nodeAux;
+        TLink linkAux;
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            nodeAux = (TNode) this.nodesSnapshot[i];
+            if ((nodeAux.getPorts() != null) && (nodeAux.getPorts().isAnyPacketPending())) {
+                return false;
+            }
+            if (nodeAux.getMinimumPendingTimeout() >= 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < this.linksSnapshot.length; i++) {
+            linkAux = (TLink) this.linksSnapshot[i];
+            if (linkAux.isAnyPacketInTransit()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method is the discrete-event counterpart of run(). Instead of
+     * generating a timer event every tick, it jumps from one scheduled event
+     * to the next one. When the next event is more than a tick away, the idle
+     * interval is simulated in a single step and then a regular tick ending at
+     * the event is simulated, so that elements receive the same per-tick
+     * credit they would receive with the fixed-tick engine. Nodes still take
+     * the congestion samples of the ticks of the idle interval.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void runDiscreteEventEngine() {
+        this.running = true;
+        this.isFinished = false;
+        long finishInstant = this.finishInstant;
+        long reachedInstant = this.currentInstant;
+        long nextInstant;
+        long idleIntervalEnd;
+        // Every element runs at least once, so it can schedule its own events.
+        this.eventQueue.schedule(reachedInstant + this.tick);
+        while ((reachedInstant < finishInstant) && (!this.isFinished)) {
+            nextInstant = this.eventQueue.pollNextEventAfter(reachedInstant);
+            if ((nextInstant == TTimerEventQueue.NO_EVENT) || (nextInstant > finishInstant)) {
+                nextInstant = finishInstant;
+            }
+            // The idle interval ends with the last whole tick before the
+            // event, as the last tick of the simulation may be shorter.
+            idleIntervalEnd = reachedInstant + (((nextInstant - reachedInstant - 1) / this.tick) * this.tick);
+            if (idleIntervalEnd > reachedInstant) {
+                generateCongestionSamples(reachedInstant, idleIntervalEnd - this.tick);
+                simulateStep(reachedInstant, idleIntervalEnd);
+                reachedInstant = idleIntervalEnd;
+            }
+            simulateStep(reachedInstant, nextInstant);
+            reachedInstant = nextInstant;
+            scheduleNodesWithPacketsToSwitch();
+        }
+        this.running = false;
+    }
+
+    /**
+     * This method is the partitioned parallel counterpart of run(). The
+     * topology is split into partitions that are simulated tick by tick and
+     * in parallel, each one on its own worker. Partitions only synchronize at
+     * the end of each window, whose length is the lookahead of the partitioned
+     * topology: a packet sent through a link between partitions can not
+     * arrive before the current window finishes, so no partition can receive
+     * a packet from the past. Partitions are kept while the simulation is
+     * paused and released when it finishes or the timer is reset.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void runPartitionedEngine() {
+        this.running = true;
+        this.isFinished = false;
+        if (this.partitioner == null) {
+            this.partitioner = new TTopologyPartitioner(this, this.timerEventListenerNodes, this.timerEventListenerLInks, this.numberOfPartitions, this.tick);
+        }
+        final TTimerPartition[] partitions = this.partitioner.getPartitions();
+        long window = Math.max(this.partitioner.getLookahead(), this.tick);
+        long finishInstant = this.finishInstant;
+        long reachedInstant = this.currentInstant;
+        while ((reachedInstant < finishInstant) && (!this.isFinished)) {
+            final long windowStart = reachedInstant;
+            final long windowEnd = Math.min(reachedInstant + window, finishInstant);
+            for (int i = 0; i < partitions.length; i++) {
+                final TTimerPartition partition = partitions[i];
+                this.workerPool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        partition.simulateWindow(windowStart, windowEnd, tick);
+                    }
+                });
+            }
             waitUntilTimerEventListenersFinishTheirWork();
+            this.previousInstant = windowStart;
+            this.currentInstant = windowEnd;
+            generateProgressEvent();
+            reachedInstant = windowEnd;
+        }
+        if (reachedInstant >= finishInstant) {
+            releasePartitions();
         }
         this.running = false;
     }
 
+    /**
+     * This method undoes the partitioning of the topology, if any, so that
+     * every element goes back to the worker pool of the timer.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void releasePartitions() {
+        if (this.partitioner != null) {
+            this.partitioner.release(this.workerPool);
+            this.partitioner = null;
+        }
+    }
+
+    /**
+     * This method simulates a single step of the discrete-event engine,
+     * between the specified instants.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param startInstant Start of the simulation step, in nanoseconds.
+     * @param endInstant End of the simulation step, in nanoseconds.
+     * @since 2.0
+     */
+    private void simulateStep(long startInstant, long endInstant) {
+        this.previousInstant = startInstant;
+        this.currentInstant = endInstant;
+        generateProgressEvent();
+        generateTimerEvent();
+        waitUntilTimerEventListenersFinishTheirWork();
+        commitOutboxes();
+        updateActiveSet();
+    }
+
+    /**
+     * This method schedules an event for the next tick if any node still has
+     * packets waiting to be switched in its ports, because those nodes keep
+     * working tick by tick until their ports are drained.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void scheduleNodesWithPacketsToSwitch() {
+        TNode nodeAux;
+        for (int i = 0; i < this.nodesSnapshot.length; i++) {
+            nodeAux = (TNode) this.nodesSnapshot[i];
+            if ((nodeAux.getPorts() != null) && (nodeAux.getPorts().isAnyPacketPending())) {
+                scheduleEventAfter(this.tick);
+                return;
+            }
+        }
+    }
+
     /**
      * This method wait until all element that received a timer event have
      * consumed them. This is the way to synchronize al topology elements
-     * between timer events. This method is a synchronized one.
+     * between timer events. The work of every element is run by the worker
+     * pool of the timer, so a single barrier on the pool closes the tick. This
+     * method is a synchronized one.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     private synchronized void waitUntilTimerEventListenersFinishTheirWork() {
-        Iterator nodesIterator = this.timerEventListenerNodes.iterator();
-        Iterator linksIterator = this.timerEventListenerLInks.iterator();
-        TNode nodeAux;
-        TLink linkAux;
-        while (nodesIterator.hasNext()) {
-            nodeAux = (TNode) nodesIterator.next();
-            nodeAux.waitForCompletion();
-        }
-        while (linksIterator.hasNext()) {
-            linkAux = (TLink) linksIterator.next();
-            linkAux.waitForCompletion();
-        }
+        this.workerPool.waitForCompletion();
+    }
+
+    /**
+     * This method returns the pool of long-lived workers that run the work of
+     * the topology elements on each tick.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The worker pool of this timer.
+     * @since 2.0
+     */
+    public TTimerWorkerPool getWorkerPool() {
+        return this.workerPool;
     }
 
     /**
@@ -495,19 +1369,114 @@ public class TTimer implements Runnable {
         return this.running;
     }
 
+    /**
+     * This class implements the work of an element during a batch of ticks. It
+     * sends the element a timer event per tick, one after another, in the
+     * thread of the worker. Each instance owns its tick context and timer event
+     * and is reused in every batch, so running a batch does not create new
+     * objects.
+     *
+     * @author The OpenSimMPLS contributors
+     * @version 2.0
+     */
+    private class TBatchTask implements Runnable {
+
+        TBatchTask(TTopologyElement element, TTickOutbox arrivals) {
+            this.element = element;
+            this.arrivals = arrivals;
+            this.batchTickContext = new TTickContext(0, 0);
+            this.batchTimerEvent = new TTimerEvent(TTimer.this, this.batchTickContext);
+            this.batchStart = 0;
+            this.batchSize = 0;
+        }
+
+        void setBatch(long batchStart, int batchSize) {
+            this.batchStart = batchStart;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void run() {
+            long tickStart;
+            for (int i = 0; i < this.batchSize; i++) {
+                tickStart = this.batchStart + (long) i * tick;
+                if (this.arrivals != null) {
+                    this.arrivals.commitUntil(tickStart);
+                }
+                this.batchTickContext.setInterval(tickStart, tickStart + tick);
+                this.element.runTimerEventInline(this.batchTimerEvent);
+            }
+        }
+
+        private final TTopologyElement element;
+        private final TTickOutbox arrivals;
+        private final TTickContext batchTickContext;
+        private final TTimerEvent batchTimerEvent;
+        private long batchStart;
+        private int batchSize;
+    }
+
     private TreeSet timerEventListenerNodes;
     private TreeSet timerEventListenerLInks;
     private TProgressEventListener progressEventListener;
+    private TTimerWorkerPool workerPool;
     private TLongIDGenerator longIdentifierGenerator;
     private int tick;
+    private int engineMode;
+    private TTimerEventQueue eventQueue;
+    private volatile long dispatchedInstant;
+    private boolean idleFastForward;
+    private long skippedTicks;
+    private boolean activeSetScheduling;
+    private long skippedTimerEvents;
+    private boolean[] nodesIdleAtStart;
+    private boolean[] linksIdleAtStart;
+    private int numberOfPartitions;
+    private boolean barrierElision;
+    private volatile boolean linkStateChanged;
+    private long elidedBarriers;
+    private TBatchTask[] nodesBatchTasks;
+    private TBatchTask[] linksBatchTasks;
+    private IdentityHashMap nodeIndexes;
+    private TTopologyPartitioner partitioner;
     private Thread thread;
-    private TTimestamp currentTimestamp;
-    private TTimestamp previousTimestamp;
-    private TTimestamp finishTimestamp;
+    private long currentInstant;
+    private long previousInstant;
+    private long finishInstant;
+    private int lastProgress;
+    private TTickContext tickContext;
+    private TTimerEvent timerEvent;
+    private TTopologyElement[] nodesSnapshot;
+    private TTopologyElement[] linksSnapshot;
+    private boolean listenersChanged;
     private boolean running;
     private boolean isFinished;
     private boolean paused;
-    private TTimestamp currentTimestampAux;
-    private TTimestamp previousTimestampAux;
-    private TTimestamp finishTimestampAux;
+    private long currentInstantAux;
+    private long previousInstantAux;
+    private long finishInstantAux;
+
+    /**
+     * This constant identifies the engine that generates a timer event every
+     * tick.
+     *
+     * @since 2.0
+     */
+    public static final int FIXED_TICK_ENGINE = 0;
+    /**
+     * This constant identifies the engine that jumps from one scheduled event
+     * to the next one.
+     *
+     * @since 2.0
+     */
+    public static final int DISCRETE_EVENT_ENGINE = 1;
+    /**
+     * This constant identifies the engine that splits the topology into
+     * partitions simulated in parallel.
+     *
+     * @since 2.0
+     */
+    public static final int PARTITIONED_ENGINE = 2;
+
+    private static final long MAX_BATCH_SIZE = 64;
 }
@@ -19,7 +19,8 @@ import simMPLS.utils.TOpenSimMPLSEvent;
 
 /**
  * This class implements a timer event that will be used to govern and
- * synchronize all elements that compose the simulation.
+ * synchronize all elements that compose the simulation. It is only a view of
+ * a TTickContext, so the timer can send the same instance tick after tick.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
@@ -40,8 +41,23 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
      */
     public TTimerEvent(Object eventGenerator, long eventID, TTimestamp lowerEndOfInterval, TTimestamp upperEndOfInterval) {
         super(eventGenerator, eventID, upperEndOfInterval.getTotalAsNanoseconds());
-        this.lowerEndOfInterval = lowerEndOfInterval;
-        this.upperEndOfInterval = upperEndOfInterval;
+        this.tickContext = new TTickContext(lowerEndOfInterval.getTotalAsNanoseconds(), upperEndOfInterval.getTotalAsNanoseconds());
+    }
+
+    /**
+     * This method is the constructor of the class. It creates a new instance of
+     * TTimerEvent that always reflects the current values of the specified
+     * tick context.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param eventGenerator The object that generates the event.
+     * @param tickContext The interval carried out by the event. It can be
+     * changed later on to reuse the event in the next tick.
+     * @since 2.0
+     */
+    public TTimerEvent(Object eventGenerator, TTickContext tickContext) {
+        super(eventGenerator, 0, tickContext.getEndInstant());
+        this.tickContext = tickContext;
     }
 
     /**
@@ -54,7 +70,7 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
      * @since 2.0
      */
     public int getStepDuration() {
-        return (int) ((this.upperEndOfInterval.getTotalAsNanoseconds()) - (this.lowerEndOfInterval.getTotalAsNanoseconds()));
+        return this.tickContext.getStepDuration();
     }
 
     /**
@@ -66,7 +82,20 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
      * @since 2.0
      */
     public long getUpperLimit() {
-        return (long) (this.upperEndOfInterval.getTotalAsNanoseconds());
+        return this.tickContext.getEndInstant();
+    }
+
+    /**
+     * This method returns the instant of the event, that is, the end of the
+     * interval carried out by the event.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The end of the interval, in nanoseconds.
+     * @since 2.0
+     */
+    @Override
+    public long obtenerInstante() {
+        return this.tickContext.getEndInstant();
     }
 
     /**
@@ -82,6 +111,5 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
         return TOpenSimMPLSEvent.TIMER;
     }
 
-    private final TTimestamp lowerEndOfInterval;
-    private final TTimestamp upperEndOfInterval;
+    private final TTickContext tickContext;
 }
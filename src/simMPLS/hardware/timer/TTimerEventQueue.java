@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.TreeSet;
+
+/**
+ * This class implements a time-ordered queue of simulation instants. It is
+ * used by the timer when it works as a discrete-event engine: topology
+ * elements schedule the instants at which something will happen (a packet
+ * arrives at the end of a link, a sender is able to emit again, a timeout
+ * expires...) and the timer jumps straight from one instant to the next one.
+ * Several events scheduled for the same instant are merged into a single one.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimerEventQueue {
+
+    /**
+     * This method is the constructor of the class. It creates a new, empty,
+     * instance of TTimerEventQueue.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public TTimerEventQueue() {
+        this.instants = new TreeSet();
+    }
+
+    /**
+     * This method schedules a new event at the specified simulation instant.
+     * This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant Simulation instant of the event, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized void schedule(long instant) {
+        this.instants.add(Long.valueOf(instant));
+    }
+
+    /**
+     * This method removes from the queue every event scheduled at or before
+     * the specified instant and returns the first one scheduled after it.
+     * This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant Current simulation instant, in nanoseconds.
+     * @return The instant of the next event after the specified one, in
+     * nanoseconds, or NO_EVENT if there is not any scheduled event.
+     * @since 2.0
+     */
+    public synchronized long pollNextEventAfter(long instant) {
+        Long nextInstant;
+        while (!this.instants.isEmpty()) {
+            nextInstant = (Long) this.instants.pollFirst();
+            if (nextInstant.longValue() > instant) {
+                return nextInstant.longValue();
+            }
+        }
+        return TTimerEventQueue.NO_EVENT;
+    }
+
+    /**
+     * This method returns the instant of the next scheduled event without
+     * removing it from the queue. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The instant of the next event, in nanoseconds, or NO_EVENT if
+     * there is not any scheduled event.
+     * @since 2.0
+     */
+    public synchronized long peekNextEvent() {
+        if (this.instants.isEmpty()) {
+            return TTimerEventQueue.NO_EVENT;
+        }
+        return ((Long) this.instants.first()).longValue();
+    }
+
+    /**
+     * This method removes every scheduled event from the queue. This method is
+     * a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public synchronized void reset() {
+        this.instants.clear();
+    }
+
+    /**
+     * This constant means that there is not any scheduled event.
+     *
+     * @since 2.0
+     */
+    public static final long NO_EVENT = -1;
+
+    private TreeSet instants;
+}
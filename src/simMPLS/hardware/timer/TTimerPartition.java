@@ -0,0 +1,350 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+
+/**
+ * This class implements the scheduler of a partition of the topology. It
+ * simulates, tick by tick and on its own worker, the nodes of the partition
+ * and the links whose ends are both in the partition. Packets coming from
+ * other partitions are received through TPartitionChannel instances and put
+ * in the ports of the destination nodes in the commit phase of the tick they
+ * arrive, as packets travelling through a link of the partition are.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimerPartition {
+
+    /**
+     * This method is the constructor of the class. It creates a new, empty,
+     * instance of TTimerPartition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timer The timer that owns the partition.
+     * @param partitionID The identifier of the partition.
+     * @since 2.0
+     */
+    public TTimerPartition(TTimer timer, int partitionID) {
+        this.timer = timer;
+        this.partitionID = partitionID;
+        this.remotePartitionListener = null;
+        this.nodes = new TreeSet();
+        this.links = new TreeSet();
+        this.boundaryLinks = new TreeSet();
+        this.pendingDeliveries = new TreeMap();
+        this.workerPool = new TTimerWorkerPool(1);
+        this.currentInstant = 0;
+        this.tickContext = new TTickContext(0, 0);
+        this.timerEvent = new TTimerEvent(timer, this.tickContext);
+    }
+
+    /**
+     * This method adds a node to the partition. From now on, the work of the
+     * node is run by the worker of the partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param node The node to be added.
+     * @since 2.0
+     */
+    public void addNode(TNode node) {
+        this.nodes.add(node);
+        node.setWorkerPool(this.workerPool);
+    }
+
+    /**
+     * This method adds to the partition a link whose ends are both in the
+     * partition. From now on, the work of the link is run by the worker of the
+     * partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param link The link to be added.
+     * @since 2.0
+     */
+    public void addLink(TLink link) {
+        this.links.add(link);
+        link.setWorkerPool(this.workerPool);
+    }
+
+    /**
+     * This method adds to the partition a link between one of its nodes and a
+     * node of another partition. The link is replaced by a TPartitionChannel,
+     * so it does not work tick by tick; the partition only keeps its clock up
+     * to date, so that the events it generates carry the right instant.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param link The link to be added.
+     * @since 2.0
+     */
+    public void addBoundaryLink(TLink link) {
+        this.boundaryLinks.add(link);
+    }
+
+    /**
+     * This method returns the identifier of the partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The identifier of the partition.
+     * @since 2.0
+     */
+    public int getPartitionID() {
+        return this.partitionID;
+    }
+
+    /**
+     * This method returns an iterator over the nodes of the partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return An iterator over the nodes of the partition.
+     * @since 2.0
+     */
+    public Iterator getNodesIterator() {
+        return this.nodes.iterator();
+    }
+
+    /**
+     * This method marks the partition as simulated somewhere else. From now
+     * on, packets sent to the partition are handed to the specified listener
+     * instead of being delivered locally.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param remotePartitionListener The listener that receives the packets
+     * sent to the partition. NULL, to simulate the partition locally again.
+     * @since 2.0
+     */
+    public synchronized void setRemotePartitionListener(IRemotePartitionListener remotePartitionListener) {
+        this.remotePartitionListener = remotePartitionListener;
+    }
+
+    /**
+     * This method returns the number of nodes of the partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of nodes of the partition.
+     * @since 2.0
+     */
+    public int getNumberOfNodes() {
+        return this.nodes.size();
+    }
+
+    /**
+     * This method returns the end of the tick the partition is simulating or
+     * has simulated the last.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The end of the current tick, in nanoseconds.
+     * @since 2.0
+     */
+    public long getCurrentInstant() {
+        return this.currentInstant;
+    }
+
+    /**
+     * This method simulates, tick by tick, all the elements of the partition
+     * between the specified instants. The interval must not be longer than
+     * the lookahead of the partitioned topology. Otherwise, packets coming
+     * from other partitions could arrive too late.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param startInstant The beginning of the window, in nanoseconds.
+     * @param endInstant The end of the window, in nanoseconds.
+     * @param tick The tick of the simulation, in nanoseconds.
+     * @since 2.0
+     */
+    public void simulateWindow(long startInstant, long endInstant, int tick) {
+        long stepStart = startInstant;
+        long stepEnd;
+        while (stepStart < endInstant) {
+            stepEnd = Math.min(stepStart + tick, endInstant);
+            simulateStep(stepStart, stepEnd);
+            stepStart = stepEnd;
+        }
+    }
+
+    /**
+     * This method schedules the delivery of a packet coming from another
+     * partition. If the partition is simulated remotely, the packet is handed
+     * to its remote partition listener. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant The instant the packet arrives, in nanoseconds.
+     * @param packet The packet.
+     * @param node The destination node of the packet.
+     * @param port The port of the destination node the packet arrives to.
+     * @param link The link the packet travels through.
+     * @since 2.0
+     */
+    public synchronized void scheduleDelivery(long instant, TAbstractPDU packet, TNode node, int port, TLink link) {
+        if (this.remotePartitionListener != null) {
+            if (link.getEnd1() == node) {
+                this.remotePartitionListener.captureRemoteDelivery(this, instant, packet, link, TLink.END_NODE_1);
+            } else {
+                this.remotePartitionListener.captureRemoteDelivery(this, instant, packet, link, TLink.END_NODE_2);
+            }
+            return;
+        }
+        Long key = Long.valueOf(instant);
+        LinkedList deliveries = (LinkedList) this.pendingDeliveries.get(key);
+        if (deliveries == null) {
+            deliveries = new LinkedList();
+            this.pendingDeliveries.put(key, deliveries);
+        }
+        deliveries.add(new TPendingDelivery(packet, node, port, link));
+    }
+
+    /**
+     * This method stops the worker of the partition until the partition is
+     * simulated again. Packets not yet delivered are kept.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void stopWorker() {
+        this.workerPool.stopWorkers();
+    }
+
+    /**
+     * This method stops the worker of the partition. Packets not yet
+     * delivered are discarded.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public synchronized void release() {
+        this.pendingDeliveries.clear();
+        this.workerPool.shutdown();
+    }
+
+    /**
+     * This method simulates a single tick of the partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param startInstant Start of the tick, in nanoseconds.
+     * @param endInstant End of the tick, in nanoseconds.
+     * @since 2.0
+     */
+    private void simulateStep(long startInstant, long endInstant) {
+        Iterator nodesIterator = this.nodes.iterator();
+        Iterator linksIterator = this.links.iterator();
+        Iterator boundaryLinksIterator = this.boundaryLinks.iterator();
+        this.tickContext.setInterval(startInstant, endInstant);
+        this.currentInstant = endInstant;
+        while (boundaryLinksIterator.hasNext()) {
+            ((TLink) boundaryLinksIterator.next()).setTimeInstant(endInstant);
+        }
+        while (nodesIterator.hasNext()) {
+            ((TNode) nodesIterator.next()).receiveTimerEvent(this.timerEvent);
+        }
+        while (linksIterator.hasNext()) {
+            ((TLink) linksIterator.next()).receiveTimerEvent(this.timerEvent);
+        }
+        this.workerPool.waitForCompletion();
+        commitOutboxes();
+        deliverPackets(endInstant);
+    }
+
+    /**
+     * This method is the commit phase of a tick of the partition. It hands the
+     * packets stored in the outboxes of the nodes and links of the partition
+     * to their destinations, always in the same order.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void commitOutboxes() {
+        Iterator nodesIterator = this.nodes.iterator();
+        Iterator linksIterator = this.links.iterator();
+        while (nodesIterator.hasNext()) {
+            ((TNode) nodesIterator.next()).getOutbox().commit();
+        }
+        while (linksIterator.hasNext()) {
+            ((TLink) linksIterator.next()).getOutbox().commit();
+        }
+    }
+
+    /**
+     * This method puts in the ports of the destination nodes every packet
+     * coming from other partitions that arrives at or before the specified
+     * instant. It is called in the commit phase of the tick, after the
+     * outboxes, so these packets are switched in the next tick. Packets travelling through a link that is broken are
+     * discarded. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param instant The end of the tick being simulated, in nanoseconds.
+     * @since 2.0
+     */
+    private synchronized void deliverPackets(long instant) {
+        Map.Entry firstEntry;
+        Iterator deliveriesIterator;
+        TPendingDelivery delivery;
+        while (!this.pendingDeliveries.isEmpty()) {
+            firstEntry = this.pendingDeliveries.firstEntry();
+            if (((Long) firstEntry.getKey()).longValue() > instant) {
+                return;
+            }
+            this.pendingDeliveries.pollFirstEntry();
+            deliveriesIterator = ((LinkedList) firstEntry.getValue()).iterator();
+            while (deliveriesIterator.hasNext()) {
+                delivery = (TPendingDelivery) deliveriesIterator.next();
+                if (!delivery.link.isBroken()) {
+                    delivery.node.ponerPaquete(delivery.packet, delivery.port);
+                }
+            }
+        }
+    }
+
+    /**
+     * This class stores a packet coming from another partition until it
+     * arrives at its destination node.
+     *
+     * @author The OpenSimMPLS contributors
+     * @version 2.0
+     */
+    private static class TPendingDelivery {
+
+        public TPendingDelivery(TAbstractPDU packet, TNode node, int port, TLink link) {
+            this.packet = packet;
+            this.node = node;
+            this.port = port;
+            this.link = link;
+        }
+
+        private TAbstractPDU packet;
+        private TNode node;
+        private int port;
+        private TLink link;
+    }
+
+    private TTimer timer;
+    private int partitionID;
+    private IRemotePartitionListener remotePartitionListener;
+    private TreeSet nodes;
+    private TreeSet links;
+    private TreeSet boundaryLinks;
+    private TreeMap pendingDeliveries;
+    private TTimerWorkerPool workerPool;
+    private long currentInstant;
+    private TTickContext tickContext;
+    private TTimerEvent timerEvent;
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class implements a fixed pool of long-lived worker threads owned by the
+ * timer. Topology elements submit their per-tick work to this pool instead of
+ * creating a new thread for each timer event, and the timer closes every tick
+ * with a single barrier that waits for all submitted work to finish. Pending
+ * tasks are kept in a circular array that only grows, so handing work to the
+ * pool does not create new objects once the topology has been simulated for a
+ * tick. Workers are started with the first task of a simulation run and stopped
+ * when the run finishes, so scenarios that are opened but not simulated, or
+ * that are closed, do not keep any thread alive. Alternatively, the pool can run
+ * each task on a new virtual thread, when the running JVM supports them.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimerWorkerPool {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTimerWorkerPool with as many workers as available processors.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public TTimerWorkerPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTimerWorkerPool with the specified number of workers.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param numberOfWorkers Number of long-lived workers of the pool. Values
+     * lower than 1 are treated as 1.
+     * @since 2.0
+     */
+    public TTimerWorkerPool(int numberOfWorkers) {
+        this(Math.max(numberOfWorkers, 1), null);
+    }
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTimerWorkerPool that runs each task on a new virtual thread. If the
+     * running JVM does not support virtual threads, it creates a pool with as
+     * many workers as available processors instead.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param virtualThreads TRUE, to run tasks on virtual threads. FALSE, to
+     * run them on long-lived workers.
+     * @since 2.0
+     */
+    public TTimerWorkerPool(boolean virtualThreads) {
+        this(Runtime.getRuntime().availableProcessors(), virtualThreads ? TTimerWorkerPool.createVirtualThreadFactory() : null);
+    }
+
+    /**
+     * This method is the constructor used by the public ones.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param numberOfWorkers Number of long-lived workers of the pool.
+     * @param virtualThreadFactory The factory of virtual threads, or NULL to
+     * use long-lived workers.
+     * @since 2.0
+     */
+    private TTimerWorkerPool(int numberOfWorkers, ThreadFactory virtualThreadFactory) {
+        if (virtualThreadFactory != null) {
+            numberOfWorkers = 0;
+        }
+        this.numberOfWorkers = numberOfWorkers;
+        this.virtualThreadFactory = virtualThreadFactory;
+        this.pendingTasks = 0;
+        this.firstFailure = null;
+        this.queue = new Runnable[TTimerWorkerPool.INITIAL_QUEUE_CAPACITY];
+        this.queueHead = 0;
+        this.queueSize = 0;
+        this.isShutdown = false;
+        this.workersStarted = false;
+        this.generation = 0;
+        this.liveWorkers = 0;
+    }
+
+    /**
+     * This method submits the work of a topology element to the pool. The
+     * task will be taken into account by the next call to
+     * waitForCompletion(). If the workers of the pool are stopped, they are
+     * started first. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param task The work to be done by a worker of the pool.
+     * @throws IllegalStateException If the pool has been shut down.
+     * @since 2.0
+     */
+    public synchronized void execute(Runnable task) {
+        if (this.isShutdown) {
+            throw new IllegalStateException("The worker pool has been shut down");
+        }
+        if (this.virtualThreadFactory != null) {
+            this.pendingTasks++;
+            this.virtualThreadFactory.newThread(new TVirtualThreadTask(task)).start();
+            return;
+        }
+        if (!this.workersStarted) {
+            startWorkers();
+        }
+        if (this.queueSize == this.queue.length) {
+            Runnable[] newQueue = new Runnable[this.queue.length * 2];
+            for (int i = 0; i < this.queueSize; i++) {
+                newQueue[i] = this.queue[(this.queueHead + i) % this.queue.length];
+            }
+            this.queue = newQueue;
+            this.queueHead = 0;
+        }
+        this.queue[(this.queueHead + this.queueSize) % this.queue.length] = task;
+        this.queueSize++;
+        this.pendingTasks++;
+        notifyAll();
+    }
+
+    /**
+     * This method blocks the caller until every task submitted to the pool
+     * has finished. It is the barrier that closes a simulation tick. If any
+     * of those tasks failed, the first failure is thrown once all of them
+     * have finished, so that a broken tick does not go unnoticed. This method
+     * is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @throws RuntimeException The first exception thrown by a task since the
+     * previous barrier.
+     * @throws Error The first error thrown by a task since the previous
+     * barrier.
+     * @since 2.0
+     */
+    public synchronized void waitForCompletion() {
+        boolean interrupted = false;
+        while (this.pendingTasks > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // The barrier can not be left while tasks are still running;
+                // the interruption is kept for the caller.
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = this.firstFailure;
+        this.firstFailure = null;
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * This method returns the number of long-lived workers of the pool.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of workers of the pool. 0, if tasks run on virtual
+     * threads.
+     * @since 2.0
+     */
+    public int getNumberOfWorkers() {
+        return this.numberOfWorkers;
+    }
+
+    /**
+     * This method checks whether the pool runs its tasks on virtual threads.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if each task runs on a new virtual thread. FALSE, if tasks
+     * run on long-lived workers.
+     * @since 2.0
+     */
+    public boolean isVirtual() {
+        return this.virtualThreadFactory != null;
+    }
+
+    /**
+     * This method checks whether the running JVM supports virtual threads.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if virtual threads are supported. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public static boolean isVirtualThreadSupported() {
+        return TTimerWorkerPool.createVirtualThreadFactory() != null;
+    }
+
+    /**
+     * This method returns the number of long-lived workers of the pool whose
+     * thread is alive. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of workers that have been started and have not
+     * finished yet.
+     * @since 2.0
+     */
+    public synchronized int getNumberOfLiveWorkers() {
+        return this.liveWorkers;
+    }
+
+    /**
+     * This method stops the workers of the pool when they have finished the
+     * tasks already submitted. Unlike shutdown(), the pool can still be used:
+     * the next task starts a new set of workers. The timer calls it when a
+     * simulation run finishes. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public synchronized void stopWorkers() {
+        if (this.workersStarted) {
+            this.workersStarted = false;
+            this.generation++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * This method stops all workers of the pool. Tasks already submitted are
+     * finished but no new tasks are accepted. This method is a synchronized
+     * one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public synchronized void shutdown() {
+        this.isShutdown = true;
+        this.workersStarted = false;
+        notifyAll();
+    }
+
+    /**
+     * This method starts the long-lived workers of the pool. This method is
+     * called with the monitor of the pool already held.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void startWorkers() {
+        this.workersStarted = true;
+        for (int i = 0; i < this.numberOfWorkers; i++) {
+            Thread worker = new Thread(new TWorker(this.generation), "TTimerWorker-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            this.liveWorkers++;
+        }
+    }
+
+    /**
+     * This method is called by a worker to get the next task. It blocks the
+     * worker while there is nothing to do. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param workerGeneration The generation of workers the caller belongs
+     * to. Workers of a generation that has been stopped are not kept waiting.
+     * @return The next task, or NULL if the workers of the caller have been
+     * stopped, or the pool has been shut down, and there are no pending tasks.
+     * @since 2.0
+     */
+    private synchronized Runnable takeTask(int workerGeneration) {
+        while ((this.queueSize == 0) && (!this.isShutdown) && (workerGeneration == this.generation)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // Workers are only stopped through stopWorkers() or
+                // shutdown(), so they keep waiting for work.
+            }
+        }
+        if (this.queueSize == 0) {
+            return null;
+        }
+        Runnable task = this.queue[this.queueHead];
+        this.queue[this.queueHead] = null;
+        this.queueHead = (this.queueHead + 1) % this.queue.length;
+        this.queueSize--;
+        return task;
+    }
+
+    /**
+     * This method is called by a worker when its thread is about to finish.
+     * This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private synchronized void workerFinished() {
+        this.liveWorkers--;
+    }
+
+    /**
+     * This method is called by a worker each time it finishes a task, to
+     * release the timer when the last pending task is done. The first failure
+     * since the last barrier is kept to be thrown by waitForCompletion(). This
+     * method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param failure The exception or error thrown by the task, or NULL if
+     * the task ended normally.
+     * @since 2.0
+     */
+    private synchronized void taskFinished(Throwable failure) {
+        if ((failure != null) && (this.firstFailure == null)) {
+            this.firstFailure = failure;
+        }
+        this.pendingTasks--;
+        if (this.pendingTasks == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * This method gets a factory of virtual threads through
+     * Thread.ofVirtual().factory(), available since Java 21. It is looked up
+     * by reflection because the simulator is still built for Java 8.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The factory, or NULL if the running JVM has no virtual threads.
+     * @since 2.0
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * This class implements a task run on its own virtual thread: it runs the
+     * work of the element and tells the pool it has finished.
+     *
+     * @author The OpenSimMPLS contributors
+     * @version 2.0
+     */
+    private class TVirtualThreadTask implements Runnable {
+
+        TVirtualThreadTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            try {
+                this.task.run();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                taskFinished(failure);
+            }
+        }
+
+        private final Runnable task;
+    }
+
+    /**
+     * This class implements the loop of a worker of the pool: it takes the
+     * next task, runs it and tells the pool it has finished. It ends when the
+     * workers of its generation are stopped.
+     *
+     * @author The OpenSimMPLS contributors
+     * @version 2.0
+     */
+    private class TWorker implements Runnable {
+
+        TWorker(int workerGeneration) {
+            this.workerGeneration = workerGeneration;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runTasks();
+            } finally {
+                workerFinished();
+            }
+        }
+
+        private void runTasks() {
+            Runnable task = takeTask(this.workerGeneration);
+            Throwable failure;
+            while (task != null) {
+                failure = null;
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                } finally {
+                    taskFinished(failure);
+                }
+                task = takeTask(this.workerGeneration);
+            }
+        }
+
+        private final int workerGeneration;
+    }
+
+    private final int numberOfWorkers;
+    private final ThreadFactory virtualThreadFactory;
+    private Runnable[] queue;
+    private int queueHead;
+    private int queueSize;
+    private boolean isShutdown;
+    private boolean workersStarted;
+    private int generation;
+    private int liveWorkers;
+    private int pendingTasks;
+    private Throwable firstFailure;
+
+    private static final int INITIAL_QUEUE_CAPACITY = 64;
+}
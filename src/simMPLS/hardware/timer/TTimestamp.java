@@ -163,6 +163,20 @@ public class TTimestamp implements Comparable {
     public long getTotalAsNanoseconds() {
         return (long) ((this.getMillisecond() * 1000000) + this.getNanosecond());
     }
+
+    /**
+     * This method sets the moment represented by the current timestamp from a
+     * number of nanoseconds.
+     *
+     * @param totalNanoseconds The moment to be represented by the current
+     * timestamp, in nanoseconds.
+     * @since 2.0
+     */
+    public void setTotalAsNanoseconds(long totalNanoseconds) {
+        this.millisecond = totalNanoseconds / 1000000;
+        this.nanosecond = (int) (totalNanoseconds % 1000000);
+    }
+
     public static final int ARGUMENT_IS_GREATER = -1;
     public static final int BOTH_ARE_EQUAL = 0;
     public static final int ARGUMENT_IS_LOWER = 1;
@@ -0,0 +1,440 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * This class implements a hierarchical timing wheel. A node shares it among
+ * all its protocol tables (TLDP switching entries, GPSRP requests...) so that
+ * each one of their timeouts is scheduled once and, on every tick, the node
+ * only visits the timeouts that expire instead of walking whole tables to
+ * decrease counters.
+ *
+ * Time is divided into slots of 2^SLOT_SHIFT nanoseconds. The wheel has
+ * LEVELS levels of SLOTS slots each; every slot of a level spans a whole
+ * revolution of the level below it. A timeout is stored in the lowest level
+ * whose current revolution contains its expiration instant and, as time
+ * goes by, it cascades to the lower levels until it reaches the first one,
+ * where it expires. Timeouts beyond the last level wait in an overflow list.
+ * A bitmap of the non-empty slots of each level allows jumping over empty
+ * slots, so advancing the wheel costs time proportional to the expiring
+ * timeouts, not to the scheduled ones or to the elapsed time.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimingWheel {
+
+    /**
+     * This method is the constructor of the class. It creates a new, empty,
+     * instance of TTimingWheel whose clock is at instant 0.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public TTimingWheel() {
+        this.slots = new TTimeout[TTimingWheel.LEVELS][TTimingWheel.SLOTS];
+        this.occupiedSlots = new long[TTimingWheel.LEVELS];
+        this.overflow = null;
+        this.currentTime = 0;
+        this.currentSlot = 0;
+        this.nextSequence = 0;
+        this.numberOfTimeouts = 0;
+    }
+
+    /**
+     * This method schedules a timeout to expire after the specified time. If
+     * the timeout was already running, it is moved to its new expiration
+     * instant. A timeout can only be scheduled in a single timing wheel. This
+     * method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout The timeout to be scheduled.
+     * @param nanoseconds Time until the timeout expires, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized void schedule(TTimeout timeout, long nanoseconds) {
+        if (timeout.status == TTimeout.PENDING) {
+            unlink(timeout);
+        }
+        timeout.timingWheel = this;
+        timeout.status = TTimeout.PENDING;
+        timeout.deadline = this.currentTime + Math.max(nanoseconds, 0);
+        timeout.sequence = this.nextSequence;
+        this.nextSequence++;
+        link(timeout);
+    }
+
+    /**
+     * This method cancels a timeout scheduled in this timing wheel. After
+     * that, the timeout is idle. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout The timeout to be cancelled.
+     * @since 2.0
+     */
+    public synchronized void cancel(TTimeout timeout) {
+        if (timeout.timingWheel != this) {
+            return;
+        }
+        if (timeout.status == TTimeout.PENDING) {
+            unlink(timeout);
+        }
+        timeout.status = TTimeout.IDLE;
+    }
+
+    /**
+     * This method moves the clock of the timing wheel forward and collects the
+     * timeouts that expire meanwhile. Expired timeouts are no longer running;
+     * their owners can schedule them again. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param nanoseconds Time to move the clock forward, in nanoseconds.
+     * @return The expired timeouts, sorted by expiration instant and, for the
+     * same instant, by scheduling order.
+     * @since 2.0
+     */
+    public synchronized ArrayList advance(long nanoseconds) {
+        ArrayList expiredTimeouts = new ArrayList();
+        long targetTime = this.currentTime + Math.max(nanoseconds, 0);
+        long targetSlot = targetTime >>> TTimingWheel.SLOT_SHIFT;
+        long nextBoundary;
+        boolean sameRevolution;
+        while (this.numberOfTimeouts > 0) {
+            sameRevolution = ((this.currentSlot >>> TTimingWheel.LEVEL_BITS) == (targetSlot >>> TTimingWheel.LEVEL_BITS));
+            if (sameRevolution) {
+                expireSlots((int) (this.currentSlot & TTimingWheel.SLOT_MASK), (int) (targetSlot & TTimingWheel.SLOT_MASK), targetTime, expiredTimeouts);
+                break;
+            }
+            expireSlots((int) (this.currentSlot & TTimingWheel.SLOT_MASK), TTimingWheel.SLOT_MASK, targetTime, expiredTimeouts);
+            nextBoundary = getNextBoundary();
+            if (nextBoundary > targetSlot) {
+                break;
+            }
+            this.currentSlot = nextBoundary;
+            cascade();
+        }
+        this.currentTime = targetTime;
+        this.currentSlot = targetSlot;
+        if (expiredTimeouts.size() > 1) {
+            Collections.sort(expiredTimeouts);
+        }
+        return expiredTimeouts;
+    }
+
+    /**
+     * This method computes how long it will be until the first running
+     * timeout of the wheel expires. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The time until the first timeout expires, in nanoseconds, or -1
+     * if there is not any running timeout.
+     * @since 2.0
+     */
+    public synchronized long getTimeToNextExpiration() {
+        if (this.numberOfTimeouts == 0) {
+            return -1;
+        }
+        // Lower levels and lower slots always hold earlier timeouts, so the
+        // first non-empty slot holds the first timeout to expire.
+        TTimeout timeout = this.overflow;
+        for (int level = 0; level < TTimingWheel.LEVELS; level++) {
+            if (this.occupiedSlots[level] != 0) {
+                timeout = this.slots[level][Long.numberOfTrailingZeros(this.occupiedSlots[level])];
+                break;
+            }
+        }
+        long earliestDeadline = Long.MAX_VALUE;
+        while (timeout != null) {
+            earliestDeadline = Math.min(earliestDeadline, timeout.deadline);
+            timeout = timeout.next;
+        }
+        return Math.max(earliestDeadline - this.currentTime, 0);
+    }
+
+    /**
+     * This method returns the current instant of the clock of the timing
+     * wheel. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The current instant, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getCurrentTime() {
+        return this.currentTime;
+    }
+
+    /**
+     * This method returns the number of running timeouts. This method is a
+     * synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of running timeouts.
+     * @since 2.0
+     */
+    public synchronized int getNumberOfTimeouts() {
+        return this.numberOfTimeouts;
+    }
+
+    /**
+     * This method cancels every running timeout and puts the clock back to
+     * instant 0, as when created by the constructor. This method is a
+     * synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public synchronized void reset() {
+        for (int level = 0; level < TTimingWheel.LEVELS; level++) {
+            for (int slot = 0; slot < TTimingWheel.SLOTS; slot++) {
+                this.slots[level][slot] = releaseList(this.slots[level][slot]);
+            }
+            this.occupiedSlots[level] = 0;
+        }
+        this.overflow = releaseList(this.overflow);
+        this.currentTime = 0;
+        this.currentSlot = 0;
+        this.numberOfTimeouts = 0;
+    }
+
+    /**
+     * This method computes how long it will be until a timeout of this wheel
+     * expires. This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout The timeout.
+     * @return The remaining time, in nanoseconds. 0 if the timeout has
+     * expired and -1 if it is idle.
+     * @since 2.0
+     */
+    synchronized long getRemainingTime(TTimeout timeout) {
+        if (timeout.status == TTimeout.PENDING) {
+            return Math.max(timeout.deadline - this.currentTime, 0);
+        }
+        if (timeout.status == TTimeout.EXPIRED) {
+            return 0;
+        }
+        return -1;
+    }
+
+    /**
+     * This method expires, in a range of slots of the first level, every
+     * timeout whose expiration instant is not later than the specified one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param firstSlot First slot of the range.
+     * @param lastSlot Last slot of the range.
+     * @param targetTime The instant the clock is being moved to.
+     * @param expiredTimeouts List where expired timeouts are added.
+     * @since 2.0
+     */
+    private void expireSlots(int firstSlot, int lastSlot, long targetTime, ArrayList expiredTimeouts) {
+        long range = (-1L << firstSlot);
+        if (lastSlot < TTimingWheel.SLOT_MASK) {
+            range &= ((1L << (lastSlot + 1)) - 1);
+        }
+        long pendingSlots = this.occupiedSlots[0] & range;
+        TTimeout timeout;
+        TTimeout nextTimeout;
+        while (pendingSlots != 0) {
+            timeout = this.slots[0][Long.numberOfTrailingZeros(pendingSlots)];
+            pendingSlots &= (pendingSlots - 1);
+            while (timeout != null) {
+                nextTimeout = timeout.next;
+                if (timeout.deadline <= targetTime) {
+                    unlink(timeout);
+                    timeout.status = TTimeout.EXPIRED;
+                    expiredTimeouts.add(timeout);
+                }
+                timeout = nextTimeout;
+            }
+        }
+    }
+
+    /**
+     * This method computes the first slot, after the current one, where a
+     * slot of an upper level (or the overflow list) with running timeouts
+     * starts and has to be cascaded. Every slot of the first level after the
+     * current one must be empty.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The first slot where timeouts have to be cascaded, or
+     * Long.MAX_VALUE if there is none.
+     * @since 2.0
+     */
+    private long getNextBoundary() {
+        long nextBoundary = Long.MAX_VALUE;
+        int shift;
+        int index;
+        long laterSlots;
+        long revolutionStart;
+        for (int level = 1; level < TTimingWheel.LEVELS; level++) {
+            shift = level * TTimingWheel.LEVEL_BITS;
+            index = (int) ((this.currentSlot >>> shift) & TTimingWheel.SLOT_MASK);
+            laterSlots = 0;
+            if (index < TTimingWheel.SLOT_MASK) {
+                laterSlots = this.occupiedSlots[level] & (-1L << (index + 1));
+            }
+            if (laterSlots != 0) {
+                revolutionStart = (this.currentSlot >>> (shift + TTimingWheel.LEVEL_BITS)) << (shift + TTimingWheel.LEVEL_BITS);
+                nextBoundary = Math.min(nextBoundary, revolutionStart | (((long) Long.numberOfTrailingZeros(laterSlots)) << shift));
+            }
+        }
+        if (this.overflow != null) {
+            shift = TTimingWheel.LEVELS * TTimingWheel.LEVEL_BITS;
+            nextBoundary = Math.min(nextBoundary, ((this.currentSlot >>> shift) + 1) << shift);
+        }
+        return nextBoundary;
+    }
+
+    /**
+     * This method moves down to lower levels the timeouts of the upper level
+     * slots (and of the overflow list) that start at the current slot.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void cascade() {
+        if ((this.currentSlot & ((1L << (TTimingWheel.LEVELS * TTimingWheel.LEVEL_BITS)) - 1)) == 0) {
+            relinkList(this.overflow);
+        }
+        int shift;
+        int index;
+        for (int level = TTimingWheel.LEVELS - 1; level > 0; level--) {
+            shift = level * TTimingWheel.LEVEL_BITS;
+            if ((this.currentSlot & ((1L << shift) - 1)) == 0) {
+                index = (int) ((this.currentSlot >>> shift) & TTimingWheel.SLOT_MASK);
+                relinkList(this.slots[level][index]);
+            }
+        }
+    }
+
+    /**
+     * This method takes out every timeout of a list and stores them again
+     * according to the current slot.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout First timeout of the list.
+     * @since 2.0
+     */
+    private void relinkList(TTimeout timeout) {
+        TTimeout nextTimeout;
+        while (timeout != null) {
+            nextTimeout = timeout.next;
+            unlink(timeout);
+            link(timeout);
+            timeout = nextTimeout;
+        }
+    }
+
+    /**
+     * This method marks as idle every timeout of a list.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout First timeout of the list.
+     * @return NULL, the new first timeout of the list.
+     * @since 2.0
+     */
+    private TTimeout releaseList(TTimeout timeout) {
+        TTimeout nextTimeout;
+        while (timeout != null) {
+            nextTimeout = timeout.next;
+            timeout.status = TTimeout.IDLE;
+            timeout.next = null;
+            timeout.previous = null;
+            timeout = nextTimeout;
+        }
+        return null;
+    }
+
+    /**
+     * This method stores a running timeout in the slot that corresponds to its
+     * expiration instant, according to the current slot.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout The timeout.
+     * @since 2.0
+     */
+    private void link(TTimeout timeout) {
+        long deadlineSlot = Math.max(timeout.deadline >>> TTimingWheel.SLOT_SHIFT, this.currentSlot);
+        int shift;
+        timeout.level = TTimingWheel.LEVELS;
+        timeout.slot = 0;
+        for (int level = 0; level < TTimingWheel.LEVELS; level++) {
+            shift = (level + 1) * TTimingWheel.LEVEL_BITS;
+            if ((deadlineSlot >>> shift) == (this.currentSlot >>> shift)) {
+                timeout.level = level;
+                timeout.slot = (int) ((deadlineSlot >>> (level * TTimingWheel.LEVEL_BITS)) & TTimingWheel.SLOT_MASK);
+                break;
+            }
+        }
+        timeout.previous = null;
+        if (timeout.level == TTimingWheel.LEVELS) {
+            timeout.next = this.overflow;
+            this.overflow = timeout;
+        } else {
+            timeout.next = this.slots[timeout.level][timeout.slot];
+            this.slots[timeout.level][timeout.slot] = timeout;
+            this.occupiedSlots[timeout.level] |= (1L << timeout.slot);
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        this.numberOfTimeouts++;
+    }
+
+    /**
+     * This method takes out a running timeout from its slot.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timeout The timeout.
+     * @since 2.0
+     */
+    private void unlink(TTimeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else if (timeout.level == TTimingWheel.LEVELS) {
+            this.overflow = timeout.next;
+        } else {
+            this.slots[timeout.level][timeout.slot] = timeout.next;
+            if (timeout.next == null) {
+                this.occupiedSlots[timeout.level] &= ~(1L << timeout.slot);
+            }
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.next = null;
+        timeout.previous = null;
+        this.numberOfTimeouts--;
+    }
+
+    private static final int SLOT_SHIFT = 10;
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << TTimingWheel.LEVEL_BITS;
+    private static final int SLOT_MASK = TTimingWheel.SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private TTimeout[][] slots;
+    private long[] occupiedSlots;
+    private TTimeout overflow;
+    private long currentTime;
+    private long currentSlot;
+    private long nextSequence;
+    private int numberOfTimeouts;
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.TreeSet;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+
+/**
+ * This class splits the topology into partitions that can be simulated in
+ * parallel. Links are taken from the shortest delay to the longest one and
+ * their ends are put in the same partition while partitions stay balanced, so
+ * that links between partitions are as long as possible. The shortest of them
+ * gives the lookahead, that is, how long partitions can be simulated without
+ * synchronizing with each other.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTopologyPartitioner {
+
+    /**
+     * This method is the constructor of the class. It splits the specified
+     * topology elements into partitions, moves the work of every element to
+     * the worker of its partition and replaces every link between partitions
+     * by a TPartitionChannel.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timer The timer that owns the partitions.
+     * @param nodes The nodes of the topology.
+     * @param links The links of the topology.
+     * @param numberOfPartitions The desired number of partitions. The
+     * topology can be split into fewer partitions.
+     * @param tick The tick of the simulation, in nanoseconds.
+     * @since 2.0
+     */
+    public TTopologyPartitioner(TTimer timer, TreeSet nodes, TreeSet links, int numberOfPartitions, int tick) {
+        this(nodes, links);
+        int[] partitionOfNode = computePartitions(Math.max(numberOfPartitions, 1));
+        createPartitions(timer, partitionOfNode, tick);
+    }
+
+    /**
+     * This method is the constructor used to compute the partitions of the
+     * specified topology elements without creating them.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param nodes The nodes of the topology.
+     * @param links The links of the topology.
+     * @since 2.0
+     */
+    private TTopologyPartitioner(TreeSet nodes, TreeSet links) {
+        this.nodes = (TNode[]) nodes.toArray(new TNode[nodes.size()]);
+        this.links = (TLink[]) links.toArray(new TLink[links.size()]);
+        this.nodeIndexes = new HashMap();
+        this.channels = new LinkedList();
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.nodeIndexes.put(Integer.valueOf(this.nodes[i].getID()), Integer.valueOf(i));
+        }
+    }
+
+    /**
+     * This method computes which nodes would be put in the specified partition
+     * if the topology were split, without splitting it. As the partitions only
+     * depend on the identifiers of the nodes and on the ends and delays of the
+     * links, the result is the same for any topology with the same structure.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param nodes The nodes of the topology.
+     * @param links The links of the topology.
+     * @param numberOfPartitions The desired number of partitions.
+     * @param partitionID The partition whose nodes are wanted.
+     * @return The identifiers of the nodes of the partition, as Integer.
+     * @since 2.0
+     */
+    public static TreeSet getNodeIDsOfPartition(TreeSet nodes, TreeSet links, int numberOfPartitions, int partitionID) {
+        TTopologyPartitioner partitioner = new TTopologyPartitioner(nodes, links);
+        int[] partitionOfNode = partitioner.computePartitions(Math.max(numberOfPartitions, 1));
+        TreeSet nodeIDs = new TreeSet();
+        for (int i = 0; i < partitionOfNode.length; i++) {
+            if (partitionOfNode[i] == partitionID) {
+                nodeIDs.add(Integer.valueOf(partitioner.nodes[i].getID()));
+            }
+        }
+        return nodeIDs;
+    }
+
+    /**
+     * This method returns the partitions of the topology.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The partitions of the topology.
+     * @since 2.0
+     */
+    public TTimerPartition[] getPartitions() {
+        return this.partitions;
+    }
+
+    /**
+     * This method returns the lookahead of the partitioned topology, that is,
+     * the shortest transit time of the channels between partitions.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The lookahead, in nanoseconds, or Long.MAX_VALUE if there is not
+     * any link between partitions.
+     * @since 2.0
+     */
+    public long getLookahead() {
+        Iterator channelsIterator = this.channels.iterator();
+        TPartitionChannel channel;
+        long lookahead = Long.MAX_VALUE;
+        while (channelsIterator.hasNext()) {
+            channel = (TPartitionChannel) channelsIterator.next();
+            if (channel.getTransitTime() < lookahead) {
+                lookahead = channel.getTransitTime();
+            }
+        }
+        return lookahead;
+    }
+
+    /**
+     * This method stops the workers of the partitions until they are
+     * simulated again, while the simulation is paused.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void stopWorkers() {
+        for (int i = 0; i < this.partitions.length; i++) {
+            this.partitions[i].stopWorker();
+        }
+    }
+
+    /**
+     * This method undoes the partitioning: the work of every element is moved
+     * back to the specified worker pool, links between partitions are
+     * restored and the workers of the partitions are stopped.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param workerPool The worker pool the elements go back to.
+     * @since 2.0
+     */
+    public void release(TTimerWorkerPool workerPool) {
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.nodes[i].setWorkerPool(workerPool);
+        }
+        for (int i = 0; i < this.links.length; i++) {
+            this.links[i].setWorkerPool(workerPool);
+            this.links[i].setPartitionChannel(null);
+        }
+        for (int i = 0; i < this.partitions.length; i++) {
+            this.partitions[i].release();
+        }
+    }
+
+    /**
+     * This method assigns every node to a partition. Ends of short links are
+     * joined first, without letting any group of nodes grow over its share of
+     * the topology, and then the groups are distributed among the partitions,
+     * largest first, to the least loaded partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param numberOfPartitions The desired number of partitions.
+     * @return The partition assigned to each node.
+     * @since 2.0
+     */
+    private int[] computePartitions(int numberOfPartitions) {
+        int numberOfNodes = this.nodes.length;
+        int maximumGroupSize = Math.max((numberOfNodes + numberOfPartitions - 1) / numberOfPartitions, 1);
+        int[] parent = new int[numberOfNodes];
+        int[] groupSize = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            parent[i] = i;
+            groupSize[i] = 1;
+        }
+        TLink[] sortedLinks = this.links.clone();
+        Arrays.sort(sortedLinks, new Comparator() {
+            @Override
+            public int compare(Object o1, Object o2) {
+                return Integer.compare(((TLink) o1).obtenerDelay(), ((TLink) o2).obtenerDelay());
+            }
+        });
+        int group1;
+        int group2;
+        for (int i = 0; i < sortedLinks.length; i++) {
+            group1 = findGroup(parent, getNodeIndex(sortedLinks[i].getEnd1()));
+            group2 = findGroup(parent, getNodeIndex(sortedLinks[i].getEnd2()));
+            if ((group1 >= 0) && (group2 >= 0) && (group1 != group2) && (groupSize[group1] + groupSize[group2] <= maximumGroupSize)) {
+                parent[group2] = group1;
+                groupSize[group1] += groupSize[group2];
+            }
+        }
+        Integer[] groups = new Integer[numberOfNodes];
+        int numberOfGroups = 0;
+        for (int i = 0; i < numberOfNodes; i++) {
+            if (parent[i] == i) {
+                groups[numberOfGroups] = Integer.valueOf(i);
+                numberOfGroups++;
+            }
+        }
+        final int[] sizes = groupSize;
+        Arrays.sort(groups, 0, numberOfGroups, new Comparator() {
+            @Override
+            public int compare(Object o1, Object o2) {
+                return Integer.compare(sizes[((Integer) o2).intValue()], sizes[((Integer) o1).intValue()]);
+            }
+        });
+        int[] partitionLoad = new int[Math.min(numberOfPartitions, Math.max(numberOfGroups, 1))];
+        int[] partitionOfGroup = new int[numberOfNodes];
+        int leastLoadedPartition;
+        for (int i = 0; i < numberOfGroups; i++) {
+            leastLoadedPartition = 0;
+            for (int j = 1; j < partitionLoad.length; j++) {
+                if (partitionLoad[j] < partitionLoad[leastLoadedPartition]) {
+                    leastLoadedPartition = j;
+                }
+            }
+            partitionOfGroup[groups[i].intValue()] = leastLoadedPartition;
+            partitionLoad[leastLoadedPartition] += groupSize[groups[i].intValue()];
+        }
+        int[] partitionOfNode = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            partitionOfNode[i] = partitionOfGroup[findGroup(parent, i)];
+        }
+        return partitionOfNode;
+    }
+
+    /**
+     * This method creates the partitions, puts every node and every link in
+     * its partition and replaces every link between partitions by a channel.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timer The timer that owns the partitions.
+     * @param partitionOfNode The partition assigned to each node.
+     * @param tick The tick of the simulation, in nanoseconds.
+     * @since 2.0
+     */
+    private void createPartitions(TTimer timer, int[] partitionOfNode, int tick) {
+        int numberOfPartitions = 0;
+        for (int i = 0; i < partitionOfNode.length; i++) {
+            numberOfPartitions = Math.max(numberOfPartitions, partitionOfNode[i] + 1);
+        }
+        this.partitions = new TTimerPartition[numberOfPartitions];
+        for (int i = 0; i < numberOfPartitions; i++) {
+            this.partitions[i] = new TTimerPartition(timer, i);
+        }
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.partitions[partitionOfNode[i]].addNode(this.nodes[i]);
+        }
+        int end1;
+        int end2;
+        TPartitionChannel channel;
+        for (int i = 0; i < this.links.length; i++) {
+            end1 = getNodeIndex(this.links[i].getEnd1());
+            end2 = getNodeIndex(this.links[i].getEnd2());
+            if ((end1 >= 0) && (end2 >= 0) && (partitionOfNode[end1] != partitionOfNode[end2])) {
+                channel = new TPartitionChannel(this.links[i], this.partitions[partitionOfNode[end1]], this.partitions[partitionOfNode[end2]], tick);
+                this.links[i].setPartitionChannel(channel);
+                this.channels.add(channel);
+                this.partitions[partitionOfNode[end1]].addBoundaryLink(this.links[i]);
+            } else if (end1 >= 0) {
+                this.partitions[partitionOfNode[end1]].addLink(this.links[i]);
+            } else if (end2 >= 0) {
+                this.partitions[partitionOfNode[end2]].addLink(this.links[i]);
+            }
+        }
+    }
+
+    /**
+     * This method returns the position of a node in the array of nodes of the
+     * topology.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param node The node.
+     * @return The position of the node, or -1 if the node is not part of the
+     * topology.
+     * @since 2.0
+     */
+    private int getNodeIndex(TNode node) {
+        if (node == null) {
+            return -1;
+        }
+        Integer index = (Integer) this.nodeIndexes.get(Integer.valueOf(node.getID()));
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+
+    /**
+     * This method finds the group a node belongs to, compressing the path
+     * followed on the way.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param parent The parent of each node in the groups built so far.
+     * @param nodeIndex The position of the node.
+     * @return The position of the node that represents the group, or -1 if
+     * the node is not part of the topology.
+     * @since 2.0
+     */
+    private int findGroup(int[] parent, int nodeIndex) {
+        if (nodeIndex < 0) {
+            return -1;
+        }
+        int root = nodeIndex;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        int next;
+        while (parent[nodeIndex] != root) {
+            next = parent[nodeIndex];
+            parent[nodeIndex] = root;
+            nodeIndex = next;
+        }
+        return root;
+    }
+
+    private TNode[] nodes;
+    private TLink[] links;
+    private HashMap nodeIndexes;
+    private TTimerPartition[] partitions;
+    private LinkedList channels;
+}
@@ -15,13 +15,25 @@
  */
 package simMPLS.hardware.tldp;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import simMPLS.hardware.timer.TTimingWheel;
+import simMPLS.utils.TLongHashMap;
 import simMPLS.utils.TMonitor;
 
 /**
  * This class implements a switching matrix to be used within each node of the
- * topology.
+ * topology. The indexes are guarded by a StampedLock: control plane writes
+ * are serialized, while the lookups of the forwarding path are done without
+ * locking and only repeated under the read lock when a write has happened
+ * meanwhile.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
@@ -36,13 +48,30 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public TSwitchingMatrix() {
-        this.switchingMatrix = new LinkedList();
+        this.switchingMatrix = new LinkedHashSet();
         this.monitor = new TMonitor();
+        this.indexLock = new StampedLock();
+        this.optimisticLookups = new LongAdder();
+        this.retriedLookups = new LongAdder();
+        this.blockedLookups = new LongAdder();
+        this.writes = new LongAdder();
+        this.blockedWrites = new LongAdder();
+        this.entriesByLabelOrFEC = new TLongHashMap();
+        this.entriesByLocalTLDPSession = new TLongHashMap();
+        this.entriesByUpstreamTLDPSession = new TLongHashMap();
+        this.entriesByLabel = new TLongHashMap();
+        this.entriesByPort = new TLongHashMap();
+        this.usedLabels = new BitSet();
+        this.lowestFreeLabel = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
+        this.nextSequence = 0;
+        this.timingWheel = null;
     }
 
     /**
      * This method returns the monitor of the class, that will allow operations
-     * on the switching matrix avoiding the risk of concurrent accesses.
+     * on the switching matrix avoiding the risk of concurrent accesses. Only
+     * the methods that change the switching matrix take it; lookups never wait
+     * for it.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @return The monitor of the class.
@@ -52,6 +81,32 @@ public class TSwitchingMatrix {
         return this.monitor;
     }
 
+    /**
+     * This method sets the timing wheel where the switching entries of this
+     * matrix schedule their TLDP timeouts while they wait for a label request
+     * or a label withdrawal. It has to be set before adding any entry; without
+     * it, no timeout is scheduled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param timingWheel The timing wheel of the node that owns this matrix.
+     * @since 2.0
+     */
+    public void setTimingWheel(TTimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * This method gets the timing wheel where the switching entries of this
+     * matrix schedule their TLDP timeouts.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The timing wheel, or NULL if it has not been set.
+     * @since 2.0
+     */
+    public TTimingWheel getTimingWheel() {
+        return this.timingWheel;
+    }
+
     /**
      * This method add a new switching entry to the switching matrix.
      *
@@ -62,7 +117,16 @@ public class TSwitchingMatrix {
      */
     public void addEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
         this.monitor.lock();
-        this.switchingMatrix.addLast(switchingMatrixEntry);
+        long stamp = lockForWriting();
+        try {
+            if (this.switchingMatrix.add(switchingMatrixEntry)) {
+                switchingMatrixEntry.setSwitchingMatrix(this, this.nextSequence);
+                this.nextSequence++;
+                indexEntry(switchingMatrixEntry);
+            }
+        } finally {
+            this.indexLock.unlockWrite(stamp);
+        }
         this.monitor.unLock();
     }
 
@@ -81,22 +145,8 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public TSwitchingMatrixEntry getEntry(int incomingPortID, int labelOrFEC, int entryType) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux;
-                    }
-                }
-            }
-        }
-        this.monitor.unLock();
-        return null;
+        TSwitchingMatrixEntry switchingMatrixEntryAux = getFirstEntry(incomingPortID, labelOrFEC, entryType);
+        return switchingMatrixEntryAux;
     }
 
     /**
@@ -111,18 +161,14 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public TSwitchingMatrixEntry getEntry(int localTLDPSessionID) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
         TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLocalTLDPSessionID() == localTLDPSessionID) {
-                this.monitor.unLock();
-                return switchingMatrixEntryAux;
-            }
+        long stamp = this.indexLock.readLock();
+        try {
+            switchingMatrixEntryAux = getOldestEntry(this.entriesByLocalTLDPSession, localTLDPSessionID);
+        } finally {
+            this.indexLock.unlockRead(stamp);
         }
-        this.monitor.unLock();
-        return null;
+        return switchingMatrixEntryAux;
     }
 
     /**
@@ -139,20 +185,14 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public TSwitchingMatrixEntry getEntry(int upstreamTLDPSessionID, int incomingPortID) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
         TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getUpstreamTLDPSessionID() == upstreamTLDPSessionID) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    this.monitor.unLock();
-                    return switchingMatrixEntryAux;
-                }
-            }
+        long stamp = this.indexLock.readLock();
+        try {
+            switchingMatrixEntryAux = getOldestEntry(this.entriesByUpstreamTLDPSession, getUpstreamTLDPSessionKey(upstreamTLDPSessionID, incomingPortID));
+        } finally {
+            this.indexLock.unlockRead(stamp);
         }
-        this.monitor.unLock();
-        return null;
+        return switchingMatrixEntryAux;
     }
 
     /**
@@ -170,22 +210,8 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public boolean existsEntry(int incomingPortID, int labelOrFEC, int entryType) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return true;
-                    }
-                }
-            }
-        }
-        this.monitor.unLock();
-        return false;
+        TSwitchingMatrixEntry switchingMatrixEntryAux = getFirstEntry(incomingPortID, labelOrFEC, entryType);
+        return (switchingMatrixEntryAux != null);
     }
 
     /**
@@ -203,17 +229,14 @@ public class TSwitchingMatrix {
      */
     public void removeEntry(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        iterator.remove();
-                    }
-                }
+        long stamp = lockForWriting();
+        try {
+            Object[] entries = getEntries(this.entriesByLabelOrFEC, getLabelOrFECKey(incomingPortID, labelOrFEC, entryType));
+            for (int i = 0; i < entries.length; i++) {
+                unlinkEntry((TSwitchingMatrixEntry) entries[i]);
             }
+        } finally {
+            this.indexLock.unlockWrite(stamp);
         }
         this.monitor.unLock();
     }
@@ -231,19 +254,43 @@ public class TSwitchingMatrix {
      */
     public void removeEntry(int localTLDPSessionID, int incomingPortID) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLocalTLDPSessionID() == localTLDPSessionID) {
+        long stamp = lockForWriting();
+        try {
+            Object[] entries = getEntries(this.entriesByLocalTLDPSession, localTLDPSessionID);
+            TSwitchingMatrixEntry switchingMatrixEntryAux;
+            for (int i = 0; i < entries.length; i++) {
+                switchingMatrixEntryAux = (TSwitchingMatrixEntry) entries[i];
                 if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    iterator.remove();
+                    unlinkEntry(switchingMatrixEntryAux);
                 }
             }
+        } finally {
+            this.indexLock.unlockWrite(stamp);
         }
         this.monitor.unLock();
     }
 
+    /**
+     * This method removes a specific switching entry from the switching
+     * matrix. It does not take the monitor of the class, so it can be called
+     * while the monitor is held, for instance when handling an expired TLDP
+     * timeout.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry to be removed.
+     * @since 2.0
+     */
+    public void removeEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
+        long stamp = lockForWriting();
+        try {
+            if (this.switchingMatrix.contains(switchingMatrixEntry)) {
+                unlinkEntry(switchingMatrixEntry);
+            }
+        } finally {
+            this.indexLock.unlockWrite(stamp);
+        }
+    }
+
     /**
      * This method gets the operation that has to be done over the top of the
      * label stack as stored in the switching entry identified by the values
@@ -264,21 +311,10 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public int getLabelStackOperation(int incomingPortID, int labelOrFEC, int entryType) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux.getLabelStackOperation();
-                    }
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = getFirstEntry(incomingPortID, labelOrFEC, entryType);
+        if (switchingMatrixEntryAux != null) {
+            return switchingMatrixEntryAux.getLabelStackOperation();
         }
-        this.monitor.unLock();
         return TSwitchingMatrixEntry.UNDEFINED;
     }
 
@@ -300,21 +336,10 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public int getOutgoingLabel(int incomingPortID, int labelOrFEC, int entryType) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux.getOutgoingLabel();
-                    }
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = getFirstEntry(incomingPortID, labelOrFEC, entryType);
+        if (switchingMatrixEntryAux != null) {
+            return switchingMatrixEntryAux.getOutgoingLabel();
         }
-        this.monitor.unLock();
         return TSwitchingMatrixEntry.UNDEFINED;
     }
 
@@ -336,21 +361,10 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public int getOutgoingPortID(int incomingPortID, int labelOrFEC, int entryType) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux = null;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux.getOutgoingPortID();
-                    }
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = getFirstEntry(incomingPortID, labelOrFEC, entryType);
+        if (switchingMatrixEntryAux != null) {
+            return switchingMatrixEntryAux.getOutgoingPortID();
         }
-        this.monitor.unLock();
         return TSwitchingMatrixEntry.UNDEFINED;
     }
 
@@ -365,20 +379,18 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public boolean labelIsAlreadyUsed(int label) {
-        this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == label) {
-                if (switchingMatrixEntryAux.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
-                    this.monitor.unLock();
-                    return true;
-                }
+        boolean used;
+        long stamp = this.indexLock.readLock();
+        try {
+            if (label >= 0) {
+                used = this.usedLabels.get(label);
+            } else {
+                used = (this.entriesByLabel.obtener(label) != null);
             }
+        } finally {
+            this.indexLock.unlockRead(stamp);
         }
-        this.monitor.unLock();
-        return false;
+        return used;
     }
 
     /**
@@ -393,15 +405,22 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public int getNewLabel() {
-        int labelAux = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
-        while (labelAux <= TSwitchingMatrixEntry.LABEL_SPACE) {
-            if (!labelIsAlreadyUsed(labelAux)) {
-                return labelAux;
-            } else {
-                labelAux++;
-            }
+        this.monitor.lock();
+        int labelAux;
+        long stamp = lockForWriting();
+        try {
+            // Every label below lowestFreeLabel is in use, so the search starts
+            // there and usually stops at the first bit.
+            labelAux = this.usedLabels.nextClearBit(this.lowestFreeLabel);
+            this.lowestFreeLabel = labelAux;
+        } finally {
+            this.indexLock.unlockWrite(stamp);
         }
-        return TSwitchingMatrixEntry.LABEL_UNAVAILABLE;
+        this.monitor.unLock();
+        if (labelAux > TSwitchingMatrixEntry.LABEL_SPACE) {
+            return TSwitchingMatrixEntry.LABEL_UNAVAILABLE;
+        }
+        return labelAux;
     }
 
     /**
@@ -413,7 +432,38 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public Iterator getEntriesIterator() {
-        return this.switchingMatrix.iterator();
+        return new TEntriesIterator(this.switchingMatrix.iterator());
+    }
+
+    /**
+     * This method returns an iterator over the switching entries bound to any
+     * of the specified ports, as incoming, outgoing or backup outgoing port,
+     * in the order they were added to the switching matrix. Asking for
+     * TSwitchingMatrixEntry.UNDEFINED gives the entries whose incoming or
+     * outgoing port is still undefined. The iterator walks a copy, so entries
+     * can be removed meanwhile through removeEntry(TSwitchingMatrixEntry), but
+     * not through the iterator.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param portIDs The ports.
+     * @return the iterator over the switching entries bound to those ports.
+     * @since 2.0
+     */
+    public Iterator getEntriesIterator(int[] portIDs) {
+        LinkedHashSet boundEntries = new LinkedHashSet();
+        long stamp = this.indexLock.readLock();
+        try {
+            for (int i = 0; i < portIDs.length; i++) {
+                boundEntries.addAll(Arrays.asList(getEntries(this.entriesByPort, portIDs[i])));
+            }
+        } finally {
+            this.indexLock.unlockRead(stamp);
+        }
+        ArrayList entries = new ArrayList(boundEntries);
+        if (entries.size() > 1) {
+            Collections.sort(entries, TSwitchingMatrix.INSERTION_ORDER);
+        }
+        return Collections.unmodifiableList(entries).iterator();
     }
 
     /**
@@ -429,6 +479,69 @@ public class TSwitchingMatrix {
         return this.switchingMatrix.size();
     }
 
+    /**
+     * This method returns how many lookups of the forwarding path have been
+     * answered without taking any lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of lock free lookups.
+     * @since 2.0
+     */
+    public long getOptimisticLookups() {
+        return this.optimisticLookups.sum();
+    }
+
+    /**
+     * This method returns how many lookups of the forwarding path have had to
+     * be repeated under the read lock because a control plane write changed
+     * the indexes while they were being read.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of repeated lookups.
+     * @since 2.0
+     */
+    public long getRetriedLookups() {
+        return this.retriedLookups.sum();
+    }
+
+    /**
+     * This method returns how many lookups of the forwarding path have had to
+     * wait for a control plane write to finish. It should stay at zero, or
+     * close to it.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of lookups blocked behind a write.
+     * @since 2.0
+     */
+    public long getBlockedLookups() {
+        return this.blockedLookups.sum();
+    }
+
+    /**
+     * This method returns how many writes have been done on the indexes of
+     * the switching matrix.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of writes.
+     * @since 2.0
+     */
+    public long getWrites() {
+        return this.writes.sum();
+    }
+
+    /**
+     * This method returns how many writes on the indexes of the switching
+     * matrix have had to wait for another write or for a lookup holding the
+     * read lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of writes that had to wait.
+     * @since 2.0
+     */
+    public long getBlockedWrites() {
+        return this.blockedWrites.sum();
+    }
+
     /**
      * This method clear all switching entries in stored in the switching
      * matrix, as when created by the constructor.
@@ -438,14 +551,459 @@ public class TSwitchingMatrix {
      */
     public void reset() {
         this.monitor.lock();
-        Iterator it = this.switchingMatrix.iterator();
-        while (it.hasNext()) {
-            it.next();
-            it.remove();
+        long stamp = lockForWriting();
+        try {
+            Iterator it = this.switchingMatrix.iterator();
+            while (it.hasNext()) {
+                ((TSwitchingMatrixEntry) it.next()).setSwitchingMatrix(null, 0);
+                it.remove();
+            }
+            this.entriesByLabelOrFEC.vaciar();
+            this.entriesByLocalTLDPSession.vaciar();
+            this.entriesByUpstreamTLDPSession.vaciar();
+            this.entriesByLabel.vaciar();
+            this.entriesByPort.vaciar();
+            this.usedLabels.clear();
+            this.lowestFreeLabel = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
+        } finally {
+            this.indexLock.unlockWrite(stamp);
         }
+        this.optimisticLookups.reset();
+        this.retriedLookups.reset();
+        this.blockedLookups.reset();
+        this.writes.reset();
+        this.blockedWrites.reset();
         this.monitor.unLock();
     }
 
-    private LinkedList switchingMatrix;
+    /**
+     * This method changes the fields of a switching entry that are used as
+     * index keys, moving the entry to its new place in the indexes. Switching
+     * entries call it from their setters while they belong to this switching
+     * matrix. It does not take the monitor of the class, so it can be called
+     * while iterating the switching entries.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry to be changed.
+     * @param incomingPortID New incoming port of the switching entry.
+     * @param labelOrFEC New labelOrFEC field of the switching entry.
+     * @param entryType New entry type of the switching entry.
+     * @param localTLDPSessionID New local TLDP session ID of the switching
+     * entry.
+     * @param upstreamTLDPSessionID New upstream TLDP session ID of the
+     * switching entry.
+     * @since 2.0
+     */
+    void updateEntryKeys(TSwitchingMatrixEntry switchingMatrixEntry, int incomingPortID, int labelOrFEC, int entryType, int localTLDPSessionID, int upstreamTLDPSessionID) {
+        long stamp = lockForWriting();
+        try {
+            boolean indexed = this.switchingMatrix.contains(switchingMatrixEntry);
+            if (indexed) {
+                unindexEntry(switchingMatrixEntry);
+            }
+            switchingMatrixEntry.setKeys(incomingPortID, labelOrFEC, entryType, localTLDPSessionID, upstreamTLDPSessionID);
+            if (indexed) {
+                indexEntry(switchingMatrixEntry);
+            }
+        } finally {
+            this.indexLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * This method changes the outgoing and backup outgoing ports of a
+     * switching entry, moving the entry to its new place in the ports index.
+     * Switching entries call it from their setters while they belong to this
+     * switching matrix. It does not take the monitor of the class.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry to be changed.
+     * @param outgoingPortID New outgoing port of the switching entry.
+     * @param backupOutgoingPortID New backup outgoing port of the switching
+     * entry.
+     * @since 2.0
+     */
+    void updateEntryPorts(TSwitchingMatrixEntry switchingMatrixEntry, int outgoingPortID, int backupOutgoingPortID) {
+        long stamp = lockForWriting();
+        try {
+            boolean indexed = this.switchingMatrix.contains(switchingMatrixEntry);
+            if (indexed) {
+                unindexEntryPorts(switchingMatrixEntry);
+            }
+            switchingMatrixEntry.setPorts(outgoingPortID, backupOutgoingPortID);
+            if (indexed) {
+                indexEntryPorts(switchingMatrixEntry);
+            }
+        } finally {
+            this.indexLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * This method takes the write lock of the indexes, counting whether it
+     * had to wait for it.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The stamp to be passed to unlockWrite().
+     * @since 2.0
+     */
+    private long lockForWriting() {
+        this.writes.increment();
+        long stamp = this.indexLock.tryWriteLock();
+        if (stamp == 0) {
+            this.blockedWrites.increment();
+            stamp = this.indexLock.writeLock();
+        }
+        return stamp;
+    }
+
+    /**
+     * This method looks up, in the (incoming port, label/FEC, entry type)
+     * index, the oldest switching entry with the values specified as
+     * arguments, that is the one a sequential search would find first. This
+     * is the lookup of the forwarding path, so it is first tried without any
+     * lock and it is repeated holding the read lock only if a control plane
+     * write has changed the indexes meanwhile or if there are several
+     * entries under the same key.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param incomingPortID The incoming port of the wanted switching entry.
+     * @param labelOrFEC The labelOrFEC field of the wanted switching entry.
+     * @param entryType The entry type of the wanted switching entry.
+     * @return The switching entry, or NULL if it does not exist.
+     * @since 2.0
+     */
+    private TSwitchingMatrixEntry getFirstEntry(int incomingPortID, int labelOrFEC, int entryType) {
+        long key = getLabelOrFECKey(incomingPortID, labelOrFEC, entryType);
+        long stamp = this.indexLock.tryOptimisticRead();
+        if (stamp != 0) {
+            Object value = this.entriesByLabelOrFEC.obtenerSinBloqueo(key);
+            // Several entries under the same key are kept in an ArrayList that
+            // a write may be changing, so they are only walked under the lock.
+            if (!(value instanceof ArrayList)) {
+                if (this.indexLock.validate(stamp)) {
+                    this.optimisticLookups.increment();
+                    return (TSwitchingMatrixEntry) value;
+                }
+                this.retriedLookups.increment();
+            }
+        }
+        stamp = this.indexLock.tryReadLock();
+        if (stamp == 0) {
+            this.blockedLookups.increment();
+            stamp = this.indexLock.readLock();
+        }
+        try {
+            return getOldestEntry(this.entriesByLabelOrFEC, key);
+        } finally {
+            this.indexLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * This method returns the oldest switching entry stored in an index under
+     * a given key. Must be called holding the index lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The index.
+     * @param key The key.
+     * @return The oldest switching entry under that key, or NULL if there is
+     * none.
+     * @since 2.0
+     */
+    private TSwitchingMatrixEntry getOldestEntry(TLongHashMap index, long key) {
+        Object value = index.obtener(key);
+        if (value instanceof TSwitchingMatrixEntry) {
+            return (TSwitchingMatrixEntry) value;
+        }
+        if (value == null) {
+            return null;
+        }
+        ArrayList entries = (ArrayList) value;
+        TSwitchingMatrixEntry first = null;
+        TSwitchingMatrixEntry switchingMatrixEntryAux;
+        for (int i = 0; i < entries.size(); i++) {
+            switchingMatrixEntryAux = (TSwitchingMatrixEntry) entries.get(i);
+            if ((first == null) || (switchingMatrixEntryAux.getSequence() < first.getSequence())) {
+                first = switchingMatrixEntryAux;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * This method adds a switching entry to all the indexes. Must be called
+     * holding the index lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void indexEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
+        addToIndex(this.entriesByLabelOrFEC, getLabelOrFECKey(switchingMatrixEntry.getIncomingPortID(), switchingMatrixEntry.getLabelOrFEC(), switchingMatrixEntry.getEntryType()), switchingMatrixEntry);
+        addToIndex(this.entriesByLocalTLDPSession, switchingMatrixEntry.getLocalTLDPSessionID(), switchingMatrixEntry);
+        addToIndex(this.entriesByUpstreamTLDPSession, getUpstreamTLDPSessionKey(switchingMatrixEntry.getUpstreamTLDPSessionID(), switchingMatrixEntry.getIncomingPortID()), switchingMatrixEntry);
+        indexEntryPorts(switchingMatrixEntry);
+        if (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
+            addToIndex(this.entriesByLabel, switchingMatrixEntry.getLabelOrFEC(), switchingMatrixEntry);
+            if (switchingMatrixEntry.getLabelOrFEC() >= 0) {
+                this.usedLabels.set(switchingMatrixEntry.getLabelOrFEC());
+            }
+        }
+    }
+
+    /**
+     * This method removes a switching entry from all the indexes. Must be
+     * called holding the index lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void unindexEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
+        removeFromIndex(this.entriesByLabelOrFEC, getLabelOrFECKey(switchingMatrixEntry.getIncomingPortID(), switchingMatrixEntry.getLabelOrFEC(), switchingMatrixEntry.getEntryType()), switchingMatrixEntry);
+        removeFromIndex(this.entriesByLocalTLDPSession, switchingMatrixEntry.getLocalTLDPSessionID(), switchingMatrixEntry);
+        removeFromIndex(this.entriesByUpstreamTLDPSession, getUpstreamTLDPSessionKey(switchingMatrixEntry.getUpstreamTLDPSessionID(), switchingMatrixEntry.getIncomingPortID()), switchingMatrixEntry);
+        unindexEntryPorts(switchingMatrixEntry);
+        if (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
+            int label = switchingMatrixEntry.getLabelOrFEC();
+            removeFromIndex(this.entriesByLabel, label, switchingMatrixEntry);
+            // The label is free again once no other entry uses it.
+            if ((label >= 0) && (this.entriesByLabel.obtener(label) == null)) {
+                this.usedLabels.clear(label);
+                if ((label >= TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL) && (label < this.lowestFreeLabel)) {
+                    this.lowestFreeLabel = label;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method adds a switching entry to the ports index, once for each
+     * distinct port it is bound to. An undefined backup outgoing port is not
+     * indexed, as most entries have none. Must be called holding the index
+     * lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void indexEntryPorts(TSwitchingMatrixEntry switchingMatrixEntry) {
+        int incomingPortID = switchingMatrixEntry.getIncomingPortID();
+        int outgoingPortID = switchingMatrixEntry.getOutgoingPortID();
+        int backupOutgoingPortID = switchingMatrixEntry.getBackupOutgoingPortID();
+        addToIndex(this.entriesByPort, incomingPortID, switchingMatrixEntry);
+        if (outgoingPortID != incomingPortID) {
+            addToIndex(this.entriesByPort, outgoingPortID, switchingMatrixEntry);
+        }
+        if ((backupOutgoingPortID >= 0) && (backupOutgoingPortID != incomingPortID) && (backupOutgoingPortID != outgoingPortID)) {
+            addToIndex(this.entriesByPort, backupOutgoingPortID, switchingMatrixEntry);
+        }
+    }
+
+    /**
+     * This method removes a switching entry from the ports index. Must be
+     * called holding the index lock, before changing any port of the entry.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void unindexEntryPorts(TSwitchingMatrixEntry switchingMatrixEntry) {
+        int incomingPortID = switchingMatrixEntry.getIncomingPortID();
+        int outgoingPortID = switchingMatrixEntry.getOutgoingPortID();
+        int backupOutgoingPortID = switchingMatrixEntry.getBackupOutgoingPortID();
+        removeFromIndex(this.entriesByPort, incomingPortID, switchingMatrixEntry);
+        if (outgoingPortID != incomingPortID) {
+            removeFromIndex(this.entriesByPort, outgoingPortID, switchingMatrixEntry);
+        }
+        if ((backupOutgoingPortID >= 0) && (backupOutgoingPortID != incomingPortID) && (backupOutgoingPortID != outgoingPortID)) {
+            removeFromIndex(this.entriesByPort, backupOutgoingPortID, switchingMatrixEntry);
+        }
+    }
+
+    /**
+     * This method removes a switching entry from the switching matrix and from
+     * all the indexes. Must be called holding the index lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void unlinkEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
+        this.switchingMatrix.remove(switchingMatrixEntry);
+        unindexEntry(switchingMatrixEntry);
+        switchingMatrixEntry.setSwitchingMatrix(null, 0);
+    }
+
+    /**
+     * This method stores a switching entry in an index under a given key. A
+     * key with a single switching entry stores it directly; a key shared by
+     * several switching entries stores a list of them.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The index.
+     * @param key The key.
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void addToIndex(TLongHashMap index, long key, TSwitchingMatrixEntry switchingMatrixEntry) {
+        Object value = index.obtener(key);
+        if (value == null) {
+            index.poner(key, switchingMatrixEntry);
+        } else if (value instanceof TSwitchingMatrixEntry) {
+            ArrayList entries = new ArrayList(2);
+            entries.add(value);
+            entries.add(switchingMatrixEntry);
+            index.poner(key, entries);
+        } else {
+            ((ArrayList) value).add(switchingMatrixEntry);
+        }
+    }
+
+    /**
+     * This method removes a switching entry from an index.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The index.
+     * @param key The key the switching entry is stored under.
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private void removeFromIndex(TLongHashMap index, long key, TSwitchingMatrixEntry switchingMatrixEntry) {
+        Object value = index.obtener(key);
+        if (value == switchingMatrixEntry) {
+            index.quitar(key);
+        } else if (value instanceof ArrayList) {
+            ArrayList entries = (ArrayList) value;
+            entries.remove(switchingMatrixEntry);
+            if (entries.size() == 1) {
+                index.poner(key, entries.get(0));
+            }
+        }
+    }
+
+    /**
+     * This method returns all the switching entries stored in an index under a
+     * given key.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param index The index.
+     * @param key The key.
+     * @return The switching entries, that can be removed from the index while
+     * walking the returned array.
+     * @since 2.0
+     */
+    private Object[] getEntries(TLongHashMap index, long key) {
+        Object value = index.obtener(key);
+        if (value == null) {
+            return new Object[0];
+        }
+        if (value instanceof TSwitchingMatrixEntry) {
+            return new Object[]{value};
+        }
+        return ((ArrayList) value).toArray();
+    }
+
+    /**
+     * This method computes the key of the (incoming port, label/FEC, entry
+     * type) index.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param incomingPortID The incoming port.
+     * @param labelOrFEC The label or FEC.
+     * @param entryType The entry type (FEC_ENTRY, LABEL_ENTRY or UNDEFINED).
+     * @return The key.
+     * @since 2.0
+     */
+    private static long getLabelOrFECKey(int incomingPortID, int labelOrFEC, int entryType) {
+        // Port IDs are small, so two bits are left for the entry type.
+        return (((long) labelOrFEC) << 32) | (((incomingPortID << 2) | ((entryType + 1) & 0x03)) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * This method computes the key of the (upstream TLDP session, incoming
+     * port) index.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param upstreamTLDPSessionID The upstream TLDP session ID.
+     * @param incomingPortID The incoming port.
+     * @return The key.
+     * @since 2.0
+     */
+    private static long getUpstreamTLDPSessionKey(int upstreamTLDPSessionID, int incomingPortID) {
+        return (((long) upstreamTLDPSessionID) << 32) | (incomingPortID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * This class implements the iterator over the switching entries returned
+     * by getEntriesIterator(). Removing a switching entry through it also
+     * removes the entry from the indexes.
+     *
+     * @author The OpenSimMPLS contributors
+     * @version 2.0
+     */
+    private class TEntriesIterator implements Iterator {
+
+        public TEntriesIterator(Iterator iterator) {
+            this.iterator = iterator;
+            this.current = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.iterator.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            this.current = (TSwitchingMatrixEntry) this.iterator.next();
+            return this.current;
+        }
+
+        @Override
+        public void remove() {
+            long stamp = lockForWriting();
+            try {
+                this.iterator.remove();
+                unindexEntry(this.current);
+                this.current.setSwitchingMatrix(null, 0);
+            } finally {
+                TSwitchingMatrix.this.indexLock.unlockWrite(stamp);
+            }
+        }
+
+        private final Iterator iterator;
+        private TSwitchingMatrixEntry current;
+    }
+
+    private static final Comparator INSERTION_ORDER = new Comparator() {
+        @Override
+        public int compare(Object o1, Object o2) {
+            long sequence1 = ((TSwitchingMatrixEntry) o1).getSequence();
+            long sequence2 = ((TSwitchingMatrixEntry) o2).getSequence();
+            if (sequence1 != sequence2) {
+                return (sequence1 < sequence2) ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    private LinkedHashSet switchingMatrix;
     private TMonitor monitor;
+    private final StampedLock indexLock;
+    private final LongAdder optimisticLookups;
+    private final LongAdder retriedLookups;
+    private final LongAdder blockedLookups;
+    private final LongAdder writes;
+    private final LongAdder blockedWrites;
+    private TLongHashMap entriesByLabelOrFEC;
+    private TLongHashMap entriesByLocalTLDPSession;
+    private TLongHashMap entriesByUpstreamTLDPSession;
+    private TLongHashMap entriesByLabel;
+    private TLongHashMap entriesByPort;
+    private BitSet usedLabels;
+    private int lowestFreeLabel;
+    private long nextSequence;
+    private TTimingWheel timingWheel;
 }
@@ -15,6 +15,9 @@
  */
 package simMPLS.hardware.tldp;
 
+import simMPLS.hardware.timer.TTimeout;
+import simMPLS.hardware.timer.TTimingWheel;
+
 /**
  * This class implements a switching matrix entry needed to manage traffic
  * forwarding.
@@ -46,6 +49,9 @@ public class TSwitchingMatrixEntry {
         this.timeout = TSwitchingMatrixEntry.TIMEOUT;
         this.labelRequestAttempts = TSwitchingMatrixEntry.LABEL_REQUEST_ATTEMPTS;
         this.isRequestForBackupLSP = false;
+        this.switchingMatrix = null;
+        this.sequence = 0;
+        this.timer = new TTimeout(this);
     }
 
     /**
@@ -199,30 +205,62 @@ public class TSwitchingMatrixEntry {
 
     /**
      * This method reset the communication timeout for this entry to its default
-     * value.
+     * value. If the entry is waiting for a TLDP operation, the timeout starts
+     * running again in the timing wheel of its switching matrix.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     public void resetTimeOut() {
         this.timeout = TSwitchingMatrixEntry.TIMEOUT;
+        this.timer.cancel();
+        updateTimer();
     }
 
     /**
-     * This method decreases the communication timeout.
+     * This method makes the timeout of this entry expire on the next tick of
+     * the node, so that the node visits the entry again then. It is used once
+     * the last attempt of a label withdrawal has been sent, to remove the
+     * entry one tick later.
      *
-     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    public void expireTimeOutOnNextTick() {
+        this.timer.reschedule(0);
+    }
+
+    /**
+     * This method returns the communication timeout that remains for this
+     * entry.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The remaining communication timeout, in nanoseconds.
      * @since 2.0
-     * @param nanosecondsToDecrease The number of nanoseconds that are going to
-     * be decreased from the available timeout credit.
      */
-    public void decreaseTimeOut(int nanosecondsToDecrease) {
-        if (this.timeout > 0) {
-            this.timeout -= nanosecondsToDecrease;
+    public int getTimeOut() {
+        if (this.timer.isIdle()) {
+            return this.timeout;
         }
-        if (this.timeout < 0) {
-            this.timeout = 0;
+        return (int) this.timer.getRemainingTime();
+    }
+
+    /**
+     * This method checks whether this entry is waiting for a TLDP operation
+     * whose timeout, when expired, will cause the operation to be retried.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TRUE, if the entry has a pending TLDP operation with available
+     * attempts. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isWaitingForTLDPTimeout() {
+        if (areThereAvailableAttempts()) {
+            if ((this.label == TSwitchingMatrixEntry.LABEL_REQUESTED) || (this.label == TSwitchingMatrixEntry.REMOVING_LABEL)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -237,7 +275,7 @@ public class TSwitchingMatrixEntry {
      */
     public boolean shouldRetryExpiredTLDPRequest() {
         if (areThereAvailableAttempts()) {
-            if (timeout == 0) {
+            if (getTimeOut() == 0) {
                 if ((this.label == TSwitchingMatrixEntry.LABEL_REQUESTED) || (this.label == TSwitchingMatrixEntry.REMOVING_LABEL)) {
                     return true;
                 }
@@ -255,7 +293,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setIncomingPortID(int incomingPortID) {
-        this.incomingPortID = incomingPortID;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryKeys(this, incomingPortID, this.labelOrFEC, this.entryType, this.localTLDPSessionID, this.upstreamTLDPSessionID);
+        } else {
+            this.incomingPortID = incomingPortID;
+        }
     }
 
     /**
@@ -277,7 +320,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setLabelOrFEC(int labelOrFEC) {
-        this.labelOrFEC = labelOrFEC;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryKeys(this, this.incomingPortID, labelOrFEC, this.entryType, this.localTLDPSessionID, this.upstreamTLDPSessionID);
+        } else {
+            this.labelOrFEC = labelOrFEC;
+        }
     }
 
     /**
@@ -299,7 +347,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setOutgoingPortID(int outgoingPortID) {
-        this.outgoingPortID = outgoingPortID;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryPorts(this, outgoingPortID, this.backupOutgoingPortID);
+        } else {
+            this.outgoingPortID = outgoingPortID;
+        }
     }
 
     /**
@@ -311,7 +364,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setBackupOutgoingPortID(int backupOutgoingPortID) {
-        this.backupOutgoingPortID = backupOutgoingPortID;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryPorts(this, this.outgoingPortID, backupOutgoingPortID);
+        } else {
+            this.backupOutgoingPortID = backupOutgoingPortID;
+        }
     }
 
     /**
@@ -345,10 +403,15 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void switchToBackupLSP() {
-        this.outgoingPortID = this.backupOutgoingPortID;
-        this.label = this.backupLabel;
-        this.backupOutgoingPortID = TSwitchingMatrixEntry.UNDEFINED;
+        int newOutgoingLabel = this.backupLabel;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryPorts(this, this.backupOutgoingPortID, TSwitchingMatrixEntry.UNDEFINED);
+        } else {
+            setPorts(this.backupOutgoingPortID, TSwitchingMatrixEntry.UNDEFINED);
+        }
         this.backupLabel = TSwitchingMatrixEntry.UNDEFINED;
+        setOutgoingLabel(newOutgoingLabel);
         this.isRequestForBackupLSP = false;
     }
 
@@ -361,6 +424,7 @@ public class TSwitchingMatrixEntry {
      */
     public void setOutgoingLabel(int outgoingLabel) {
         this.label = outgoingLabel;
+        updateTimer();
     }
 
     /**
@@ -432,7 +496,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setEntryType(int entryType) {
-        this.entryType = entryType;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryKeys(this, this.incomingPortID, this.labelOrFEC, entryType, this.localTLDPSessionID, this.upstreamTLDPSessionID);
+        } else {
+            this.entryType = entryType;
+        }
     }
 
     /**
@@ -482,7 +551,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setLocalTLDPSessionID(int localTLDPSessionID) {
-        this.localTLDPSessionID = localTLDPSessionID;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryKeys(this, this.incomingPortID, this.labelOrFEC, this.entryType, localTLDPSessionID, this.upstreamTLDPSessionID);
+        } else {
+            this.localTLDPSessionID = localTLDPSessionID;
+        }
     }
 
     /**
@@ -507,7 +581,12 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setUpstreamTLDPSessionID(int upstreamTLDPSessionID) {
-        this.upstreamTLDPSessionID = upstreamTLDPSessionID;
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.updateEntryKeys(this, this.incomingPortID, this.labelOrFEC, this.entryType, this.localTLDPSessionID, upstreamTLDPSessionID);
+        } else {
+            this.upstreamTLDPSessionID = upstreamTLDPSessionID;
+        }
     }
 
     /**
@@ -523,6 +602,98 @@ public class TSwitchingMatrixEntry {
         return this.upstreamTLDPSessionID;
     }
 
+    /**
+     * This method sets the switching matrix this entry belongs to, so that
+     * changes to the fields used as index keys are notified to it.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param switchingMatrix The switching matrix, or NULL if the entry is
+     * removed from it.
+     * @param sequence Insertion order of the entry in the switching matrix.
+     * @since 2.0
+     */
+    void setSwitchingMatrix(TSwitchingMatrix switchingMatrix, long sequence) {
+        this.switchingMatrix = switchingMatrix;
+        this.sequence = sequence;
+        updateTimer();
+    }
+
+    /**
+     * This method keeps the timeout of this entry running in the timing wheel
+     * of its switching matrix only while the entry waits for a TLDP operation
+     * (a label request or a label withdrawal). When the entry stops waiting,
+     * the timeout and the attempts go back to their default values.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    private void updateTimer() {
+        TSwitchingMatrix owner = this.switchingMatrix;
+        TTimingWheel timingWheel = null;
+        if (owner != null) {
+            timingWheel = owner.getTimingWheel();
+        }
+        if ((timingWheel != null) && ((this.label == TSwitchingMatrixEntry.LABEL_REQUESTED) || (this.label == TSwitchingMatrixEntry.REMOVING_LABEL))) {
+            if (!this.timer.isPending()) {
+                timingWheel.schedule(this.timer, getTimeOut());
+            }
+        } else {
+            this.timer.cancel();
+            if (owner != null) {
+                this.timeout = TSwitchingMatrixEntry.TIMEOUT;
+                this.labelRequestAttempts = TSwitchingMatrixEntry.LABEL_REQUEST_ATTEMPTS;
+            }
+        }
+    }
+
+    /**
+     * This method gets the insertion order of this entry in its switching
+     * matrix.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The insertion order of this entry.
+     * @since 2.0
+     */
+    long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * This method sets at once all the fields used as index keys by the
+     * switching matrix. Only the switching matrix calls it, holding its index
+     * lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param incomingPortID The incoming portID.
+     * @param labelOrFEC The LABEL or FEC value.
+     * @param entryType The type of entry.
+     * @param localTLDPSessionID The local TLDP session ID.
+     * @param upstreamTLDPSessionID The upstream TLDP session ID.
+     * @since 2.0
+     */
+    void setKeys(int incomingPortID, int labelOrFEC, int entryType, int localTLDPSessionID, int upstreamTLDPSessionID) {
+        this.incomingPortID = incomingPortID;
+        this.labelOrFEC = labelOrFEC;
+        this.entryType = entryType;
+        this.localTLDPSessionID = localTLDPSessionID;
+        this.upstreamTLDPSessionID = upstreamTLDPSessionID;
+    }
+
+    /**
+     * This method sets at once the outgoing port and the backup outgoing port
+     * of this entry. Only the switching matrix calls it, holding its index
+     * lock.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param outgoingPortID The outgoing portID.
+     * @param backupOutgoingPortID The outgoing portID of the backup LSP.
+     * @since 2.0
+     */
+    void setPorts(int outgoingPortID, int backupOutgoingPortID) {
+        this.outgoingPortID = outgoingPortID;
+        this.backupOutgoingPortID = backupOutgoingPortID;
+    }
+
     /**
      * This method checks whether the current entry is configured correctly and
      * is valid, or, on the contratry, the entry is misconfiured and should not
@@ -600,4 +771,7 @@ public class TSwitchingMatrixEntry {
     private boolean isRequestForBackupLSP;
     private int timeout;
     private int labelRequestAttempts;
+    private TSwitchingMatrix switchingMatrix;
+    private long sequence;
+    private TTimeout timer;
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.net;
+
+import java.io.Serializable;
+import simMPLS.protocols.TAbstractPDU;
+
+/**
+ * This class implements a packet that travels through a link whose ends are
+ * simulated by different processes of a distributed simulation. Links are
+ * identified by their identifier, that is the same in every process because
+ * all of them load the same scenario.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TBoundaryPacket implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TBoundaryPacket.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param targetPartition The partition the packet is sent to.
+     * @param arrivalInstant The instant the packet arrives, in nanoseconds.
+     * @param linkID The identifier of the link the packet travels through.
+     * @param linkEnd The end of the link the packet arrives to.
+     * TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @param packet The packet.
+     * @since 2.0
+     */
+    public TBoundaryPacket(int targetPartition, long arrivalInstant, int linkID, int linkEnd, TAbstractPDU packet) {
+        this.targetPartition = targetPartition;
+        this.arrivalInstant = arrivalInstant;
+        this.linkID = linkID;
+        this.linkEnd = linkEnd;
+        this.packet = packet;
+    }
+
+    /**
+     * This method returns the partition the packet is sent to.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The partition the packet is sent to.
+     * @since 2.0
+     */
+    public int getTargetPartition() {
+        return this.targetPartition;
+    }
+
+    /**
+     * This method returns the instant the packet arrives.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The instant the packet arrives, in nanoseconds.
+     * @since 2.0
+     */
+    public long getArrivalInstant() {
+        return this.arrivalInstant;
+    }
+
+    /**
+     * This method returns the identifier of the link the packet travels
+     * through.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The identifier of the link.
+     * @since 2.0
+     */
+    public int getLinkID() {
+        return this.linkID;
+    }
+
+    /**
+     * This method returns the end of the link the packet arrives to.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @since 2.0
+     */
+    public int getLinkEnd() {
+        return this.linkEnd;
+    }
+
+    /**
+     * This method returns the packet.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The packet.
+     * @since 2.0
+     */
+    public TAbstractPDU getPacket() {
+        return this.packet;
+    }
+
+    private int targetPartition;
+    private long arrivalInstant;
+    private int linkID;
+    private int linkEnd;
+    private TAbstractPDU packet;
+    private static final long serialVersionUID = 1L;
+}
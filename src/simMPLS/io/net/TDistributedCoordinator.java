@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.net;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements the coordinator of a distributed simulation. Each
+ * worker (TDistributedWorker) simulates a partition of the same scenario in
+ * its own process. The coordinator grants time windows as long as the
+ * lookahead of the partitioned topology and, between windows, forwards the
+ * packets that cross from one partition to another. It does not need to load
+ * the scenario itself.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TDistributedCoordinator {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TDistributedCoordinator.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param port The TCP port the coordinator listens to.
+     * @param numberOfWorkers The number of workers that take part in the
+     * simulation.
+     * @since 2.0
+     */
+    public TDistributedCoordinator(int port, int numberOfWorkers) {
+        this.port = port;
+        this.numberOfWorkers = numberOfWorkers;
+        this.numberOfWindows = 0;
+        this.numberOfBoundaryPackets = 0;
+    }
+
+    /**
+     * This method waits for all workers to connect and then runs the whole
+     * simulation, window by window.
+     *
+     * @author The OpenSimMPLS contributors
+     * @throws IOException If the communication with a worker fails or the
+     * workers have not loaded the same scenario.
+     * @throws ClassNotFoundException If a worker sends an unknown object.
+     * @since 2.0
+     */
+    public void run() throws IOException, ClassNotFoundException {
+        ServerSocket serverSocket = new ServerSocket(this.port);
+        Socket[] sockets = new Socket[this.numberOfWorkers];
+        ObjectInputStream[] inputs = new ObjectInputStream[this.numberOfWorkers];
+        ObjectOutputStream[] outputs = new ObjectOutputStream[this.numberOfWorkers];
+        try {
+            for (int i = 0; i < this.numberOfWorkers; i++) {
+                sockets[i] = serverSocket.accept();
+                sockets[i].setTcpNoDelay(true);
+                outputs[i] = new ObjectOutputStream(sockets[i].getOutputStream());
+                outputs[i].flush();
+                inputs[i] = new ObjectInputStream(sockets[i].getInputStream());
+                expectMessage(inputs[i], TDistributedCoordinator.HELLO);
+                outputs[i].writeInt(TDistributedCoordinator.ASSIGN);
+                outputs[i].writeInt(i);
+                outputs[i].writeInt(this.numberOfWorkers);
+                outputs[i].flush();
+            }
+            long lookahead = Long.MAX_VALUE;
+            int tick = 0;
+            long finishInstant = 0;
+            for (int i = 0; i < this.numberOfWorkers; i++) {
+                expectMessage(inputs[i], TDistributedCoordinator.READY);
+                lookahead = Math.min(lookahead, inputs[i].readLong());
+                int workerTick = inputs[i].readInt();
+                long workerFinishInstant = inputs[i].readLong();
+                if ((i > 0) && ((workerTick != tick) || (workerFinishInstant != finishInstant))) {
+                    throw new IOException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedCoordinator.DifferentScenarios"));
+                }
+                tick = workerTick;
+                finishInstant = workerFinishInstant;
+            }
+            long window = Math.min(Math.max(lookahead, tick), finishInstant);
+            LinkedList[] inbound = new LinkedList[this.numberOfWorkers];
+            for (int i = 0; i < this.numberOfWorkers; i++) {
+                inbound[i] = new LinkedList();
+            }
+            long reachedInstant = 0;
+            long windowEnd;
+            while (reachedInstant < finishInstant) {
+                windowEnd = Math.min(reachedInstant + window, finishInstant);
+                for (int i = 0; i < this.numberOfWorkers; i++) {
+                    outputs[i].writeInt(TDistributedCoordinator.WINDOW);
+                    outputs[i].writeLong(reachedInstant);
+                    outputs[i].writeLong(windowEnd);
+                    outputs[i].writeObject(inbound[i]);
+                    outputs[i].flush();
+                    outputs[i].reset();
+                    inbound[i] = new LinkedList();
+                }
+                for (int i = 0; i < this.numberOfWorkers; i++) {
+                    expectMessage(inputs[i], TDistributedCoordinator.DONE);
+                    Iterator outboundIterator = ((LinkedList) inputs[i].readObject()).iterator();
+                    while (outboundIterator.hasNext()) {
+                        TBoundaryPacket boundaryPacket = (TBoundaryPacket) outboundIterator.next();
+                        if (boundaryPacket.getTargetPartition() < this.numberOfWorkers) {
+                            inbound[boundaryPacket.getTargetPartition()].add(boundaryPacket);
+                            this.numberOfBoundaryPackets++;
+                        }
+                    }
+                }
+                this.numberOfWindows++;
+                reachedInstant = windowEnd;
+            }
+            for (int i = 0; i < this.numberOfWorkers; i++) {
+                outputs[i].writeInt(TDistributedCoordinator.FINISH);
+                outputs[i].flush();
+            }
+        } finally {
+            for (int i = 0; i < this.numberOfWorkers; i++) {
+                if (sockets[i] != null) {
+                    sockets[i].close();
+                }
+            }
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * This method returns the number of windows granted to the workers.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of windows granted.
+     * @since 2.0
+     */
+    public long getNumberOfWindows() {
+        return this.numberOfWindows;
+    }
+
+    /**
+     * This method returns the number of packets forwarded from one worker to
+     * another.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of packets forwarded.
+     * @since 2.0
+     */
+    public long getNumberOfBoundaryPackets() {
+        return this.numberOfBoundaryPackets;
+    }
+
+    /**
+     * This method reads the type of the next message and checks that it is
+     * the expected one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param input The stream the message is read from.
+     * @param messageType The expected type of message.
+     * @throws IOException If the message is not the expected one.
+     * @since 2.0
+     */
+    static void expectMessage(ObjectInputStream input, int messageType) throws IOException {
+        int receivedMessageType = input.readInt();
+        if (receivedMessageType != messageType) {
+            throw new IOException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedCoordinator.UnexpectedMessage") + receivedMessageType);
+        }
+    }
+
+    /**
+     * This method starts a coordinator from the command line. Usage:
+     * TDistributedCoordinator port numberOfWorkers
+     *
+     * @author The OpenSimMPLS contributors
+     * @param args The command line arguments.
+     * @throws IOException If the communication with a worker fails or the
+     * workers have not loaded the same scenario.
+     * @throws ClassNotFoundException If a worker sends an unknown object.
+     * @since 2.0
+     */
+    public static void main(String args[]) throws IOException, ClassNotFoundException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedCoordinator.Usage"));
+        }
+        TDistributedCoordinator coordinator = new TDistributedCoordinator(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        long startTime = System.currentTimeMillis();
+        coordinator.run();
+        Logger.getLogger(TDistributedCoordinator.class.getName()).log(Level.INFO, java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedCoordinator.Finished"), new Object[]{System.currentTimeMillis() - startTime, coordinator.getNumberOfWindows(), coordinator.getNumberOfBoundaryPackets()});
+    }
+
+    /**
+     * Message sent by a worker when it connects to the coordinator.
+     *
+     * @since 2.0
+     */
+    public static final int HELLO = 0;
+    /**
+     * Message that assigns a partition to a worker.
+     *
+     * @since 2.0
+     */
+    public static final int ASSIGN = 1;
+    /**
+     * Message sent by a worker when its partition is ready to be simulated.
+     *
+     * @since 2.0
+     */
+    public static final int READY = 2;
+    /**
+     * Message that grants a time window to a worker.
+     *
+     * @since 2.0
+     */
+    public static final int WINDOW = 3;
+    /**
+     * Message sent by a worker when it has simulated the granted window.
+     *
+     * @since 2.0
+     */
+    public static final int DONE = 4;
+    /**
+     * Message that tells a worker that the simulation has finished.
+     *
+     * @since 2.0
+     */
+    public static final int FINISH = 5;
+
+    private int port;
+    private int numberOfWorkers;
+    private long numberOfWindows;
+    private long numberOfBoundaryPackets;
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.net;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import simMPLS.hardware.timer.IRemotePartitionListener;
+import simMPLS.hardware.timer.TTimerPartition;
+import simMPLS.hardware.timer.TTopologyPartitioner;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TScenario;
+import simMPLS.scenario.TTopology;
+
+/**
+ * This class implements a worker of a distributed simulation. Every worker
+ * splits the same scenario the same way, but only builds and simulates the
+ * partition assigned by the coordinator (TDistributedCoordinator). Nodes of
+ * other partitions are loaded as TRemoteNode, that only keep what the links
+ * and the routing need. Packets sent to other partitions are returned to the
+ * coordinator at the end of each window.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TDistributedWorker implements IRemotePartitionListener {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TDistributedWorker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param coordinatorHost The host where the coordinator runs.
+     * @param coordinatorPort The TCP port the coordinator listens to.
+     * @param scenarioFile The scenario to be simulated.
+     * @since 2.0
+     */
+    public TDistributedWorker(String coordinatorHost, int coordinatorPort, File scenarioFile) {
+        this.coordinatorHost = coordinatorHost;
+        this.coordinatorPort = coordinatorPort;
+        this.scenarioFile = scenarioFile;
+        this.outbound = new LinkedList();
+        this.partitionID = -1;
+        this.numberOfNodes = 0;
+        this.numberOfWindows = 0;
+    }
+
+    /**
+     * This method connects to the coordinator, loads the assigned partition of
+     * the scenario and simulates it window by window, until the coordinator
+     * finishes the simulation.
+     *
+     * @author The OpenSimMPLS contributors
+     * @throws IOException If the scenario can not be loaded or the
+     * communication with the coordinator fails.
+     * @throws ClassNotFoundException If the coordinator sends an unknown
+     * object.
+     * @since 2.0
+     */
+    public void run() throws IOException, ClassNotFoundException {
+        Socket socket = new Socket(this.coordinatorHost, this.coordinatorPort);
+        socket.setTcpNoDelay(true);
+        TTopology topology = null;
+        TTopologyPartitioner partitioner = null;
+        try {
+            ObjectOutputStream output = new ObjectOutputStream(socket.getOutputStream());
+            output.flush();
+            ObjectInputStream input = new ObjectInputStream(socket.getInputStream());
+            output.writeInt(TDistributedCoordinator.HELLO);
+            output.flush();
+            TDistributedCoordinator.expectMessage(input, TDistributedCoordinator.ASSIGN);
+            this.partitionID = input.readInt();
+            int numberOfPartitions = input.readInt();
+            TScenario scenario = loadPartition(numberOfPartitions);
+            topology = scenario.getTopology();
+            int tick = (int) scenario.getSimulation().obtenerPaso();
+            long finishInstant = scenario.getSimulation().obtenerDuracion();
+            partitioner = createPartitions(topology, numberOfPartitions, tick);
+            TTimerPartition ownPartition = null;
+            if (this.partitionID < partitioner.getPartitions().length) {
+                ownPartition = partitioner.getPartitions()[this.partitionID];
+                this.numberOfNodes = ownPartition.getNumberOfNodes();
+            }
+            scenario.reset();
+            output.writeInt(TDistributedCoordinator.READY);
+            output.writeLong(partitioner.getLookahead());
+            output.writeInt(tick);
+            output.writeLong(finishInstant);
+            output.flush();
+            while (input.readInt() == TDistributedCoordinator.WINDOW) {
+                long windowStart = input.readLong();
+                long windowEnd = input.readLong();
+                Iterator inboundIterator = ((LinkedList) input.readObject()).iterator();
+                if (ownPartition != null) {
+                    while (inboundIterator.hasNext()) {
+                        deliver(topology, ownPartition, (TBoundaryPacket) inboundIterator.next());
+                    }
+                    ownPartition.simulateWindow(windowStart, windowEnd, tick);
+                }
+                output.writeInt(TDistributedCoordinator.DONE);
+                synchronized (this) {
+                    output.writeObject(this.outbound);
+                    this.outbound = new LinkedList();
+                }
+                output.flush();
+                output.reset();
+                this.numberOfWindows++;
+            }
+        } finally {
+            if (partitioner != null) {
+                partitioner.release(topology.obtenerReloj().getWorkerPool());
+            }
+            socket.close();
+        }
+    }
+
+    /**
+     * This method captures the packets sent to partitions simulated by other
+     * workers. They are returned to the coordinator at the end of the window.
+     * This method is a synchronized one.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param partition The partition the packet is sent to.
+     * @param instant The instant the packet arrives, in nanoseconds.
+     * @param packet The packet.
+     * @param link The link the packet travels through.
+     * @param linkEnd The end of the link the packet arrives to.
+     * @since 2.0
+     */
+    @Override
+    public synchronized void captureRemoteDelivery(TTimerPartition partition, long instant, TAbstractPDU packet, TLink link, int linkEnd) {
+        this.outbound.add(new TBoundaryPacket(partition.getPartitionID(), instant, link.getID(), linkEnd, packet));
+    }
+
+    /**
+     * This method returns the partition simulated by this worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The partition simulated by this worker, or -1 if it has not been
+     * assigned yet.
+     * @since 2.0
+     */
+    public int getPartitionID() {
+        return this.partitionID;
+    }
+
+    /**
+     * This method returns the number of nodes simulated by this worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of nodes simulated by this worker.
+     * @since 2.0
+     */
+    public int getNumberOfNodes() {
+        return this.numberOfNodes;
+    }
+
+    /**
+     * This method returns the number of windows simulated by this worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The number of windows simulated.
+     * @since 2.0
+     */
+    public long getNumberOfWindows() {
+        return this.numberOfWindows;
+    }
+
+    /**
+     * This method loads the scenario, building only the nodes of the own
+     * partition. The scenario is first loaded with every node as a
+     * TRemoteNode, which is enough to know how it is split, and then loaded
+     * again with the nodes of the own partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param numberOfPartitions The number of partitions.
+     * @return The scenario, with the nodes of other partitions as
+     * TRemoteNode.
+     * @throws IOException If the scenario can not be loaded.
+     * @since 2.0
+     */
+    private TScenario loadPartition(int numberOfPartitions) throws IOException {
+        TOSMLoader loader = new TOSMLoader();
+        if (!loader.cargar(this.scenarioFile, new TreeSet())) {
+            throw new IOException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedWorker.ErrorLoading") + this.scenarioFile.getPath());
+        }
+        TTopology structure = loader.getScenario().getTopology();
+        TreeSet localNodeIDs = TTopologyPartitioner.getNodeIDsOfPartition(getElements(structure.getNodesIterator()), getElements(structure.getLinksIterator()), numberOfPartitions, this.partitionID);
+        structure.obtenerReloj().getWorkerPool().shutdown();
+        loader = new TOSMLoader();
+        if (!loader.cargar(this.scenarioFile, localNodeIDs)) {
+            throw new IOException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedWorker.ErrorLoading") + this.scenarioFile.getPath());
+        }
+        return loader.getScenario();
+    }
+
+    /**
+     * This method puts the elements of the topology in a sorted set.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param elementsIterator An iterator over the nodes or the links of the
+     * topology.
+     * @return The sorted set of elements.
+     * @since 2.0
+     */
+    private TreeSet getElements(Iterator elementsIterator) {
+        TreeSet elements = new TreeSet();
+        while (elementsIterator.hasNext()) {
+            elements.add(elementsIterator.next());
+        }
+        return elements;
+    }
+
+    /**
+     * This method splits the topology into partitions exactly as every other
+     * worker does and marks every partition but the own one as remote.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param topology The topology of the scenario.
+     * @param numberOfPartitions The number of partitions.
+     * @param tick The tick of the simulation, in nanoseconds.
+     * @return The partitioned topology.
+     * @since 2.0
+     */
+    private TTopologyPartitioner createPartitions(TTopology topology, int numberOfPartitions, int tick) {
+        TTopologyPartitioner partitioner = new TTopologyPartitioner(topology.obtenerReloj(), getElements(topology.getNodesIterator()), getElements(topology.getLinksIterator()), numberOfPartitions, tick);
+        TTimerPartition[] partitions = partitioner.getPartitions();
+        for (int i = 0; i < partitions.length; i++) {
+            if (i != this.partitionID) {
+                partitions[i].setRemotePartitionListener(this);
+            }
+        }
+        return partitioner;
+    }
+
+    /**
+     * This method hands a packet coming from another worker to the own
+     * partition.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param topology The topology of the scenario.
+     * @param ownPartition The partition simulated by this worker.
+     * @param boundaryPacket The packet coming from another worker.
+     * @since 2.0
+     */
+    private void deliver(TTopology topology, TTimerPartition ownPartition, TBoundaryPacket boundaryPacket) {
+        TLink link = topology.obtenerEnlace(boundaryPacket.getLinkID());
+        if (link != null) {
+            if (boundaryPacket.getLinkEnd() == TLink.END_NODE_1) {
+                ownPartition.scheduleDelivery(boundaryPacket.getArrivalInstant(), boundaryPacket.getPacket(), link.getEnd1(), link.obtenerPuertoExtremo1(), link);
+            } else {
+                ownPartition.scheduleDelivery(boundaryPacket.getArrivalInstant(), boundaryPacket.getPacket(), link.getEnd2(), link.obtenerPuertoExtremo2(), link);
+            }
+        }
+    }
+
+    /**
+     * This method starts a worker from the command line. Usage:
+     * TDistributedWorker coordinatorHost coordinatorPort scenario.osm
+     *
+     * @author The OpenSimMPLS contributors
+     * @param args The command line arguments.
+     * @throws IOException If the scenario can not be loaded or the
+     * communication with the coordinator fails.
+     * @throws ClassNotFoundException If the coordinator sends an unknown
+     * object.
+     * @since 2.0
+     */
+    public static void main(String args[]) throws IOException, ClassNotFoundException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedWorker.Usage"));
+        }
+        TDistributedWorker worker = new TDistributedWorker(args[0], Integer.parseInt(args[1]), new File(args[2]));
+        worker.run();
+        Logger.getLogger(TDistributedWorker.class.getName()).log(Level.INFO, java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TDistributedWorker.Finished"), new Object[]{worker.getPartitionID(), worker.getNumberOfNodes(), worker.getNumberOfWindows()});
+    }
+
+    private String coordinatorHost;
+    private int coordinatorPort;
+    private File scenarioFile;
+    private LinkedList outbound;
+    private int partitionID;
+    private int numberOfNodes;
+    private long numberOfWindows;
+}
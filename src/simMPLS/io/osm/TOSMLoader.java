@@ -20,7 +20,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.TreeSet;
 import java.util.zip.CRC32;
+import simMPLS.hardware.timer.TTimer;
 import simMPLS.scenario.TInternalLink;
 import simMPLS.scenario.TExternalLink;
 import simMPLS.scenario.TScenario;
@@ -30,6 +32,7 @@ import simMPLS.scenario.TReceiverNode;
 import simMPLS.scenario.TActiveLSRNode;
 import simMPLS.scenario.TLSRNode;
 import simMPLS.scenario.TActiveLERNode;
+import simMPLS.scenario.TRemoteNode;
 
 /**
  * This class implements a class that loads a scenario from disk in OSM (Open
@@ -64,6 +67,25 @@ public class TOSMLoader {
      * @since 2.0
      */
     public boolean cargar(File inputFile) {
+        return cargar(inputFile, null);
+    }
+
+    /**
+     * This method loads an scenario description from a file formated as OSM,
+     * but only builds the specified nodes. Any other node is loaded as a
+     * TRemoteNode, that only keeps what links and routing need. It is used by
+     * the workers of a distributed simulation, that only simulate a part of
+     * the topology.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param inputFile The file where a scenario description is stored.
+     * @param localNodeIDs The identifiers of the nodes to be built, as
+     * Integer. If null, every node is built.
+     * @return true, if the file can be correctly loaded. False on the contrary.
+     * @since 2.0
+     */
+    public boolean cargar(File inputFile, TreeSet localNodeIDs) {
+        this.localNodeIDs = localNodeIDs;
         if (this.fileIsValid(inputFile)) {
             String stringAux = "";
             this.scenario.setFile(inputFile);
@@ -114,6 +136,14 @@ public class TOSMLoader {
     private void loadTopology(String topologyString) {
         if (topologyString.startsWith("@!Topologia")) {
             this.position = TOSMLoader.NONE;
+        } else if (isRemoteNode(topologyString)) {
+            TRemoteNode remoteNode = new TRemoteNode(0, "10.0.0.1", this.scenario.getTopology().getEventIDGenerator(), this.scenario.getTopology());
+            if (remoteNode.unMarshall(topologyString)) {
+                this.scenario.getTopology().addNode(remoteNode);
+                this.scenario.getTopology().getItemIdentifierGenerator().setIDIfGreater(remoteNode.getID());
+                this.scenario.getTopology().getIPAddressGenerator().setValueIfGreater(remoteNode.getIPAddress());
+            }
+            remoteNode = null;
         } else if (topologyString.startsWith("#Receptor#")) {
             TReceiverNode receiver = new TReceiverNode(0, "10.0.0.1", this.scenario.getTopology().getEventIDGenerator(), this.scenario.getTopology());
             if (receiver.unMarshall(topologyString)) {
@@ -179,6 +209,34 @@ public class TOSMLoader {
         }
     }
 
+    /**
+     * This method checks whether a line of the topology describes a node that
+     * is not to be built.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param topologyString A line of the topology.
+     * @return true, if the line describes a node that has to be loaded as a
+     * TRemoteNode. False on the contrary.
+     * @since 2.0
+     */
+    private boolean isRemoteNode(String topologyString) {
+        if (this.localNodeIDs == null) {
+            return false;
+        }
+        if (!(topologyString.startsWith("#Receptor#") || topologyString.startsWith("#Emisor#") || topologyString.startsWith("#LER#") || topologyString.startsWith("#LERA#") || topologyString.startsWith("#LSR#") || topologyString.startsWith("#LSRA#"))) {
+            return false;
+        }
+        String valores[] = topologyString.split("#");
+        if (valores.length < 3) {
+            return false;
+        }
+        try {
+            return !this.localNodeIDs.contains(Integer.valueOf(valores[2]));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     private void loadScenario(String scenarioString) {
         if (scenarioString.startsWith("@!Escenario")) {
             this.position = TOSMLoader.NONE;
@@ -199,6 +257,38 @@ public class TOSMLoader {
                 this.scenario.getSimulation().setDuration(500);
                 this.scenario.getSimulation().setStep(1);
             }
+        } else if (scenarioString.startsWith("#Motor#")) {
+            if (!this.scenario.unmarshallSimulationEngine(scenarioString)) {
+                this.scenario.ponerMotorSimulacion(TTimer.FIXED_TICK_ENGINE);
+            }
+        } else if (scenarioString.startsWith("#AvanceRapido#")) {
+            if (!this.scenario.unmarshallIdleFastForward(scenarioString)) {
+                this.scenario.ponerAvanceRapidoEnReposo(false);
+            }
+        } else if (scenarioString.startsWith("#PlanificacionPorActividad#")) {
+            if (!this.scenario.unmarshallActiveSetScheduling(scenarioString)) {
+                this.scenario.ponerPlanificacionPorActividad(false);
+            }
+        } else if (scenarioString.startsWith("#ElisionDeBarreras#")) {
+            if (!this.scenario.unmarshallBarrierElision(scenarioString)) {
+                this.scenario.ponerElisionDeBarreras(false);
+            }
+        } else if (scenarioString.startsWith("#HilosVirtuales#")) {
+            if (!this.scenario.unmarshallVirtualThreads(scenarioString)) {
+                this.scenario.ponerHilosVirtuales(false);
+            }
+        } else if (scenarioString.startsWith("#Particiones#")) {
+            if (!this.scenario.unmarshallNumberOfPartitions(scenarioString)) {
+                this.scenario.ponerNumeroDeParticiones(Runtime.getRuntime().availableProcessors());
+            }
+        } else if (scenarioString.startsWith("#EpocaRABAN#")) {
+            if (!this.scenario.unmarshallRABANEpoch(scenarioString)) {
+                this.scenario.ponerEpocaRABAN(0);
+            }
+        } else if (scenarioString.startsWith("#Multitrayecto#")) {
+            if (!this.scenario.unmarshallMultipath(scenarioString)) {
+                this.scenario.ponerMultitrayecto(false);
+            }
         }
     }
 
@@ -263,4 +353,5 @@ public class TOSMLoader {
     private TScenario scenario;
     private FileInputStream inputStream;
     private BufferedReader input;
+    private TreeSet localNodeIDs;
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.osm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import simMPLS.scenario.TScenario;
+
+/**
+ * This class implements a class that computes the shortest paths between all
+ * pairs of nodes of a scenario and stores their distance and next hop
+ * matrices to disk, for the offline analysis of large topologies.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TOSMPathsExporter {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TOSMPathsExporter.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param scenario The scenario whose shortest paths will be exported.
+     * @since 2.0
+     */
+    public TOSMPathsExporter(TScenario scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * This method computes the shortest paths between all pairs of nodes of
+     * the scenario, in parallel, and saves them to a disk file.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param outputFile The file where the paths will be stored.
+     * @param rabanWeights If true, the RABAN weights of the links are used. If
+     * false, their delay is used.
+     * @return True, if the paths can be saved successful. Otherwise, returns
+     * false.
+     * @since 2.0
+     */
+    public boolean export(File outputFile, boolean rabanWeights) {
+        return this.scenario.getTopology().calcularCaminosEntreTodosLosPares(rabanWeights).exportar(outputFile);
+    }
+
+    /**
+     * This method exports the shortest paths of a scenario from the command
+     * line. Usage: TOSMPathsExporter scenario.osm paths.txt [RABAN]
+     *
+     * @author The OpenSimMPLS contributors
+     * @param args The command line arguments.
+     * @throws IOException If the scenario can not be loaded or the paths can
+     * not be saved.
+     * @since 2.0
+     */
+    public static void main(String args[]) throws IOException {
+        if ((args.length < 2) || (args.length > 3) || ((args.length == 3) && (!args[2].equals("RABAN")))) {
+            throw new IllegalArgumentException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TOSMPathsExporter.Usage"));
+        }
+        TOSMLoader loader = new TOSMLoader();
+        if (!loader.cargar(new File(args[0]))) {
+            throw new IOException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TOSMPathsExporter.ErrorLoading") + args[0]);
+        }
+        TScenario scenario = loader.getScenario();
+        TOSMPathsExporter exporter = new TOSMPathsExporter(scenario);
+        if (!exporter.export(new File(args[1]), args.length == 3)) {
+            throw new IOException(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TOSMPathsExporter.ErrorSaving") + args[1]);
+        }
+        Logger.getLogger(TOSMPathsExporter.class.getName()).log(Level.INFO, java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TOSMPathsExporter.Finished"), new Object[]{scenario.getTopology().obtenerNumeroDeNodos(), args[1]});
+    }
+
+    private TScenario scenario;
+}
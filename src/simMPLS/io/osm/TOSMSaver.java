@@ -92,6 +92,22 @@ public class TOSMSaver {
             this.scenarioCRC.update(this.scenario.marshallDescription().getBytes());
             this.output.println(this.scenario.getSimulation().marshallTimeParameters());
             this.scenarioCRC.update(this.scenario.getSimulation().marshallTimeParameters().getBytes());
+            this.output.println(this.scenario.marshallSimulationEngine());
+            this.scenarioCRC.update(this.scenario.marshallSimulationEngine().getBytes());
+            this.output.println(this.scenario.marshallIdleFastForward());
+            this.scenarioCRC.update(this.scenario.marshallIdleFastForward().getBytes());
+            this.output.println(this.scenario.marshallActiveSetScheduling());
+            this.scenarioCRC.update(this.scenario.marshallActiveSetScheduling().getBytes());
+            this.output.println(this.scenario.marshallBarrierElision());
+            this.scenarioCRC.update(this.scenario.marshallBarrierElision().getBytes());
+            this.output.println(this.scenario.marshallVirtualThreads());
+            this.scenarioCRC.update(this.scenario.marshallVirtualThreads().getBytes());
+            this.output.println(this.scenario.marshallNumberOfPartitions());
+            this.scenarioCRC.update(this.scenario.marshallNumberOfPartitions().getBytes());
+            this.output.println(this.scenario.marshallRABANEpoch());
+            this.scenarioCRC.update(this.scenario.marshallRABANEpoch().getBytes());
+            this.output.println(this.scenario.marshallMultipath());
+            this.scenarioCRC.update(this.scenario.marshallMultipath().getBytes());
             this.output.println();
             this.output.println("@!Escenario");
             this.scenarioCRC.update("@!Escenario".getBytes());
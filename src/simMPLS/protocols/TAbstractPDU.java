@@ -15,6 +15,8 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements an abstract PDU containing the minimum set of data that
  * is common for all PDU. Cannot be directly instantiated.
@@ -22,7 +24,7 @@ package simMPLS.protocols;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public abstract class TAbstractPDU implements Comparable {
+public abstract class TAbstractPDU implements Comparable, Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new instance
@@ -166,4 +168,5 @@ public abstract class TAbstractPDU implements Comparable {
 
     protected long id;
     private TIPv4Header IPv4Header;
+    private static final long serialVersionUID = 1L;
 }
@@ -125,4 +125,5 @@ public class TGPSRPPDU extends TAbstractPDU {
 
     private TTCPPayload TCPPayload;
     private TGPSRPPayload GPSRPPayload;
+    private static final long serialVersionUID = 1L;
 }
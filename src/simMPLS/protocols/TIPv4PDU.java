@@ -128,4 +128,5 @@ public class TIPv4PDU extends TAbstractPDU {
 
     private int subType;
     private TTCPPayload TCPPayload;
+    private static final long serialVersionUID = 1L;
 }
@@ -15,13 +15,15 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a MPLS label.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TMPLSLabel implements Comparable {
+public class TMPLSLabel implements Comparable, Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new MPLS
@@ -195,4 +197,5 @@ public class TMPLSLabel implements Comparable {
     private int exp;
     private boolean bos;
     private int identifier;
+    private static final long serialVersionUID = 1L;
 }
@@ -15,6 +15,7 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import simMPLS.utils.EIDGeneratorOverflow;
@@ -26,7 +27,7 @@ import simMPLS.utils.TIDGenerator;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TMPLSLabelStack {
+public class TMPLSLabelStack implements Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new empty
@@ -125,4 +126,5 @@ public class TMPLSLabelStack {
 
     private LinkedList stack;
     private TIDGenerator idGenerator;
+    private static final long serialVersionUID = 1L;
 }
@@ -199,4 +199,5 @@ public class TMPLSPDU extends TAbstractPDU {
     private int subType;
     private TTCPPayload tcpPayload;
     private TMPLSLabelStack mplsLabelStack;
+    private static final long serialVersionUID = 1L;
 }
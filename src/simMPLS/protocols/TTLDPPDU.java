@@ -211,4 +211,5 @@ public class TTLDPPDU extends TAbstractPDU {
     private TTLDPPayload tldpPayload;
 
     private boolean lspType;
+    private static final long serialVersionUID = 1L;
 }
@@ -15,6 +15,8 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a TLDP (Tiny Label Distribution Protocol) packet
  * content. As defined in the proposal "Guarantee of Servico (GoS) Support over
@@ -23,7 +25,7 @@ package simMPLS.protocols;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TTLDPPayload {
+public class TTLDPPayload implements Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new instance
@@ -166,4 +168,5 @@ public class TTLDPPayload {
     private String targetIPAddress;
     private int label;
     private int TLDPIdentifier;
+    private static final long serialVersionUID = 1L;
 }
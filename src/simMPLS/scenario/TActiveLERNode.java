@@ -16,6 +16,8 @@
 package simMPLS.scenario;
 
 import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import simMPLS.protocols.TGPSRPPDU;
 import simMPLS.protocols.TTLDPPDU;
@@ -27,6 +29,8 @@ import simMPLS.protocols.TTLDPPayload;
 import simMPLS.protocols.TIPv4PDU;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
+import simMPLS.hardware.timer.TTimeout;
+import simMPLS.hardware.timer.TTimingWheel;
 import simMPLS.hardware.ports.TActivePortSet;
 import simMPLS.hardware.ports.TActivePort;
 import simMPLS.hardware.ports.TFIFOPort;
@@ -69,13 +73,16 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         // FIX: This is an overridable method call in constructor that should be 
         // avoided.
         this.setPorts(TNode.NUM_LERA_PORTS);
+        this.timingWheel = new TTimingWheel();
         this.switchingMatrix = new TSwitchingMatrix();
+        this.switchingMatrix.setTimingWheel(this.timingWheel);
         this.gIdent = new TLongIDGenerator();
         this.gIdentLDP = new TIDGenerator();
         //FIX: replace with class constants.
         this.switchingPowerInMbps = 512;
         this.dmgp = new TDMGP();
         this.gpsrpRequests = new TGPSRPRequestsMatrix();
+        this.gpsrpRequests.setTimingWheel(this.timingWheel);
         this.stats = new TLERAStats();
     }
 
@@ -228,6 +235,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         this.stats.activateStats(this.isGeneratingStats());
         this.dmgp.reset();
         this.gpsrpRequests.reset();
+        this.timingWheel.reset();
         this.resetStepsWithoutEmittingToZero();
     }
 
@@ -244,6 +252,20 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         return TNode.LERA;
     }
 
+    /**
+     * This method computes how long it will be until the first pending TLDP or
+     * GPSRP timeout of the LERA expires.
+     *
+     * @return Nanoseconds until the first pending timeout expires, or -1 if
+     * there is not any pending timeout.
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    @Override
+    public long getMinimumPendingTimeout() {
+        return this.timingWheel.getTimeToNextExpiration();
+    }
+
     /**
      * This method receive a timer event from the simulation's global timer. It
      * does some initial tasks and then wake up the LERA to start doing its
@@ -278,7 +300,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
     public void run() {
         // Acciones a llevar a cabo durante el tic.
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.obtenerNivelDeCongestion()));
         } catch (Exception e) {
             // FIX: this is not a good practice. Avoid.
             e.printStackTrace();
@@ -286,13 +308,17 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         this.checkConnectivityStatus();
         this.decreaseCounters();
         this.routePackets();
+        this.scheduleTimeoutEvents();
         this.stats.consolidateData(this.getAvailableTime());
     }
 
     /**
      * This method check wether the connectivity to the neighbors nodes exist.
      * Let's say, this check whether a link of this node is down. If so, this
-     * method generates the corresponding event to notify the situation.
+     * method generates the corresponding event to notify the situation. Only
+     * the switching entries and GPSRP requests bound to ports whose link has
+     * notified its failure are checked, plus the switching entries having an
+     * undefined port.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
@@ -307,10 +333,14 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         TPort incomingPort = null;
         TLink linkAux1 = null;
         TLink linkAux2 = null;
-        this.switchingMatrix.getMonitor().lock();
-        Iterator switchingMatrixIterator = this.switchingMatrix.getEntriesIterator();
+        int failedPorts[] = this.tomarPuertosCaidos();
+        // Entries having an undefined port are always removed, as before.
+        failedPorts = Arrays.copyOf(failedPorts, failedPorts.length + 1);
+        failedPorts[failedPorts.length - 1] = TSwitchingMatrixEntry.UNDEFINED;
+        Iterator switchingMatrixIterator = this.switchingMatrix.getEntriesIterator(failedPorts);
         while (switchingMatrixIterator.hasNext()) {
             switchingMatrixEntry = (TSwitchingMatrixEntry) switchingMatrixIterator.next();
+            removeSwitchingMatrixEntry = false;
             if (switchingMatrixEntry != null) {
                 portIDAux = switchingMatrixEntry.getBackupOutgoingPortID();
                 if ((portIDAux >= 0) && (portIDAux < this.ports.getNumberOfPorts())) {
@@ -379,49 +409,19 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     removeSwitchingMatrixEntry = true;
                 }
                 if (removeSwitchingMatrixEntry) {
-                    switchingMatrixIterator.remove();
+                    this.switchingMatrix.removeEntry(switchingMatrixEntry);
                 }
-            } else {
-                switchingMatrixIterator.remove();
             }
         }
-        this.switchingMatrix.getMonitor().unLock();
-        this.gpsrpRequests.decreaseTimeout(this.getTickDuration());
-        this.gpsrpRequests.updateEntries();
-        int numberOfPorts = this.ports.getNumberOfPorts();
-        int i = 0;
-        TActivePort currentPort = null;
         TLink linkOfPort = null;
-        for (i = 0; i < numberOfPorts; i++) {
-            currentPort = (TActivePort) this.ports.getPort(i);
-            if (currentPort != null) {
-                linkOfPort = currentPort.getLink();
-                if (linkOfPort != null) {
-                    if (linkOfPort.isBroken()) {
-                        this.gpsrpRequests.removeEntriesMatchingOutgoingPort(i);
-                    }
+        for (int i = 0; i < failedPorts.length; i++) {
+            if ((failedPorts[i] >= 0) && (failedPorts[i] < this.ports.getNumberOfPorts()) && (this.ports.getPort(failedPorts[i]) != null)) {
+                linkOfPort = this.ports.getPort(failedPorts[i]).getLink();
+                if ((linkOfPort != null) && (linkOfPort.isBroken())) {
+                    this.gpsrpRequests.removeEntriesMatchingOutgoingPort(failedPorts[i]);
                 }
             }
         }
-        this.gpsrpRequests.getMonitor().lock();
-        Iterator gpsrpRequestsIterator = this.gpsrpRequests.getEntriesIterator();
-        int flowID = 0;
-        int packetID = 0;
-        String targetIPv4Address = null;
-        int outgoingPortAux = 0;
-        TGPSRPRequestEntry gpsrpRequestEntry = null;
-        while (gpsrpRequestsIterator.hasNext()) {
-            gpsrpRequestEntry = (TGPSRPRequestEntry) gpsrpRequestsIterator.next();
-            if (gpsrpRequestEntry.isRetryable()) {
-                flowID = gpsrpRequestEntry.getFlowID();
-                packetID = gpsrpRequestEntry.getPacketID();
-                targetIPv4Address = gpsrpRequestEntry.getCrossedNodeIPv4();
-                outgoingPortAux = gpsrpRequestEntry.getOutgoingPort();
-                this.requestGPSRP(flowID, packetID, targetIPv4Address, outgoingPortAux);
-            }
-            gpsrpRequestEntry.resetTimeout();
-        }
-        this.gpsrpRequests.getMonitor().unLock();
     }
 
     /**
@@ -1657,7 +1657,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         String localIPAddress = this.getIPAddress();
         String tailEndIPAddress = switchingMatrixEntry.getTailEndIPAddress();
         if (switchingMatrixEntry.getOutgoingLabel() != TSwitchingMatrixEntry.LABEL_ASSIGNED) {
-            String nextHopIPAddress = this.topology.getNextHopRABANIPv4Address(localIPAddress, tailEndIPAddress);
+            String nextHopIPAddress;
+            if (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.FEC_ENTRY) {
+                nextHopIPAddress = this.topology.getECMPNextHopRABANIPv4Address(localIPAddress, tailEndIPAddress, switchingMatrixEntry.getLabelOrFEC());
+            } else {
+                nextHopIPAddress = this.topology.getNextHopRABANIPv4Address(localIPAddress, tailEndIPAddress);
+            }
             if (nextHopIPAddress != null) {
                 TTLDPPDU tldpPacket = null;
                 try {
@@ -1890,20 +1895,24 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
     }
 
     /**
-     * Este m�todo decrementa los contadores de retransmisi�n existentes para
-     * este nodo.
+     * Este m�todo hace avanzar los temporizadores TLDP y GPSRP del nodo y
+     * reintenta las operaciones TLDP y las solicitudes de retransmisi�n GPSRP
+     * cuyo temporizador ha expirado durante el tic. S�lo se visitan las
+     * entradas que expiran, no todas las de la matriz de conmutaci�n y la de
+     * peticiones GPSRP.
      *
      * @since 2.0
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      */
     public void decreaseCounters() {
+        ArrayList expiredTimeouts = this.timingWheel.advance(this.getTickDuration());
         TSwitchingMatrixEntry switchingMatrixEntry = null;
-        this.switchingMatrix.getMonitor().lock();
-        Iterator entriesIterator = this.switchingMatrix.getEntriesIterator();
-        while (entriesIterator.hasNext()) {
-            switchingMatrixEntry = (TSwitchingMatrixEntry) entriesIterator.next();
-            if (switchingMatrixEntry != null) {
-                switchingMatrixEntry.decreaseTimeOut(this.getTickDuration());
+        TGPSRPRequestEntry gpsrpRequestEntry = null;
+        Object owner = null;
+        for (int i = 0; i < expiredTimeouts.size(); i++) {
+            owner = ((TTimeout) expiredTimeouts.get(i)).getOwner();
+            if (owner instanceof TSwitchingMatrixEntry) {
+                switchingMatrixEntry = (TSwitchingMatrixEntry) owner;
                 if (switchingMatrixEntry.getOutgoingLabel() == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                     if (switchingMatrixEntry.shouldRetryExpiredTLDPRequest()) {
                         switchingMatrixEntry.resetTimeOut();
@@ -1915,16 +1924,29 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                         switchingMatrixEntry.resetTimeOut();
                         switchingMatrixEntry.decreaseAttempts();
                         labelWithdrawalAfterTimeout(switchingMatrixEntry);
+                        if (!switchingMatrixEntry.areThereAvailableAttempts()) {
+                            // The entry is removed on the tick that follows
+                            // the last attempt.
+                            switchingMatrixEntry.expireTimeOutOnNextTick();
+                        }
                     } else if (!switchingMatrixEntry.areThereAvailableAttempts()) {
-                        entriesIterator.remove();
+                        this.switchingMatrix.removeEntry(switchingMatrixEntry);
                     }
+                }
+            }
+        }
+        for (int i = 0; i < expiredTimeouts.size(); i++) {
+            owner = ((TTimeout) expiredTimeouts.get(i)).getOwner();
+            if (owner instanceof TGPSRPRequestEntry) {
+                gpsrpRequestEntry = (TGPSRPRequestEntry) owner;
+                if (gpsrpRequestEntry.isRetryable()) {
+                    this.requestGPSRP(gpsrpRequestEntry.getFlowID(), gpsrpRequestEntry.getPacketID(), gpsrpRequestEntry.getCrossedNodeIPv4(), gpsrpRequestEntry.getOutgoingPort());
+                    gpsrpRequestEntry.resetTimeout();
                 } else {
-                    switchingMatrixEntry.resetTimeOut();
-                    switchingMatrixEntry.resetAttempts();
+                    this.gpsrpRequests.removeEntry(gpsrpRequestEntry.getFlowID(), gpsrpRequestEntry.getPacketID());
                 }
             }
         }
-        this.switchingMatrix.getMonitor().unLock();
     }
 
     /**
@@ -2010,7 +2032,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         TSwitchingMatrixEntry switchingMatrixEntry = null;
         String localIPAddress = this.getIPAddress();
         String tailEndIPAddress = ipv4Packet.getIPv4Header().getTailEndIPAddress();
-        String outgoingPortID = this.topology.getNextHopRABANIPv4Address(localIPAddress, tailEndIPAddress);
+        String outgoingPortID = this.topology.getECMPNextHopRABANIPv4Address(localIPAddress, tailEndIPAddress, classifyPacket(ipv4Packet));
         if (outgoingPortID != null) {
             TPort incomingPort = this.ports.getPort(incomingPortID);
             TPort outgoingPort = this.ports.getLocalPortConnectedToANodeWithIPAddress(outgoingPortID);
@@ -2299,6 +2321,17 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         return this.ports.hasAvailablePorts();
     }
 
+    /**
+     * Este m�todo obtiene el nivel de congesti�n que el nodo anota al principio de
+     * cada tic: el de sus puertos.
+     * @return El nivel de congesti�n de los puertos del nodo, en tanto por ciento.
+     * @since 2.0
+     */
+    @Override
+    public long obtenerNivelDeCongestion() {
+        return this.getPorts().getCongestionLevel();
+    }
+
     /**
      * Este m�todo calcula el routingWeight del nodo. Se utilizar� para calcular
      * rutas con costo menor. En el nodo LER el pero ser� siempre nulo (cero).
@@ -2346,6 +2379,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
      * @since 2.0
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      */
+    @Override
     public TSwitchingMatrix getSwitchingMatrix() {
         return this.switchingMatrix;
     }
@@ -2532,6 +2566,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
     public static final int ONLY_BLANK_SPACES = 3;
 
     private TSwitchingMatrix switchingMatrix;
+    private TTimingWheel timingWheel;
     private TLongIDGenerator gIdent;
     private TIDGenerator gIdentLDP;
     private int switchingPowerInMbps;
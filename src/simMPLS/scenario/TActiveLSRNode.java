@@ -24,6 +24,8 @@ import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TTLDPPayload;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
+import simMPLS.hardware.timer.TTimeout;
+import simMPLS.hardware.timer.TTimingWheel;
 import simMPLS.hardware.ports.TActivePortSet;
 import simMPLS.hardware.ports.TActivePort;
 import simMPLS.hardware.dmgp.TDMGP;
@@ -59,12 +61,15 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
     public TActiveLSRNode(int identificador, String d, TLongIDGenerator il, TTopology t) {
         super(identificador, d, il, t);
         this.setPorts(super.NUM_PUERTOS_LSRA);
+        temporizadores = new TTimingWheel();
         matrizConmutacion = new TSwitchingMatrix();
+        matrizConmutacion.setTimingWheel(temporizadores);
         gIdent = new TLongIDGenerator();
         gIdentLDP = new TIDGenerator();
         potenciaEnMb = 512;
         dmgp = new TDMGP();
         peticionesGPSRP = new TGPSRPRequestsMatrix();
+        peticionesGPSRP.setTimingWheel(temporizadores);
         estadisticas = new TLSRAStats();
     }
     
@@ -185,6 +190,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
         estadisticas.activateStats(this.isGeneratingStats());
         dmgp.reset();
         peticionesGPSRP.reset();
+        temporizadores.reset();
         this.resetStepsWithoutEmittingToZero();
     }
     
@@ -197,6 +203,26 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
         return super.LSRA;
     }
     
+    /**
+     * Este m�todo obtiene cu�nto falta para que expire el primer temporizador TLDP o GPSRP
+     * pendiente del nodo.
+     * @return Nanosegundos hasta que expire el primer temporizador pendiente. -1 si no
+     * hay ninguno.
+     * @since 2.0
+     */    
+    public long getMinimumPendingTimeout() {
+        return this.temporizadores.getTimeToNextExpiration();
+    }
+    
+    /**
+     * Este m�todo permite el acceso a la matriz de conmutaci�n del LSRA.
+     * @return La matriz de conmutaci�n del LSRA.
+     * @since 2.0
+     */    
+    public TSwitchingMatrix getSwitchingMatrix() {
+        return this.matrizConmutacion;
+    }
+    
     /**
      * Este m�todo permite obtener eventos de sincronizaci�n del reloj del simulador.
      * @param evt Evento de sincronizaci�n que env�a el reloj del simulador.
@@ -222,21 +248,24 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
     public void run() {
         // Acciones a llevar a cabo durante el tic.
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.obtenerNivelDeCongestion()));
         } catch (Exception e) {
             e.printStackTrace();
         }
         comprobarElEstadoDeLasComunicaciones();
         decrementarContadores();
         conmutarPaquete();
+        this.scheduleTimeoutEvents();
         estadisticas.consolidateData(this.getAvailableTime());
         // Acciones a llevar a cabo durante el tic.
     }
     
     /**
-     * Este m�todo se encarga de validateConfig que los enlaces que unen al nodo con sus
- adyacentes, funcionan correctamente. Y si no es asi y es necesario, env�a la
-     * se�alizaci�n correspondiente para reparar la situaci�n.
+     * Este m�todo se encarga de comprobar que los enlaces que unen al nodo con sus
+     * adyacentes funcionan correctamente. Y si no es asi y es necesario, env�a la
+     * se�alizaci�n correspondiente para reparar la situaci�n. S�lo revisa las
+     * entradas de la matriz de conmutaci�n y las peticiones GPSRP que usan puertos
+     * cuyo enlace ha avisado de su ca�da.
      * @since 2.0
      */
     public void comprobarElEstadoDeLasComunicaciones() {
@@ -246,8 +275,8 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
         TPort puertoSalidaBackup = null;
         TPort puertoEntrada = null;
         TLink et = null;
-        matrizConmutacion.getMonitor().lock();
-        Iterator it = matrizConmutacion.getEntriesIterator();
+        int puertosCaidos[] = this.tomarPuertosCaidos();
+        Iterator it = matrizConmutacion.getEntriesIterator(puertosCaidos);
         while (it.hasNext()) {
             emc = (TSwitchingMatrixEntry) it.next();
             if (emc != null) {
@@ -298,48 +327,18 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                         }
                     }
                 }
-            } else {
-                it.remove();
             }
         }
-        matrizConmutacion.getMonitor().unLock();
         
-        peticionesGPSRP.decreaseTimeout(this.getTickDuration());
-        peticionesGPSRP.updateEntries();
-        int numeroPuertos = ports.getNumberOfPorts();
-        int i = 0;
-        TActivePort puertoActual = null;
         TLink enlTop = null;
-        for (i=0; i<numeroPuertos; i++) {
-            puertoActual = (TActivePort) ports.getPort(i);
-            if (puertoActual != null) {
-                enlTop = puertoActual.getLink();
-                if (enlTop != null) {
-                    if (enlTop.isBroken()) {
-                        peticionesGPSRP.removeEntriesMatchingOutgoingPort(i);
-                    }
+        for (int i=0; i<puertosCaidos.length; i++) {
+            if ((puertosCaidos[i] >= 0) && (puertosCaidos[i] < ports.getNumberOfPorts()) && (ports.getPort(puertosCaidos[i]) != null)) {
+                enlTop = ports.getPort(puertosCaidos[i]).getLink();
+                if ((enlTop != null) && (enlTop.isBroken())) {
+                    peticionesGPSRP.removeEntriesMatchingOutgoingPort(puertosCaidos[i]);
                 }
             }
         }
-        peticionesGPSRP.getMonitor().lock();
-        Iterator ite = peticionesGPSRP.getEntriesIterator();
-        int idFlujo = 0;
-        int idPaquete = 0;
-        String IPDestino = null;
-        int pSalida = 0;
-        TGPSRPRequestEntry epet = null;
-        while (ite.hasNext()) {
-            epet = (TGPSRPRequestEntry) ite.next();
-            if (epet.isRetryable()) {
-                idFlujo = epet.getFlowID();
-                idPaquete = epet.getPacketID();
-                IPDestino = epet.getCrossedNodeIPv4();
-                pSalida = epet.getOutgoingPort();
-                this.solicitarGPSRP(idFlujo, idPaquete, IPDestino, pSalida);
-            }
-            epet.resetTimeout();
-        }
-        peticionesGPSRP.getMonitor().unLock();
     }
     
     /**
@@ -1496,17 +1495,21 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
     }
     
     /**
-     * Este m�todo decrementa los contadores para la retransmisi�n.
+     * Este m�todo hace avanzar los temporizadores TLDP y GPSRP del nodo y reintenta
+     * las operaciones TLDP y las solicitudes de retransmisi�n GPSRP cuyo temporizador
+     * ha expirado durante el tic. S�lo se visitan las entradas que expiran, no
+     * todas las de la matriz de conmutaci�n y la de peticiones GPSRP.
      * @since 2.0
      */
     public void decrementarContadores() {
+        ArrayList vencidos = this.temporizadores.advance(this.getTickDuration());
         TSwitchingMatrixEntry emc = null;
-        this.matrizConmutacion.getMonitor().lock();
-        Iterator it = this.matrizConmutacion.getEntriesIterator();
-        while (it.hasNext()) {
-            emc = (TSwitchingMatrixEntry) it.next();
-            if (emc != null) {
-                emc.decreaseTimeOut(this.getTickDuration());
+        TGPSRPRequestEntry epet = null;
+        Object propietario = null;
+        for (int i=0; i<vencidos.size(); i++) {
+            propietario = ((TTimeout) vencidos.get(i)).getOwner();
+            if (propietario instanceof TSwitchingMatrixEntry) {
+                emc = (TSwitchingMatrixEntry) propietario;
                 if (emc.getOutgoingLabel() == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                     if (emc.shouldRetryExpiredTLDPRequest()) {
                         emc.resetTimeOut();
@@ -1518,18 +1521,29 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                         emc.resetTimeOut();
                         emc.decreaseAttempts();
                         eliminarTLDPTrasTimeout(emc);
-                    } else {
                         if (!emc.areThereAvailableAttempts()) {
-                            it.remove();
+                            // La entrada se elimina en el tic siguiente al �ltimo
+                            // reintento.
+                            emc.expireTimeOutOnNextTick();
                         }
+                    } else if (!emc.areThereAvailableAttempts()) {
+                        this.matrizConmutacion.removeEntry(emc);
                     }
+                }
+            }
+        }
+        for (int i=0; i<vencidos.size(); i++) {
+            propietario = ((TTimeout) vencidos.get(i)).getOwner();
+            if (propietario instanceof TGPSRPRequestEntry) {
+                epet = (TGPSRPRequestEntry) propietario;
+                if (epet.isRetryable()) {
+                    this.solicitarGPSRP(epet.getFlowID(), epet.getPacketID(), epet.getCrossedNodeIPv4(), epet.getOutgoingPort());
+                    epet.resetTimeout();
                 } else {
-                    emc.resetTimeOut();
-                    emc.resetAttempts();
+                    this.peticionesGPSRP.removeEntry(epet.getFlowID(), epet.getPacketID());
                 }
             }
         }
-        this.matrizConmutacion.getMonitor().unLock();
     }
     
     /**
@@ -1606,6 +1620,16 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
         return this.ports.hasAvailablePorts();
     }
     
+    /**
+     * Este m�todo obtiene el nivel de congesti�n que el nodo anota al principio de
+     * cada tic: el de sus puertos.
+     * @return El nivel de congesti�n de los puertos del nodo, en tanto por ciento.
+     * @since 2.0
+     */
+    public long obtenerNivelDeCongestion() {
+        return this.getPorts().getCongestionLevel();
+    }
+
     /**
      * Este m�todo devuelve el peso del nodo, que debe ser tomado en cuenta por lo
      * algoritmos de encaminamiento para calcular las rutas.
@@ -1782,6 +1806,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
     public static final int SOLO_ESPACIOS = 3;
     
     private TSwitchingMatrix matrizConmutacion;
+    private TTimingWheel temporizadores;
     private TLongIDGenerator gIdent;
     private TIDGenerator gIdentLDP;
     private int potenciaEnMb;
@@ -0,0 +1,371 @@
+/* 
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Esta clase implementa el cálculo de los caminos más cortos entre todos los pares
+ * de nodos de la topología, para el análisis fuera de línea de escenarios grandes.
+ * Usa Floyd-Warshall por bloques: la matriz se divide en bloques que caben en la
+ * caché y, en cada ronda, los bloques que no dependen entre sí se calculan en
+ * paralelo con fork/join. Las distancias y los siguientes saltos se guardan en
+ * vectores de tipos primitivos, una fila detrás de otra. No cambia una vez
+ * calculada.
+ * @author The OpenSimMPLS contributors
+ * @version 1.0
+ */
+public class TAllPairsShortestPaths {
+
+    /**
+     * Este método es el constructor de la clase. Crea una nueva instancia de
+     * TAllPairsShortestPaths y calcula todos los caminos.
+     * @param equivalencias Identificador del nodo que ocupa cada posición de la matriz,
+     * que es su índice denso. TTopology.SIN_CAMINO si la posición está libre.
+     * @param pesos Peso del enlace directo entre cada par de posiciones, fila a fila.
+     * TTopology.PESO_INFINITO si no están enlazadas. Se usa como matriz de distancias,
+     * así que queda modificado.
+     * @param pesoRABAN TRUE, si los pesos son los del protocolo RABAN. FALSE, si son el
+     * retardo de los enlaces.
+     * @param pool Conjunto de hilos en el que se calculan los bloques.
+     * @since 2.0
+     */
+    public TAllPairsShortestPaths(int equivalencias[], long pesos[], boolean pesoRABAN, ForkJoinPool pool) {
+        equivalencia = equivalencias;
+        numNodos = equivalencias.length;
+        distancias = pesos;
+        saltos = new int[numNodos*numNodos];
+        RABAN = pesoRABAN;
+        int i;
+        int j;
+        for (i=0; i<numNodos; i++) {
+            distancias[i*numNodos+i] = 0;
+            for (j=0; j<numNodos; j++) {
+                if (distancias[i*numNodos+j] == TTopology.PESO_INFINITO) {
+                    saltos[i*numNodos+j] = TTopology.SIN_CAMINO;
+                } else {
+                    saltos[i*numNodos+j] = j;
+                }
+            }
+        }
+        calcular(pool);
+    }
+
+    /**
+     * Este método ejecuta Floyd-Warshall por bloques. En cada ronda, primero se
+     * calcula el bloque de la diagonal; después, en paralelo, los de su fila y su
+     * columna, que sólo dependen de él; y por último, en paralelo, todos los demás,
+     * que sólo dependen de los anteriores.
+     * @param pool Conjunto de hilos en el que se calculan los bloques.
+     * @since 2.0
+     */
+    private void calcular(ForkJoinPool pool) {
+        int numBloques = (numNodos + TAM_BLOQUE - 1) / TAM_BLOQUE;
+        for (int bk=0; bk<numBloques; bk++) {
+            relajarBloque(bk, bk, bk);
+            pool.invoke(new TFilaYColumna(bk, 0, numBloques));
+            pool.invoke(new TResto(bk, 0, numBloques));
+        }
+    }
+
+    /**
+     * Este método mejora las distancias de un bloque pasando por los nodos intermedios
+     * de otro bloque. Es el núcleo del algoritmo y lo ejecutan todas las tareas.
+     * @param bi Bloque de filas (orígenes).
+     * @param bj Bloque de columnas (destinos).
+     * @param bk Bloque de los nodos intermedios.
+     * @since 2.0
+     */
+    private void relajarBloque(int bi, int bj, int bk) {
+        int finI = Math.min((bi+1)*TAM_BLOQUE, numNodos);
+        int finJ = Math.min((bj+1)*TAM_BLOQUE, numNodos);
+        int finK = Math.min((bk+1)*TAM_BLOQUE, numNodos);
+        int inicioJ = bj*TAM_BLOQUE;
+        long dik;
+        long dkj;
+        long d;
+        int sik;
+        int filaI;
+        int filaK;
+        for (int k=bk*TAM_BLOQUE; k<finK; k++) {
+            filaK = k*numNodos;
+            for (int i=bi*TAM_BLOQUE; i<finI; i++) {
+                filaI = i*numNodos;
+                dik = distancias[filaI+k];
+                if (dik == TTopology.PESO_INFINITO) {
+                    continue;
+                }
+                sik = saltos[filaI+k];
+                for (int j=inicioJ; j<finJ; j++) {
+                    dkj = distancias[filaK+j];
+                    if (dkj == TTopology.PESO_INFINITO) {
+                        continue;
+                    }
+                    d = dik + dkj;
+                    if (d < distancias[filaI+j]) {
+                        distancias[filaI+j] = d;
+                        saltos[filaI+j] = sik;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Esta clase calcula, dentro de una ronda, los bloques de la fila y de la columna
+     * del bloque de la diagonal, dividiéndolos entre varias tareas.
+     * @version 1.0
+     */
+    private class TFilaYColumna extends RecursiveAction {
+
+        public TFilaYColumna(int k, int desde, int hasta) {
+            bk = k;
+            inicio = desde;
+            fin = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - inicio > 1) {
+                int mitad = (inicio + fin) >>> 1;
+                invokeAll(new TFilaYColumna(bk, inicio, mitad), new TFilaYColumna(bk, mitad, fin));
+                return;
+            }
+            if (inicio != bk) {
+                relajarBloque(bk, inicio, bk);
+                relajarBloque(inicio, bk, bk);
+            }
+        }
+
+        private final int bk;
+        private final int inicio;
+        private final int fin;
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Esta clase calcula, dentro de una ronda, los bloques que no están ni en la fila
+     * ni en la columna del bloque de la diagonal, repartiendo las filas de bloques
+     * entre varias tareas.
+     * @version 1.0
+     */
+    private class TResto extends RecursiveAction {
+
+        public TResto(int k, int desde, int hasta) {
+            bk = k;
+            inicio = desde;
+            fin = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - inicio > 1) {
+                int mitad = (inicio + fin) >>> 1;
+                invokeAll(new TResto(bk, inicio, mitad), new TResto(bk, mitad, fin));
+                return;
+            }
+            if (inicio == bk) {
+                return;
+            }
+            int numBloques = (numNodos + TAM_BLOQUE - 1) / TAM_BLOQUE;
+            for (int bj=0; bj<numBloques; bj++) {
+                if (bj != bk) {
+                    relajarBloque(inicio, bj, bk);
+                }
+            }
+        }
+
+        private final int bk;
+        private final int inicio;
+        private final int fin;
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Este método obtiene la distancia del camino más corto desde un nodo hacia otro.
+     * @param origen Nodo origen.
+     * @param destino Nodo destino.
+     * @return La distancia. TTopology.PESO_INFINITO si no hay camino o si alguno de
+     * los nodos no estaba en la topología.
+     * @since 2.0
+     */
+    public long obtenerDistancia(TNode origen, TNode destino) {
+        if ((!estaEnMatriz(origen)) || (!estaEnMatriz(destino))) {
+            return TTopology.PESO_INFINITO;
+        }
+        return distancias[origen.obtenerIndiceDenso()*numNodos+destino.obtenerIndiceDenso()];
+    }
+
+    /**
+     * Este método obtiene el siguiente salto del camino más corto desde un nodo hacia
+     * otro.
+     * @param origen Nodo origen.
+     * @param destino Nodo destino.
+     * @return Identificador del siguiente salto. TTopology.SIN_CAMINO si no hay camino,
+     * si origen y destino son el mismo nodo o si alguno de los nodos no estaba en la
+     * topología.
+     * @since 2.0
+     */
+    public int obtenerSalto(TNode origen, TNode destino) {
+        if ((!estaEnMatriz(origen)) || (!estaEnMatriz(destino)) || (origen == destino)) {
+            return TTopology.SIN_CAMINO;
+        }
+        int salto2 = saltos[origen.obtenerIndiceDenso()*numNodos+destino.obtenerIndiceDenso()];
+        if (salto2 == TTopology.SIN_CAMINO) {
+            return TTopology.SIN_CAMINO;
+        }
+        return equivalencia[salto2];
+    }
+
+    /**
+     * Este método obtiene todos los nodos del camino más corto desde un nodo hacia
+     * otro, siguiendo la matriz de siguientes saltos.
+     * @param origen Nodo origen.
+     * @param destino Nodo destino.
+     * @return Identificadores de los nodos del camino, incluidos el origen y el
+     * destino. Vacío si no hay camino o si alguno de los nodos no estaba en la
+     * topología.
+     * @since 2.0
+     */
+    public int[] obtenerCamino(TNode origen, TNode destino) {
+        if ((!estaEnMatriz(origen)) || (!estaEnMatriz(destino))) {
+            return new int[0];
+        }
+        int actual2 = origen.obtenerIndiceDenso();
+        int destino2 = destino.obtenerIndiceDenso();
+        if (distancias[actual2*numNodos+destino2] == TTopology.PESO_INFINITO) {
+            return new int[0];
+        }
+        int camino[] = new int[8];
+        int longitud = 0;
+        camino[longitud++] = equivalencia[actual2];
+        while ((actual2 != destino2) && (longitud <= numNodos)) {
+            actual2 = saltos[actual2*numNodos+destino2];
+            if (longitud == camino.length) {
+                camino = Arrays.copyOf(camino, camino.length*2);
+            }
+            camino[longitud++] = equivalencia[actual2];
+        }
+        return Arrays.copyOf(camino, longitud);
+    }
+
+    /**
+     * Este método indica si un nodo estaba en la topología cuando se calcularon los
+     * caminos, en la posición de su índice denso.
+     * @param nodo El nodo.
+     * @return TRUE, si estaba. FALSE en caso contrario.
+     * @since 2.0
+     */
+    private boolean estaEnMatriz(TNode nodo) {
+        if (nodo == null) {
+            return false;
+        }
+        int indice = nodo.obtenerIndiceDenso();
+        return ((indice >= 0) && (indice < numNodos) && (equivalencia[indice] == nodo.getID()));
+    }
+
+    /**
+     * Este método indica si los caminos se calcularon con los pesos de RABAN.
+     * @return TRUE, si se usaron los pesos de RABAN. FALSE, si se usó el retardo de
+     * los enlaces.
+     * @since 2.0
+     */
+    public boolean obtenerPesoRABAN() {
+        return RABAN;
+    }
+
+    /**
+     * Este método guarda en un fichero de texto las matrices de distancias y de
+     * siguientes saltos, para analizarlas con otras herramientas. Tras una cabecera
+     * con los identificadores de los nodos, cada línea empieza por el identificador
+     * del nodo origen y sigue con un valor por cada destino, en el mismo orden. Donde
+     * no hay camino se escribe -1.
+     * @param fichero El fichero donde se guardan las matrices.
+     * @return TRUE, si se han podido guardar. FALSE en caso contrario.
+     * @since 2.0
+     */
+    public boolean exportar(File fichero) {
+        try {
+            PrintStream salida = new PrintStream(new BufferedOutputStream(new FileOutputStream(fichero), 1 << 16));
+            int i;
+            int j;
+            salida.print("#Nodos");
+            for (i=0; i<numNodos; i++) {
+                if (equivalencia[i] != TTopology.SIN_CAMINO) {
+                    salida.print(" " + equivalencia[i]);
+                }
+            }
+            salida.println();
+            salida.println("#Distancias");
+            for (i=0; i<numNodos; i++) {
+                if (equivalencia[i] == TTopology.SIN_CAMINO) {
+                    continue;
+                }
+                salida.print(equivalencia[i]);
+                for (j=0; j<numNodos; j++) {
+                    if (equivalencia[j] == TTopology.SIN_CAMINO) {
+                        continue;
+                    }
+                    salida.print(' ');
+                    if (distancias[i*numNodos+j] == TTopology.PESO_INFINITO) {
+                        salida.print(-1);
+                    } else {
+                        salida.print(distancias[i*numNodos+j]);
+                    }
+                }
+                salida.println();
+            }
+            salida.println("#Saltos");
+            for (i=0; i<numNodos; i++) {
+                if (equivalencia[i] == TTopology.SIN_CAMINO) {
+                    continue;
+                }
+                salida.print(equivalencia[i]);
+                for (j=0; j<numNodos; j++) {
+                    if (equivalencia[j] == TTopology.SIN_CAMINO) {
+                        continue;
+                    }
+                    salida.print(' ');
+                    if ((i == j) || (saltos[i*numNodos+j] == TTopology.SIN_CAMINO)) {
+                        salida.print(-1);
+                    } else {
+                        salida.print(equivalencia[saltos[i*numNodos+j]]);
+                    }
+                }
+                salida.println();
+            }
+            salida.close();
+            return !salida.checkError();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static final int TAM_BLOQUE = 64;
+
+    private final int equivalencia[];
+    private final int numNodos;
+    private final long distancias[];
+    private final int saltos[];
+    private final boolean RABAN;
+}
@@ -76,6 +76,10 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
      */    
     public void ponerEnlaceCaido(boolean ec) {
         enlaceCaido = ec;
+        if (ec) {
+            this.avisarCaidaAExtremos();
+        }
+        this.wakeUpEnds();
         if (ec) {
             try {
                 this.numeroDeLSPs = 0;
@@ -257,10 +261,10 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
             TLinkBufferEntry ebe = (TLinkBufferEntry) it.next();
             if (ebe.obtenerDestino() == TLink.END_NODE_1) {
                 TNode nt = this.getEnd1();
-                nt.ponerPaquete(ebe.obtenerPaquete(), this.obtenerPuertoExtremo1());
+                this.deliverPacket(nt, ebe.obtenerPaquete(), this.obtenerPuertoExtremo1());
             } else {
                 TNode nt = this.getEnd2();
-                nt.ponerPaquete(ebe.obtenerPaquete(), this.obtenerPuertoExtremo2());
+                this.deliverPacket(nt, ebe.obtenerPaquete(), this.obtenerPuertoExtremo2());
             }
             it.remove();
         }
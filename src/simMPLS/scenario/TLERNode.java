@@ -24,6 +24,8 @@ import simMPLS.protocols.TTLDPPayload;
 import simMPLS.protocols.TIPv4PDU;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
+import simMPLS.hardware.timer.TTimeout;
+import simMPLS.hardware.timer.TTimingWheel;
 import simMPLS.hardware.ports.TFIFOPort;
 import simMPLS.hardware.tldp.TSwitchingMatrix;
 import simMPLS.hardware.tldp.TSwitchingMatrixEntry;
@@ -62,7 +64,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     public TLERNode(int identificador, String d, TLongIDGenerator il, TTopology t) {
         super(identificador, d, il, t);
         this.setPorts(super.NUM_PUERTOS_LER);
+        temporizadores = new TTimingWheel();
         matrizConmutacion = new TSwitchingMatrix();
+        matrizConmutacion.setTimingWheel(temporizadores);
         gIdent = new TLongIDGenerator();
         gIdentLDP = new TIDGenerator();
         potenciaEnMb = 512;
@@ -163,6 +167,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     public void reset() {
         this.ports.reset();
         matrizConmutacion.reset();
+        temporizadores.reset();
         gIdent.reset();
         gIdentLDP.reset();
         estadisticas.reset();
@@ -179,6 +184,26 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
         return super.LER;
     }
     
+    /**
+     * Este m�todo obtiene cu�nto falta para que expire el primer temporizador TLDP
+     * pendiente del nodo.
+     * @return Nanosegundos hasta que expire el primer temporizador pendiente. -1 si no
+     * hay ninguno.
+     * @since 2.0
+     */    
+    public long getMinimumPendingTimeout() {
+        return this.temporizadores.getTimeToNextExpiration();
+    }
+    
+    /**
+     * Este m�todo permite el acceso a la matriz de conmutaci�n del LER.
+     * @return La matriz de conmutaci�n del LER.
+     * @since 2.0
+     */    
+    public TSwitchingMatrix getSwitchingMatrix() {
+        return this.matrizConmutacion;
+    }
+    
     /**
      * Este m�todo inicia el hilo de ejecuci�n del LER, para que entre en
      * funcionamiento. Adem�s controla el tiempo de que dispone el LER para conmutar
@@ -206,13 +231,14 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     public void run() {
         // Acciones a llevar a cabo durante el tic.
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.obtenerNivelDeCongestion()));
         } catch (Exception e) {
             e.printStackTrace();
         }
         comprobarElEstadoDeLasComunicaciones();
         decrementarContadores();
         encaminarPaquetes();
+        this.scheduleTimeoutEvents();
         estadisticas.consolidateData(this.getAvailableTime());
         // Acciones a llevar a cabo durante el tic.
     }
@@ -220,7 +246,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     /**
      * Este m�todo comprueba que haya conectividad con sus nodos adyacentes, es decir,
      * que no haya caido ning�n enlace. Si ha caido alg�n enlace, entonces genera la
-     * correspondiente se�alizaci�n para notificar este hecho.
+     * correspondiente se�alizaci�n para notificar este hecho. S�lo revisa las
+     * entradas de la matriz de conmutaci�n que usan puertos cuyo enlace ha avisado
+     * de su ca�da, y las que tienen alg�n puerto sin definir.
      * @since 2.0
      */
     public void comprobarElEstadoDeLasComunicaciones() {
@@ -231,10 +259,14 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
         TPort puertoEntrada = null;
         TLink et = null;
         TLink et2 = null;
-        matrizConmutacion.getMonitor().lock();
-        Iterator it = matrizConmutacion.getEntriesIterator();
+        int puertosCaidos[] = this.tomarPuertosCaidos();
+        // Las entradas con puertos sin definir se eliminan siempre, como antes.
+        puertosCaidos = Arrays.copyOf(puertosCaidos, puertosCaidos.length + 1);
+        puertosCaidos[puertosCaidos.length - 1] = TSwitchingMatrixEntry.UNDEFINED;
+        Iterator it = matrizConmutacion.getEntriesIterator(puertosCaidos);
         while (it.hasNext()) {
             emc = (TSwitchingMatrixEntry) it.next();
+            eliminar = false;
             if (emc != null) {
                 idPuerto = emc.getOutgoingPortID();
                 if ((idPuerto >= 0) && (idPuerto < this.ports.getNumberOfPorts())) {
@@ -288,13 +320,10 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     eliminar = true;
                 }
                 if (eliminar) {
-                    it.remove();
+                    matrizConmutacion.removeEntry(emc);
                 }
-            } else {
-                it.remove();
             }
         }
-        matrizConmutacion.getMonitor().unLock();
     }
     
     /**
@@ -958,7 +987,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
         String IPLocal = this.getIPAddress();
         String IPDestinoFinal = emc.getTailEndIPAddress();
         if (emc.getOutgoingLabel() != TSwitchingMatrixEntry.LABEL_ASSIGNED) {
-            String IPSalto = topology.obtenerIPSalto(IPLocal, IPDestinoFinal);
+            String IPSalto;
+            if (emc.getEntryType() == TSwitchingMatrixEntry.FEC_ENTRY) {
+                IPSalto = topology.obtenerIPSaltoECMP(IPLocal, IPDestinoFinal, emc.getLabelOrFEC());
+            } else {
+                IPSalto = topology.obtenerIPSalto(IPLocal, IPDestinoFinal);
+            }
             if (IPSalto != null) {
                 TTLDPPDU paqueteTLDP = null;
                 try {
@@ -1106,17 +1140,19 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     }
     
     /**
-     * Este m�todo decrementa los contadores de retransmisi�n existentes para este nodo.
+     * Este m�todo hace avanzar los temporizadores TLDP del nodo y reintenta las
+     * operaciones TLDP cuyo temporizador ha expirado durante el tic. S�lo se visitan
+     * las entradas de la matriz de conmutaci�n que expiran, no toda la matriz.
      * @since 2.0
      */
     public void decrementarContadores() {
+        ArrayList vencidos = this.temporizadores.advance(this.getTickDuration());
         TSwitchingMatrixEntry emc = null;
-        this.matrizConmutacion.getMonitor().lock();
-        Iterator it = this.matrizConmutacion.getEntriesIterator();
-        while (it.hasNext()) {
-            emc = (TSwitchingMatrixEntry) it.next();
-            if (emc != null) {
-                emc.decreaseTimeOut(this.getTickDuration());
+        Object propietario = null;
+        for (int i=0; i<vencidos.size(); i++) {
+            propietario = ((TTimeout) vencidos.get(i)).getOwner();
+            if (propietario instanceof TSwitchingMatrixEntry) {
+                emc = (TSwitchingMatrixEntry) propietario;
                 if (emc.getOutgoingLabel() == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                     if (emc.shouldRetryExpiredTLDPRequest()) {
                         emc.resetTimeOut();
@@ -1128,18 +1164,17 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         emc.resetTimeOut();
                         emc.decreaseAttempts();
                         labelWithdrawalAfterTimeout(emc);
-                    } else {
                         if (!emc.areThereAvailableAttempts()) {
-                            it.remove();
+                            // La entrada se elimina en el tic siguiente al �ltimo
+                            // reintento.
+                            emc.expireTimeOutOnNextTick();
                         }
+                    } else if (!emc.areThereAvailableAttempts()) {
+                        this.matrizConmutacion.removeEntry(emc);
                     }
-                } else {
-                    emc.resetTimeOut();
-                    emc.resetAttempts();
                 }
             }
         }
-        this.matrizConmutacion.getMonitor().unLock();
     }
     
     /**
@@ -1217,7 +1252,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
         TSwitchingMatrixEntry emc = null;
         String IPLocal = this.getIPAddress();
         String IPDestinoFinal = paqueteIPv4.getIPv4Header().getTailEndIPAddress();
-        String IPSalida = topology.obtenerIPSalto(IPLocal, IPDestinoFinal);
+        String IPSalida = topology.obtenerIPSaltoECMP(IPLocal, IPDestinoFinal, clasificarPaquete(paqueteIPv4));
         if (IPSalida != null) {
             TPort puertoEntrada = ports.getPort(pEntrada);
             TPort puertoSalida = ports.getLocalPortConnectedToANodeWithIPAddress(IPSalida);
@@ -1474,6 +1509,16 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
         return this.ports.hasAvailablePorts();
     }
     
+    /**
+     * Este m�todo obtiene el nivel de congesti�n que el nodo anota al principio de
+     * cada tic: el de sus puertos.
+     * @return El nivel de congesti�n de los puertos del nodo, en tanto por ciento.
+     * @since 2.0
+     */
+    public long obtenerNivelDeCongestion() {
+        return this.getPorts().getCongestionLevel();
+    }
+
     /**
      * Este m�todo calcula el peso del nodo. Se utilizar� para calcular rutas con costo
      * menor. En el nodo LER el pero ser� siempre nulo (cero).
@@ -1683,6 +1728,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     public static final int SOLO_ESPACIOS = 3;
     
     private TSwitchingMatrix matrizConmutacion;
+    private TTimingWheel temporizadores;
     private TLongIDGenerator gIdent;
     private TIDGenerator gIdentLDP;
     private int potenciaEnMb;
@@ -23,6 +23,8 @@ import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TTLDPPayload;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
+import simMPLS.hardware.timer.TTimeout;
+import simMPLS.hardware.timer.TTimingWheel;
 import simMPLS.hardware.ports.TFIFOPort;
 import simMPLS.hardware.tldp.TSwitchingMatrix;
 import simMPLS.hardware.tldp.TSwitchingMatrixEntry;
@@ -55,7 +57,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
     public TLSRNode(int identificador, String d, TLongIDGenerator il, TTopology t) {
         super(identificador, d, il, t);
         this.setPorts(super.NUM_PUERTOS_LSR);
+        temporizadores = new TTimingWheel();
         matrizConmutacion = new TSwitchingMatrix();
+        matrizConmutacion.setTimingWheel(temporizadores);
         gIdent = new TLongIDGenerator();
         gIdentLDP = new TIDGenerator();
         potenciaEnMb = 512;
@@ -155,6 +159,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
     public void reset() {
         this.ports.reset();
         matrizConmutacion.reset();
+        temporizadores.reset();
         gIdent.reset();
         gIdentLDP.reset();
         estadisticas.reset();
@@ -171,6 +176,26 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
         return super.LSR;
     }
     
+    /**
+     * Este m�todo obtiene cu�nto falta para que expire el primer temporizador TLDP
+     * pendiente del nodo.
+     * @return Nanosegundos hasta que expire el primer temporizador pendiente. -1 si no
+     * hay ninguno.
+     * @since 2.0
+     */    
+    public long getMinimumPendingTimeout() {
+        return this.temporizadores.getTimeToNextExpiration();
+    }
+    
+    /**
+     * Este m�todo permite el acceso a la matriz de conmutaci�n del LSR.
+     * @return La matriz de conmutaci�n del LSR.
+     * @since 2.0
+     */    
+    public TSwitchingMatrix getSwitchingMatrix() {
+        return this.matrizConmutacion;
+    }
+    
     /**
      * Este m�todo permite obtener eventos de sincronizaci�n del reloj del simulador.
      * @param evt Evento de sincronizaci�n que env�a el reloj del simulador.
@@ -195,21 +220,24 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
      */
     public void run() {
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.obtenerNivelDeCongestion()));
         } catch (Exception e) {
             e.printStackTrace();
         }
         comprobarElEstadoDeLasComunicaciones();
         decrementarContadores();
         conmutarPaquete();
+        this.scheduleTimeoutEvents();
         estadisticas.consolidateData(this.getAvailableTime());
         // Acciones a llevar a cabo durante el tic.
     }
     
     /**
-     * Este m�todo se encarga de validateConfig que los enlaces que unen al nodo con sus
- adyacentes, funcionan correctamente. Y si no es asi y es necesario, env�a la
-     * se�alizaci�n correspondiente para reparar la situaci�n.
+     * Este m�todo se encarga de comprobar que los enlaces que unen al nodo con sus
+     * adyacentes funcionan correctamente. Y si no es asi y es necesario, env�a la
+     * se�alizaci�n correspondiente para reparar la situaci�n. S�lo revisa las
+     * entradas de la matriz de conmutaci�n que usan puertos cuyo enlace ha avisado
+     * de su ca�da.
      * @since 2.0
      */
     public void comprobarElEstadoDeLasComunicaciones() {
@@ -218,8 +246,8 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
         TPort puertoSalida = null;
         TPort puertoEntrada = null;
         TLink et = null;
-        matrizConmutacion.getMonitor().lock();
-        Iterator it = matrizConmutacion.getEntriesIterator();
+        int puertosCaidos[] = this.tomarPuertosCaidos();
+        Iterator it = matrizConmutacion.getEntriesIterator(puertosCaidos);
         while (it.hasNext()) {
             emc = (TSwitchingMatrixEntry) it.next();
             if (emc != null) {
@@ -247,11 +275,8 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         }
                     }
                 }
-            } else {
-                it.remove();
             }
         }
-        matrizConmutacion.getMonitor().unLock();
     }
     
     /**
@@ -945,17 +970,19 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
     }
     
     /**
-     * Este m�todo decrementa los contadores para la retransmisi�n.
+     * Este m�todo hace avanzar los temporizadores TLDP del nodo y reintenta las
+     * operaciones TLDP cuyo temporizador ha expirado durante el tic. S�lo se visitan
+     * las entradas de la matriz de conmutaci�n que expiran, no toda la matriz.
      * @since 2.0
      */
     public void decrementarContadores() {
+        ArrayList vencidos = this.temporizadores.advance(this.getTickDuration());
         TSwitchingMatrixEntry emc = null;
-        this.matrizConmutacion.getMonitor().lock();
-        Iterator it = this.matrizConmutacion.getEntriesIterator();
-        while (it.hasNext()) {
-            emc = (TSwitchingMatrixEntry) it.next();
-            if (emc != null) {
-                emc.decreaseTimeOut(this.getTickDuration());
+        Object propietario = null;
+        for (int i=0; i<vencidos.size(); i++) {
+            propietario = ((TTimeout) vencidos.get(i)).getOwner();
+            if (propietario instanceof TSwitchingMatrixEntry) {
+                emc = (TSwitchingMatrixEntry) propietario;
                 if (emc.getOutgoingLabel() == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                     if (emc.shouldRetryExpiredTLDPRequest()) {
                         emc.resetTimeOut();
@@ -967,18 +994,17 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         emc.resetTimeOut();
                         emc.decreaseAttempts();
                         eliminarTLDPTrasTimeout(emc);
-                    } else {
                         if (!emc.areThereAvailableAttempts()) {
-                            it.remove();
+                            // La entrada se elimina en el tic siguiente al �ltimo
+                            // reintento.
+                            emc.expireTimeOutOnNextTick();
                         }
+                    } else if (!emc.areThereAvailableAttempts()) {
+                        this.matrizConmutacion.removeEntry(emc);
                     }
-                } else {
-                    emc.resetTimeOut();
-                    emc.resetAttempts();
                 }
             }
         }
-        this.matrizConmutacion.getMonitor().unLock();
     }
     
     /**
@@ -1055,6 +1081,16 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
         return this.ports.hasAvailablePorts();
     }
     
+    /**
+     * Este m�todo obtiene el nivel de congesti�n que el nodo anota al principio de
+     * cada tic: el de sus puertos.
+     * @return El nivel de congesti�n de los puertos del nodo, en tanto por ciento.
+     * @since 2.0
+     */
+    public long obtenerNivelDeCongestion() {
+        return this.getPorts().getCongestionLevel();
+    }
+
     /**
      * Este m�todo devuelve el peso del nodo, que debe ser tomado en cuenta por lo
      * algoritmos de encaminamiento para calcular las rutas.
@@ -1238,6 +1274,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
     public static final int SOLO_ESPACIOS = 3;
     
     private TSwitchingMatrix matrizConmutacion;
+    private TTimingWheel temporizadores;
     private TLongIDGenerator gIdent;
     private TIDGenerator gIdentLDP;
     private int potenciaEnMb;
@@ -17,6 +17,7 @@ package simMPLS.scenario;
 
 import simMPLS.protocols.TAbstractPDU;
 import simMPLS.hardware.timer.TTimerEvent;
+import simMPLS.hardware.timer.TPartitionChannel;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TPortSet;
 import simMPLS.utils.TMonitor;
@@ -59,6 +60,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
         cerrojoLlegados = new TMonitor();
         topologia = t;
         enlaceCaido = false;
+        canalEntreParticiones = null;
     }
     
     /**
@@ -219,6 +221,9 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
         } else {
             delay = d;
         }
+        if (topologia != null) {
+            topologia.invalidarTablaDeSaltos();
+        }
     }
     
     /**
@@ -409,15 +414,145 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
     }
     
     /**
-     * Este m�todo coloca un paquete desde el enlace al nodo destino.
+     * Este m�todo coloca un paquete desde el enlace al nodo destino. Si el nodo que lo
+     * env�a tiene buz�n de salida, el paquete no entra en el enlace hasta que el reloj
+     * confirma el tic.
      * @param paquete Paquete que se desea trasladar.
      * @param destino Nodo destino del paquete en el enlace.
      * @since 2.0
      */
     public void carryPacket(TAbstractPDU paquete, int destino) {
+        TNode emisor = extremo1;
+        if (destino == TLink.END_NODE_1) {
+            emisor = extremo2;
+        }
+        if ((emisor != null) && (emisor.getOutbox() != null)) {
+            emisor.getOutbox().addPacketToLink(this, paquete, destino, emisor.getAvailableTime());
+            return;
+        }
+        commitPacket(paquete, destino);
+    }
+    
+    /**
+     * Este m�todo introduce definitivamente un paquete en el enlace, camino del nodo
+     * destino. Lo usa el reloj al confirmar el tic.
+     * @param paquete Paquete que se desea trasladar.
+     * @param destino Nodo destino del paquete en el enlace.
+     * @since 2.0
+     */
+    public void commitPacket(TAbstractPDU paquete, int destino) {
+        commitPacket(paquete, destino, 0);
+    }
+    
+    /**
+     * Este m�todo introduce definitivamente en el enlace un paquete que fue enviado
+     * hace algo de tiempo, y que por tanto ya ha recorrido parte del enlace. Lo usa el
+     * reloj al final de un lote de tics.
+     * @param paquete Paquete que se desea trasladar.
+     * @param destino Nodo destino del paquete en el enlace.
+     * @param transcurrido Nanosegundos transcurridos desde que se envi� el paquete.
+     * @since 2.0
+     */
+    public void commitPacket(TAbstractPDU paquete, int destino, long transcurrido) {
+        this.wakeUp();
+        if (canalEntreParticiones != null) {
+            canalEntreParticiones.send(paquete, destino);
+            return;
+        }
+        TLinkBufferEntry ebe = new TLinkBufferEntry(paquete, this.obtenerDelay(), destino);
+        if (transcurrido > 0) {
+            ebe.restarTiempoPaso(transcurrido);
+        }
+        cerrojo.lock();
+        buffer.add(ebe);
+        cerrojo.unLock();
+        topologia.obtenerReloj().scheduleEventAfter(this.obtenerDelay() - transcurrido);
+    }
+    
+    /**
+     * Este m�todo entrega al nodo destino un paquete que ha llegado al final del
+     * enlace. Si el enlace tiene buz�n de salida, el paquete no llega al puerto del
+     * nodo hasta que el reloj confirma el tic.
+     * @param nodo Nodo destino del paquete.
+     * @param paquete Paquete que se entrega.
+     * @param puerto Puerto del nodo destino al que llega el paquete.
+     * @since 2.0
+     */
+    protected void deliverPacket(TNode nodo, TAbstractPDU paquete, int puerto) {
+        if (this.getOutbox() != null) {
+            this.getOutbox().addPacketToNode(nodo, paquete, puerto, this.getAvailableTime());
+        } else {
+            nodo.ponerPaquete(paquete, puerto);
+        }
+    }
+    
+    /**
+     * Este m�todo indica si el enlace est� ocioso, es decir, si no lleva ning�n
+     * paquete.
+     * @return TRUE, si el enlace est� ocioso. FALSE en caso contrario.
+     * @since 2.0
+     */
+    public boolean isIdle() {
+        return !isAnyPacketInTransit();
+    }
+    
+    /**
+     * Este m�todo avisa a los nodos de los extremos de que el enlace ha ca�do, para
+     * que atiendan las entradas de su matriz de conmutaci�n que lo usan.
+     * @since 2.0
+     */
+    protected void avisarCaidaAExtremos() {
+        if (extremo1 != null) {
+            extremo1.notificarEnlaceCaido(puertoExtremo1);
+        }
+        if (extremo2 != null) {
+            extremo2.notificarEnlaceCaido(puertoExtremo2);
+        }
+    }
+    
+    /**
+     * Este m�todo despierta al enlace y a los nodos de sus extremos y avisa al reloj
+     * y a la topolog�a de que el estado del enlace ha cambiado. Se usa cuando el
+     * enlace se cae o se recupera, porque los nodos deben reaccionar y las rutas
+     * pueden cambiar.
+     * @since 2.0
+     */
+    protected void wakeUpEnds() {
+        if (topologia != null) {
+            topologia.obtenerReloj().notifyLinkStateChange();
+            topologia.notificarCambioDeEstado(this);
+        }
+        this.wakeUp();
+        if (extremo1 != null) {
+            extremo1.wakeUp();
+        }
+        if (extremo2 != null) {
+            extremo2.wakeUp();
+        }
+    }
+    
+    /**
+     * Este m�todo establece el canal por el que viajan los paquetes cuando los
+     * extremos del enlace se simulan en particiones distintas de la topolog�a.
+     * @param c Canal entre particiones. NULL si el enlace se simula normalmente.
+     * @since 2.0
+     */
+    public void setPartitionChannel(TPartitionChannel c) {
+        canalEntreParticiones = c;
+    }
+    
+    /**
+     * Este m�todo comprueba si el enlace tiene paquetes en tr�nsito, bien viajando
+     * por el enlace o bien esperando a ser entregados al nodo destino.
+     * @return TRUE, si hay alg�n paquete en el enlace. FALSE en caso contrario.
+     * @since 2.0
+     */
+    public boolean isAnyPacketInTransit() {
+        boolean hayPaquetes = false;
         cerrojo.lock();
-        buffer.add(new TLinkBufferEntry(paquete, this.obtenerDelay(), destino));
+        hayPaquetes = (!buffer.isEmpty()) || (!bufferLlegadosADestino.isEmpty());
         cerrojo.unLock();
+        return hayPaquetes;
     }
     
     /**
@@ -431,7 +566,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
         int y1 = extremo1.obtenerPosicion().y+24;
         int x2 = extremo2.obtenerPosicion().x+24;
         int y2 = extremo2.obtenerPosicion().y+24;
-        int dx, dy, pasos, k;
+        int dx, dy, pasos, k, centro;
         double incrementox, incrementoy, x, y;
         
         if ((x1 == x2) && (y1 == y2))   // Para l�neas que son s�lo un punto.
@@ -449,16 +584,16 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
                 pasos = Math.abs(dy);
             incrementox = (float) dx / pasos;
             incrementoy = (float) dy / pasos;
-            x = x1;
-            y = y1;
-            
-            if ((x >= p.x-3) && (x <= p.x+3) &&
-            (y >= p.y-3) && (y <= p.y+3)) {
-                return true;
-            }
-            for (k=1; k<=pasos; k++) {
-                x += incrementox;
-                y += incrementoy;
+            // En cada paso la coordenada que m�s cambia avanza un p�xel, as� que
+            // s�lo los pasos cercanos a p en esa coordenada pueden estar a menos de
+            // 3 p�xeles de p. No hace falta recorrer el resto de la l�nea.
+            if (Math.abs(dx) > Math.abs(dy))
+                centro = (p.x - x1) * Integer.signum(dx);
+            else
+                centro = (p.y - y1) * Integer.signum(dy);
+            for (k=Math.max(0, centro-4); k<=Math.min(pasos, centro+4); k++) {
+                x = x1 + k*incrementox;
+                y = y1 + k*incrementoy;
                 if ((x >= p.x-3) && (x <= p.x+3) &&
                 (y >= p.y-3) && (y <= p.y+3)) {
                     return true;
@@ -605,6 +740,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
     private String nombre;
     private boolean mostrarNombre;
     private int delay;
+    private TPartitionChannel canalEntreParticiones;
     /**
      * Este atributo almacena los paquetes en el enlace para simular su recorrido por
      * el mismo.
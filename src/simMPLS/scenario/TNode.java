@@ -19,10 +19,15 @@ import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
+import simMPLS.hardware.timer.TPinningMonitor;
+import simMPLS.hardware.timer.TTimer;
 import simMPLS.hardware.ports.TPortSet;
+import simMPLS.hardware.tldp.TSwitchingMatrix;
 import simMPLS.utils.TMonitor;
 import simMPLS.utils.TLongIDGenerator;
 import java.awt.*;
+import java.util.Iterator;
+import java.util.TreeSet;
 import org.jfree.chart.*;
 import org.jfree.data.*;
 
@@ -58,6 +63,7 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
         availableNs = 0;
         nsDelTic = 0;
         pasosSinEmitir = 0;
+        puertosCaidos = new TreeSet();
     }
 
     /**
@@ -128,7 +134,11 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
      * @param n nombre deseado para el nodo.
      */    
     public void setName(String n) {
+        String nombreAnterior = nombre;
         nombre = n;
+        if (topology != null) {
+            topology.reindexarNodo(this, nombreAnterior, IP);
+        }
     }
 
     /**
@@ -168,6 +178,9 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
     public void setPosition(Point p) {
         posicion.x = p.x - (ANCHO_ICONOS/2);
         posicion.y = p.y - (ALTO_ICONOS/2);
+        if (topology != null) {
+            topology.reubicarNodo(this);
+        }
     }
 
     /**
@@ -240,7 +253,11 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
      * @since 2.0
      */    
     public void setIPAddress(String direccion) {
+        String IPAnterior = IP;
         IP = direccion;
+        if (topology != null) {
+            topology.reindexarNodo(this, nombre, IPAnterior);
+        }
     }
 
     /**
@@ -256,10 +273,38 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
      * @param puerto Puerto del conjunto de ports en el que deeamos depositar el paquete.
      * @since 2.0
      */    
-    public synchronized void ponerPaquete(TAbstractPDU paquete, int puerto) {
-        cerrojo.lock();
-        this.ports.getPort(puerto).addPacket(paquete);
-        cerrojo.unLock();
+    public void ponerPaquete(TAbstractPDU paquete, int puerto) {
+        long solicitud = TNode.ANCLAJE_PONER_PAQUETE.lockRequested();
+        synchronized (this) {
+            long adquisicion = TNode.ANCLAJE_PONER_PAQUETE.lockAcquired(solicitud);
+            try {
+                cerrojo.lock();
+                this.ports.getPort(puerto).addPacket(paquete);
+                cerrojo.unLock();
+                this.wakeUp();
+            } finally {
+                TNode.ANCLAJE_PONER_PAQUETE.lockReleased(adquisicion);
+            }
+        }
+    }
+
+    /**
+     * Este m�todo indica si el nodo est� ocioso: no tiene paquetes esperando en sus
+     * puertos, ni temporizadores TLDP o GPSRP pendientes, ni avisos de enlaces ca�dos
+     * sin atender.
+     * @return TRUE, si el nodo est� ocioso. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean isIdle() {
+        if ((this.ports != null) && (this.ports.isAnyPacketPending())) {
+            return false;
+        }
+        synchronized (this.puertosCaidos) {
+            if (!this.puertosCaidos.isEmpty()) {
+                return false;
+            }
+        }
+        return (this.getMinimumPendingTimeout() < 0);
     }
 
     /**
@@ -289,6 +334,106 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
         return pasosSinEmitir;
     }
     
+    /**
+     * Este m�todo obtiene cu�nto falta para que expire el primer temporizador TLDP o
+     * GPSRP pendiente del nodo. Los nodos que no mantienen temporizadores no tienen
+     * ninguno pendiente.
+     * @return Nanosegundos hasta que expire el primer temporizador pendiente. -1 si no
+     * hay ninguno.
+     * @since 2.0
+     */    
+    public long getMinimumPendingTimeout() {
+        return -1;
+    }
+
+    /**
+     * Este m�todo permite el acceso a la matriz de conmutaci�n del nodo, para que el
+     * reloj pueda informar al final de la simulaci�n de la contenci�n en ella. Los
+     * nodos que no conmutan etiquetas no tienen matriz de conmutaci�n.
+     * @return La matriz de conmutaci�n del nodo. NULL si el nodo no tiene.
+     * @since 2.0
+     */    
+    public TSwitchingMatrix getSwitchingMatrix() {
+        return null;
+    }
+
+    /**
+     * Este m�todo obtiene el nivel de congesti�n que el nodo anota al principio de
+     * cada tic en un evento TSENodeCongested.
+     * @return El nivel de congesti�n del nodo, en tanto por ciento. -1 si el nodo no
+     * anota su nivel de congesti�n.
+     * @since 2.0
+     */    
+    public long obtenerNivelDeCongestion() {
+        return -1;
+    }
+
+    /**
+     * Este m�todo genera una muestra de congesti�n del nodo en un tic que el reloj no
+     * le ha enviado, porque el nodo estaba dormido o porque la topolog�a estaba en
+     * reposo y el reloj ha simulado varios tics de una vez. As� las muestras de
+     * congesti�n son las mismas que si el reloj enviara todos los tics al nodo. En
+     * esos tics el nodo no tiene nada que hacer, as� que la muestra tiene el nivel de
+     * congesti�n actual.
+     * @param instante Instante en que acaba el tic, en nanosegundos.
+     * @since 2.0
+     */    
+    public void generarMuestraDeCongestion(long instante) {
+        long nivel = this.obtenerNivelDeCongestion();
+        if (nivel >= 0) {
+            try {
+                this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), instante, nivel));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Este m�todo avisa al nodo de que ha ca�do el enlace conectado a uno de sus
+     * puertos. El nodo no busca enlaces ca�dos en cada tic: en el siguiente tic
+     * atiende s�lo las entradas de su matriz de conmutaci�n que usan los puertos
+     * de los que ha recibido aviso.
+     * @param puerto Puerto del nodo al que est� conectado el enlace ca�do.
+     * @since 2.0
+     */    
+    public void notificarEnlaceCaido(int puerto) {
+        synchronized (this.puertosCaidos) {
+            this.puertosCaidos.add(Integer.valueOf(puerto));
+        }
+    }
+
+    /**
+     * Este m�todo obtiene los puertos del nodo cuyo enlace ha ca�do desde la �ltima
+     * vez que se llam� y los olvida.
+     * @return Los puertos, en orden creciente. Vac�o si no ha ca�do ning�n enlace.
+     * @since 2.0
+     */    
+    protected int[] tomarPuertosCaidos() {
+        synchronized (this.puertosCaidos) {
+            int puertos[] = new int[this.puertosCaidos.size()];
+            Iterator it = this.puertosCaidos.iterator();
+            for (int i=0; i<puertos.length; i++) {
+                puertos[i] = ((Integer) it.next()).intValue();
+            }
+            this.puertosCaidos.clear();
+            return puertos;
+        }
+    }
+
+    /**
+     * Este m�todo programa en el reloj de la topolog�a un evento para el instante en
+     * que expire el primer temporizador TLDP o GPSRP pendiente del nodo. S�lo tiene
+     * efecto cuando el reloj funciona como motor de eventos discretos.
+     * @since 2.0
+     */    
+    protected void scheduleTimeoutEvents() {
+        TTimer reloj = this.topology.obtenerReloj();
+        if (reloj.getEngineMode() == TTimer.DISCRETE_EVENT_ENGINE) {
+            reloj.scheduleEventAfter(this.getMinimumPendingTimeout());
+        }
+    }
+
     /**
      * Este m�todo permite descartar un paquete en el nodo.
      * @param paquete Paquete que deseamos descartar.
@@ -546,4 +691,7 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
     protected int nsDelTic;
     
     private int pasosSinEmitir = 0;
+    private final TreeSet puertosCaidos;
+
+    private static final TPinningMonitor ANCLAJE_PONER_PAQUETE = TPinningMonitor.register("TNode.ponerPaquete");
 }
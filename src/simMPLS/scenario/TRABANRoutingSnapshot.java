@@ -0,0 +1,262 @@
+/* 
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import java.util.Arrays;
+import simMPLS.utils.TNodeHeap;
+
+/**
+ * Esta clase implementa una instantánea de las rutas RABAN de la topología. Guarda
+ * el siguiente salto de cada nodo hacia todos los demás, calculado con los pesos de
+ * RABAN de un instante concreto, y un siguiente salto alternativo sin bucles para
+ * cuando hay que evitar el principal. No cambia una vez creada, de modo que todos los
+ * nodos pueden consultarla a la vez sin cerrojos.
+ * @author The OpenSimMPLS contributors
+ * @version 1.0
+ */
+public class TRABANRoutingSnapshot {
+
+    /**
+     * Este método es el constructor de la clase. Crea una nueva instancia de
+     * TRABANRoutingSnapshot y calcula mediante Dijkstra, desde cada nodo, el
+     * siguiente salto RABAN y el alternativo hacia todos los demás. Trabaja sobre una
+     * copia de las listas de adyacencia y de los pesos, de modo que no necesita el
+     * cerrojo de la topología.
+     * @param equivalencias Identificador del nodo que ocupa cada posición de las
+     * listas, que es su índice denso. TTopology.SIN_CAMINO si la posición está libre.
+     * @param inicio Posición en la que empiezan los adyacentes de cada nodo; la
+     * última marca el final de las listas.
+     * @param adyacentes Posición de cada nodo adyacente.
+     * @param pesos Peso RABAN del enlace con cada nodo adyacente.
+     * TTopology.PESO_INFINITO si el enlace está caído.
+     * @param i Instante de la simulación en que se copiaron los pesos.
+     * @param v Versión de la topología de la que se copiaron las listas.
+     * @param ve Versión del estado de los enlaces de la que se copiaron los pesos.
+     * @since 2.0
+     */    
+    public TRABANRoutingSnapshot(int equivalencias[], int inicio[], int adyacentes[], long pesos[], long i, int v, int ve) {
+        int numNodos = equivalencias.length;
+        // Los alternativos necesitan la distancia entre cualquier par de nodos, así
+        // que calcular cada instantánea ocupa O(n²) memoria (n² valores long), además
+        // de las dos tablas de saltos que guarda. Con épocas cortas y topologías
+        // grandes conviene tenerlo en cuenta.
+        long distancias[][] = new long[numNodos][numNodos];
+        int saltos[][] = new int[numNodos][];
+        int alternativos[][] = new int[numNodos][];
+        for (int origen=0; origen<numNodos; origen++) {
+            saltos[origen] = calcularPrimerosSaltos(origen, equivalencias, inicio, adyacentes, pesos, distancias[origen]);
+        }
+        for (int origen=0; origen<numNodos; origen++) {
+            alternativos[origen] = calcularAlternativos(origen, saltos[origen], distancias, equivalencias, inicio, adyacentes, pesos);
+            // Comprobamos si no hay camino pero son adyacentes
+            for (int a=inicio[origen]; a<inicio[origen+1]; a++) {
+                if (saltos[origen][adyacentes[a]] == TTopology.SIN_CAMINO) {
+                    saltos[origen][adyacentes[a]] = equivalencias[adyacentes[a]];
+                }
+            }
+        }
+        equivalencia = equivalencias;
+        tablaDeSaltos = saltos;
+        tablaDeAlternativos = alternativos;
+        instante = i;
+        version = v;
+        versionEstado = ve;
+    }
+
+    /**
+     * Este método calcula mediante Dijkstra el primer salto de los caminos más cortos
+     * desde un nodo hacia los demás. Los enlaces caídos no se usan.
+     * @param origen Posición del nodo origen.
+     * @param equivalencias Identificador del nodo que ocupa cada posición.
+     * @param inicio Posición en la que empiezan los adyacentes de cada nodo.
+     * @param adyacentes Posición de cada nodo adyacente.
+     * @param pesos Peso RABAN del enlace con cada nodo adyacente.
+     * @param distancias Vector donde se deja la distancia hacia cada nodo.
+     * @return Identificador del primer salto hacia cada nodo, indexado por su posición.
+     * TTopology.SIN_CAMINO si no hay camino.
+     * @since 2.0
+     */    
+    private static int[] calcularPrimerosSaltos(int origen, int equivalencias[], int inicio[], int adyacentes[], long pesos[], long distancias[]) {
+        int numNodos = equivalencias.length;
+        int primerosSaltos[] = new int[numNodos];
+        Arrays.fill(distancias, TTopology.PESO_INFINITO);
+        Arrays.fill(primerosSaltos, TTopology.SIN_CAMINO);
+        TNodeHeap monticulo = new TNodeHeap(numNodos);
+        distancias[origen] = 0;
+        monticulo.insertar(origen, 0);
+        int u;
+        int v;
+        long distancia;
+        while (!monticulo.estaVacio()) {
+            distancia = monticulo.obtenerDistanciaMinima();
+            u = monticulo.extraer();
+            if (distancia > distancias[u]) {
+                continue;
+            }
+            for (int a=inicio[u]; a<inicio[u+1]; a++) {
+                if (pesos[a] == TTopology.PESO_INFINITO) {
+                    continue;
+                }
+                v = adyacentes[a];
+                distancia = distancias[u] + pesos[a];
+                if (distancia < distancias[v]) {
+                    distancias[v] = distancia;
+                    if (u == origen) {
+                        primerosSaltos[v] = equivalencias[v];
+                    } else {
+                        primerosSaltos[v] = primerosSaltos[u];
+                    }
+                    monticulo.insertar(v, distancia);
+                }
+            }
+        }
+        primerosSaltos[origen] = TTopology.SIN_CAMINO;
+        return primerosSaltos;
+    }
+
+    /**
+     * Este método calcula, desde un nodo, el siguiente salto alternativo hacia cada
+     * destino: el vecino distinto del salto principal con menor coste hacia el destino
+     * cuyo camino más corto no pasa por el origen, es decir, que cumple
+     * distancia(vecino, destino) < distancia(vecino, origen) + distancia(origen, destino).
+     * Así, si el principal falla, el tráfico enviado al alternativo no vuelve al origen.
+     * @param origen Posición del nodo origen.
+     * @param saltos Identificador del salto principal hacia cada nodo.
+     * @param distancias Distancia RABAN entre cada par de nodos.
+     * @param equivalencias Identificador del nodo que ocupa cada posición.
+     * @param inicio Posición en la que empiezan los adyacentes de cada nodo.
+     * @param adyacentes Posición de cada nodo adyacente.
+     * @param pesos Peso RABAN del enlace con cada nodo adyacente.
+     * @return Identificador del salto alternativo hacia cada nodo, indexado por su
+     * posición. TTopology.SIN_CAMINO si no hay alternativa sin bucles.
+     * @since 2.0
+     */    
+    private static int[] calcularAlternativos(int origen, int saltos[], long distancias[][], int equivalencias[], int inicio[], int adyacentes[], long pesos[]) {
+        int numNodos = equivalencias.length;
+        int alternativos[] = new int[numNodos];
+        Arrays.fill(alternativos, TTopology.SIN_CAMINO);
+        int vecino;
+        long coste;
+        long mejorCoste;
+        for (int destino=0; destino<numNodos; destino++) {
+            if ((destino == origen) || (distancias[origen][destino] == TTopology.PESO_INFINITO)) {
+                continue;
+            }
+            mejorCoste = TTopology.PESO_INFINITO;
+            for (int a=inicio[origen]; a<inicio[origen+1]; a++) {
+                vecino = adyacentes[a];
+                if ((vecino == origen) || (equivalencias[vecino] == saltos[destino]) || (pesos[a] == TTopology.PESO_INFINITO)) {
+                    continue;
+                }
+                if ((distancias[vecino][destino] == TTopology.PESO_INFINITO) || (distancias[vecino][destino] >= distancias[vecino][origen] + distancias[origen][destino])) {
+                    continue;
+                }
+                coste = pesos[a] + distancias[vecino][destino];
+                if ((coste < mejorCoste) || ((coste == mejorCoste) && (equivalencias[vecino] < alternativos[destino]))) {
+                    mejorCoste = coste;
+                    alternativos[destino] = equivalencias[vecino];
+                }
+            }
+        }
+        return alternativos;
+    }
+
+    /**
+     * Este método obtiene el siguiente salto desde un nodo hacia otro.
+     * @param origen Nodo origen.
+     * @param destino Nodo destino.
+     * @return Identificador del siguiente salto. TTopology.SIN_CAMINO si no hay
+     * camino o si alguno de los nodos no estaba en la topología.
+     * @since 2.0
+     */    
+    public int obtenerSalto(TNode origen, TNode destino) {
+        if ((!estaEnTabla(origen)) || (!estaEnTabla(destino))) {
+            return TTopology.SIN_CAMINO;
+        }
+        return tablaDeSaltos[origen.obtenerIndiceDenso()][destino.obtenerIndiceDenso()];
+    }
+
+    /**
+     * Este método obtiene el siguiente salto desde un nodo hacia otro sin usar el
+     * enlace que une el origen con un nodo adyacente. Si el salto principal no es ese
+     * nodo, se usa el principal; si lo es, se usa el alternativo, cuyo camino hacia el
+     * destino no vuelve a pasar por el origen.
+     * @param origen Nodo origen.
+     * @param destino Nodo destino.
+     * @param nodoAEvitar Identificador del nodo adyacente al origen que se desea evitar.
+     * @return Identificador del siguiente salto. TTopology.SIN_CAMINO si no hay
+     * alternativa sin bucles o si alguno de los nodos no estaba en la topología.
+     * @since 2.0
+     */    
+    public int obtenerSaltoAlternativo(TNode origen, TNode destino, int nodoAEvitar) {
+        int salto = obtenerSalto(origen, destino);
+        if ((salto == TTopology.SIN_CAMINO) || (salto != nodoAEvitar)) {
+            return salto;
+        }
+        return tablaDeAlternativos[origen.obtenerIndiceDenso()][destino.obtenerIndiceDenso()];
+    }
+
+    /**
+     * Este método indica si un nodo estaba en la topología cuando se calcularon las
+     * rutas, en la posición de su índice denso.
+     * @param nodo El nodo.
+     * @return TRUE, si estaba. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    private boolean estaEnTabla(TNode nodo) {
+        if (nodo == null) {
+            return false;
+        }
+        int indice = nodo.obtenerIndiceDenso();
+        return ((indice >= 0) && (indice < equivalencia.length) && (equivalencia[indice] == nodo.getID()));
+    }
+
+    /**
+     * Este método obtiene el instante de la simulación en que se calcularon las rutas.
+     * @return El instante, en nanosegundos.
+     * @since 2.0
+     */    
+    public long obtenerInstante() {
+        return instante;
+    }
+
+    /**
+     * Este método obtiene la versión de la topología para la que se calcularon las
+     * rutas.
+     * @return La versión de la topología.
+     * @since 2.0
+     */    
+    public int obtenerVersion() {
+        return version;
+    }
+
+    /**
+     * Este método obtiene la versión del estado de los enlaces para la que se
+     * calcularon las rutas.
+     * @return La versión del estado de los enlaces.
+     * @since 2.0
+     */    
+    public int obtenerVersionEstado() {
+        return versionEstado;
+    }
+
+    private final int equivalencia[];
+    private final int tablaDeSaltos[][];
+    private final int tablaDeAlternativos[][];
+    private final long instante;
+    private final int version;
+    private final int versionEstado;
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import java.awt.Point;
+import simMPLS.hardware.ports.TFIFOPortSet;
+import simMPLS.hardware.ports.TPortSet;
+import simMPLS.hardware.timer.TTimerEvent;
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.protocols.TMPLSPDU;
+import simMPLS.utils.TLongIDGenerator;
+
+/**
+ * This class implements a stand-in for a node that is simulated by another
+ * worker of a distributed simulation. It keeps the identifier, the address,
+ * the type and the ports of the node, so that links can be connected to it
+ * and routes can be computed through it, but it has no switching matrix, no
+ * statistics and no behaviour of its own. Packets sent to it are captured by
+ * the channel of the link and handed to the worker that simulates the node.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TRemoteNode extends TNode {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TRemoteNode. The type of the node is set when it is unmarshalled.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param identifier Unique identifier of the node in the topology.
+     * @param ipAddress IP address of the node.
+     * @param eventIDGenerator Generator of identifiers for the events of the
+     * node.
+     * @param topology Topology the node belongs to.
+     * @since 2.0
+     */
+    public TRemoteNode(int identifier, String ipAddress, TLongIDGenerator eventIDGenerator, TTopology topology) {
+        super(identifier, ipAddress, eventIDGenerator, topology);
+        this.nodeType = TNode.LSR;
+        this.marshalledNode = "";
+        this.setPorts(TNode.NUM_PUERTOS_LSR);
+    }
+
+    /**
+     * This method resets the ports of the node.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    @Override
+    public void reset() {
+        this.ports.reset();
+    }
+
+    /**
+     * This method returns the type of the node it stands for.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The type of the remote node.
+     * @since 2.0
+     */
+    @Override
+    public int getNodeType() {
+        return this.nodeType;
+    }
+
+    /**
+     * This method does nothing, as the node is simulated by another worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param evt The timer event.
+     * @since 2.0
+     */
+    @Override
+    public void receiveTimerEvent(TTimerEvent evt) {
+    }
+
+    /**
+     * This method does nothing, as the node is simulated by another worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @since 2.0
+     */
+    @Override
+    public void run() {
+    }
+
+    /**
+     * This method returns the ports of the node.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The ports of the node.
+     * @since 2.0
+     */
+    @Override
+    public TPortSet getPorts() {
+        return this.ports;
+    }
+
+    /**
+     * This method returns whether the node has any port without link.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return true, if the node has any port without link. False on the
+     * contrary.
+     * @since 2.0
+     */
+    @Override
+    public boolean hasAvailablePorts() {
+        return this.ports.hasAvailablePorts();
+    }
+
+    /**
+     * This method returns the weight of the node for the routing algorithms.
+     * The load of the node is not known here, so it is the one of an idle
+     * node.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return Always zero.
+     * @since 2.0
+     */
+    @Override
+    public long getRoutingWeight() {
+        return 0;
+    }
+
+    /**
+     * This method returns whether the node is well configured. The node was
+     * checked when the scenario was saved, so it always is.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return Always true.
+     * @since 2.0
+     */
+    @Override
+    public boolean isWellConfigured() {
+        return true;
+    }
+
+    /**
+     * This method checks the configuration of the node. The node was checked
+     * when the scenario was saved, so it is always correct.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param t The topology the node belongs to.
+     * @param recfg true, if the node is being reconfigured. False on the
+     * contrary.
+     * @return Always TRemoteNode.CORRECT.
+     * @since 2.0
+     */
+    @Override
+    public int validateConfig(TTopology t, boolean recfg) {
+        return TRemoteNode.CORRECT;
+    }
+
+    /**
+     * This method returns the text of a configuration error. The node is
+     * always correct, so there is no text.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param e The configuration error.
+     * @return An empty text.
+     * @since 2.0
+     */
+    @Override
+    public String getErrorMessage(int e) {
+        return "";
+    }
+
+    /**
+     * This method returns the node it stands for, as it was read from disk.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The textual representation of the remote node.
+     * @since 2.0
+     */
+    @Override
+    public String marshall() {
+        return this.marshalledNode;
+    }
+
+    /**
+     * This method reads the fields shared by all kinds of nodes from the
+     * textual representation of a node of any type.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param elemento The textual representation of the node.
+     * @return true, if the node can be read. False on the contrary.
+     * @since 2.0
+     */
+    @Override
+    public boolean unMarshall(String elemento) {
+        String valores[] = elemento.split("#");
+        if (valores.length < 10) {
+            return false;
+        }
+        if (valores[1].equals("Emisor")) {
+            this.nodeType = TNode.SENDER;
+            this.setPorts(TNode.NUM_PUERTOS_EMISOR);
+        } else if (valores[1].equals("Receptor")) {
+            this.nodeType = TNode.RECEIVER;
+            this.setPorts(TNode.NUM_PUERTOS_RECEPTOR);
+        } else if (valores[1].equals("LER")) {
+            this.nodeType = TNode.LER;
+            this.setPorts(TNode.NUM_PUERTOS_LER);
+        } else if (valores[1].equals("LERA")) {
+            this.nodeType = TNode.LERA;
+            this.setPorts(TNode.NUM_LERA_PORTS);
+        } else if (valores[1].equals("LSR")) {
+            this.nodeType = TNode.LSR;
+            this.setPorts(TNode.NUM_PUERTOS_LSR);
+        } else if (valores[1].equals("LSRA")) {
+            this.nodeType = TNode.LSRA;
+            this.setPorts(TNode.NUM_PUERTOS_LSRA);
+        } else {
+            return false;
+        }
+        this.setID(Integer.valueOf(valores[2]).intValue());
+        this.setName(valores[3]);
+        this.setIPAddress(valores[4]);
+        this.setStatus(Integer.valueOf(valores[5]).intValue());
+        this.setShowName(Boolean.valueOf(valores[6]).booleanValue());
+        int posX = Integer.valueOf(valores[8]).intValue();
+        int posY = Integer.valueOf(valores[9]).intValue();
+        this.setPosition(new Point(posX + 24, posY + 24));
+        this.marshalledNode = elemento;
+        return true;
+    }
+
+    /**
+     * This method returns the statistics of the node. The node does not
+     * generate statistics.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return Always null.
+     * @since 2.0
+     */
+    @Override
+    public TStats getStats() {
+        return null;
+    }
+
+    /**
+     * This method sets the number of ports of the node.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param num The number of ports.
+     * @since 2.0
+     */
+    @Override
+    public synchronized void setPorts(int num) {
+        this.ports = new TFIFOPortSet(num, this);
+    }
+
+    /**
+     * This method does nothing, as the node never receives packets.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param paquete The packet to be discarded.
+     * @since 2.0
+     */
+    @Override
+    public void discardPacket(TAbstractPDU paquete) {
+    }
+
+    /**
+     * This method does nothing, as the node is simulated by another worker.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param paquete The packet whose retransmission is requested.
+     * @param pSalida The port the request would be sent through.
+     * @since 2.0
+     */
+    @Override
+    public void runGoSPDUStoreAndRetransmitProtocol(TMPLSPDU paquete, int pSalida) {
+    }
+
+    /**
+     * This constant means that the configuration of the node is correct.
+     *
+     * @since 2.0
+     */
+    public static final int CORRECT = 0;
+
+    private int nodeType;
+    private String marshalledNode;
+}
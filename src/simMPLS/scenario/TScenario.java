@@ -17,11 +17,16 @@ package simMPLS.scenario;
 
 import simMPLS.ui.simulator.JSimulationPanel;
 import simMPLS.hardware.timer.TTimestamp;
+import simMPLS.hardware.timer.TTimer;
 import java.io.*;
 
 /**
  * Esta clase implementa un escenario completo de simulaci�n, con todos sus
- * componentes.
+ * componentes. Las opciones de simulaci�n del reloj y de las rutas (motor,
+ * avance r�pido en reposo, planificaci�n por actividad, elisi�n de barreras,
+ * hilos virtuales, particiones, �poca RABAN y multitrayecto) no aparecen en la
+ * interfaz gr�fica: se leen del fichero del escenario, con la forma
+ * #Clave#valor#, y se guardan en �l.
  * @author <B>Manuel Dom�nguez Dorado</B><br><A
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
@@ -310,6 +315,434 @@ public class TScenario {
         }
     }
 
+    /**
+     * Este m�todo permite establecer c�mo avanza el reloj el tiempo de simulaci�n:
+     * generando un evento en cada tic, saltando directamente de un evento
+     * programado al siguiente o dividiendo la topolog�a en particiones que se
+     * simulan en paralelo. Cualquier escenario se puede simular con todos los
+     * motores.
+     * @param m TTimer.FIXED_TICK_ENGINE, TTimer.DISCRETE_EVENT_ENGINE o
+     * TTimer.PARTITIONED_ENGINE.
+     * @since 2.0
+     */    
+    public void ponerMotorSimulacion(int m) {
+        if (!this.simulacionEnFuncionamiento()) {
+            this.topologia.obtenerReloj().setEngineMode(m);
+        }
+    }
+
+    /**
+     * Este m�todo permite saber c�mo avanza el reloj el tiempo de simulaci�n.
+     * @return TTimer.FIXED_TICK_ENGINE, TTimer.DISCRETE_EVENT_ENGINE o
+     * TTimer.PARTITIONED_ENGINE.
+     * @since 2.0
+     */    
+    public int obtenerMotorSimulacion() {
+        return this.topologia.obtenerReloj().getEngineMode();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n del motor de
+     * simulaci�n, para almacenarla en disco.
+     * @return La representaci�n serializada del motor de simulaci�n.
+     * @since 2.0
+     */    
+    public String marshallSimulationEngine() {
+        return this.marshallOpcion("Motor", Integer.toString(this.obtenerMotorSimulacion()));
+    }
+
+    /**
+     * Este m�todo permite, a partir de un motor de simulaci�n serializado, poner el
+     * mismo motor al reloj del escenario.
+     * @param motor Motor de simulaci�n serializado.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallSimulationEngine(String motor) {
+        String valor = this.unmarshallOpcion(motor);
+        if (valor == null) {
+            return false;
+        }
+        int m = Integer.valueOf(valor).intValue();
+        if ((m != TTimer.FIXED_TICK_ENGINE) && (m != TTimer.DISCRETE_EVENT_ENGINE) && (m != TTimer.PARTITIONED_ENGINE)) {
+            return false;
+        }
+        this.ponerMotorSimulacion(m);
+        return true;
+    }
+
+    /**
+     * Este m�todo permite activar o desactivar el avance r�pido del reloj en los
+     * periodos en que la topolog�a est� en reposo: sin paquetes en los puertos ni
+     * en los enlaces y sin temporizadores en marcha.
+     * @param a TRUE, para activar el avance r�pido. FALSE, para desactivarlo.
+     * @since 2.0
+     */    
+    public void ponerAvanceRapidoEnReposo(boolean a) {
+        if (!this.simulacionEnFuncionamiento()) {
+            this.topologia.obtenerReloj().setIdleFastForward(a);
+        }
+    }
+
+    /**
+     * Este m�todo permite saber si el reloj avanza r�pidamente en los periodos en
+     * que la topolog�a est� en reposo.
+     * @return TRUE, si el avance r�pido est� activado. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean obtenerAvanceRapidoEnReposo() {
+        return this.topologia.obtenerReloj().isIdleFastForward();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n del avance
+     * r�pido en reposo, para almacenarla en disco.
+     * @return La representaci�n serializada del avance r�pido en reposo.
+     * @since 2.0
+     */    
+    public String marshallIdleFastForward() {
+        return this.marshallOpcion("AvanceRapido", Boolean.toString(this.obtenerAvanceRapidoEnReposo()));
+    }
+
+    /**
+     * Este m�todo permite, a partir del avance r�pido en reposo serializado,
+     * activarlo o desactivarlo en el escenario.
+     * @param avanceRapido Avance r�pido en reposo serializado.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallIdleFastForward(String avanceRapido) {
+        String valor = this.unmarshallOpcion(avanceRapido);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerAvanceRapidoEnReposo(Boolean.valueOf(valor).booleanValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo permite activar o desactivar la planificaci�n por actividad del
+     * reloj: los elementos que no tienen nada que hacer dejan de recibir eventos del
+     * reloj hasta que les llega un paquete.
+     * @param a TRUE, para activar la planificaci�n por actividad. FALSE, para
+     * desactivarla.
+     * @since 2.0
+     */    
+    public void ponerPlanificacionPorActividad(boolean a) {
+        if (!this.simulacionEnFuncionamiento()) {
+            this.topologia.obtenerReloj().setActiveSetScheduling(a);
+        }
+    }
+
+    /**
+     * Este m�todo permite saber si est� activada la planificaci�n por actividad del
+     * reloj.
+     * @return TRUE, si est� activada. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean obtenerPlanificacionPorActividad() {
+        return this.topologia.obtenerReloj().isActiveSetScheduling();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n de la
+     * planificaci�n por actividad, para almacenarla en disco.
+     * @return La representaci�n serializada de la planificaci�n por actividad.
+     * @since 2.0
+     */    
+    public String marshallActiveSetScheduling() {
+        return this.marshallOpcion("PlanificacionPorActividad", Boolean.toString(this.obtenerPlanificacionPorActividad()));
+    }
+
+    /**
+     * Este m�todo permite, a partir de la planificaci�n por actividad serializada,
+     * activarla o desactivarla en el escenario.
+     * @param planificacion Planificaci�n por actividad serializada.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallActiveSetScheduling(String planificacion) {
+        String valor = this.unmarshallOpcion(planificacion);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerPlanificacionPorActividad(Boolean.valueOf(valor).booleanValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo permite activar o desactivar la elisi�n de barreras del reloj:
+     * si todos los enlaces tardan varios tics en llevar un paquete de un extremo a
+     * otro, el reloj simula esos tics seguidos, sin esperar a todos los elementos
+     * despu�s de cada uno.
+     * @param a TRUE, para activar la elisi�n de barreras. FALSE, para desactivarla.
+     * @since 2.0
+     */    
+    public void ponerElisionDeBarreras(boolean a) {
+        if (!this.simulacionEnFuncionamiento()) {
+            this.topologia.obtenerReloj().setBarrierElision(a);
+        }
+    }
+
+    /**
+     * Este m�todo permite saber si est� activada la elisi�n de barreras del reloj.
+     * @return TRUE, si est� activada. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean obtenerElisionDeBarreras() {
+        return this.topologia.obtenerReloj().isBarrierElision();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n de la elisi�n
+     * de barreras, para almacenarla en disco.
+     * @return La representaci�n serializada de la elisi�n de barreras.
+     * @since 2.0
+     */    
+    public String marshallBarrierElision() {
+        return this.marshallOpcion("ElisionDeBarreras", Boolean.toString(this.obtenerElisionDeBarreras()));
+    }
+
+    /**
+     * Este m�todo permite, a partir de la elisi�n de barreras serializada, activarla
+     * o desactivarla en el escenario.
+     * @param elision Elisi�n de barreras serializada.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallBarrierElision(String elision) {
+        String valor = this.unmarshallOpcion(elision);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerElisionDeBarreras(Boolean.valueOf(valor).booleanValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo permite ejecutar el trabajo de los nodos y enlaces en hilos
+     * virtuales, uno por evento del reloj, en lugar de en los hilos del reloj. S�lo
+     * tiene efecto si la m�quina virtual los soporta.
+     * @param a TRUE, para usar hilos virtuales. FALSE, para usar los hilos del reloj.
+     * @since 2.0
+     */    
+    public void ponerHilosVirtuales(boolean a) {
+        if (!this.simulacionEnFuncionamiento()) {
+            this.topologia.obtenerReloj().setVirtualThreads(a);
+        }
+    }
+
+    /**
+     * Este m�todo permite saber si el reloj ejecuta el trabajo de los nodos y
+     * enlaces en hilos virtuales.
+     * @return TRUE, si usa hilos virtuales. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean obtenerHilosVirtuales() {
+        return this.topologia.obtenerReloj().isVirtualThreads();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n del uso de
+     * hilos virtuales, para almacenarla en disco.
+     * @return La representaci�n serializada del uso de hilos virtuales.
+     * @since 2.0
+     */    
+    public String marshallVirtualThreads() {
+        return this.marshallOpcion("HilosVirtuales", Boolean.toString(this.obtenerHilosVirtuales()));
+    }
+
+    /**
+     * Este m�todo permite, a partir del uso de hilos virtuales serializado,
+     * activarlo o desactivarlo en el escenario.
+     * @param hilos Uso de hilos virtuales serializado.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallVirtualThreads(String hilos) {
+        String valor = this.unmarshallOpcion(hilos);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerHilosVirtuales(Boolean.valueOf(valor).booleanValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo permite establecer cada cu�nto tiempo de simulaci�n se recalculan
+     * las rutas RABAN que consultan los nodos activos. Cuanto mayor es la �poca, menos
+     * se calculan, pero m�s tardan en reflejar los cambios de los pesos RABAN. Los
+     * enlaces que se caen o se recuperan se tienen en cuenta enseguida. Los saltos
+     * alternativos sin bucles, que evitan un nodo adyacente sin recalcular las rutas,
+     * s�lo existen en las instant�neas de cada �poca: con �poca cero cada consulta que
+     * evita un nodo se calcula entera, como siempre, porque una instant�nea no
+     * reflejar�a los pesos RABAN del momento.
+     * @param e Duraci�n de la �poca, en nanosegundos. Cero para calcularlas en cada
+     * consulta.
+     * @since 2.0
+     */    
+    public void ponerEpocaRABAN(long e) {
+        this.topologia.ponerEpocaRABAN(e);
+    }
+
+    /**
+     * Este m�todo permite saber cada cu�nto tiempo de simulaci�n se recalculan las
+     * rutas RABAN que consultan los nodos activos.
+     * @return Duraci�n de la �poca, en nanosegundos. Cero si se calculan en cada
+     * consulta.
+     * @since 2.0
+     */    
+    public long obtenerEpocaRABAN() {
+        return this.topologia.obtenerEpocaRABAN();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n de la �poca de
+     * las rutas RABAN, para almacenarla en disco.
+     * @return La representaci�n serializada de la �poca de las rutas RABAN.
+     * @since 2.0
+     */    
+    public String marshallRABANEpoch() {
+        return this.marshallOpcion("EpocaRABAN", Long.toString(this.obtenerEpocaRABAN()));
+    }
+
+    /**
+     * Este m�todo permite, a partir de la �poca de las rutas RABAN serializada,
+     * ponerla en el escenario.
+     * @param epoca �poca de las rutas RABAN serializada.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallRABANEpoch(String epoca) {
+        String valor = this.unmarshallOpcion(epoca);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerEpocaRABAN(Long.valueOf(valor).longValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo permite establecer si los LER reparten sus flujos entre todos los
+     * caminos m�s cortos hacia el destino cuando hay varios con el mismo coste.
+     * @param m TRUE, para repartir los flujos. FALSE, para usar un �nico camino.
+     * @since 2.0
+     */    
+    public void ponerMultitrayecto(boolean m) {
+        this.topologia.ponerMultitrayecto(m);
+    }
+
+    /**
+     * Este m�todo permite saber si los LER reparten sus flujos entre los caminos m�s
+     * cortos con el mismo coste.
+     * @return TRUE, si los reparten. FALSE, si usan un �nico camino.
+     * @since 2.0
+     */    
+    public boolean obtenerMultitrayecto() {
+        return this.topologia.obtenerMultitrayecto();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n del reparto de
+     * los flujos entre varios caminos, para almacenarla en disco.
+     * @return La representaci�n serializada del reparto de los flujos.
+     * @since 2.0
+     */    
+    public String marshallMultipath() {
+        return this.marshallOpcion("Multitrayecto", Boolean.toString(this.obtenerMultitrayecto()));
+    }
+
+    /**
+     * Este m�todo permite, a partir del reparto de los flujos serializado,
+     * activarlo o desactivarlo en el escenario.
+     * @param multitrayecto Reparto de los flujos serializado.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallMultipath(String multitrayecto) {
+        String valor = this.unmarshallOpcion(multitrayecto);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerMultitrayecto(Boolean.valueOf(valor).booleanValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo permite establecer en cu�ntas particiones se divide la topolog�a
+     * cuando se simula con el motor paralelo por particiones.
+     * @param n N�mero de particiones deseado.
+     * @since 2.0
+     */    
+    public void ponerNumeroDeParticiones(int n) {
+        if (!this.simulacionEnFuncionamiento()) {
+            this.topologia.obtenerReloj().setNumberOfPartitions(n);
+        }
+    }
+
+    /**
+     * Este m�todo permite saber en cu�ntas particiones se divide la topolog�a cuando
+     * se simula con el motor paralelo por particiones.
+     * @return N�mero de particiones deseado.
+     * @since 2.0
+     */    
+    public int obtenerNumeroDeParticiones() {
+        return this.topologia.obtenerReloj().getNumberOfPartitions();
+    }
+
+    /**
+     * Este m�todo permite obtener una cadena que es la serializaci�n del n�mero de
+     * particiones, para almacenarla en disco.
+     * @return La representaci�n serializada del n�mero de particiones.
+     * @since 2.0
+     */    
+    public String marshallNumberOfPartitions() {
+        return this.marshallOpcion("Particiones", Integer.toString(this.obtenerNumeroDeParticiones()));
+    }
+
+    /**
+     * Este m�todo permite, a partir del n�mero de particiones serializado, ponerlo
+     * en el escenario.
+     * @param particiones N�mero de particiones serializado.
+     * @return TRUE, si se ha deserializado correctamente. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean unmarshallNumberOfPartitions(String particiones) {
+        String valor = this.unmarshallOpcion(particiones);
+        if (valor == null) {
+            return false;
+        }
+        this.ponerNumeroDeParticiones(Integer.valueOf(valor).intValue());
+        return true;
+    }
+
+    /**
+     * Este m�todo serializa una opci�n de simulaci�n del escenario con la forma
+     * #Clave#valor#, que es la que se almacena en disco.
+     * @param clave Clave que identifica la opci�n en el fichero del escenario.
+     * @param valor Valor de la opci�n.
+     * @return La representaci�n serializada de la opci�n.
+     * @since 2.0
+     */    
+    private String marshallOpcion(String clave, String valor) {
+        return "#" + clave + "#" + valor + "#";
+    }
+
+    /**
+     * Este m�todo obtiene el valor de una opci�n de simulaci�n serializada con la
+     * forma #Clave#valor#.
+     * @param opcion Opci�n serializada.
+     * @return El valor de la opci�n. NULL si la opci�n no tiene esa forma.
+     * @since 2.0
+     */    
+    private String unmarshallOpcion(String opcion) {
+        String valores[] = opcion.split("#");
+        if (valores.length != 3) {
+            return null;
+        }
+        return valores[2];
+    }
+
     /**
      * Este m�todo permite establecer el nombre y la ruta del fichero que almacena en
      * disco el escenario.
@@ -19,6 +19,7 @@ import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSLabel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TIPv4PDU;
+import simMPLS.hardware.timer.TTimer;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TFIFOPortSet;
@@ -61,6 +62,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
         etiquetaDeEmision = (16 + generadorDeAleatorios.nextInt(1000000));
         tamDatosConstante = 0;
         tamDatosVariable = 0;
+        nsHastaSiguienteEmision = 0;
         estadisticas = new TSenderStats();
         estadisticas.activateStats(this.isGeneratingStats());
     }
@@ -257,7 +259,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
      */
     public void run() {
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), 0));
+            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.obtenerNivelDeCongestion()));
         } catch (Exception e) {
             e.printStackTrace(); 
         }
@@ -267,6 +269,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
             emito = true;
             generarTrafico();
         }
+        this.scheduleNextEmission(obtenerTamanioSiguientePaquete(paqueteTmp));
         paqueteTmp = null;
         if (emito) {
             this.resetStepsWithoutEmittingToZero();
@@ -276,6 +279,53 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
         this.estadisticas.consolidateData(this.getAvailableTime());
     }
     
+    /**
+     * Este m�todo programa en el reloj de la topolog�a un evento para el instante en
+     * que el emisor habr� acumulado tiempo suficiente para emitir el siguiente
+     * paquete. El evento s�lo se programa cuando el reloj funciona como motor de
+     * eventos discretos, pero el tiempo hasta la siguiente emisi�n se guarda siempre.
+     * @param tamanioSiguientePaquete Tama�o total, en octetos, del siguiente paquete.
+     * @since 2.0
+     */    
+    public void scheduleNextEmission(int tamanioSiguientePaquete) {
+        TTimer reloj = this.topology.obtenerReloj();
+        double nsNecesarios = obtenerNsUsadosTotalOctetos(tamanioSiguientePaquete + 1) - this.availableNs;
+        if (Double.isNaN(nsNecesarios) || Double.isInfinite(nsNecesarios)) {
+            this.nsHastaSiguienteEmision = -1;
+        } else {
+            this.nsHastaSiguienteEmision = Math.max((long) Math.ceil(nsNecesarios), 0);
+        }
+        if (reloj.getEngineMode() == TTimer.DISCRETE_EVENT_ENGINE) {
+            reloj.scheduleEventAfter(this.nsHastaSiguienteEmision);
+        }
+    }
+
+    /**
+     * Este m�todo obtiene cu�ntos nanosegundos, contados desde el final del �ltimo
+     * paso de simulaci�n, necesita acumular el emisor para poder emitir el siguiente
+     * paquete.
+     * @return Nanosegundos hasta la siguiente emisi�n. -1 si el emisor no va a emitir
+     * nunca.
+     * @since 2.0
+     */    
+    public long getNanosecondsUntilNextEmission() {
+        return this.nsHastaSiguienteEmision;
+    }
+
+    /**
+     * Este m�todo indica si el emisor est� ocioso. Mientras tenga tasa de emisi�n
+     * necesita recibir todos los eventos del reloj para acumular el tiempo con el que
+     * emite.
+     * @return TRUE, si el emisor est� ocioso. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean isIdle() {
+        if (this.nsHastaSiguienteEmision >= 0) {
+            return false;
+        }
+        return super.isIdle();
+    }
+
     /**
      * Este m�todo obtiene el tama�o que tendr� la carga util del siguiente paquete
      * generado, independientemente de que se est� tratando con tr�fico constante o
@@ -615,6 +665,16 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
         return this.ports;
     }
     
+    /**
+     * Este m�todo obtiene el nivel de congesti�n que el nodo anota al principio de
+     * cada tic. El emisor no tiene puertos de entrada que se puedan congestionar.
+     * @return En el nodo emisor, siempre es cero.
+     * @since 2.0
+     */
+    public long obtenerNivelDeCongestion() {
+        return 0;
+    }
+
     /**
      * Este m�todo devuelve el peso del nodo, que debe ser tenido en cuenta por el
      * algoritmo e encaminamiento para el c�lculo de rutas.
@@ -777,6 +837,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
         this.estadisticas.reset();
         estadisticas.activateStats(this.isGeneratingStats());
         this.resetStepsWithoutEmittingToZero();
+        this.nsHastaSiguienteEmision = 0;
     }
     
     /**
@@ -822,6 +883,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
     private int tamDatosVariable;
 
     private TLongIDGenerator gIdent;
+    private long nsHastaSiguienteEmision;
     
     /**
      * Este atributo almacenar� las estad�sticas del nodo.
@@ -0,0 +1,334 @@
+/* 
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Esta clase implementa un índice espacial de los elementos de la topología, para
+ * saber rápidamente qué nodo o enlace hay bajo el ratón en el panel de diseño. Divide
+ * el panel en una rejilla de celdas cuadradas y apunta cada nodo en las celdas que
+ * toca su icono y cada enlace en las celdas que atraviesa su segmento. Así, una
+ * consulta sólo comprueba los elementos de una celda, no todos los de la topología.
+ * @author The OpenSimMPLS contributors
+ * @version 1.0
+ */
+public class TSpatialIndex {
+
+    /**
+     * Este método es el constructor de la clase. Crea una nueva instancia de
+     * TSpatialIndex vacía.
+     * @since 2.0
+     */
+    public TSpatialIndex() {
+        nodosPorCelda = new HashMap();
+        enlacesPorCelda = new HashMap();
+        celdasDeElementos = new HashMap();
+        enlacesDeNodos = new HashMap();
+        extremosDeEnlaces = new HashMap();
+    }
+
+    /**
+     * Este método añade un nodo al índice, en las celdas que toca su icono. Si ya
+     * estaba, lo cambia de celdas.
+     * @param nodo El nodo.
+     * @since 2.0
+     */
+    public synchronized void ponerNodo(TNode nodo) {
+        quitarDeCeldas(nodo, nodosPorCelda);
+        Point pos = nodo.obtenerPosicion();
+        int cx1 = celda(pos.x);
+        int cy1 = celda(pos.y);
+        int cx2 = celda(pos.x + TNode.ANCHO_ICONOS);
+        int cy2 = celda(pos.y + TNode.ALTO_ICONOS);
+        long celdas[] = new long[(cx2-cx1+1)*(cy2-cy1+1)];
+        int numCeldas = 0;
+        for (int cx=cx1; cx<=cx2; cx++) {
+            for (int cy=cy1; cy<=cy2; cy++) {
+                celdas[numCeldas] = clave(cx, cy);
+                numCeldas++;
+            }
+        }
+        ponerEnCeldas(nodo, celdas, numCeldas, nodosPorCelda);
+    }
+
+    /**
+     * Este método quita un nodo del índice.
+     * @param nodo El nodo.
+     * @since 2.0
+     */
+    public synchronized void quitarNodo(TNode nodo) {
+        quitarDeCeldas(nodo, nodosPorCelda);
+    }
+
+    /**
+     * Este método cambia de celdas un nodo que se ha movido y todos los enlaces que
+     * llegan a él. Si el nodo no está en el índice, no hace nada.
+     * @param nodo El nodo.
+     * @since 2.0
+     */
+    public synchronized void moverNodo(TNode nodo) {
+        if (!celdasDeElementos.containsKey(nodo)) {
+            return;
+        }
+        ponerNodo(nodo);
+        ArrayList enlaces = (ArrayList) enlacesDeNodos.get(nodo);
+        if (enlaces != null) {
+            for (int i=0; i<enlaces.size(); i++) {
+                ponerSegmento((TLink) enlaces.get(i));
+            }
+        }
+    }
+
+    /**
+     * Este método añade un enlace al índice, en las celdas que atraviesa su segmento.
+     * Si ya estaba, lo cambia de celdas. Si le falta algún extremo, no hace nada.
+     * @param enlace El enlace.
+     * @since 2.0
+     */
+    public synchronized void ponerEnlace(TLink enlace) {
+        quitarEnlace(enlace);
+        if ((enlace.getEnd1() == null) || (enlace.getEnd2() == null)) {
+            return;
+        }
+        ponerSegmento(enlace);
+        TNode extremos[] = {enlace.getEnd1(), enlace.getEnd2()};
+        extremosDeEnlaces.put(enlace, extremos);
+        apuntarEnlaceEnNodo(enlace.getEnd1(), enlace);
+        apuntarEnlaceEnNodo(enlace.getEnd2(), enlace);
+    }
+
+    /**
+     * Este método quita un enlace del índice.
+     * @param enlace El enlace.
+     * @since 2.0
+     */
+    public synchronized void quitarEnlace(TLink enlace) {
+        quitarDeCeldas(enlace, enlacesPorCelda);
+        // Los extremos pueden haber cambiado desde que se añadió, así que se usan
+        // los que se apuntaron entonces.
+        TNode extremos[] = (TNode[]) extremosDeEnlaces.remove(enlace);
+        if (extremos != null) {
+            desapuntarEnlaceEnNodo(extremos[0], enlace);
+            desapuntarEnlaceEnNodo(extremos[1], enlace);
+        }
+    }
+
+    /**
+     * Este método obtiene el nodo cuyo icono está en una posición dada. Si hay
+     * varios, devuelve el de menor identificador.
+     * @param p La posición.
+     * @return El nodo. NULL si no hay ninguno.
+     * @since 2.0
+     */
+    public synchronized TNode obtenerNodoEnPosicion(Point p) {
+        ArrayList candidatos = (ArrayList) nodosPorCelda.get(Long.valueOf(clave(celda(p.x), celda(p.y))));
+        TNode encontrado = null;
+        TNode nodo;
+        if (candidatos != null) {
+            for (int i=0; i<candidatos.size(); i++) {
+                nodo = (TNode) candidatos.get(i);
+                if ((nodo.estaEnPosicion(p)) && ((encontrado == null) || (nodo.getID() < encontrado.getID()))) {
+                    encontrado = nodo;
+                }
+            }
+        }
+        return encontrado;
+    }
+
+    /**
+     * Este método obtiene el enlace que pasa por una posición dada. Si hay varios,
+     * devuelve el de menor identificador.
+     * @param p La posición.
+     * @return El enlace. NULL si no hay ninguno.
+     * @since 2.0
+     */
+    public synchronized TLink obtenerEnlaceEnPosicion(Point p) {
+        ArrayList candidatos = (ArrayList) enlacesPorCelda.get(Long.valueOf(clave(celda(p.x), celda(p.y))));
+        TLink encontrado = null;
+        TLink enlace;
+        if (candidatos != null) {
+            for (int i=0; i<candidatos.size(); i++) {
+                enlace = (TLink) candidatos.get(i);
+                if ((enlace.estaEnPosicion(p)) && ((encontrado == null) || (enlace.getID() < encontrado.getID()))) {
+                    encontrado = enlace;
+                }
+            }
+        }
+        return encontrado;
+    }
+
+    /**
+     * Este método vacía el índice.
+     * @since 2.0
+     */
+    public synchronized void vaciar() {
+        nodosPorCelda.clear();
+        enlacesPorCelda.clear();
+        celdasDeElementos.clear();
+        enlacesDeNodos.clear();
+        extremosDeEnlaces.clear();
+    }
+
+    /**
+     * Este método pone un enlace en las celdas que atraviesa su segmento, con el
+     * margen con el que TLink.estaEnPosicion() acepta una posición.
+     * @param enlace El enlace, con sus dos extremos.
+     * @since 2.0
+     */
+    private void ponerSegmento(TLink enlace) {
+        quitarDeCeldas(enlace, enlacesPorCelda);
+        int x1 = enlace.getEnd1().obtenerPosicion().x + (TNode.ANCHO_ICONOS/2);
+        int y1 = enlace.getEnd1().obtenerPosicion().y + (TNode.ALTO_ICONOS/2);
+        int x2 = enlace.getEnd2().obtenerPosicion().x + (TNode.ANCHO_ICONOS/2);
+        int y2 = enlace.getEnd2().obtenerPosicion().y + (TNode.ALTO_ICONOS/2);
+        int cx1 = celda(Math.min(x1, x2) - MARGEN_ENLACES);
+        int cy1 = celda(Math.min(y1, y2) - MARGEN_ENLACES);
+        int cx2 = celda(Math.max(x1, x2) + MARGEN_ENLACES);
+        int cy2 = celda(Math.max(y1, y2) + MARGEN_ENLACES);
+        long celdas[] = new long[16];
+        int numCeldas = 0;
+        Rectangle r = new Rectangle();
+        for (int cx=cx1; cx<=cx2; cx++) {
+            for (int cy=cy1; cy<=cy2; cy++) {
+                // La celda, ampliada con el margen, debe cortar al segmento.
+                r.setBounds(cx*TAM_CELDA - MARGEN_ENLACES, cy*TAM_CELDA - MARGEN_ENLACES, TAM_CELDA + 2*MARGEN_ENLACES, TAM_CELDA + 2*MARGEN_ENLACES);
+                if (r.intersectsLine(x1, y1, x2, y2)) {
+                    if (numCeldas == celdas.length) {
+                        celdas = Arrays.copyOf(celdas, celdas.length*2);
+                    }
+                    celdas[numCeldas] = clave(cx, cy);
+                    numCeldas++;
+                }
+            }
+        }
+        ponerEnCeldas(enlace, celdas, numCeldas, enlacesPorCelda);
+    }
+
+    /**
+     * Este método apunta que un enlace llega a un nodo, para cambiarlo de celdas
+     * cuando el nodo se mueva.
+     * @param nodo El nodo.
+     * @param enlace El enlace.
+     * @since 2.0
+     */
+    private void apuntarEnlaceEnNodo(TNode nodo, TLink enlace) {
+        ArrayList enlaces = (ArrayList) enlacesDeNodos.get(nodo);
+        if (enlaces == null) {
+            enlaces = new ArrayList();
+            enlacesDeNodos.put(nodo, enlaces);
+        }
+        if (!enlaces.contains(enlace)) {
+            enlaces.add(enlace);
+        }
+    }
+
+    /**
+     * Este método borra la nota de que un enlace llega a un nodo.
+     * @param nodo El nodo.
+     * @param enlace El enlace.
+     * @since 2.0
+     */
+    private void desapuntarEnlaceEnNodo(TNode nodo, TLink enlace) {
+        ArrayList enlaces = (ArrayList) enlacesDeNodos.get(nodo);
+        if ((enlaces != null) && (enlaces.remove(enlace)) && (enlaces.isEmpty())) {
+            enlacesDeNodos.remove(nodo);
+        }
+    }
+
+    /**
+     * Este método pone un elemento en un conjunto de celdas de la rejilla.
+     * @param elemento El elemento.
+     * @param celdas Claves de las celdas.
+     * @param numCeldas Número de claves válidas en celdas.
+     * @param rejilla Rejilla de nodos o de enlaces.
+     * @since 2.0
+     */
+    private void ponerEnCeldas(TTopologyElement elemento, long celdas[], int numCeldas, HashMap rejilla) {
+        ArrayList lista;
+        Long c;
+        for (int i=0; i<numCeldas; i++) {
+            c = Long.valueOf(celdas[i]);
+            lista = (ArrayList) rejilla.get(c);
+            if (lista == null) {
+                lista = new ArrayList();
+                rejilla.put(c, lista);
+            }
+            lista.add(elemento);
+        }
+        celdasDeElementos.put(elemento, Arrays.copyOf(celdas, numCeldas));
+    }
+
+    /**
+     * Este método quita un elemento de todas las celdas de la rejilla en que está.
+     * @param elemento El elemento.
+     * @param rejilla Rejilla de nodos o de enlaces.
+     * @since 2.0
+     */
+    private void quitarDeCeldas(TTopologyElement elemento, HashMap rejilla) {
+        long celdas[] = (long[]) celdasDeElementos.remove(elemento);
+        if (celdas == null) {
+            return;
+        }
+        ArrayList lista;
+        Long c;
+        for (int i=0; i<celdas.length; i++) {
+            c = Long.valueOf(celdas[i]);
+            lista = (ArrayList) rejilla.get(c);
+            if (lista != null) {
+                lista.remove(elemento);
+                if (lista.isEmpty()) {
+                    rejilla.remove(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Este método obtiene la fila o columna de la rejilla en que cae una coordenada.
+     * @param coordenada La coordenada, en píxeles.
+     * @return La fila o columna.
+     * @since 2.0
+     */
+    private static int celda(int coordenada) {
+        return Math.floorDiv(coordenada, TAM_CELDA);
+    }
+
+    /**
+     * Este método obtiene la clave de una celda de la rejilla.
+     * @param cx Columna de la celda.
+     * @param cy Fila de la celda.
+     * @return La clave de la celda.
+     * @since 2.0
+     */
+    private static long clave(int cx, int cy) {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static final int TAM_CELDA = 64;
+    // Un píxel más que la tolerancia de TLink.estaEnPosicion(), por el redondeo.
+    private static final int MARGEN_ENLACES = 4;
+
+    private HashMap nodosPorCelda;
+    private HashMap enlacesPorCelda;
+    private HashMap celdasDeElementos;
+    private HashMap enlacesDeNodos;
+    private HashMap extremosDeEnlaces;
+}
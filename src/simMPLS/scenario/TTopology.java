@@ -15,13 +15,21 @@
  */
 package simMPLS.scenario;
 
+import simMPLS.hardware.ports.TPortSet;
+import simMPLS.hardware.timer.TPinningMonitor;
 import simMPLS.hardware.timer.TTimer;
 import simMPLS.utils.TIPGenerator;
+import simMPLS.utils.TDenseIndexGenerator;
 import simMPLS.utils.TMonitor;
+import simMPLS.utils.TNodeHeap;
 import simMPLS.utils.TIDGenerator;
 import simMPLS.utils.TLongIDGenerator;
 import java.awt.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Esta clase implementa una topolog�a de rede completa.
@@ -39,6 +47,15 @@ public class TTopology {
     public TTopology(TScenario e) {
         conjuntoNodos = new TreeSet();
         conjuntoEnlaces = new TreeSet();
+        nodosPorID = new HashMap();
+        nodosPorIP = new HashMap();
+        nodosPorNombre = new HashMap();
+        enlacesPorID = new HashMap();
+        enlacesPorExtremos = new HashMap();
+        indicesDeNodos = new TDenseIndexGenerator();
+        indicesDeEnlaces = new TDenseIndexGenerator();
+        nodosPorIndice = new TNode[16];
+        enlacesPorIndice = new TLink[16];
         relojTopologia = new TTimer();
         escenarioPadre = e;
         IDEvento = new TLongIDGenerator();
@@ -46,6 +63,26 @@ public class TTopology {
         generadorIP = new TIPGenerator();
         cerrojoFloyd = new TMonitor();
         cerrojoRABAN = new TMonitor();
+        cerrojoCambios = new TMonitor();
+        cerrojoAlternativos = new TMonitor();
+        equivalencia = new int[0];
+        inicioAdyacencia = new int[1];
+        nodosAdyacentes = new int[0];
+        origenesAdyacentes = new int[0];
+        aristasInversas = new int[0];
+        enlacesAdyacentes = new TLink[0];
+        tablaDeSaltos = new int[0][];
+        distanciasDeTabla = new long[0][];
+        aristasPadre = new int[0][];
+        enlacesCambiados = new LinkedList();
+        indiceEspacial = new TSpatialIndex();
+        instantaneaRABAN = null;
+        epocaRABAN = 0;
+        multitrayecto = false;
+        calculandoAlternativos = false;
+        versionTopologia = new AtomicInteger(0);
+        versionEstadoEnlaces = new AtomicInteger(0);
+        versionListas = -1;
     }
 
     /**
@@ -69,6 +106,8 @@ public class TTopology {
         }
         relojTopologia.reset();
         IDEvento.reset();
+        this.invalidarTablaDeSaltos();
+        this.instantaneaRABAN = null;
         this.cerrojoFloyd.unLock();
         this.cerrojoRABAN.unLock();
     }
@@ -80,6 +119,8 @@ public class TTopology {
      */    
     public void addNode(TNode nodo) {
         conjuntoNodos.add(nodo);
+        indexarNodo(nodo);
+        this.invalidarTablaDeSaltos();
         relojTopologia.addTimerEventListener(nodo);
         try {
             nodo.addListenerSimulacion(escenarioPadre.getSimulation().obtenerRecolector());
@@ -98,9 +139,11 @@ public class TTopology {
             if (nodo.getID() == identificador) {
                 nodo.ponerPurgar(true);
                 iterador.remove();
+                desindexarNodo(nodo);
                 fin = true;
             }
         }
+        this.invalidarTablaDeSaltos();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -118,14 +161,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TNode obtenerNodo(int identificador) {
-        TNode nodo = null;
-        Iterator iterador = conjuntoNodos.iterator();
-        while (iterador.hasNext()) {
-            nodo = (TNode) iterador.next();
-            if (nodo.getID() == identificador)
-                return nodo;
-        }
-        return null;
+        return (TNode) nodosPorID.get(Integer.valueOf(identificador));
     }
 
     /**
@@ -135,14 +171,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TNode obtenerNodo(String ip) {
-        TNode nodo = null;
-        Iterator iterador = conjuntoNodos.iterator();
-        while (iterador.hasNext()) {
-            nodo = (TNode) iterador.next();
-            if (nodo.getIPAddress().equals(ip))
-                return nodo;
-        }
-        return null;
+        return (TNode) nodosPorIP.get(ip);
     }
 
     /**
@@ -153,14 +182,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TNode setFirstNodeNamed(String nom) {
-        TNode nodo = null;
-        Iterator iterador = conjuntoNodos.iterator();
-        while (iterador.hasNext()) {
-            nodo = (TNode) iterador.next();
-            if (nodo.getName().equals(nom))
-                return nodo;
-        }
-        return null;
+        return (TNode) nodosPorNombre.get(nom);
     }
 
     /**
@@ -251,14 +273,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TNode obtenerNodoEnPosicion(Point p) {
-        TNode nodo = null;
-        Iterator iterador = conjuntoNodos.iterator();
-        while (iterador.hasNext()) {
-            nodo = (TNode) iterador.next();
-            if (nodo.estaEnPosicion(p))
-                return nodo;
-        }
-        return null;
+        return indiceEspacial.obtenerNodoEnPosicion(p);
     }
 
     /**
@@ -330,6 +345,8 @@ public class TTopology {
      */    
     public void addLink(TLink enlace) {
         conjuntoEnlaces.add(enlace);
+        indexarEnlace(enlace);
+        this.invalidarTablaDeSaltos();
         relojTopologia.addTimerEventListener(enlace);
         try {
             enlace.addListenerSimulacion(escenarioPadre.getSimulation().obtenerRecolector());
@@ -352,9 +369,11 @@ public class TTopology {
                 enlace.desconectarDePuertos();
                 enlace.ponerPurgar(true);
                 iterador.remove();
+                desindexarEnlaceEliminado(enlace);
                 fin = true;
             }
         }
+        this.invalidarTablaDeSaltos();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -375,14 +394,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TLink obtenerEnlace(int identificador) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            if (enlace.getID() == identificador)
-                return enlace;
-        }
-        return null;
+        return (TLink) enlacesPorID.get(Integer.valueOf(identificador));
     }
 
     /**
@@ -393,14 +405,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TLink obtenerEnlaceEnPosicion(Point p) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            if (enlace.estaEnPosicion(p))
-                return enlace;
-        }
-        return null;
+        return indiceEspacial.obtenerEnlaceEnPosicion(p);
     }
 
     /**
@@ -424,6 +429,7 @@ public class TTopology {
         while ((iterador.hasNext()) && (!fin)) {
             enlaceBuscado = (TLink) iterador.next();
             if (enlaceBuscado.getID() == enlace.getID()) {
+                desindexarEnlace(enlaceBuscado);
                 if (enlaceBuscado.getLinkType() == TLink.EXTERNAL) {
                     TExternalLink enlaceTrasCast = (TExternalLink) enlaceBuscado;
                     enlaceTrasCast.ponerExtremo1(enlace.getEnd1());
@@ -434,21 +440,11 @@ public class TTopology {
                     enlaceTrasCast.ponerExtremo1(enlace.getEnd1());
                     enlaceTrasCast.ponerExtremo2(enlace.getEnd2());
                 }
+                indexarEnlace(enlaceBuscado);
                 fin = true;
             }
         }
-    }
-
-    /**
-     * @param p
-     * @return
-     */    
-    private boolean hayElementoEnPosicion(Point p) {
-        if (obtenerNodoEnPosicion(p) != null)
-            return true;
-        if (obtenerEnlaceEnPosicion(p) != null)
-            return true;
-        return false;
+        this.invalidarTablaDeSaltos();
     }
 
     /**
@@ -459,17 +455,15 @@ public class TTopology {
      * @since 2.0
      */    
     public TTopologyElement obtenerElementoEnPosicion(Point p) {
-        if (hayElementoEnPosicion(p)) {
-            TNode n;
-            n = obtenerNodoEnPosicion(p);
-            if (n != null)
-                return n;
+        TNode n;
+        n = obtenerNodoEnPosicion(p);
+        if (n != null)
+            return n;
 
-            TLink e;
-            e = obtenerEnlaceEnPosicion(p);
-            if (e != null)
-                return e;
-        }
+        TLink e;
+        e = obtenerEnlaceEnPosicion(p);
+        if (e != null)
+            return e;
         return null;
     }
 
@@ -488,9 +482,11 @@ public class TTopology {
                 enlace.desconectarDePuertos();
                 enlace.ponerPurgar(true);
                 iterador.remove();
+                desindexarEnlaceEliminado(enlace);
             }
         }
         eliminarSoloNodo(identificador);
+        this.invalidarTablaDeSaltos();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -544,6 +540,17 @@ public class TTopology {
             n.ponerPurgar(true);
             it.remove();
         }
+        nodosPorID.clear();
+        nodosPorIP.clear();
+        nodosPorNombre.clear();
+        enlacesPorID.clear();
+        enlacesPorExtremos.clear();
+        indiceEspacial.vaciar();
+        indicesDeNodos.reset();
+        indicesDeEnlaces.reset();
+        Arrays.fill(nodosPorIndice, null);
+        Arrays.fill(enlacesPorIndice, null);
+        this.invalidarTablaDeSaltos();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -556,6 +563,54 @@ public class TTopology {
         return conjuntoNodos.size();
     }
 
+    /**
+     * Este m�todo devuelve el tama�o que debe tener un vector indexado por el �ndice
+     * denso de los nodos para que quepan todos.
+     * @return Uno m�s que el mayor �ndice denso de nodo asignado.
+     * @since 2.0
+     */    
+    public int obtenerNumeroDeIndicesDeNodos() {
+        return indicesDeNodos.obtenerTope();
+    }
+
+    /**
+     * Este m�todo devuelve el tama�o que debe tener un vector indexado por el �ndice
+     * denso de los enlaces para que quepan todos.
+     * @return Uno m�s que el mayor �ndice denso de enlace asignado.
+     * @since 2.0
+     */    
+    public int obtenerNumeroDeIndicesDeEnlaces() {
+        return indicesDeEnlaces.obtenerTope();
+    }
+
+    /**
+     * Este m�todo obtiene el nodo que tiene un �ndice denso concreto.
+     * @param indice El �ndice denso.
+     * @return El nodo. NULL si el �ndice est� libre.
+     * @since 2.0
+     */    
+    public TNode obtenerNodoPorIndice(int indice) {
+        TNode nodos[] = nodosPorIndice;
+        if ((indice < 0) || (indice >= nodos.length)) {
+            return null;
+        }
+        return nodos[indice];
+    }
+
+    /**
+     * Este m�todo obtiene el enlace que tiene un �ndice denso concreto.
+     * @param indice El �ndice denso.
+     * @return El enlace. NULL si el �ndice est� libre.
+     * @since 2.0
+     */    
+    public TLink obtenerEnlacePorIndice(int indice) {
+        TLink enlaces[] = enlacesPorIndice;
+        if ((indice < 0) || (indice >= enlaces.length)) {
+            return null;
+        }
+        return enlaces[indice];
+    }
+
     /**
      * Este m�todo permite establecer el reloj principal que controlar� la topology.
      * @param r El reloj principal de la topolog�a.
@@ -609,20 +664,7 @@ public class TTopology {
      * @since 2.0
      */    
     public boolean existeEnlace(int extremo1, int extremo2) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        TNode izquierdo;
-        TNode derecho;
-        while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            izquierdo = enlace.getEnd1();
-            derecho = enlace.getEnd2();
-            if ((derecho.getID() == extremo1) && (izquierdo.getID() == extremo2))
-                return true;
-            if ((derecho.getID() == extremo2) && (izquierdo.getID() == extremo1))
-                return true;
-        }
-        return false;
+        return enlacesPorExtremos.containsKey(Long.valueOf(claveDeExtremos(extremo1, extremo2)));
     }
 
     /**
@@ -634,20 +676,227 @@ public class TTopology {
      * @since 2.0
      */    
     public TLink obtenerEnlace(int extremo1, int extremo2) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        TNode izquierdo;
-        TNode derecho;
+        return (TLink) enlacesPorExtremos.get(Long.valueOf(claveDeExtremos(extremo1, extremo2)));
+    }
+
+    /**
+     * Este m�todo avisa a la topolog�a de que un nodo ha cambiado de nombre o de
+     * direcci�n IP, para que lo encuentre por los nuevos. Si el nodo a�n no est� en la
+     * topolog�a, no hace nada.
+     * @param nodo El nodo que ha cambiado.
+     * @param nombreAnterior Nombre que ten�a el nodo.
+     * @param IPAnterior Direcci�n IP que ten�a el nodo.
+     * @since 2.0
+     */    
+    void reindexarNodo(TNode nodo, String nombreAnterior, String IPAnterior) {
+        if (nodosPorID.get(Integer.valueOf(nodo.getID())) != nodo) {
+            return;
+        }
+        quitarDeIndice(nodosPorNombre, nombreAnterior, nodo);
+        quitarDeIndice(nodosPorIP, IPAnterior, nodo);
+        ponerEnIndice(nodosPorNombre, nodo.getName(), nodo);
+        ponerEnIndice(nodosPorIP, nodo.getIPAddress(), nodo);
+    }
+
+    /**
+     * Este m�todo avisa a la topolog�a de que un nodo se ha movido en el panel de
+     * dise�o, para que lo encuentre, a �l y a sus enlaces, en su nueva posici�n. Si
+     * el nodo a�n no est� en la topolog�a, no hace nada.
+     * @param nodo El nodo que se ha movido.
+     * @since 2.0
+     */    
+    void reubicarNodo(TNode nodo) {
+        if (nodosPorID.get(Integer.valueOf(nodo.getID())) != nodo) {
+            return;
+        }
+        indiceEspacial.moverNodo(nodo);
+    }
+
+    /**
+     * Este m�todo a�ade un nodo a los �ndices por identificador, direcci�n IP y nombre.
+     * @param nodo El nodo.
+     * @since 2.0
+     */    
+    private void indexarNodo(TNode nodo) {
+        int indice = indicesDeNodos.obtenerIndice();
+        if (indice >= nodosPorIndice.length) {
+            nodosPorIndice = Arrays.copyOf(nodosPorIndice, Math.max(nodosPorIndice.length * 2, indice + 1));
+        }
+        nodosPorIndice[indice] = nodo;
+        nodo.ponerIndiceDenso(indice);
+        nodosPorID.put(Integer.valueOf(nodo.getID()), nodo);
+        ponerEnIndice(nodosPorIP, nodo.getIPAddress(), nodo);
+        ponerEnIndice(nodosPorNombre, nodo.getName(), nodo);
+        indiceEspacial.ponerNodo(nodo);
+    }
+
+    /**
+     * Este m�todo quita un nodo de los �ndices por identificador, direcci�n IP y
+     * nombre.
+     * @param nodo El nodo.
+     * @since 2.0
+     */    
+    private void desindexarNodo(TNode nodo) {
+        if (nodosPorID.get(Integer.valueOf(nodo.getID())) == nodo) {
+            nodosPorID.remove(Integer.valueOf(nodo.getID()));
+        }
+        int indice = nodo.obtenerIndiceDenso();
+        if ((indice >= 0) && (indice < nodosPorIndice.length) && (nodosPorIndice[indice] == nodo)) {
+            nodosPorIndice[indice] = null;
+            indicesDeNodos.liberar(indice);
+        }
+        nodo.ponerIndiceDenso(-1);
+        quitarDeIndice(nodosPorIP, nodo.getIPAddress(), nodo);
+        quitarDeIndice(nodosPorNombre, nodo.getName(), nodo);
+        indiceEspacial.quitarNodo(nodo);
+    }
+
+    /**
+     * Este m�todo a�ade un enlace a los �ndices por identificador y por extremos.
+     * @param enlace El enlace.
+     * @since 2.0
+     */    
+    private void indexarEnlace(TLink enlace) {
+        if (enlace.obtenerIndiceDenso() < 0) {
+            int indice = indicesDeEnlaces.obtenerIndice();
+            if (indice >= enlacesPorIndice.length) {
+                enlacesPorIndice = Arrays.copyOf(enlacesPorIndice, Math.max(enlacesPorIndice.length * 2, indice + 1));
+            }
+            enlacesPorIndice[indice] = enlace;
+            enlace.ponerIndiceDenso(indice);
+        }
+        enlacesPorID.put(Integer.valueOf(enlace.getID()), enlace);
+        if ((enlace.getEnd1() != null) && (enlace.getEnd2() != null)) {
+            ponerEnIndice(enlacesPorExtremos, Long.valueOf(claveDeExtremos(enlace.getEnd1().getID(), enlace.getEnd2().getID())), enlace);
+        }
+        indiceEspacial.ponerEnlace(enlace);
+    }
+
+    /**
+     * Este m�todo quita un enlace de los �ndices por identificador y por extremos.
+     * @param enlace El enlace.
+     * @since 2.0
+     */    
+    private void desindexarEnlace(TLink enlace) {
+        if (enlacesPorID.get(Integer.valueOf(enlace.getID())) == enlace) {
+            enlacesPorID.remove(Integer.valueOf(enlace.getID()));
+        }
+        if ((enlace.getEnd1() != null) && (enlace.getEnd2() != null)) {
+            quitarDeIndice(enlacesPorExtremos, Long.valueOf(claveDeExtremos(enlace.getEnd1().getID(), enlace.getEnd2().getID())), enlace);
+        }
+        indiceEspacial.quitarEnlace(enlace);
+    }
+
+    /**
+     * Este m�todo quita de los �ndices un enlace que sale de la topolog�a y libera su
+     * �ndice denso.
+     * @param enlace El enlace.
+     * @since 2.0
+     */    
+    private void desindexarEnlaceEliminado(TLink enlace) {
+        desindexarEnlace(enlace);
+        int indice = enlace.obtenerIndiceDenso();
+        if ((indice >= 0) && (indice < enlacesPorIndice.length) && (enlacesPorIndice[indice] == enlace)) {
+            enlacesPorIndice[indice] = null;
+            indicesDeEnlaces.liberar(indice);
+        }
+        enlace.ponerIndiceDenso(-1);
+    }
+
+    /**
+     * Este m�todo pone un elemento en un �ndice. Si ya hay otro con la misma clave, se
+     * queda el de menor identificador, que es el primero que se encontrar�a
+     * recorriendo la topolog�a.
+     * @param indice El �ndice.
+     * @param clave La clave del elemento.
+     * @param elemento El elemento.
+     * @since 2.0
+     */    
+    private void ponerEnIndice(HashMap indice, Object clave, TTopologyElement elemento) {
+        if (clave == null) {
+            return;
+        }
+        TTopologyElement actual = (TTopologyElement) indice.get(clave);
+        if ((actual == null) || (obtenerIdentificador(elemento) < obtenerIdentificador(actual))) {
+            indice.put(clave, elemento);
+        }
+    }
+
+    /**
+     * Este m�todo quita un elemento de un �ndice. Si hab�a otro elemento con la misma
+     * clave, �ste pasa a ocupar su lugar.
+     * @param indice El �ndice.
+     * @param clave La clave del elemento.
+     * @param elemento El elemento.
+     * @since 2.0
+     */    
+    private void quitarDeIndice(HashMap indice, Object clave, TTopologyElement elemento) {
+        if ((clave == null) || (indice.get(clave) != elemento)) {
+            return;
+        }
+        indice.remove(clave);
+        Iterator iterador;
+        if (elemento instanceof TNode) {
+            iterador = conjuntoNodos.iterator();
+        } else {
+            iterador = conjuntoEnlaces.iterator();
+        }
+        TTopologyElement otro;
         while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            izquierdo = enlace.getEnd1();
-            derecho = enlace.getEnd2();
-            if ((derecho.getID() == extremo1) && (izquierdo.getID() == extremo2))
-                return enlace;
-            if ((derecho.getID() == extremo2) && (izquierdo.getID() == extremo1))
-                return enlace;
+            otro = (TTopologyElement) iterador.next();
+            if ((otro != elemento) && (clave.equals(claveEnIndice(indice, otro)))) {
+                indice.put(clave, otro);
+                return;
+            }
         }
-        return null;
+    }
+
+    /**
+     * Este m�todo obtiene la clave con la que un elemento est� en un �ndice.
+     * @param indice El �ndice.
+     * @param elemento El elemento.
+     * @return La clave del elemento. NULL si no tiene.
+     * @since 2.0
+     */    
+    private Object claveEnIndice(HashMap indice, TTopologyElement elemento) {
+        if (indice == nodosPorNombre) {
+            return ((TNode) elemento).getName();
+        }
+        if (indice == nodosPorIP) {
+            return ((TNode) elemento).getIPAddress();
+        }
+        TLink enlace = (TLink) elemento;
+        if ((enlace.getEnd1() == null) || (enlace.getEnd2() == null)) {
+            return null;
+        }
+        return Long.valueOf(claveDeExtremos(enlace.getEnd1().getID(), enlace.getEnd2().getID()));
+    }
+
+    /**
+     * Este m�todo obtiene el identificador de un nodo o de un enlace.
+     * @param elemento El nodo o el enlace.
+     * @return Su identificador.
+     * @since 2.0
+     */    
+    private int obtenerIdentificador(TTopologyElement elemento) {
+        if (elemento instanceof TNode) {
+            return ((TNode) elemento).getID();
+        }
+        return ((TLink) elemento).getID();
+    }
+
+    /**
+     * Este m�todo calcula la clave del �ndice de enlaces por extremos. No depende del
+     * orden de los extremos.
+     * @param extremo1 Identificador de un extremo.
+     * @param extremo2 Identificador del otro extremo.
+     * @return La clave.
+     * @since 2.0
+     */    
+    private long claveDeExtremos(int extremo1, int extremo2) {
+        long menor = Math.min(extremo1, extremo2);
+        long mayor = Math.max(extremo1, extremo2);
+        return (menor << 32) | (mayor & 0xFFFFFFFFL);
     }
 
     /**
@@ -707,89 +956,499 @@ public class TTopology {
      * @return Identificador del nod que es siguiente salto para llegar del origen al destino.
      * @since 2.0
      */    
-    public synchronized int obtenerSalto(int origen, int destino) {
+    public int obtenerSalto(int origen, int destino) {
+        long solicitud = TTopology.ANCLAJE_SALTO.lockRequested();
+        synchronized (this) {
+            long adquisicion = TTopology.ANCLAJE_SALTO.lockAcquired(solicitud);
+            try {
+                return calcularSalto(origen, destino);
+            } finally {
+                TTopology.ANCLAJE_SALTO.lockReleased(adquisicion);
+            }
+        }
+    }
+
+    /**
+     * Este m�todo obtiene el siguiente salto de obtenerSalto() de la tabla de
+     * siguientes saltos. La fila de cada origen se calcula mediante Dijkstra la primera
+     * vez que se consulta, y la tabla se vac�a si la topolog�a cambia. Si s�lo se ha
+     * ca�do o recuperado alg�n enlace, antes se reparan los �rboles de caminos m�s
+     * cortos afectados. Se llama con el cerrojo de la topolog�a ya adquirido.
+     * @since 2.0
+     */    
+    private int calcularSalto(int origen, int destino) {
         cerrojoFloyd.lock();
-        int numNodosActual = this.conjuntoNodos.size();
-        int origen2 = 0;
-        int destino2 = 0;
-        // Hayamos equivalencias entre �ndices e identificadores de nodo
-        int equivalencia[] = new int[numNodosActual];
-        int i=0;
-        TNode nt = null;
-        Iterator it = this.getNodesIterator();
+        actualizarListasDeAdyacencia();
+        aplicarCambiosDeEstado();
+        int origen2 = obtenerIndiceEnTabla(origen);
+        int destino2 = obtenerIndiceEnTabla(destino);
+        int nodoSiguiente = TTopology.SIN_CAMINO;
+        if ((origen2 >= 0) && (destino2 >= 0) && (origen != destino)) {
+            if (this.tablaDeSaltos[origen2] == null) {
+                int numNodosActual = this.equivalencia.length;
+                this.distanciasDeTabla[origen2] = new long[numNodosActual];
+                this.aristasPadre[origen2] = new int[numNodosActual];
+                this.tablaDeSaltos[origen2] = calcularPrimerosSaltos(origen2, false, -1, -1, this.distanciasDeTabla[origen2], this.aristasPadre[origen2]);
+            }
+            nodoSiguiente = this.tablaDeSaltos[origen2][destino2];
+        }
+        // Comprobamos si no hay camino pero son adyacentes
+        if ((nodoSiguiente == TTopology.SIN_CAMINO) && (estanEnlazados(origen2, destino2))) {
+            nodoSiguiente = destino;
+        }
+        cerrojoFloyd.unLock();
+        return nodoSiguiente;
+    }
+
+    /**
+     * Este m�todo avisa a la topolog�a de que las listas de adyacencia y la tabla de
+     * siguientes saltos ya no son v�lidas, porque se ha a�adido o eliminado un nodo o
+     * un enlace, o porque un enlace ha cambiado de retardo. Se vuelven a calcular en
+     * la siguiente consulta.
+     * @since 2.0
+     */    
+    public void invalidarTablaDeSaltos() {
+        this.versionTopologia.incrementAndGet();
+    }
+
+    /**
+     * Este m�todo avisa a la topolog�a de que un enlace se ha ca�do o se ha recuperado.
+     * La tabla de siguientes saltos no se vac�a: en la siguiente consulta se reparan
+     * s�lo los �rboles de caminos m�s cortos a los que afecta el cambio.
+     * @param enlace Enlace que ha cambiado de estado.
+     * @since 2.0
+     */    
+    public void notificarCambioDeEstado(TLink enlace) {
+        this.cerrojoCambios.lock();
+        this.versionEstadoEnlaces.incrementAndGet();
+        if (!this.enlacesCambiados.contains(enlace)) {
+            this.enlacesCambiados.add(enlace);
+        }
+        this.cerrojoCambios.unLock();
+    }
+
+    /**
+     * Este m�todo repara las filas ya calculadas de la tabla de siguientes saltos con
+     * los enlaces que han cambiado de estado desde la �ltima consulta. Cada enlace se
+     * trata seg�n su estado actual, de uno en uno. Se llama con el cerrojo de la
+     * topolog�a ya adquirido.
+     * @since 2.0
+     */    
+    private void aplicarCambiosDeEstado() {
+        LinkedList cambios;
+        this.cerrojoCambios.lock();
+        cambios = this.enlacesCambiados;
+        if (!cambios.isEmpty()) {
+            this.enlacesCambiados = new LinkedList();
+        }
+        this.cerrojoCambios.unLock();
+        if (cambios.isEmpty()) {
+            return;
+        }
+        int numNodosActual = this.equivalencia.length;
+        int estado[] = new int[numNodosActual];
+        TNodeHeap monticulo = new TNodeHeap(numNodosActual);
+        Iterator it = cambios.iterator();
+        TLink en;
+        int arista12;
+        int arista21;
         while (it.hasNext()) {
-            nt = (TNode) it.next();
-            equivalencia[i] = nt.getID();
-            if (equivalencia[i] == origen)
-                origen2 = i;
-            else if (equivalencia[i] == destino)
-                destino2 = i;
-            i++;
-        }
-        // Averiguamos la matriz de adyacencia
-        TLink en = null;
-        long matrizAdyacencia[][] = new long[numNodosActual][numNodosActual];
-        int j=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                en = obtenerEnlace(equivalencia[i], equivalencia[j]);
-                if ((en == null) || ((en != null) && (en.isBroken()))) {
-                    if (i==j) {
-                        matrizAdyacencia[i][j] = 0;
+            en = (TLink) it.next();
+            if ((en.getEnd1() == null) || (en.getEnd2() == null)) {
+                continue;
+            }
+            arista12 = obtenerArista(obtenerIndiceEnTabla(en.getEnd1().getID()), en);
+            arista21 = obtenerArista(obtenerIndiceEnTabla(en.getEnd2().getID()), en);
+            if ((arista12 < 0) || (arista21 < 0)) {
+                continue;
+            }
+            for (int origen2=0; origen2<numNodosActual; origen2++) {
+                if (this.tablaDeSaltos[origen2] != null) {
+                    if (en.isBroken()) {
+                        repararTrasCaida(origen2, arista12, arista21, estado, monticulo);
                     } else {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
+                        repararTrasRecuperacion(origen2, arista12, arista21, monticulo);
                     }
-                } else {
-                    if (en.getLinkType() == TLink.EXTERNAL) {
-                        TExternalLink ee = (TExternalLink) en;
-                        matrizAdyacencia[i][j] = ee.obtenerPeso();
+                }
+            }
+        }
+    }
+
+    /**
+     * Este m�todo repara el �rbol de caminos m�s cortos de un origen cuando se cae un
+     * enlace. Si el �rbol no usa el enlace, no cambia nada. Si lo usa, s�lo se
+     * recalculan los nodos que cuelgan del enlace: se parte de sus vecinos que no
+     * dependen de �l y se contin�a con Dijkstra.
+     * @param origen2 Posici�n del nodo origen en las listas de adyacencia.
+     * @param arista12 Posici�n del enlace en la lista de adyacencia de su extremo 1.
+     * @param arista21 Posici�n del enlace en la lista de adyacencia de su extremo 2.
+     * @param estado Vector auxiliar, con una entrada por nodo.
+     * @param monticulo Mont�culo auxiliar.
+     * @since 2.0
+     */    
+    private void repararTrasCaida(int origen2, int arista12, int arista21, int estado[], TNodeHeap monticulo) {
+        long distancias[] = this.distanciasDeTabla[origen2];
+        int primerosSaltos[] = this.tablaDeSaltos[origen2];
+        int padres[] = this.aristasPadre[origen2];
+        int raiz;
+        if (padres[this.nodosAdyacentes[arista12]] == arista12) {
+            raiz = this.nodosAdyacentes[arista12];
+        } else if (padres[this.nodosAdyacentes[arista21]] == arista21) {
+            raiz = this.nodosAdyacentes[arista21];
+        } else {
+            return;
+        }
+        // Marcamos los nodos cuyo camino pasa por el enlace ca�do: 1 si pasa,
+        // 2 si no pasa.
+        Arrays.fill(estado, 0);
+        estado[raiz] = 1;
+        int v;
+        int marca;
+        for (int x=0; x<estado.length; x++) {
+            v = x;
+            while ((estado[v] == 0) && (padres[v] >= 0)) {
+                v = this.origenesAdyacentes[padres[v]];
+            }
+            marca = estado[v];
+            if (marca == 0) {
+                marca = 2;
+            }
+            v = x;
+            while (estado[v] == 0) {
+                estado[v] = marca;
+                if (padres[v] < 0) {
+                    break;
+                }
+                v = this.origenesAdyacentes[padres[v]];
+            }
+        }
+        for (int x=0; x<estado.length; x++) {
+            if (estado[x] == 1) {
+                distancias[x] = TTopology.PESO_INFINITO;
+                primerosSaltos[x] = TTopology.SIN_CAMINO;
+                padres[x] = -1;
+            }
+        }
+        // Cada nodo afectado parte del mejor de sus vecinos no afectados.
+        int u;
+        long distancia;
+        TLink en;
+        monticulo.vaciar();
+        for (int x=0; x<estado.length; x++) {
+            if (estado[x] != 1) {
+                continue;
+            }
+            for (int a=this.inicioAdyacencia[x]; a<this.inicioAdyacencia[x+1]; a++) {
+                u = this.nodosAdyacentes[a];
+                en = this.enlacesAdyacentes[a];
+                if ((estado[u] == 1) || (distancias[u] == TTopology.PESO_INFINITO) || (en.isBroken()) || (this.aristasInversas[a] < 0)) {
+                    continue;
+                }
+                distancia = distancias[u] + en.obtenerPeso();
+                if (distancia < distancias[x]) {
+                    distancias[x] = distancia;
+                    if (u == origen2) {
+                        primerosSaltos[x] = this.equivalencia[x];
                     } else {
-                        TInternalLink ei = (TInternalLink) en;
-                        matrizAdyacencia[i][j] = ei.obtenerPeso();
+                        primerosSaltos[x] = primerosSaltos[u];
                     }
+                    padres[x] = this.aristasInversas[a];
+                }
+            }
+            if (distancias[x] != TTopology.PESO_INFINITO) {
+                monticulo.insertar(x, distancias[x]);
+            }
+        }
+        propagarCaminos(origen2, false, -1, -1, monticulo, distancias, primerosSaltos, padres);
+    }
+
+    /**
+     * Este m�todo repara el �rbol de caminos m�s cortos de un origen cuando se recupera
+     * un enlace. S�lo cambia si el enlace acorta el camino hacia alguno de sus
+     * extremos; en ese caso se contin�a con Dijkstra desde ese extremo.
+     * @param origen2 Posici�n del nodo origen en las listas de adyacencia.
+     * @param arista12 Posici�n del enlace en la lista de adyacencia de su extremo 1.
+     * @param arista21 Posici�n del enlace en la lista de adyacencia de su extremo 2.
+     * @param monticulo Mont�culo auxiliar.
+     * @since 2.0
+     */    
+    private void repararTrasRecuperacion(int origen2, int arista12, int arista21, TNodeHeap monticulo) {
+        long distancias[] = this.distanciasDeTabla[origen2];
+        int primerosSaltos[] = this.tablaDeSaltos[origen2];
+        int padres[] = this.aristasPadre[origen2];
+        monticulo.vaciar();
+        int aristas[] = {arista12, arista21};
+        int u;
+        int v;
+        long distancia;
+        for (int i=0; i<aristas.length; i++) {
+            u = this.origenesAdyacentes[aristas[i]];
+            v = this.nodosAdyacentes[aristas[i]];
+            if (distancias[u] == TTopology.PESO_INFINITO) {
+                continue;
+            }
+            distancia = distancias[u] + this.enlacesAdyacentes[aristas[i]].obtenerPeso();
+            if (distancia < distancias[v]) {
+                distancias[v] = distancia;
+                if (u == origen2) {
+                    primerosSaltos[v] = this.equivalencia[v];
+                } else {
+                    primerosSaltos[v] = primerosSaltos[u];
                 }
+                padres[v] = aristas[i];
+                monticulo.insertar(v, distancia);
             }
         }
-        // Calculamos la matriz de costes y de caminos
-        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
-        int matrizCaminos[][] = new int[numNodosActual][numNodosActual];
-        int k=0;
+        if (!monticulo.estaVacio()) {
+            propagarCaminos(origen2, false, -1, -1, monticulo, distancias, primerosSaltos, padres);
+        }
+    }
+
+    /**
+     * Este m�todo obtiene la posici�n de un enlace en la lista de adyacencia de uno de
+     * sus extremos.
+     * @param nodo2 Posici�n del extremo en las listas de adyacencia.
+     * @param enlace El enlace.
+     * @return La posici�n del enlace. -1 si no est� en la lista.
+     * @since 2.0
+     */    
+    private int obtenerArista(int nodo2, TLink enlace) {
+        if (nodo2 < 0) {
+            return -1;
+        }
+        for (int a=this.inicioAdyacencia[nodo2]; a<this.inicioAdyacencia[nodo2+1]; a++) {
+            if (this.enlacesAdyacentes[a] == enlace) {
+                return a;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Este m�todo construye, a partir de los enlaces conectados a los puertos de cada
+     * nodo, las listas de adyacencia de la topolog�a, si ha cambiado desde la �ltima
+     * vez. Tambi�n vac�a la tabla de siguientes saltos. Se llama con el cerrojo de la
+     * topolog�a ya adquirido.
+     * @since 2.0
+     */    
+    private void actualizarListasDeAdyacencia() {
+        int version = this.versionTopologia.get();
+        if (version == this.versionListas) {
+            return;
+        }
+        // Cada nodo ocupa en las listas la posici�n de su �ndice denso. Las
+        // posiciones libres se quedan sin nodo y sin adyacentes.
+        int numNodosActual = this.indicesDeNodos.obtenerTope();
+        TNode nodos[] = new TNode[numNodosActual];
+        System.arraycopy(this.nodosPorIndice, 0, nodos, 0, Math.min(numNodosActual, this.nodosPorIndice.length));
+        int equivalenciaNueva[] = new int[numNodosActual];
+        int i;
         for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                matrizCostes[i][j] = matrizAdyacencia[i][j];
-                matrizCaminos[i][j] = numNodosActual;
+            if (nodos[i] != null) {
+                equivalenciaNueva[i] = nodos[i].getID();
+            } else {
+                equivalenciaNueva[i] = TTopology.SIN_CAMINO;
             }
         }
-        for (k=0; k<numNodosActual; k++) {
-            for (i=0; i<numNodosActual; i++) {
-                for (j=0; j<numNodosActual; j++) {
-                    if (!((matrizCostes[i][k] == this.PESO_INFINITO) || (matrizCostes[k][j] == this.PESO_INFINITO))) {
-                        if ((matrizCostes[i][k] + matrizCostes[k][j]) < matrizCostes[i][j]) {
-                            matrizCostes[i][j] = matrizCostes[i][k] + matrizCostes[k][j];
-                            matrizCaminos[i][j] = k;
+        int otro2;
+        // Listas de adyacencia, todas seguidas en un mismo vector
+        int inicio[] = new int[numNodosActual+1];
+        int origenes[] = new int[numNodosActual*8];
+        int adyacentes[] = new int[numNodosActual*8];
+        TLink enlaces[] = new TLink[numNodosActual*8];
+        int numAdyacentes = 0;
+        TPortSet puertos;
+        TLink en;
+        TNode otroExtremo;
+        for (i=0; i<numNodosActual; i++) {
+            inicio[i] = numAdyacentes;
+            if (nodos[i] == null) {
+                continue;
+            }
+            puertos = nodos[i].getPorts();
+            if (puertos != null) {
+                for (int p=0; p<puertos.getNumberOfPorts(); p++) {
+                    en = puertos.getLinkConnectedToPort(p);
+                    if (en != null) {
+                        otroExtremo = en.getEnd1();
+                        if (otroExtremo == nodos[i]) {
+                            otroExtremo = en.getEnd2();
+                        }
+                        if (otroExtremo == null) {
+                            continue;
+                        }
+                        otro2 = otroExtremo.obtenerIndiceDenso();
+                        if ((otro2 >= 0) && (otro2 < numNodosActual) && (nodos[otro2] == otroExtremo)) {
+                            if (numAdyacentes == adyacentes.length) {
+                                origenes = Arrays.copyOf(origenes, origenes.length*2+1);
+                                adyacentes = Arrays.copyOf(adyacentes, adyacentes.length*2+1);
+                                enlaces = Arrays.copyOf(enlaces, enlaces.length*2+1);
+                            }
+                            origenes[numAdyacentes] = i;
+                            adyacentes[numAdyacentes] = otro2;
+                            enlaces[numAdyacentes] = en;
+                            numAdyacentes++;
                         }
                     }
                 }
             }
         }
-        // Obtiene el primer nodo del camino, si hay camino.
-        int nodoSiguiente = this.SIN_CAMINO;
-        k = matrizCaminos[origen2][destino2];
-        while (k != numNodosActual) {
-            nodoSiguiente = k;
-            k = matrizCaminos[origen2][k];
-        }
-        // Comprobamos si no hay camino o es que son adyacentes
-        if (nodoSiguiente == this.SIN_CAMINO) {
-            TLink enlt = this.obtenerEnlace(origen, destino);
-            if (enlt != null)
-                nodoSiguiente = destino;
-        } else {
-            nodoSiguiente = equivalencia[nodoSiguiente];
+        inicio[numNodosActual] = numAdyacentes;
+        // Cada enlace aparece en la lista de sus dos extremos; guardamos d�nde est�
+        // el sentido contrario.
+        int inversas[] = new int[numAdyacentes];
+        Arrays.fill(inversas, -1);
+        for (int a=0; a<numAdyacentes; a++) {
+            int otro = adyacentes[a];
+            for (int b=inicio[otro]; b<inicio[otro+1]; b++) {
+                if ((enlaces[b] == enlaces[a]) && (adyacentes[b] == origenes[a])) {
+                    inversas[a] = b;
+                    break;
+                }
+            }
         }
-        cerrojoFloyd.unLock();
-        return nodoSiguiente;
-      }
+        this.equivalencia = equivalenciaNueva;
+        this.inicioAdyacencia = inicio;
+        this.origenesAdyacentes = origenes;
+        this.nodosAdyacentes = adyacentes;
+        this.aristasInversas = inversas;
+        this.enlacesAdyacentes = enlaces;
+        this.tablaDeSaltos = new int[numNodosActual][];
+        this.distanciasDeTabla = new long[numNodosActual][];
+        this.aristasPadre = new int[numNodosActual][];
+        this.versionListas = version;
+    }
+
+    /**
+     * Este m�todo calcula mediante Dijkstra, sobre las listas de adyacencia, el primer
+     * salto de los caminos m�s cortos desde un nodo hacia los dem�s. Los enlaces
+     * ca�dos no se usan. Se llama con el cerrojo de la topolog�a ya adquirido.
+     * @param origen2 Posici�n del nodo origen en las listas de adyacencia.
+     * @param pesoRABAN TRUE, para usar los pesos de RABAN. FALSE, para usar el retardo
+     * de los enlaces.
+     * @param nodoAEvitar2 Posici�n del nodo adyacente al origen cuyo enlace con el
+     * origen no se debe usar. -1 si no hay que evitar ninguno.
+     * @param destino2 Posici�n del nodo destino, para terminar en cuanto se conozca
+     * su camino. -1 para calcular los caminos hacia todos los nodos.
+     * @param distancias Vector donde se deja la distancia hacia cada nodo.
+     * @param padres Vector donde se deja, para cada nodo, la posici�n en las listas
+     * de adyacencia del enlace por el que se llega a �l. -1 si no hay camino.
+     * @return Identificador del primer salto hacia cada nodo, indexado por su posici�n.
+     * SIN_CAMINO si no hay camino.
+     * @since 2.0
+     */    
+    private int[] calcularPrimerosSaltos(int origen2, boolean pesoRABAN, int nodoAEvitar2, int destino2, long distancias[], int padres[]) {
+        int numNodosActual = this.equivalencia.length;
+        int primerosSaltos[] = new int[numNodosActual];
+        Arrays.fill(distancias, TTopology.PESO_INFINITO);
+        Arrays.fill(primerosSaltos, TTopology.SIN_CAMINO);
+        Arrays.fill(padres, -1);
+        TNodeHeap monticulo = new TNodeHeap(numNodosActual);
+        distancias[origen2] = 0;
+        monticulo.insertar(origen2, 0);
+        propagarCaminos(origen2, pesoRABAN, nodoAEvitar2, destino2, monticulo, distancias, primerosSaltos, padres);
+        primerosSaltos[origen2] = TTopology.SIN_CAMINO;
+        return primerosSaltos;
+    }
+
+    /**
+     * Este m�todo contin�a Dijkstra desde los nodos que hay en el mont�culo, hasta que
+     * se vac�a o hasta que se conoce el camino hacia el destino. Las entradas del
+     * mont�culo cuya distancia ya se ha mejorado se descartan. Se usa tanto para
+     * calcular un �rbol de caminos desde cero como para repararlo.
+     * @param origen2 Posici�n del nodo origen en las listas de adyacencia.
+     * @param pesoRABAN TRUE, para usar los pesos de RABAN. FALSE, para usar el retardo
+     * de los enlaces.
+     * @param nodoAEvitar2 Posici�n del nodo adyacente al origen cuyo enlace con el
+     * origen no se debe usar. -1 si no hay que evitar ninguno.
+     * @param destino2 Posici�n del nodo destino. -1 para continuar hasta el final.
+     * @param monticulo Mont�culo con los nodos desde los que se contin�a.
+     * @param distancias Distancia hacia cada nodo.
+     * @param primerosSaltos Primer salto hacia cada nodo.
+     * @param padres Posici�n del enlace por el que se llega a cada nodo.
+     * @since 2.0
+     */    
+    private void propagarCaminos(int origen2, boolean pesoRABAN, int nodoAEvitar2, int destino2, TNodeHeap monticulo, long distancias[], int primerosSaltos[], int padres[]) {
+        int u;
+        int v;
+        long distancia;
+        TLink en;
+        while (!monticulo.estaVacio()) {
+            distancia = monticulo.obtenerDistanciaMinima();
+            u = monticulo.extraer();
+            if (distancia > distancias[u]) {
+                continue;
+            }
+            if (u == destino2) {
+                break;
+            }
+            for (int a=this.inicioAdyacencia[u]; a<this.inicioAdyacencia[u+1]; a++) {
+                v = this.nodosAdyacentes[a];
+                en = this.enlacesAdyacentes[a];
+                if (en.isBroken()) {
+                    continue;
+                }
+                // Aqu� se evita calcular un camino que pase por el enlace que
+                // deseamos evitar, el que une origen con nodoAEvitar.
+                if ((u == origen2) && (v == nodoAEvitar2)) {
+                    continue;
+                }
+                if (pesoRABAN) {
+                    distancia = distancias[u] + en.obtenerPesoRABAN();
+                } else {
+                    distancia = distancias[u] + en.obtenerPeso();
+                }
+                if (distancia < distancias[v]) {
+                    distancias[v] = distancia;
+                    if (u == origen2) {
+                        primerosSaltos[v] = this.equivalencia[v];
+                    } else {
+                        primerosSaltos[v] = primerosSaltos[u];
+                    }
+                    padres[v] = a;
+                    monticulo.insertar(v, distancia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Este m�todo indica si hay alg�n enlace, ca�do o no, entre dos nodos.
+     * @param origen2 Posici�n del primer nodo en las listas de adyacencia.
+     * @param destino2 Posici�n del segundo nodo en las listas de adyacencia.
+     * @return TRUE, si los nodos son adyacentes. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    private boolean estanEnlazados(int origen2, int destino2) {
+        if ((origen2 < 0) || (destino2 < 0)) {
+            return false;
+        }
+        for (int a=this.inicioAdyacencia[origen2]; a<this.inicioAdyacencia[origen2+1]; a++) {
+            if (this.nodosAdyacentes[a] == destino2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Este m�todo obtiene la posici�n de un nodo en las listas de adyacencia, que es
+     * su �ndice denso.
+     * @param identificador Identificador del nodo.
+     * @return La posici�n del nodo. -1 si el nodo no est� en ellas.
+     * @since 2.0
+     */    
+    private int obtenerIndiceEnTabla(int identificador) {
+        TNode nodo = obtenerNodo(identificador);
+        if (nodo == null) {
+            return -1;
+        }
+        int indice = nodo.obtenerIndiceDenso();
+        if ((indice < 0) || (indice >= this.equivalencia.length) || (this.equivalencia[indice] != identificador)) {
+            return -1;
+        }
+        return indice;
+    }
 
     /**
      * Dados dos nodos como par�metros, uno de origen y otro de destino, este m�todo
@@ -800,7 +1459,7 @@ public class TTopology {
      * @return IP del nodo que es siguiente salto para llegar del origen al destino.
      * @since 2.0
      */    
-    public synchronized String obtenerIPSalto(String IPorigen, String IPdestino) {
+    public String obtenerIPSalto(String IPorigen, String IPdestino) {
         int origen = this.obtenerNodo(IPorigen).getID();
         int destino = this.obtenerNodo(IPdestino).getID();
         int siguienteSalto = obtenerSalto(origen, destino);
@@ -810,6 +1469,275 @@ public class TTopology {
         return null;
     }
 
+    /**
+     * Este m�todo calcula los caminos m�s cortos entre todos los pares de nodos de la
+     * topolog�a, para analizarlos fuera de l�nea. S�lo se toman los pesos de los
+     * enlaces con el cerrojo de la topolog�a; el c�lculo se hace despu�s, en paralelo
+     * en todos los procesadores, sin bloquear la simulaci�n.
+     * @param pesoRABAN TRUE, para usar los pesos de RABAN. FALSE, para usar el retardo
+     * de los enlaces.
+     * @return Las matrices de distancias y de siguientes saltos.
+     * @since 2.0
+     */    
+    public TAllPairsShortestPaths calcularCaminosEntreTodosLosPares(boolean pesoRABAN) {
+        int equivalencias[];
+        long pesos[];
+        synchronized (this) {
+            actualizarListasDeAdyacencia();
+            equivalencias = this.equivalencia;
+            int numNodosActual = equivalencias.length;
+            pesos = new long[numNodosActual*numNodosActual];
+            Arrays.fill(pesos, TTopology.PESO_INFINITO);
+            long peso;
+            TLink en;
+            for (int a=0; a<this.inicioAdyacencia[numNodosActual]; a++) {
+                en = this.enlacesAdyacentes[a];
+                if (en.isBroken()) {
+                    continue;
+                }
+                if (pesoRABAN) {
+                    peso = en.obtenerPesoRABAN();
+                } else {
+                    peso = en.obtenerPeso();
+                }
+                // Si hay varios enlaces entre dos nodos, nos quedamos con el mejor.
+                int celda = this.origenesAdyacentes[a]*numNodosActual + this.nodosAdyacentes[a];
+                if (peso < pesos[celda]) {
+                    pesos[celda] = peso;
+                }
+            }
+        }
+        return new TAllPairsShortestPaths(equivalencias, pesos, pesoRABAN, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Este m�todo establece si los nodos reparten el tr�fico entre todos los caminos
+     * m�s cortos hacia el destino, cuando hay varios con el mismo coste, o si usan
+     * siempre uno solo.
+     * @param m TRUE, para repartir el tr�fico. FALSE, para usar un �nico camino.
+     * @since 2.0
+     */    
+    public void ponerMultitrayecto(boolean m) {
+        this.multitrayecto = m;
+    }
+
+    /**
+     * Este m�todo indica si los nodos reparten el tr�fico entre todos los caminos m�s
+     * cortos hacia el destino.
+     * @return TRUE, si se reparte el tr�fico. FALSE, si se usa un �nico camino.
+     * @since 2.0
+     */    
+    public boolean obtenerMultitrayecto() {
+        return this.multitrayecto;
+    }
+
+    /**
+     * Dados dos nodos como par�metros, uno de origen y otro de destino, este m�todo
+     * obtiene los identificadores de todos los nodos adyacentes al origen por los que
+     * empieza alg�n camino m�s corto hacia el destino.
+     * @param origen Identificador del nodo origen.
+     * @param destino Identificador del nodo destino.
+     * @return Identificadores de los siguientes saltos, de menor a mayor. Vac�o si no
+     * hay camino.
+     * @since 2.0
+     */    
+    public int[] obtenerSaltosECMP(int origen, int destino) {
+        long solicitud = TTopology.ANCLAJE_SALTO.lockRequested();
+        synchronized (this) {
+            long adquisicion = TTopology.ANCLAJE_SALTO.lockAcquired(solicitud);
+            try {
+                cerrojoFloyd.lock();
+                actualizarListasDeAdyacencia();
+                aplicarCambiosDeEstado();
+                int origen2 = obtenerIndiceEnTabla(origen);
+                int destino2 = obtenerIndiceEnTabla(destino);
+                int saltos[] = new int[0];
+                if ((origen2 >= 0) && (destino2 >= 0) && (origen != destino)) {
+                    // Los pesos son los mismos en los dos sentidos, as� que la fila
+                    // del destino da la distancia de cada nodo hacia �l.
+                    if (this.tablaDeSaltos[destino2] == null) {
+                        int numNodosActual = this.equivalencia.length;
+                        this.distanciasDeTabla[destino2] = new long[numNodosActual];
+                        this.aristasPadre[destino2] = new int[numNodosActual];
+                        this.tablaDeSaltos[destino2] = calcularPrimerosSaltos(destino2, false, -1, -1, this.distanciasDeTabla[destino2], this.aristasPadre[destino2]);
+                    }
+                    saltos = seleccionarSaltosECMP(origen2, this.distanciasDeTabla[destino2], false);
+                }
+                cerrojoFloyd.unLock();
+                if (saltos.length == 0) {
+                    saltos = saltoUnico(calcularSalto(origen, destino));
+                }
+                return saltos;
+            } finally {
+                TTopology.ANCLAJE_SALTO.lockReleased(adquisicion);
+            }
+        }
+    }
+
+    /**
+     * Este m�todo hace lo mismo que obtenerSaltosECMP(), pero con los pesos del
+     * protocolo RABAN, que se leen en el momento de la consulta.
+     * @param origen Identificador del nodo origen.
+     * @param destino Identificador del nodo destino.
+     * @return Identificadores de los siguientes saltos, de menor a mayor. Vac�o si no
+     * hay camino.
+     * @since 2.0
+     */    
+    public int[] obtenerSaltosECMPRABAN(int origen, int destino) {
+        long solicitud = TTopology.ANCLAJE_SALTO_RABAN.lockRequested();
+        synchronized (this) {
+            long adquisicion = TTopology.ANCLAJE_SALTO_RABAN.lockAcquired(solicitud);
+            try {
+                cerrojoRABAN.lock();
+                actualizarListasDeAdyacencia();
+                int origen2 = obtenerIndiceEnTabla(origen);
+                int destino2 = obtenerIndiceEnTabla(destino);
+                int saltos[] = new int[0];
+                if ((origen2 >= 0) && (destino2 >= 0) && (origen != destino)) {
+                    int numNodosActual = this.equivalencia.length;
+                    long distancias[] = new long[numNodosActual];
+                    calcularPrimerosSaltos(destino2, true, -1, -1, distancias, new int[numNodosActual]);
+                    saltos = seleccionarSaltosECMP(origen2, distancias, true);
+                }
+                cerrojoRABAN.unLock();
+                if (saltos.length == 0) {
+                    saltos = saltoUnico(calcularSaltoRABAN(origen, destino));
+                }
+                return saltos;
+            } finally {
+                TTopology.ANCLAJE_SALTO_RABAN.lockReleased(adquisicion);
+            }
+        }
+    }
+
+    /**
+     * Este m�todo elige los nodos adyacentes a un origen que est�n en alg�n camino
+     * m�s corto hacia un destino: aqu�llos cuya distancia al destino m�s el peso del
+     * enlace que los une con el origen es igual a la distancia del origen al destino.
+     * Se llama con el cerrojo de la topolog�a ya adquirido.
+     * @param origen2 Posici�n del nodo origen en las listas de adyacencia.
+     * @param distancias Distancia de cada nodo hacia el destino.
+     * @param pesoRABAN TRUE, si las distancias usan los pesos de RABAN. FALSE, si usan
+     * el retardo de los enlaces.
+     * @return Identificadores de los siguientes saltos, de menor a mayor.
+     * @since 2.0
+     */    
+    private int[] seleccionarSaltosECMP(int origen2, long distancias[], boolean pesoRABAN) {
+        if (distancias[origen2] == TTopology.PESO_INFINITO) {
+            return new int[0];
+        }
+        int saltos[] = new int[this.inicioAdyacencia[origen2+1] - this.inicioAdyacencia[origen2]];
+        int numSaltos = 0;
+        int v;
+        long peso;
+        TLink en;
+        for (int a=this.inicioAdyacencia[origen2]; a<this.inicioAdyacencia[origen2+1]; a++) {
+            v = this.nodosAdyacentes[a];
+            en = this.enlacesAdyacentes[a];
+            if ((en.isBroken()) || (distancias[v] == TTopology.PESO_INFINITO)) {
+                continue;
+            }
+            if (pesoRABAN) {
+                peso = en.obtenerPesoRABAN();
+            } else {
+                peso = en.obtenerPeso();
+            }
+            if (distancias[v] + peso == distancias[origen2]) {
+                saltos[numSaltos] = this.equivalencia[v];
+                numSaltos++;
+            }
+        }
+        saltos = Arrays.copyOf(saltos, numSaltos);
+        Arrays.sort(saltos);
+        // Quitamos los repetidos, si hay varios enlaces con el mismo vecino.
+        int distintos = 0;
+        for (int i=0; i<saltos.length; i++) {
+            if ((distintos == 0) || (saltos[distintos-1] != saltos[i])) {
+                saltos[distintos] = saltos[i];
+                distintos++;
+            }
+        }
+        return Arrays.copyOf(saltos, distintos);
+    }
+
+    /**
+     * Este m�todo construye un conjunto de siguientes saltos con un �nico salto.
+     * @param salto Identificador del salto. SIN_CAMINO si no hay.
+     * @return El conjunto. Vac�o si no hay salto.
+     * @since 2.0
+     */    
+    private int[] saltoUnico(int salto) {
+        if (salto == TTopology.SIN_CAMINO) {
+            return new int[0];
+        }
+        int saltos[] = {salto};
+        return saltos;
+    }
+
+    /**
+     * Este m�todo elige uno de los siguientes saltos de un conjunto a partir del
+     * identificador de un flujo. Un mismo flujo elige siempre el mismo salto mientras
+     * el conjunto no cambie, de modo que sus paquetes no se desordenan.
+     * @param saltos Identificadores de los siguientes saltos.
+     * @param flujo Identificador del flujo, por ejemplo el valor de su FEC.
+     * @return El identificador del salto elegido. SIN_CAMINO si el conjunto est� vac�o.
+     * @since 2.0
+     */    
+    public static int elegirSaltoDeFlujo(int saltos[], int flujo) {
+        if (saltos.length == 0) {
+            return SIN_CAMINO;
+        }
+        // Se mezclan los bits para que flujos con valores parecidos se repartan.
+        int h = flujo * 0x9E3779B9;
+        h = h ^ (h >>> 16);
+        return saltos[(h & 0x7FFFFFFF) % saltos.length];
+    }
+
+    /**
+     * Este m�todo obtiene la IP del siguiente salto de un flujo desde un nodo hacia
+     * otro. Si est� activado el multitrayecto, el salto se elige entre todos los de
+     * obtenerSaltosECMP() seg�n el flujo; si no, es el de obtenerIPSalto().
+     * @param IPorigen IP del nodo origen.
+     * @param IPdestino IP del nodo destino.
+     * @param flujo Identificador del flujo, por ejemplo el valor de su FEC.
+     * @return IP del siguiente salto. NULL si no hay camino.
+     * @since 2.0
+     */    
+    public String obtenerIPSaltoECMP(String IPorigen, String IPdestino, int flujo) {
+        if (!this.multitrayecto) {
+            return obtenerIPSalto(IPorigen, IPdestino);
+        }
+        int origen = this.obtenerNodo(IPorigen).getID();
+        int destino = this.obtenerNodo(IPdestino).getID();
+        TNode nt = this.obtenerNodo(elegirSaltoDeFlujo(obtenerSaltosECMP(origen, destino), flujo));
+        if (nt != null)
+            return nt.getIPAddress();
+        return null;
+    }
+
+    /**
+     * Este m�todo obtiene la IP del siguiente salto RABAN de un flujo desde un nodo
+     * hacia otro. Si est� activado el multitrayecto, el salto se elige entre todos los
+     * de obtenerSaltosECMPRABAN() seg�n el flujo; si no, es el de
+     * getNextHopRABANIPv4Address().
+     * @param IPorigen IP del nodo origen.
+     * @param IPdestino IP del nodo destino.
+     * @param flujo Identificador del flujo, por ejemplo el valor de su FEC.
+     * @return IP del siguiente salto. NULL si no hay camino.
+     * @since 2.0
+     */    
+    public String getECMPNextHopRABANIPv4Address(String IPorigen, String IPdestino, int flujo) {
+        if (!this.multitrayecto) {
+            return getNextHopRABANIPv4Address(IPorigen, IPdestino);
+        }
+        int origen = this.obtenerNodo(IPorigen).getID();
+        int destino = this.obtenerNodo(IPdestino).getID();
+        TNode nt = this.obtenerNodo(elegirSaltoDeFlujo(obtenerSaltosECMPRABAN(origen, destino), flujo));
+        if (nt != null)
+            return nt.getIPAddress();
+        return null;
+    }
+
     /**
      * Este m�todo calcula la IP del nodo al que hay que dirigirse, cuyo camino es el
      * para avanzar hacia el destino seg� el protocolo RABAN.
@@ -818,7 +1746,7 @@ public class TTopology {
      * @return La direcci�n IP del nodo adyacente al origen al que hay que dirigirse. NULL, si no hay camino entre el origen y el destino.
      * @since 2.0
      */    
-    public synchronized String getNextHopRABANIPv4Address(String IPorigen, String IPdestino) {
+    public String getNextHopRABANIPv4Address(String IPorigen, String IPdestino) {
         int origen = this.obtenerNodo(IPorigen).getID();
         int destino = this.obtenerNodo(IPdestino).getID();
         int siguienteSalto = obtenerSaltoRABAN(origen, destino);
@@ -839,7 +1767,7 @@ public class TTopology {
      * @param IPorigen Direcci�n IP del nodo desde el que se calcula el salto.
      * @param IPdestino Direcci�n IP del nodo al que se quiere llegar.
      */    
-    public synchronized String getNextHopRABANIPv4Address(String IPorigen, String IPdestino, String IPNodoAEvitar) {
+    public String getNextHopRABANIPv4Address(String IPorigen, String IPdestino, String IPNodoAEvitar) {
         int origen = this.obtenerNodo(IPorigen).getID();
         int destino = this.obtenerNodo(IPdestino).getID();
         int nodoAEvitar = this.obtenerNodo(IPNodoAEvitar).getID();
@@ -859,95 +1787,238 @@ public class TTopology {
      * @return Identificador del nod que es siguiente salto para llegar del origen al destino.
      * @since 2.0
      */    
-    public synchronized int obtenerSaltoRABAN(int origen, int destino) {
-        cerrojoRABAN.lock();
-        int numNodosActual = this.conjuntoNodos.size();
-        int origen2 = 0;
-        int destino2 = 0;
-        // Hayamos equivalencias entre �ndices e identificadores de nodo
-        int equivalencia[] = new int[numNodosActual];
-        int i=0;
-        TNode nt = null;
-        Iterator it = this.getNodesIterator();
-        while (it.hasNext()) {
-            nt = (TNode) it.next();
-            equivalencia[i] = nt.getID();
-            if (equivalencia[i] == origen)
-                origen2 = i;
-            else if (equivalencia[i] == destino)
-                destino2 = i;
-            i++;
-        }
-        // Averiguamos la matriz de adyacencia
-        TLink en = null;
-        long matrizAdyacencia[][] = new long[numNodosActual][numNodosActual];
-        int j=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                en = obtenerEnlace(equivalencia[i], equivalencia[j]);
-                if ((en == null) || ((en != null) && (en.isBroken()))) {
-                    if (i==j) {
-                        matrizAdyacencia[i][j] = 0;
-                    } else {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                    }
-                } else {
-                    if (en.getLinkType() == TLink.EXTERNAL) {
-                        TExternalLink ee = (TExternalLink) en;
-                        matrizAdyacencia[i][j] = ee.obtenerPesoRABAN();
-                    } else {
-                        TInternalLink ei = (TInternalLink) en;
-                        matrizAdyacencia[i][j] = ei.obtenerPesoRABAN();
-                    }
+    public int obtenerSaltoRABAN(int origen, int destino) {
+        if (this.epocaRABAN > 0) {
+            return obtenerInstantaneaRABAN().obtenerSalto(obtenerNodo(origen), obtenerNodo(destino));
+        }
+        long solicitud = TTopology.ANCLAJE_SALTO_RABAN.lockRequested();
+        synchronized (this) {
+            long adquisicion = TTopology.ANCLAJE_SALTO_RABAN.lockAcquired(solicitud);
+            try {
+                return calcularSaltoRABAN(origen, destino);
+            } finally {
+                TTopology.ANCLAJE_SALTO_RABAN.lockReleased(adquisicion);
+            }
+        }
+    }
+
+    /**
+     * Este m�todo establece cada cu�nto tiempo de simulaci�n se recalculan las rutas
+     * RABAN. Si es mayor que cero, obtenerSaltoRABAN() consulta sin cerrojos una
+     * instant�nea de las rutas, que se calcula de nuevo cuando tiene esa antigüedad,
+     * cuando se a�ade o se elimina alg�n elemento o cuando un enlace se cae o se
+     * recupera. Las rutas pueden no reflejar los pesos RABAN durante, como mucho, una
+     * �poca. Si es cero, las rutas, tambi�n las que evitan un nodo, se calculan en
+     * cada consulta.
+     * @param e Duraci�n de la �poca, en nanosegundos.
+     * @since 2.0
+     */    
+    public void ponerEpocaRABAN(long e) {
+        if (e < 0) {
+            e = 0;
+        }
+        this.epocaRABAN = e;
+        this.instantaneaRABAN = null;
+    }
+
+    /**
+     * Este m�todo obtiene cada cu�nto tiempo de simulaci�n se recalculan las rutas
+     * RABAN.
+     * @return Duraci�n de la �poca, en nanosegundos. Cero si las rutas se calculan en
+     * cada consulta.
+     * @since 2.0
+     */    
+    public long obtenerEpocaRABAN() {
+        return this.epocaRABAN;
+    }
+
+    /**
+     * Este m�todo obtiene la antigüedad de la instant�nea de rutas RABAN que se est�
+     * usando.
+     * @return Tiempo de simulaci�n transcurrido desde que se calcul� la instant�nea, en
+     * nanosegundos. -1 si no hay instant�nea.
+     * @since 2.0
+     */    
+    public long obtenerEdadInstantaneaRABAN() {
+        TRABANRoutingSnapshot instantanea = this.instantaneaRABAN;
+        if (instantanea == null) {
+            return -1;
+        }
+        return Math.max(this.relojTopologia.getDispatchedInstant() - instantanea.obtenerInstante(), 0);
+    }
+
+    /**
+     * Este m�todo obtiene la instant�nea de rutas RABAN vigente. Si no la hay, o si
+     * ha caducado, se calcula una nueva; mientras, el resto de nodos espera.
+     * @return La instant�nea vigente.
+     * @since 2.0
+     */    
+    private TRABANRoutingSnapshot obtenerInstantaneaRABAN() {
+        TRABANRoutingSnapshot instantanea = this.instantaneaRABAN;
+        long ahora = this.relojTopologia.getDispatchedInstant();
+        if (esVigente(instantanea, ahora)) {
+            return instantanea;
+        }
+        long solicitud = TTopology.ANCLAJE_SALTO_RABAN.lockRequested();
+        synchronized (this) {
+            long adquisicion = TTopology.ANCLAJE_SALTO_RABAN.lockAcquired(solicitud);
+            try {
+                instantanea = this.instantaneaRABAN;
+                if (!esVigente(instantanea, ahora)) {
+                    cerrojoRABAN.lock();
+                    instantanea = calcularInstantaneaRABAN(ahora);
+                    cerrojoRABAN.unLock();
+                    this.instantaneaRABAN = instantanea;
                 }
+                return instantanea;
+            } finally {
+                TTopology.ANCLAJE_SALTO_RABAN.lockReleased(adquisicion);
             }
         }
-        // Calculamos la matriz de costes y de caminos
-        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
-        int matrizCaminos[][] = new int[numNodosActual][numNodosActual];
-        int k=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                matrizCostes[i][j] = matrizAdyacencia[i][j];
-                matrizCaminos[i][j] = numNodosActual;
+    }
+
+    /**
+     * Este m�todo indica si una instant�nea de rutas RABAN se puede seguir usando.
+     * @param instantanea La instant�nea.
+     * @param ahora Instante actual de la simulaci�n, en nanosegundos.
+     * @return TRUE, si es de la versi�n actual de la topolog�a y del estado de los
+     * enlaces y no ha cumplido una �poca. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    private boolean esVigente(TRABANRoutingSnapshot instantanea, long ahora) {
+        if ((instantanea == null) || (instantanea.obtenerVersion() != this.versionTopologia.get())) {
+            return false;
+        }
+        if (instantanea.obtenerVersionEstado() != this.versionEstadoEnlaces.get()) {
+            return false;
+        }
+        long edad = ahora - instantanea.obtenerInstante();
+        return ((edad >= 0) && (edad < this.epocaRABAN));
+    }
+
+    /**
+     * Este m�todo calcula una nueva instant�nea de las rutas RABAN. Se llama con el
+     * cerrojo de la topolog�a ya adquirido.
+     * @param ahora Instante actual de la simulaci�n, en nanosegundos.
+     * @return Una nueva instant�nea de las rutas RABAN.
+     * @since 2.0
+     */    
+    private TRABANRoutingSnapshot calcularInstantaneaRABAN(long ahora) {
+        int versionEstado = this.versionEstadoEnlaces.get();
+        actualizarListasDeAdyacencia();
+        return new TRABANRoutingSnapshot(this.equivalencia, this.inicioAdyacencia, this.nodosAdyacentes, copiarPesosRABAN(), ahora, this.versionListas, versionEstado);
+    }
+
+    /**
+     * Este m�todo copia el peso RABAN de cada enlace de las listas de adyacencia,
+     * para poder calcular las rutas sobre la copia. Se llama con el cerrojo de la
+     * topolog�a ya adquirido y con las listas de adyacencia actualizadas.
+     * @return El peso RABAN del enlace de cada posici�n de las listas de adyacencia.
+     * PESO_INFINITO si el enlace est� ca�do.
+     * @since 2.0
+     */    
+    private long[] copiarPesosRABAN() {
+        long pesos[] = new long[this.inicioAdyacencia[this.equivalencia.length]];
+        TLink en;
+        for (int a=0; a<pesos.length; a++) {
+            en = this.enlacesAdyacentes[a];
+            if (en.isBroken()) {
+                pesos[a] = TTopology.PESO_INFINITO;
+            } else {
+                pesos[a] = en.obtenerPesoRABAN();
             }
         }
-        for (k=0; k<numNodosActual; k++) {
-            for (i=0; i<numNodosActual; i++) {
-                for (j=0; j<numNodosActual; j++) {
-                    if (!((matrizCostes[i][k] == this.PESO_INFINITO) || (matrizCostes[k][j] == this.PESO_INFINITO))) {
-                        if ((matrizCostes[i][k] + matrizCostes[k][j]) < matrizCostes[i][j]) {
-                            matrizCostes[i][j] = matrizCostes[i][k] + matrizCostes[k][j];
-                            matrizCaminos[i][j] = k;
+        return pesos;
+    }
+
+    /**
+     * Este m�todo calcula en segundo plano una nueva instant�nea de rutas RABAN, con
+     * sus saltos alternativos, si no se est� calculando ya. Con el cerrojo de la
+     * topolog�a s�lo se copian las listas de adyacencia y los pesos; las rutas se
+     * calculan despu�s, sin bloquear al resto de nodos. Mientras, las consultas que
+     * evitan un nodo se calculan como siempre.
+     * @since 2.0
+     */    
+    private void solicitarAlternativos() {
+        this.cerrojoAlternativos.lock();
+        boolean calculando = this.calculandoAlternativos;
+        this.calculandoAlternativos = true;
+        this.cerrojoAlternativos.unLock();
+        if (calculando) {
+            return;
+        }
+        ForkJoinPool.commonPool().execute(new Runnable() {
+            public void run() {
+                try {
+                    int equivalencias[];
+                    int inicio[];
+                    int adyacentes[];
+                    long pesos[];
+                    int version;
+                    int versionEstado;
+                    long ahora;
+                    long solicitud = TTopology.ANCLAJE_SALTO_RABAN.lockRequested();
+                    synchronized (TTopology.this) {
+                        long adquisicion = TTopology.ANCLAJE_SALTO_RABAN.lockAcquired(solicitud);
+                        cerrojoRABAN.lock();
+                        try {
+                            versionEstado = versionEstadoEnlaces.get();
+                            actualizarListasDeAdyacencia();
+                            equivalencias = equivalencia;
+                            inicio = inicioAdyacencia;
+                            adyacentes = nodosAdyacentes;
+                            pesos = copiarPesosRABAN();
+                            version = versionListas;
+                            ahora = relojTopologia.getDispatchedInstant();
+                        } finally {
+                            cerrojoRABAN.unLock();
+                            TTopology.ANCLAJE_SALTO_RABAN.lockReleased(adquisicion);
                         }
                     }
+                    instantaneaRABAN = new TRABANRoutingSnapshot(equivalencias, inicio, adyacentes, pesos, ahora, version, versionEstado);
+                } catch (RuntimeException e) {
+                    Logger.getLogger(TTopology.class.getName()).log(Level.SEVERE, null, e);
+                } finally {
+                    cerrojoAlternativos.lock();
+                    calculandoAlternativos = false;
+                    cerrojoAlternativos.unLock();
                 }
             }
+        });
+    }
+
+    /**
+     * Este m�todo calcula el siguiente salto de obtenerSaltoRABAN(). Se llama con el cerrojo de
+     * la topolog�a ya adquirido.
+     * @since 2.0
+     */    
+    private int calcularSaltoRABAN(int origen, int destino) {
+        cerrojoRABAN.lock();
+        actualizarListasDeAdyacencia();
+        int origen2 = obtenerIndiceEnTabla(origen);
+        int destino2 = obtenerIndiceEnTabla(destino);
+        int nodoSiguiente = TTopology.SIN_CAMINO;
+        if ((origen2 >= 0) && (destino2 >= 0) && (origen != destino)) {
+            int numNodosActual = this.equivalencia.length;
+            nodoSiguiente = calcularPrimerosSaltos(origen2, true, -1, destino2, new long[numNodosActual], new int[numNodosActual])[destino2];
         }
-        // Obtiene el primer nodo del camino, si hay camino.
-        int nodoSiguiente = this.SIN_CAMINO;
-        k = matrizCaminos[origen2][destino2];
-        while (k != numNodosActual) {
-            nodoSiguiente = k;
-            k = matrizCaminos[origen2][k];
-        }
-        // Comprobamos si no hay camino o es que son adyacentes
-        if (nodoSiguiente == this.SIN_CAMINO) {
-            TLink enlt = this.obtenerEnlace(origen, destino);
-            if (enlt != null)
-                nodoSiguiente = destino;
-        } else {
-            nodoSiguiente = equivalencia[nodoSiguiente];
+        // Comprobamos si no hay camino pero son adyacentes
+        if ((nodoSiguiente == TTopology.SIN_CAMINO) && (estanEnlazados(origen2, destino2))) {
+            nodoSiguiente = destino;
         }
         cerrojoRABAN.unLock();
         return nodoSiguiente;
-      }
+    }
 
     /**
      * Este m�todo calcula el iodentificador del nodo al que hay que dirigirse, cuyo
      * camino es el mejor para avanzar hacia el destino seg�n el protocolo RABAN. Adem�s
      * lo calcula evitando pasar por el enlace que se especifica mediante el par
-     * origen-nodoAEvitar.
+     * origen-nodoAEvitar. Si hay �pocas RABAN y una instant�nea de rutas vigente con
+     * un salto alternativo sin bucles, se toma de ella sin calcular nada; si la
+     * instant�nea ha caducado, se pide otra en segundo plano. Sin �pocas no hay
+     * instant�neas, porque los pesos RABAN cambian en cada tic: el salto se calcula
+     * siempre con los pesos del momento, como antes.
      * @return El identificador del nodo adyacente al origen al que hay que dirigirse. NULL, si no hay camino entre el origen y el destino.
      * @since 2.0
      * @param origen El identyificador del nodo que realiza la petici�n de c�lculo.
@@ -955,100 +2026,52 @@ public class TTopology {
      * @param nodoAEvitar Identificador del nodo adyacente a origen. El enlace que une a ambos se desea
      * evitar.
      */    
-    public synchronized int obtenerSaltoRABAN(int origen, int destino, int nodoAEvitar) {
-        cerrojoRABAN.lock();
-        int numNodosActual = this.conjuntoNodos.size();
-        int origen2 = 0;
-        int destino2 = 0;
-        int nodoAEvitar2 = 0;
-        // Hayamos equivalencias entre �ndices e identificadores de nodo
-        int equivalencia[] = new int[numNodosActual];
-        int i=0;
-        TNode nt = null;
-        Iterator it = this.getNodesIterator();
-        while (it.hasNext()) {
-            nt = (TNode) it.next();
-            equivalencia[i] = nt.getID();
-            if (equivalencia[i] == origen)
-                origen2 = i;
-            else if (equivalencia[i] == destino)
-                destino2 = i;
-            else if (equivalencia[i] == nodoAEvitar)
-                nodoAEvitar2 = i;
-            i++;
-        }
-        // Averiguamos la matriz de adyacencia
-        TLink en = null;
-        long matrizAdyacencia[][] = new long[numNodosActual][numNodosActual];
-        int j=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                en = obtenerEnlace(equivalencia[i], equivalencia[j]);
-                if ((en == null) || ((en != null) && (en.isBroken()))) {
-                    if (i==j) {
-                        matrizAdyacencia[i][j] = 0;
-                    } else {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                    }
-                } else {
-                    if (en.getLinkType() == TLink.EXTERNAL) {
-                        TExternalLink ee = (TExternalLink) en;
-                        matrizAdyacencia[i][j] = ee.obtenerPesoRABAN();
-                    } else {
-                        TInternalLink ei = (TInternalLink) en;
-                        matrizAdyacencia[i][j] = ei.obtenerPesoRABAN();
-                    }
-                }
-                // Aqu� se evita calcular un camino que pase por el enlace que
-                // deseamos evitar, el que une origen con nodoAEvitar.
-                if ((i == origen2) && (j == nodoAEvitar2)) {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                }
-                if ((i == nodoAEvitar2) && (j == origen2)) {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
+    public int obtenerSaltoRABAN(int origen, int destino, int nodoAEvitar) {
+        if (this.epocaRABAN > 0) {
+            TRABANRoutingSnapshot instantanea = this.instantaneaRABAN;
+            if (esVigente(instantanea, this.relojTopologia.getDispatchedInstant())) {
+                int nodoSiguiente = instantanea.obtenerSaltoAlternativo(obtenerNodo(origen), obtenerNodo(destino), nodoAEvitar);
+                if (nodoSiguiente != TTopology.SIN_CAMINO) {
+                    return nodoSiguiente;
                 }
+            } else {
+                solicitarAlternativos();
             }
         }
-        // Calculamos la matriz de costes y de caminos
-        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
-        int matrizCaminos[][] = new int[numNodosActual][numNodosActual];
-        int k=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                matrizCostes[i][j] = matrizAdyacencia[i][j];
-                matrizCaminos[i][j] = numNodosActual;
+        long solicitud = TTopology.ANCLAJE_SALTO_RABAN.lockRequested();
+        synchronized (this) {
+            long adquisicion = TTopology.ANCLAJE_SALTO_RABAN.lockAcquired(solicitud);
+            try {
+                return calcularSaltoRABAN(origen, destino, nodoAEvitar);
+            } finally {
+                TTopology.ANCLAJE_SALTO_RABAN.lockReleased(adquisicion);
             }
         }
-        for (k=0; k<numNodosActual; k++) {
-            for (i=0; i<numNodosActual; i++) {
-                for (j=0; j<numNodosActual; j++) {
-                    if (!((matrizCostes[i][k] == this.PESO_INFINITO) || (matrizCostes[k][j] == this.PESO_INFINITO))) {
-                        if ((matrizCostes[i][k] + matrizCostes[k][j]) < matrizCostes[i][j]) {
-                            matrizCostes[i][j] = matrizCostes[i][k] + matrizCostes[k][j];
-                            matrizCaminos[i][j] = k;
-                        }
-                    }
-                }
-            }
+    }
+
+    /**
+     * Este m�todo calcula el siguiente salto de obtenerSaltoRABAN() evitando un nodo adyacente. Se llama con el cerrojo de
+     * la topolog�a ya adquirido.
+     * @since 2.0
+     */    
+    private int calcularSaltoRABAN(int origen, int destino, int nodoAEvitar) {
+        cerrojoRABAN.lock();
+        actualizarListasDeAdyacencia();
+        int origen2 = obtenerIndiceEnTabla(origen);
+        int destino2 = obtenerIndiceEnTabla(destino);
+        int nodoAEvitar2 = obtenerIndiceEnTabla(nodoAEvitar);
+        int nodoSiguiente = TTopology.SIN_CAMINO;
+        if ((origen2 >= 0) && (destino2 >= 0) && (origen != destino)) {
+            int numNodosActual = this.equivalencia.length;
+            nodoSiguiente = calcularPrimerosSaltos(origen2, true, nodoAEvitar2, destino2, new long[numNodosActual], new int[numNodosActual])[destino2];
         }
-        // Obtiene el primer nodo del camino, si hay camino.
-        int nodoSiguiente = this.SIN_CAMINO;
-        k = matrizCaminos[origen2][destino2];
-        while (k != numNodosActual) {
-            nodoSiguiente = k;
-            k = matrizCaminos[origen2][k];
-        }
-        // Comprobamos si no hay camino o es que son adyacentes
-        if (nodoSiguiente == this.SIN_CAMINO) {
-            TLink enlt = this.obtenerEnlace(origen, destino);
-            if (enlt != null)
-                nodoSiguiente = destino;
-        } else {
-            nodoSiguiente = equivalencia[nodoSiguiente];
+        // Comprobamos si no hay camino pero son adyacentes
+        if ((nodoSiguiente == TTopology.SIN_CAMINO) && (estanEnlazados(origen2, destino2))) {
+            nodoSiguiente = destino;
         }
         cerrojoRABAN.unLock();
         return nodoSiguiente;
-      }
+    }
 
     /**
      * Esta constante identifica un peso infinito.
@@ -1068,6 +2091,16 @@ public class TTopology {
 
     private TreeSet conjuntoNodos;
     private TreeSet conjuntoEnlaces;
+    private HashMap nodosPorID;
+    private HashMap nodosPorIP;
+    private HashMap nodosPorNombre;
+    private HashMap enlacesPorID;
+    private HashMap enlacesPorExtremos;
+    private TDenseIndexGenerator indicesDeNodos;
+    private TDenseIndexGenerator indicesDeEnlaces;
+    private TNode nodosPorIndice[];
+    private TSpatialIndex indiceEspacial;
+    private TLink enlacesPorIndice[];
     private TTimer relojTopologia;
     private TScenario escenarioPadre;
     private TLongIDGenerator IDEvento;
@@ -1075,4 +2108,26 @@ public class TTopology {
     private TIPGenerator generadorIP;
     private TMonitor cerrojoFloyd;
     private TMonitor cerrojoRABAN;
+    private TMonitor cerrojoCambios;
+    private int equivalencia[];
+    private int inicioAdyacencia[];
+    private int origenesAdyacentes[];
+    private int nodosAdyacentes[];
+    private int aristasInversas[];
+    private TLink enlacesAdyacentes[];
+    private int tablaDeSaltos[][];
+    private long distanciasDeTabla[][];
+    private int aristasPadre[][];
+    private LinkedList enlacesCambiados;
+    private volatile TRABANRoutingSnapshot instantaneaRABAN;
+    private volatile long epocaRABAN;
+    private volatile boolean multitrayecto;
+    private TMonitor cerrojoAlternativos;
+    private boolean calculandoAlternativos;
+    private final AtomicInteger versionTopologia;
+    private final AtomicInteger versionEstadoEnlaces;
+    private int versionListas;
+
+    private static final TPinningMonitor ANCLAJE_SALTO = TPinningMonitor.register("TTopology.obtenerSalto");
+    private static final TPinningMonitor ANCLAJE_SALTO_RABAN = TPinningMonitor.register("TTopology.obtenerSaltoRABAN");
 }
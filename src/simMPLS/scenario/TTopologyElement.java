@@ -17,6 +17,8 @@ package simMPLS.scenario;
 
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
+import simMPLS.hardware.timer.TTimerWorkerPool;
+import simMPLS.hardware.timer.TTickOutbox;
 import simMPLS.hardware.simulationcollector.TSimulationCollector;
 import simMPLS.utils.TLongIDGenerator;
 import java.awt.*;
@@ -42,6 +44,11 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
         tipoElemento = tipo;
         eliminarDelReloj = false;
         hilo = null;
+        workerPool = null;
+        outbox = null;
+        dormido = false;
+        despertado = false;
+        enLinea = false;
         simulationEventsListener = null;
         this.longIdentifierGenerator = il;
         this.availableNs = 0;
@@ -49,6 +56,27 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
         wellConfigured = false;
         instanteDeTiempo = 0;
         duracionTic = 0;
+        indiceDenso = -1;
+    }
+
+    /**
+     * Este m�todo devuelve el �ndice denso del elemento en su topolog�a: un n�mero
+     * desde cero, distinto para cada nodo y para cada enlace, que se reutiliza cuando
+     * el elemento se elimina. Sirve para guardar datos de los elementos en vectores.
+     * @return El �ndice denso del elemento. -1 si no est� en una topolog�a.
+     * @since 2.0
+     */    
+    public int obtenerIndiceDenso() {
+        return this.indiceDenso;
+    }
+
+    /**
+     * Este m�todo establece el �ndice denso del elemento. S�lo lo usa la topolog�a.
+     * @param i El �ndice denso. -1 si el elemento sale de la topolog�a.
+     * @since 2.0
+     */    
+    void ponerIndiceDenso(int i) {
+        this.indiceDenso = i;
     }
 
     /**
@@ -165,18 +193,128 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
      * Este m�todo pone en funcionamiento el hilo independiente que maneja al elemento.
      * @since 2.0
      */    
-    public synchronized void startOperation() {
-        if (hilo == null) {
-            hilo = new Thread(this);
-            this.hilo.start();
-        } else {
-            if (!hilo.isAlive()) {
+    public void startOperation() {
+        if (enLinea) {
+            this.run();
+            return;
+        }
+        synchronized (this) {
+            if (workerPool != null) {
+                workerPool.execute(this);
+            } else if (hilo == null) {
                 hilo = new Thread(this);
                 this.hilo.start();
+            } else {
+                if (!hilo.isAlive()) {
+                    hilo = new Thread(this);
+                    this.hilo.start();
+                }
             }
         }
     }
+
+    /**
+     * Este m�todo entrega un evento de reloj al elemento y hace el trabajo del tic en
+     * el hilo que lo llama, sin pasar por el conjunto de hilos del reloj. Lo usa el
+     * reloj para simular varios tics seguidos de un mismo elemento.
+     * @param evt Evento de reloj del tic.
+     * @since 2.0
+     */    
+    public void runTimerEventInline(TTimerEvent evt) {
+        enLinea = true;
+        try {
+            this.receiveTimerEvent(evt);
+        } finally {
+            enLinea = false;
+        }
+    }
     
+    /**
+     * Este m�todo establece el conjunto de hilos del reloj que ejecutar� el trabajo
+     * de este elemento en cada tic. Si es NULL, el elemento usa su propio hilo.
+     * @param wp Conjunto de hilos del reloj.
+     * @since 2.0
+     */    
+    public void setWorkerPool(TTimerWorkerPool wp) {
+        this.workerPool = wp;
+    }
+
+    /**
+     * Este m�todo establece el buz�n de salida privado del elemento. Mientras est�
+     * establecido, los paquetes que el elemento env�a durante un tic se guardan en �l
+     * y el reloj los entrega a su destino al final del tic.
+     * @param o Buz�n de salida del elemento. NULL, para entregar los paquetes al momento.
+     * @since 2.0
+     */    
+    public void setOutbox(TTickOutbox o) {
+        this.outbox = o;
+    }
+
+    /**
+     * Este m�todo devuelve el buz�n de salida privado del elemento.
+     * @return El buz�n de salida del elemento. NULL, si los paquetes se entregan al
+     * momento.
+     * @since 2.0
+     */    
+    public TTickOutbox getOutbox() {
+        return this.outbox;
+    }
+
+    /**
+     * Este m�todo indica si el elemento no tiene nada que hacer mientras nadie le
+     * env�e un paquete, de forma que el reloj puede dejar de enviarle eventos. Por
+     * defecto, los elementos siempre tienen algo que hacer.
+     * @return TRUE, si el elemento est� ocioso. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean isIdle() {
+        return false;
+    }
+
+    /**
+     * Este m�todo indica si el elemento est� dormido, es decir, si el reloj ha dejado
+     * de enviarle eventos hasta que algo lo despierte.
+     * @return TRUE, si el elemento est� dormido. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public boolean isAsleep() {
+        return this.dormido;
+    }
+
+    /**
+     * Este m�todo despierta al elemento para que vuelva a recibir eventos del reloj a
+     * partir del siguiente tic. Se llama cuando le llega un paquete o cambia algo de
+     * lo que depende. Este m�todo es sincronizado.
+     * @since 2.0
+     */    
+    public synchronized void wakeUp() {
+        this.dormido = false;
+        this.despertado = true;
+    }
+
+    /**
+     * Este m�todo olvida si el elemento ha sido despertado. El reloj lo llama al
+     * comienzo de cada tic, antes de comprobar si el elemento est� ocioso. Este
+     * m�todo es sincronizado.
+     * @since 2.0
+     */    
+    public synchronized void clearWakeUp() {
+        this.despertado = false;
+    }
+
+    /**
+     * Este m�todo duerme al elemento, salvo que haya sido despertado desde la �ltima
+     * llamada a clearWakeUp(). Este m�todo es sincronizado.
+     * @return TRUE, si el elemento se ha dormido. FALSE en caso contrario.
+     * @since 2.0
+     */    
+    public synchronized boolean sleepIfNotWokenUp() {
+        if (!this.despertado) {
+            this.dormido = true;
+        }
+        return this.dormido;
+    }
+
     /**
      * Este m�todo se usa para sincronizar el hilo de este elemento con el de todos los
      * dem�s y con el hilo principal. Este m�todo es llamado por el reloj del
@@ -313,6 +451,11 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
     private int tipoElemento;
     private boolean eliminarDelReloj;
     private Thread hilo;
+    private TTimerWorkerPool workerPool;
+    private TTickOutbox outbox;
+    private volatile boolean dormido;
+    private boolean despertado;
+    private boolean enLinea;
     /**
      * Este atributo es el recolector de eventos de simulaci�n al que se deben mandar
      * los eventos de simulaci�n que el elemento vaya generando.
@@ -340,4 +483,5 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
     protected boolean wellConfigured;
     private long instanteDeTiempo;
     private int duracionTic;
+    private int indiceDenso;
 }
@@ -0,0 +1,96 @@
+/* 
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+/** Esta es la implementación de un generador de índices densos: números enteros
+ * desde cero, sin huecos, que se pueden devolver cuando ya no se usan para que se
+ * vuelvan a asignar. Sirven para guardar datos de los elementos en vectores que no
+ * crecen más allí del número de elementos que ha habido a la vez.
+ * @version 1.0
+ * @author The OpenSimMPLS contributors
+ */
+public class TDenseIndexGenerator {
+    
+    /** Crea un nuevo generador de índices densos, sin ningún índice asignado.
+     * @since 2.0
+     */
+    public TDenseIndexGenerator() {
+        huecos = new int[16];
+        numHuecos = 0;
+        tope = 0;
+    }
+    
+    /**
+     * Este método reinicia el generador a su valor original, como si acabase de ser
+     * instanciado.
+     * @since 2.0
+     */
+    public synchronized void reset() {
+        numHuecos = 0;
+        tope = 0;
+    }
+    
+    /** Método que devuelve un índice libre. Si se ha liberado alguno, se reutiliza el
+     * último que se liberó; si no, se asigna el siguiente al mayor asignado. El
+     * método está <B>sincronizado</B>.
+     * @return Un índice que no está asignado.
+     * @since 2.0
+     */
+    public synchronized int obtenerIndice() {
+        if (numHuecos > 0) {
+            numHuecos--;
+            return huecos[numHuecos];
+        }
+        tope++;
+        return (tope - 1);
+    }
+    
+    /** Método que libera un índice para que se pueda volver a asignar. El método está
+     * <B>sincronizado</B>.
+     * @param indice El índice que ya no se usa.
+     * @since 2.0
+     */
+    public synchronized void liberar(int indice) {
+        if ((indice < 0) || (indice >= tope)) {
+            return;
+        }
+        if (indice == tope - 1) {
+            tope--;
+            return;
+        }
+        if (numHuecos == huecos.length) {
+            int nuevosHuecos[] = new int[huecos.length * 2];
+            System.arraycopy(huecos, 0, nuevosHuecos, 0, numHuecos);
+            huecos = nuevosHuecos;
+        }
+        huecos[numHuecos] = indice;
+        numHuecos++;
+    }
+    
+    /** Método que devuelve el número de índices que hay que reservar en un vector
+     * para que quepan todos los asignados. El método está <B>sincronizado</B>.
+     * @return Uno más que el mayor índice asignado hasta ahora, sin contar los que
+     * se han liberado al final.
+     * @since 2.0
+     */
+    public synchronized int obtenerTope() {
+        return tope;
+    }
+    
+    private int huecos[];
+    private int numHuecos;
+    private int tope;
+}
@@ -15,13 +15,15 @@
  */
 package simMPLS.utils;
 
+import java.io.Serializable;
+
 /** Esta es la implementaci�n de un generador de identificadores num�ricos que no se
  * repiten y que se van incrementando hasta llegar a su l�mite m�ximo.
  * @version 1.0
  * @author <B>Manuel Dom�nguez Dorado</B><br><A
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  */
-public class TIDGenerator {
+public class TIDGenerator implements Serializable {
     
     /** Atributo que contendr� el valor interno del generador de identificadores
      * num�ticos.
@@ -82,4 +84,6 @@ public class TIDGenerator {
     synchronized public void ponerIdentificador(int i) {
         identificador = i;
     }
+
+    private static final long serialVersionUID = 1L;
 }
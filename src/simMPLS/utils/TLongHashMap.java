@@ -0,0 +1,222 @@
+/* 
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+/**
+ * Esta clase implementa una tabla hash cuyas claves son enteros largos, sin
+ * envolverlos en objetos. Usa direccionamiento abierto con sondeo lineal y, al
+ * borrar, desplaza hacia atrás las claves siguientes, de modo que no quedan marcas
+ * de borrado. No admite valores nulos. No está sincronizada.
+ * @author The OpenSimMPLS contributors
+ * @version 1.0
+ */
+public class TLongHashMap {
+
+    /**
+     * Este método es el constructor de la clase. Crea una nueva instancia de
+     * TLongHashMap vacía.
+     * @since 2.0
+     */
+    public TLongHashMap() {
+        claves = new long[CAPACIDAD_INICIAL];
+        valores = new Object[CAPACIDAD_INICIAL];
+        tamanio = 0;
+    }
+
+    /**
+     * Este método obtiene el valor asociado a una clave.
+     * @param clave La clave.
+     * @return El valor. NULL si la clave no está en la tabla.
+     * @since 2.0
+     */
+    public Object obtener(long clave) {
+        int mascara = claves.length - 1;
+        int i = dispersar(clave) & mascara;
+        while (valores[i] != null) {
+            if (claves[i] == clave) {
+                return valores[i];
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    /**
+     * Este método obtiene el valor asociado a una clave mientras otro hilo puede
+     * estar cambiando la tabla. No lanza excepciones y siempre termina, pero el
+     * valor que devuelve sólo es válido si quien lo llama comprueba después que
+     * la tabla no ha cambiado durante la consulta.
+     * @param clave La clave.
+     * @return El valor. NULL si la clave no está en la tabla.
+     * @since 2.0
+     */
+    public Object obtenerSinBloqueo(long clave) {
+        long clavesAux[] = claves;
+        Object valoresAux[] = valores;
+        // Durante un redimensionado las dos tablas pueden ser de tamaños distintos.
+        if (clavesAux.length != valoresAux.length) {
+            return null;
+        }
+        int mascara = clavesAux.length - 1;
+        int i = dispersar(clave) & mascara;
+        Object valor;
+        for (int sondeos = 0; sondeos < clavesAux.length; sondeos++) {
+            valor = valoresAux[i];
+            if (valor == null) {
+                return null;
+            }
+            if (clavesAux[i] == clave) {
+                return valor;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    /**
+     * Este método asocia un valor a una clave. Si la clave ya tenía valor, lo
+     * sustituye.
+     * @param clave La clave.
+     * @param valor El valor. No puede ser NULL.
+     * @since 2.0
+     */
+    public void poner(long clave, Object valor) {
+        if ((tamanio + 1) * 4 > claves.length * 3) {
+            redimensionar(claves.length * 2);
+        }
+        int mascara = claves.length - 1;
+        int i = dispersar(clave) & mascara;
+        while (valores[i] != null) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        tamanio++;
+    }
+
+    /**
+     * Este método quita una clave de la tabla.
+     * @param clave La clave.
+     * @return El valor que tenía asociado. NULL si no estaba en la tabla.
+     * @since 2.0
+     */
+    public Object quitar(long clave) {
+        int mascara = claves.length - 1;
+        int i = dispersar(clave) & mascara;
+        while (valores[i] != null) {
+            if (claves[i] == clave) {
+                Object valor = valores[i];
+                desplazarTrasBorrar(i);
+                tamanio--;
+                return valor;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    /**
+     * Este método obtiene el número de claves de la tabla.
+     * @return El número de claves.
+     * @since 2.0
+     */
+    public int obtenerTamanio() {
+        return tamanio;
+    }
+
+    /**
+     * Este método vacía la tabla.
+     * @since 2.0
+     */
+    public void vaciar() {
+        java.util.Arrays.fill(valores, null);
+        tamanio = 0;
+    }
+
+    /**
+     * Este método deja libre una posición y mueve a ella las claves siguientes que
+     * no podrían encontrarse si quedase un hueco en medio de su secuencia de sondeo.
+     * @param hueco La posición que se libera.
+     * @since 2.0
+     */
+    private void desplazarTrasBorrar(int hueco) {
+        int mascara = claves.length - 1;
+        int i = hueco;
+        int ideal;
+        while (true) {
+            i = (i + 1) & mascara;
+            if (valores[i] == null) {
+                break;
+            }
+            ideal = dispersar(claves[i]) & mascara;
+            // La clave se puede mover al hueco si su posición ideal no está entre
+            // el hueco (excluido) y su posición actual (incluida), de forma circular.
+            if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+                claves[hueco] = claves[i];
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        valores[hueco] = null;
+    }
+
+    /**
+     * Este método cambia el número de posiciones de la tabla y vuelve a colocar
+     * todas las claves.
+     * @param capacidad Nuevo número de posiciones. Debe ser potencia de dos.
+     * @since 2.0
+     */
+    private void redimensionar(int capacidad) {
+        long clavesAntiguas[] = claves;
+        Object valoresAntiguos[] = valores;
+        claves = new long[capacidad];
+        valores = new Object[capacidad];
+        int mascara = capacidad - 1;
+        int j;
+        for (int i=0; i<clavesAntiguas.length; i++) {
+            if (valoresAntiguos[i] != null) {
+                j = dispersar(clavesAntiguas[i]) & mascara;
+                while (valores[j] != null) {
+                    j = (j + 1) & mascara;
+                }
+                claves[j] = clavesAntiguas[i];
+                valores[j] = valoresAntiguos[i];
+            }
+        }
+    }
+
+    /**
+     * Este método mezcla los bits de una clave para que claves parecidas caigan en
+     * posiciones alejadas.
+     * @param clave La clave.
+     * @return La mezcla.
+     * @since 2.0
+     */
+    private static int dispersar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private long claves[];
+    private Object valores[];
+    private int tamanio;
+}
@@ -0,0 +1,145 @@
+/* 
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+/**
+ * Esta clase implementa un montículo binario de mínimos de índices de nodo,
+ * ordenados por distancia y, a igual distancia, por índice. Lo usa el algoritmo de
+ * Dijkstra de la topología. Un nodo puede estar varias veces en el montículo; las
+ * entradas que ya no sirven se descartan al sacarlas.
+ * @author The OpenSimMPLS contributors
+ * @version 1.0
+ */
+public class TNodeHeap {
+    
+    /**
+     * Este método es el constructor de la clase. Crea una nueva instancia de
+     * TNodeHeap vacía.
+     * @param capacidad Número de entradas que se espera insertar. El montículo crece
+     * si hace falta.
+     * @since 2.0
+     */
+    public TNodeHeap(int capacidad) {
+        if (capacidad < 1) {
+            capacidad = 1;
+        }
+        nodos = new int[capacidad];
+        distancias = new long[capacidad];
+        tamanio = 0;
+    }
+    
+    /**
+     * Este método inserta un nodo en el montículo.
+     * @param nodo Índice del nodo.
+     * @param distancia Distancia del nodo al origen.
+     * @since 2.0
+     */
+    public void insertar(int nodo, long distancia) {
+        if (tamanio == nodos.length) {
+            int nuevosNodos[] = new int[nodos.length * 2];
+            long nuevasDistancias[] = new long[nodos.length * 2];
+            System.arraycopy(nodos, 0, nuevosNodos, 0, tamanio);
+            System.arraycopy(distancias, 0, nuevasDistancias, 0, tamanio);
+            nodos = nuevosNodos;
+            distancias = nuevasDistancias;
+        }
+        int hueco = tamanio;
+        tamanio++;
+        while (hueco > 0) {
+            int padre = (hueco - 1) / 2;
+            if (!esMenor(nodo, distancia, nodos[padre], distancias[padre])) {
+                break;
+            }
+            nodos[hueco] = nodos[padre];
+            distancias[hueco] = distancias[padre];
+            hueco = padre;
+        }
+        nodos[hueco] = nodo;
+        distancias[hueco] = distancia;
+    }
+    
+    /**
+     * Este método saca del montículo el nodo con menor distancia.
+     * @return Índice del nodo con menor distancia.
+     * @since 2.0
+     */
+    public int extraer() {
+        int minimo = nodos[0];
+        tamanio--;
+        int nodo = nodos[tamanio];
+        long distancia = distancias[tamanio];
+        int hueco = 0;
+        int hijo = 1;
+        while (hijo < tamanio) {
+            if ((hijo + 1 < tamanio) && (esMenor(nodos[hijo + 1], distancias[hijo + 1], nodos[hijo], distancias[hijo]))) {
+                hijo++;
+            }
+            if (!esMenor(nodos[hijo], distancias[hijo], nodo, distancia)) {
+                break;
+            }
+            nodos[hueco] = nodos[hijo];
+            distancias[hueco] = distancias[hijo];
+            hueco = hijo;
+            hijo = 2 * hueco + 1;
+        }
+        nodos[hueco] = nodo;
+        distancias[hueco] = distancia;
+        return minimo;
+    }
+    
+    /**
+     * Este método obtiene la distancia del nodo que se sacaría a continuación, sin
+     * sacarlo del montículo.
+     * @return La menor distancia del montículo.
+     * @since 2.0
+     */
+    public long obtenerDistanciaMinima() {
+        return distancias[0];
+    }
+    
+    /**
+     * Este método indica si el montículo está vacío.
+     * @return TRUE, si no quedan nodos en el montículo. FALSE en caso contrario.
+     * @since 2.0
+     */
+    public boolean estaVacio() {
+        return (tamanio == 0);
+    }
+    
+    /**
+     * Este método vacía el montículo para poder usarlo de nuevo.
+     * @since 2.0
+     */
+    public void vaciar() {
+        tamanio = 0;
+    }
+    
+    /**
+     * Este método compara dos entradas del montículo.
+     * @return TRUE, si la primera entrada va antes que la segunda.
+     * @since 2.0
+     */
+    private boolean esMenor(int nodo1, long distancia1, int nodo2, long distancia2) {
+        if (distancia1 != distancia2) {
+            return (distancia1 < distancia2);
+        }
+        return (nodo1 < nodo2);
+    }
+    
+    private int nodos[];
+    private long distancias[];
+    private int tamanio;
+}
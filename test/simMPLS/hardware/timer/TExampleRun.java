@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import simMPLS.hardware.simulationcollector.TSimulationCollector;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TScenario;
+import simMPLS.scenario.TSenderNode;
+import simMPLS.scenario.TSimulationEvent;
+import simMPLS.scenario.TTopologyElement;
+import simMPLS.scenario.ESimulationSingleSubscriber;
+
+/**
+ * This class runs, without GUI, one of the example scenarios bundled with the
+ * simulator and records the simulation events generated by its nodes and
+ * links, so that tests can check that the different engines and options of
+ * the timer give the same results.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+class TExampleRun {
+
+    /**
+     * This method is the constructor of the class. It loads the specified
+     * example scenario.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param exampleName The name of the file of the example, in the examples
+     * folder of the project.
+     * @since 2.0
+     */
+    TExampleRun(String exampleName) {
+        TOSMLoader loader = new TOSMLoader();
+        if (!loader.cargar(new File("examples", exampleName))) {
+            throw new IllegalArgumentException("Cannot load the example " + exampleName);
+        }
+        this.scenario = loader.getScenario();
+        this.recorder = new TEventRecorder();
+    }
+
+    /**
+     * This method returns the scenario of the example, to change its options
+     * before running it.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The scenario of the example.
+     * @since 2.0
+     */
+    TScenario getScenario() {
+        return this.scenario;
+    }
+
+    /**
+     * This method sets the traffic rate of every sender of the example. Low
+     * rates leave the topology quiescent between packets, so that the timer
+     * can skip the idle ticks.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param trafficRate The traffic rate of the senders.
+     * @since 2.0
+     */
+    void setTrafficRate(int trafficRate) {
+        Iterator nodesIterator = this.scenario.getTopology().getNodesIterator();
+        TNode node;
+        while (nodesIterator.hasNext()) {
+            node = (TNode) nodesIterator.next();
+            if (node.getNodeType() == TNode.SENDER) {
+                ((TSenderNode) node).ponerTasaTrafico(trafficRate);
+            }
+        }
+    }
+
+    /**
+     * This method simulates the example, in the calling thread, for the
+     * duration and with the tick stored in its file.
+     *
+     * @author The OpenSimMPLS contributors
+     * @return The simulation events generated, as sorted strings.
+     * @since 2.0
+     */
+    List<String> run() {
+        listenTo(this.scenario.getTopology().getNodesIterator());
+        listenTo(this.scenario.getTopology().getLinksIterator());
+        this.scenario.reset();
+        this.scenario.ponerDuracionSimulacion(new TTimestamp(0, (int) this.scenario.getSimulation().obtenerDuracion()));
+        this.scenario.ponerPasoSimulacion((int) this.scenario.getSimulation().obtenerPaso());
+        TTimer timer = this.scenario.getTopology().obtenerReloj();
+        timer.reset();
+        timer.run();
+        List<String> events = new ArrayList<String>(this.recorder.events);
+        Collections.sort(events);
+        return events;
+    }
+
+    /**
+     * This method replaces the simulation collector of the specified elements
+     * by the event recorder of this run.
+     *
+     * @author The OpenSimMPLS contributors
+     * @param elementsIterator An iterator over the elements.
+     * @since 2.0
+     */
+    private void listenTo(Iterator elementsIterator) {
+        TTopologyElement element;
+        while (elementsIterator.hasNext()) {
+            element = (TTopologyElement) elementsIterator.next();
+            element.removeListenerSimulacion();
+            try {
+                element.addListenerSimulacion(this.recorder);
+            } catch (ESimulationSingleSubscriber e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * This class stores a signature of every simulation event it receives.
+     * Packets on the fly are not recorded, because a link between partitions
+     * does not carry its packets itself. Links stamp their events with the
+     * last tick they have simulated, which in the fixed-tick engine depends on
+     * the order in which the workers run the elements of the tick, so only the
+     * kind and the source of their events are recorded.
+     *
+     * @author The OpenSimMPLS contributors
+     * @version 2.0
+     */
+    private static class TEventRecorder extends TSimulationCollector {
+
+        @Override
+        public void captureSimulationEvents(TSimulationEvent simulationEvent) {
+            if (simulationEvent.getSubtype() == TSimulationEvent.PACKET_ON_FLY) {
+                return;
+            }
+            TTopologyElement source = simulationEvent.obtenerFuente();
+            String signature;
+            if (source instanceof TLink) {
+                signature = "link " + ((TLink) source).getID() + " " + simulationEvent.getSubtype();
+            } else {
+                signature = simulationEvent.obtenerInstante() + " node " + ((TNode) source).getID() + " " + simulationEvent.getSubtype();
+            }
+            synchronized (this.events) {
+                this.events.add(signature);
+            }
+        }
+
+        private final List<String> events = new ArrayList<String>();
+    }
+
+    private TScenario scenario;
+    private TEventRecorder recorder;
+}
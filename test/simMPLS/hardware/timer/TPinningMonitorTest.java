@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * This class tests the counters of TPinningMonitor and the report built from
+ * them.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TPinningMonitorTest {
+
+    @After
+    public void disableMeasures() {
+        TPinningMonitor.setEnabled(false);
+        TPinningMonitor.resetAll();
+    }
+
+    @Test
+    public void countersAddUpTheMeasuredEntries() {
+        TPinningMonitor monitor = TPinningMonitor.register("TPinningMonitorTest.counters");
+        long requestInstant = System.nanoTime() - 3000000;
+        long acquireInstant = monitor.lockAcquired(requestInstant);
+        monitor.lockReleased(acquireInstant);
+        monitor.lockReleased(monitor.lockAcquired(System.nanoTime()));
+        assertEquals(2, monitor.getPinnedEntries());
+        assertTrue(monitor.getWaitingTime() >= 3000000);
+        assertTrue(monitor.getPinnedTime() >= 0);
+        assertTrue(TPinningMonitor.getReport().contains("TPinningMonitorTest.counters: 2 entries, "));
+        assertTrue(TPinningMonitor.getReport().contains(" ms pinned, " + (monitor.getWaitingTime() / 1000000) + " ms waiting\n"));
+    }
+
+    @Test
+    public void entriesThatAreNotMeasuredAreNotCounted() {
+        TPinningMonitor monitor = TPinningMonitor.register("TPinningMonitorTest.notMeasured");
+        monitor.lockReleased(monitor.lockAcquired(-1));
+        assertEquals(0, monitor.getPinnedEntries());
+        assertEquals(0, monitor.getWaitingTime());
+        assertFalse(TPinningMonitor.getReport().contains("TPinningMonitorTest.notMeasured"));
+    }
+
+    @Test
+    public void platformThreadsAreNotMeasured() {
+        TPinningMonitor.setEnabled(true);
+        TPinningMonitor monitor = TPinningMonitor.register("TPinningMonitorTest.platformThread");
+        assertEquals(-1, monitor.lockRequested());
+    }
+
+    @Test
+    public void resetAllSetsTheCountersToZero() {
+        TPinningMonitor monitor = TPinningMonitor.register("TPinningMonitorTest.reset");
+        monitor.lockReleased(monitor.lockAcquired(System.nanoTime()));
+        TPinningMonitor.resetAll();
+        assertEquals(0, monitor.getPinnedEntries());
+        assertEquals(0, monitor.getPinnedTime());
+        assertEquals(0, monitor.getWaitingTime());
+        assertFalse(TPinningMonitor.getReport().contains("TPinningMonitorTest.reset"));
+    }
+}
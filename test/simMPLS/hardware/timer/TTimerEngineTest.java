@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * This class checks that the engines of the timer and the options of the
+ * simulation give the same results as the fixed-tick engine with the default
+ * options on the examples bundled with the simulator.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimerEngineTest {
+
+    private static final String[] EXAMPLES = {
+        "NonPrioritizedTraffic.osm",
+        "EntranceByActiveLERAndNormaLER.osm",
+        "PrioritizedTraffic.osm"
+    };
+
+    // A traffic rate low enough to leave the topology idle between packets.
+    private static final int LIGHT_TRAFFIC_RATE = 100;
+
+    @Test
+    public void discreteEventEngineGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerMotorSimulacion(TTimer.DISCRETE_EVENT_ENGINE);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+        }
+    }
+
+    @Test
+    public void discreteEventEngineGivesTheSameResultsWithLightTraffic() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.setTrafficRate(LIGHT_TRAFFIC_RATE);
+            run.getScenario().ponerMotorSimulacion(TTimer.DISCRETE_EVENT_ENGINE);
+            assertSameResults(exampleName, runFixedTick(exampleName, LIGHT_TRAFFIC_RATE), run.run());
+        }
+    }
+
+    @Test
+    public void idleFastForwardGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerAvanceRapidoEnReposo(true);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+        }
+    }
+
+    @Test
+    public void idleFastForwardGivesTheSameResultsWithLightTraffic() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.setTrafficRate(LIGHT_TRAFFIC_RATE);
+            run.getScenario().ponerAvanceRapidoEnReposo(true);
+            assertSameResults(exampleName, runFixedTick(exampleName, LIGHT_TRAFFIC_RATE), run.run());
+            assertTrue(run.getScenario().getTopology().obtenerReloj().getSkippedTicks() > 0);
+        }
+    }
+
+    @Test
+    public void activeSetSchedulingGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerPlanificacionPorActividad(true);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+            assertTrue(run.getScenario().getTopology().obtenerReloj().getSkippedTimerEvents() > 0);
+        }
+    }
+
+    @Test
+    public void barrierElisionGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerElisionDeBarreras(true);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+            assertTrue(run.getScenario().getTopology().obtenerReloj().getElidedBarriers() > 0);
+        }
+    }
+
+    @Test
+    public void virtualThreadsGiveTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerHilosVirtuales(true);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+        }
+    }
+
+    @Test
+    public void partitionedEngineGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            List<String> fixedTickEvents = runFixedTick(exampleName);
+            for (int partitions = 2; partitions <= 3; partitions++) {
+                TExampleRun run = new TExampleRun(exampleName);
+                run.getScenario().ponerMotorSimulacion(TTimer.PARTITIONED_ENGINE);
+                run.getScenario().ponerNumeroDeParticiones(partitions);
+                assertSameResults(exampleName + " in " + partitions + " partitions", fixedTickEvents, run.run());
+            }
+        }
+    }
+
+    @Test
+    public void rabanEpochGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerEpocaRABAN(100000);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+        }
+    }
+
+    @Test
+    public void multipathGivesTheSameResults() {
+        for (String exampleName : EXAMPLES) {
+            TExampleRun run = new TExampleRun(exampleName);
+            run.getScenario().ponerMultitrayecto(true);
+            assertSameResults(exampleName, runFixedTick(exampleName), run.run());
+        }
+    }
+
+    private static List<String> runFixedTick(String exampleName) {
+        TExampleRun run = new TExampleRun(exampleName);
+        run.getScenario().ponerMotorSimulacion(TTimer.FIXED_TICK_ENGINE);
+        return run.run();
+    }
+
+    private static List<String> runFixedTick(String exampleName, int trafficRate) {
+        TExampleRun run = new TExampleRun(exampleName);
+        run.setTrafficRate(trafficRate);
+        run.getScenario().ponerMotorSimulacion(TTimer.FIXED_TICK_ENGINE);
+        return run.run();
+    }
+
+    private static void assertSameResults(String exampleName, List<String> fixedTickEvents, List<String> events) {
+        assertFalse(fixedTickEvents.isEmpty());
+        assertEquals(exampleName, fixedTickEvents, events);
+    }
+}
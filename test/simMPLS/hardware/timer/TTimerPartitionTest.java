@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * This class checks that splitting a topology into partitions does not change
+ * the results of the simulation.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimerPartitionTest {
+
+    @Test
+    public void partitionsDoNotChangeNonPrioritizedTraffic() {
+        checkPartitions("NonPrioritizedTraffic.osm");
+    }
+
+    @Test
+    public void partitionsDoNotChangeEntranceByActiveLERAndNormaLER() {
+        checkPartitions("EntranceByActiveLERAndNormaLER.osm");
+    }
+
+    @Test
+    public void partitionsDoNotChangePrioritizedTraffic() {
+        checkPartitions("PrioritizedTraffic.osm");
+    }
+
+    private void checkPartitions(String exampleName) {
+        List<String> onePartition = runPartitioned(exampleName, 1);
+        assertFalse(onePartition.isEmpty());
+        for (int partitions = 2; partitions <= 3; partitions++) {
+            assertEquals(exampleName + " in " + partitions + " partitions", onePartition, runPartitioned(exampleName, partitions));
+        }
+    }
+
+    private List<String> runPartitioned(String exampleName, int partitions) {
+        TExampleRun run = new TExampleRun(exampleName);
+        run.getScenario().ponerMotorSimulacion(TTimer.PARTITIONED_ENGINE);
+        run.getScenario().ponerNumeroDeParticiones(partitions);
+        return run.run();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * This class tests that the barrier of TTimerWorkerPool reports the failures
+ * of the tasks it waits for, and that its workers only live while a
+ * simulation runs.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimerWorkerPoolTest {
+
+    @Test
+    public void barrierThrowsTheFirstFailureOfTheTick() {
+        checkFailureIsThrown(new TTimerWorkerPool(2));
+    }
+
+    @Test
+    public void barrierThrowsTheFirstFailureOfTheTickOnVirtualThreads() {
+        checkFailureIsThrown(new TTimerWorkerPool(true));
+    }
+
+    @Test
+    public void barrierIsQuietWhenEveryTaskSucceeds() {
+        TTimerWorkerPool pool = new TTimerWorkerPool(2);
+        final AtomicInteger finishedTasks = new AtomicInteger(0);
+        for (int i = 0; i < 100; i++) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    finishedTasks.incrementAndGet();
+                }
+            });
+        }
+        pool.waitForCompletion();
+        assertEquals(100, finishedTasks.get());
+        pool.shutdown();
+    }
+
+    @Test
+    public void workersLiveFromTheFirstTaskUntilTheyAreStopped() throws InterruptedException {
+        TTimerWorkerPool pool = new TTimerWorkerPool(2);
+        assertEquals(0, pool.getNumberOfLiveWorkers());
+        final AtomicInteger finishedTasks = new AtomicInteger(0);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                finishedTasks.incrementAndGet();
+            }
+        };
+        pool.execute(task);
+        pool.waitForCompletion();
+        assertEquals(2, pool.getNumberOfLiveWorkers());
+        pool.stopWorkers();
+        waitForNoLiveWorkers(pool);
+        // A stopped pool is started again by the next task.
+        pool.execute(task);
+        pool.waitForCompletion();
+        assertEquals(2, finishedTasks.get());
+        pool.shutdown();
+        waitForNoLiveWorkers(pool);
+    }
+
+    @Test
+    public void discardedScenariosLeaveNoLiveWorkers() throws InterruptedException {
+        // Workers of the pools of other tests may still be finishing.
+        waitForNoWorkerThreads();
+        TExampleRun run = new TExampleRun("NonPrioritizedTraffic.osm");
+        assertEquals(0, run.getScenario().getTopology().obtenerReloj().getWorkerPool().getNumberOfLiveWorkers());
+        assertEquals(0, countWorkerThreads());
+        assertTrue(run.run().size() > 0);
+        waitForNoWorkerThreads();
+    }
+
+    private static void waitForNoWorkerThreads() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((countWorkerThreads() > 0) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, countWorkerThreads());
+    }
+
+    private static void waitForNoLiveWorkers(TTimerWorkerPool pool) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((pool.getNumberOfLiveWorkers() > 0) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.getNumberOfLiveWorkers());
+    }
+
+    private static int countWorkerThreads() {
+        int workerThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("TTimerWorker-")) {
+                workerThreads++;
+            }
+        }
+        return workerThreads;
+    }
+
+    private void checkFailureIsThrown(TTimerWorkerPool pool) {
+        final AtomicInteger finishedTasks = new AtomicInteger(0);
+        final IllegalStateException failure = new IllegalStateException("broken element");
+        for (int i = 0; i < 10; i++) {
+            final boolean fails = (i == 3);
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (fails) {
+                        throw failure;
+                    }
+                    finishedTasks.incrementAndGet();
+                }
+            });
+        }
+        try {
+            pool.waitForCompletion();
+            fail("The failure of the task was swallowed by the barrier");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        // Every other task has finished before the barrier throws.
+        assertEquals(9, finishedTasks.get());
+        // The failure is reported once; the next tick starts clean.
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                finishedTasks.incrementAndGet();
+            }
+        });
+        pool.waitForCompletion();
+        assertEquals(10, finishedTasks.get());
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class checks that TTimingWheel expires every timeout on the tick that
+ * contains its expiration instant, whatever the level of the wheel where it
+ * has been stored.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTimingWheelTest {
+
+    // A slot of the first level spans 2^10 ns and every level spans 2^6 slots
+    // of the level below it, so the four levels cover 2^34 ns.
+    private static final long FIRST_LEVEL_SPAN = 1L << 16;
+    private static final long SECOND_LEVEL_SPAN = 1L << 22;
+    private static final long THIRD_LEVEL_SPAN = 1L << 28;
+    private static final long WHEEL_SPAN = 1L << 34;
+    private static final long TICK = 1000;
+
+    private TTimingWheel timingWheel;
+
+    @Before
+    public void createTimingWheel() {
+        this.timingWheel = new TTimingWheel();
+    }
+
+    @Test
+    public void aTimeoutExpiresOnTheTickOfItsDeadline() {
+        TTimeout timeout = new TTimeout("owner");
+        this.timingWheel.schedule(timeout, 5 * TICK);
+        assertTrue(timeout.isPending());
+        assertEquals(5 * TICK, timeout.getRemainingTime());
+        assertEquals(5 * TICK, this.timingWheel.getTimeToNextExpiration());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(this.timingWheel.advance(TICK).isEmpty());
+        }
+        assertEquals(TICK, timeout.getRemainingTime());
+        List expiredTimeouts = this.timingWheel.advance(TICK);
+        assertEquals(1, expiredTimeouts.size());
+        assertSame(timeout, expiredTimeouts.get(0));
+        assertEquals("owner", timeout.getOwner());
+        assertFalse(timeout.isPending());
+        assertFalse(timeout.isIdle());
+        assertEquals(0, timeout.getRemainingTime());
+        assertEquals(0, this.timingWheel.getNumberOfTimeouts());
+        assertEquals(-1, this.timingWheel.getTimeToNextExpiration());
+    }
+
+    @Test
+    public void timeoutsExpireByDeadlineAndThenBySchedulingOrder() {
+        TTimeout last = new TTimeout("last");
+        TTimeout first = new TTimeout("first");
+        TTimeout second = new TTimeout("second");
+        TTimeout third = new TTimeout("third");
+        this.timingWheel.schedule(last, 3 * TICK);
+        this.timingWheel.schedule(first, TICK);
+        this.timingWheel.schedule(second, 2 * TICK);
+        this.timingWheel.schedule(third, 2 * TICK);
+        assertEquals(Arrays.asList(first, second, third, last), this.timingWheel.advance(10 * TICK));
+    }
+
+    @Test
+    public void aCancelledTimeoutDoesNotExpire() {
+        TTimeout cancelled = new TTimeout("cancelled");
+        TTimeout running = new TTimeout("running");
+        this.timingWheel.schedule(cancelled, TICK);
+        this.timingWheel.schedule(running, 2 * TICK);
+        cancelled.cancel();
+        assertTrue(cancelled.isIdle());
+        assertEquals(-1, cancelled.getRemainingTime());
+        assertEquals(1, this.timingWheel.getNumberOfTimeouts());
+        assertEquals(2 * TICK, this.timingWheel.getTimeToNextExpiration());
+        assertEquals(Arrays.asList(running), this.timingWheel.advance(10 * TICK));
+        // Cancelling twice, or once expired, does nothing.
+        cancelled.cancel();
+        running.cancel();
+        assertEquals(0, this.timingWheel.getNumberOfTimeouts());
+    }
+
+    @Test
+    public void aTimeoutThatIsNotScheduledCanBeCancelled() {
+        TTimeout timeout = new TTimeout("idle");
+        timeout.cancel();
+        timeout.reschedule(TICK);
+        assertTrue(timeout.isIdle());
+        assertEquals(-1, timeout.getRemainingTime());
+        assertEquals(0, this.timingWheel.getNumberOfTimeouts());
+    }
+
+    @Test
+    public void aRescheduledTimeoutExpiresOnItsNewDeadline() {
+        TTimeout delayed = new TTimeout("delayed");
+        TTimeout advanced = new TTimeout("advanced");
+        this.timingWheel.schedule(delayed, TICK);
+        this.timingWheel.schedule(advanced, SECOND_LEVEL_SPAN);
+        delayed.reschedule(3 * TICK);
+        advanced.reschedule(2 * TICK);
+        assertEquals(2, this.timingWheel.getNumberOfTimeouts());
+        assertTrue(this.timingWheel.advance(TICK).isEmpty());
+        assertEquals(Arrays.asList(advanced), this.timingWheel.advance(TICK));
+        assertEquals(Arrays.asList(delayed), this.timingWheel.advance(TICK));
+        // An expired timeout can be scheduled again.
+        delayed.reschedule(TICK);
+        assertTrue(delayed.isPending());
+        assertEquals(Arrays.asList(delayed), this.timingWheel.advance(TICK));
+    }
+
+    @Test
+    public void aTimeoutScheduledWithoutDelayExpiresOnTheNextTick() {
+        TTimeout timeout = new TTimeout("now");
+        this.timingWheel.advance(TICK / 3);
+        this.timingWheel.schedule(timeout, 0);
+        assertEquals(0, this.timingWheel.getTimeToNextExpiration());
+        assertEquals(Arrays.asList(timeout), this.timingWheel.advance(TICK));
+    }
+
+    @Test
+    public void timeoutsCascadeToTheFirstLevel() {
+        long[] delays = {
+            FIRST_LEVEL_SPAN - 1, FIRST_LEVEL_SPAN, FIRST_LEVEL_SPAN + 1,
+            SECOND_LEVEL_SPAN - 1, SECOND_LEVEL_SPAN, SECOND_LEVEL_SPAN + 1,
+            THIRD_LEVEL_SPAN - 1, THIRD_LEVEL_SPAN, THIRD_LEVEL_SPAN + 1
+        };
+        for (int i = 0; i < delays.length; i++) {
+            this.timingWheel.schedule(new TTimeout(Long.valueOf(delays[i])), delays[i]);
+        }
+        // The clock is moved forward by steps a bit shorter than the delays,
+        // so that every timeout is moved down level by level.
+        for (int i = 0; i < delays.length; i++) {
+            assertTrue(this.timingWheel.advance(delays[i] - 1 - this.timingWheel.getCurrentTime()).isEmpty());
+            assertEquals(1, this.timingWheel.getTimeToNextExpiration());
+            List expiredTimeouts = this.timingWheel.advance(1);
+            assertEquals(1, expiredTimeouts.size());
+            assertEquals(Long.valueOf(delays[i]), ((TTimeout) expiredTimeouts.get(0)).getOwner());
+        }
+    }
+
+    @Test
+    public void timeoutsBeyondTheWheelWaitInTheOverflowList() {
+        TTimeout near = new TTimeout("near");
+        TTimeout far = new TTimeout("far");
+        TTimeout farthest = new TTimeout("farthest");
+        this.timingWheel.schedule(farthest, 3 * WHEEL_SPAN + TICK);
+        this.timingWheel.schedule(far, WHEEL_SPAN + TICK);
+        this.timingWheel.schedule(near, TICK);
+        assertEquals(TICK, this.timingWheel.getTimeToNextExpiration());
+        assertEquals(Arrays.asList(near), this.timingWheel.advance(TICK));
+        assertEquals(WHEEL_SPAN, this.timingWheel.getTimeToNextExpiration());
+        assertTrue(this.timingWheel.advance(WHEEL_SPAN - 1).isEmpty());
+        assertEquals(Arrays.asList(far), this.timingWheel.advance(1));
+        assertEquals(2 * WHEEL_SPAN, farthest.getRemainingTime());
+        assertTrue(this.timingWheel.advance(2 * WHEEL_SPAN - 1).isEmpty());
+        assertEquals(Arrays.asList(farthest), this.timingWheel.advance(1));
+    }
+
+    @Test
+    public void resetCancelsEveryTimeout() {
+        TTimeout near = new TTimeout("near");
+        TTimeout far = new TTimeout("far");
+        this.timingWheel.schedule(near, TICK);
+        this.timingWheel.schedule(far, 2 * WHEEL_SPAN);
+        this.timingWheel.advance(TICK / 2);
+        this.timingWheel.reset();
+        assertTrue(near.isIdle());
+        assertTrue(far.isIdle());
+        assertEquals(0, this.timingWheel.getCurrentTime());
+        assertEquals(0, this.timingWheel.getNumberOfTimeouts());
+        assertTrue(this.timingWheel.advance(4 * WHEEL_SPAN).isEmpty());
+    }
+
+    @Test
+    public void timeoutsExpireAsInASortedList() {
+        // The wheel is compared with a plain list of timeouts with random
+        // delays, cancellations and reschedulings at every level.
+        Random random = new Random(20260101);
+        final long[] deadlines = new long[500];
+        final long[] sequences = new long[deadlines.length];
+        TTimeout[] timeouts = new TTimeout[deadlines.length];
+        long nextSequence = 0;
+        for (int i = 0; i < timeouts.length; i++) {
+            timeouts[i] = new TTimeout(Integer.valueOf(i));
+            deadlines[i] = randomTime(random);
+            sequences[i] = nextSequence++;
+            this.timingWheel.schedule(timeouts[i], deadlines[i]);
+        }
+        long currentTime = 0;
+        int pendingTimeouts = timeouts.length;
+        while (pendingTimeouts > 0) {
+            int i = random.nextInt(timeouts.length);
+            if (random.nextInt(10) == 0) {
+                timeouts[i].cancel();
+                deadlines[i] = -1;
+            } else if (random.nextInt(10) == 0) {
+                long delay = randomTime(random);
+                timeouts[i].reschedule(delay);
+                deadlines[i] = currentTime + delay;
+                sequences[i] = nextSequence++;
+            }
+            ArrayList pending = new ArrayList();
+            long earliestDeadline = Long.MAX_VALUE;
+            for (int j = 0; j < timeouts.length; j++) {
+                if (deadlines[j] >= 0) {
+                    pending.add(Integer.valueOf(j));
+                    earliestDeadline = Math.min(earliestDeadline, deadlines[j]);
+                }
+            }
+            pendingTimeouts = pending.size();
+            assertEquals(pendingTimeouts, this.timingWheel.getNumberOfTimeouts());
+            if (pendingTimeouts > 0) {
+                assertEquals(earliestDeadline - currentTime, this.timingWheel.getTimeToNextExpiration());
+            }
+            long step = randomTime(random) / 8;
+            currentTime += step;
+            ArrayList expected = new ArrayList();
+            for (int j = 0; j < pending.size(); j++) {
+                int index = ((Integer) pending.get(j)).intValue();
+                if (deadlines[index] <= currentTime) {
+                    expected.add(Integer.valueOf(index));
+                }
+            }
+            Collections.sort(expected, new Comparator() {
+                @Override
+                public int compare(Object o1, Object o2) {
+                    int index1 = ((Integer) o1).intValue();
+                    int index2 = ((Integer) o2).intValue();
+                    if (deadlines[index1] != deadlines[index2]) {
+                        return (deadlines[index1] < deadlines[index2]) ? -1 : 1;
+                    }
+                    return (sequences[index1] < sequences[index2]) ? -1 : 1;
+                }
+            });
+            for (int j = 0; j < expected.size(); j++) {
+                deadlines[((Integer) expected.get(j)).intValue()] = -1;
+            }
+            ArrayList expired = new ArrayList();
+            List expiredTimeouts = this.timingWheel.advance(step);
+            for (int j = 0; j < expiredTimeouts.size(); j++) {
+                expired.add(((TTimeout) expiredTimeouts.get(j)).getOwner());
+            }
+            assertEquals(expected, expired);
+            assertEquals(currentTime, this.timingWheel.getCurrentTime());
+        }
+    }
+
+    private static long randomTime(Random random) {
+        // Times from a few nanoseconds to beyond the last level of the wheel.
+        return (long) (random.nextDouble() * (1L << (4 + random.nextInt(33))));
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.tldp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import org.junit.Before;
+import org.junit.Test;
+import simMPLS.hardware.timer.TTimingWheel;
+
+/**
+ * This class checks that the indexes of TSwitchingMatrix stay coherent with
+ * the switching entries when they are added, removed or changed, and that the
+ * labels given by getNewLabel() are free. It also checks that lookups do not
+ * wait for the writes.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TSwitchingMatrixTest {
+
+    private static final int LABEL = 100;
+    private static final int OTHER_LABEL = 200;
+    private static final long LOOKUP_TIMEOUT = 10000;
+    private static final long CONCURRENT_LOOKUPS = 200000;
+    private static final long CONCURRENT_WRITES = 2000;
+
+    private TSwitchingMatrix switchingMatrix;
+    private TSwitchingMatrixEntry entry;
+    private TSwitchingMatrixEntry otherEntry;
+
+    @Before
+    public void fillSwitchingMatrix() {
+        this.switchingMatrix = new TSwitchingMatrix();
+        this.entry = newEntry(1, LABEL, 10, 20);
+        this.otherEntry = newEntry(2, OTHER_LABEL, 11, 21);
+        this.switchingMatrix.addEntry(this.entry);
+        this.switchingMatrix.addEntry(this.otherEntry);
+    }
+
+    @Test
+    public void entriesAreFoundByTheThreeKeys() {
+        assertIndexed(this.entry, 1, LABEL, 10, 20);
+        assertIndexed(this.otherEntry, 2, OTHER_LABEL, 11, 21);
+        assertTrue(this.switchingMatrix.labelIsAlreadyUsed(LABEL));
+        assertEquals(2, this.switchingMatrix.getNumberOfEntries());
+    }
+
+    @Test
+    public void removingByLabelUnindexesTheEntry() {
+        this.switchingMatrix.removeEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY);
+        assertRemoved(1, LABEL, 10, 20);
+    }
+
+    @Test
+    public void removingBySessionUnindexesTheEntry() {
+        this.switchingMatrix.removeEntry(10, 1);
+        assertRemoved(1, LABEL, 10, 20);
+    }
+
+    @Test
+    public void removingBySessionOnAnotherPortKeepsTheEntry() {
+        this.switchingMatrix.removeEntry(10, 2);
+        assertIndexed(this.entry, 1, LABEL, 10, 20);
+        assertEquals(2, this.switchingMatrix.getNumberOfEntries());
+    }
+
+    @Test
+    public void removingTheEntryUnindexesIt() {
+        this.switchingMatrix.removeEntry(this.entry);
+        assertRemoved(1, LABEL, 10, 20);
+    }
+
+    @Test
+    public void removingThroughTheIteratorUnindexesTheEntry() {
+        Iterator it = this.switchingMatrix.getEntriesIterator();
+        while (it.hasNext()) {
+            if (it.next() == this.entry) {
+                it.remove();
+            }
+        }
+        assertRemoved(1, LABEL, 10, 20);
+    }
+
+    @Test
+    public void aRemovedEntryDoesNotFollowItsSetters() {
+        this.switchingMatrix.removeEntry(this.entry);
+        this.entry.setLabelOrFEC(300);
+        this.entry.setLocalTLDPSessionID(30);
+        assertEquals(300, this.entry.getLabelOrFEC());
+        assertEquals(30, this.entry.getLocalTLDPSessionID());
+        assertNull(this.switchingMatrix.getEntry(1, 300, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertNull(this.switchingMatrix.getEntry(30));
+        assertFalse(this.switchingMatrix.labelIsAlreadyUsed(300));
+    }
+
+    @Test
+    public void changingTheIncomingPortMovesTheEntry() {
+        this.entry.setIncomingPortID(3);
+        assertNull(this.switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertNull(this.switchingMatrix.getEntry(20, 1));
+        assertIndexed(this.entry, 3, LABEL, 10, 20);
+    }
+
+    @Test
+    public void changingTheLabelMovesTheEntry() {
+        this.entry.setLabelOrFEC(300);
+        assertNull(this.switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertFalse(this.switchingMatrix.labelIsAlreadyUsed(LABEL));
+        assertTrue(this.switchingMatrix.labelIsAlreadyUsed(300));
+        assertIndexed(this.entry, 1, 300, 10, 20);
+    }
+
+    @Test
+    public void changingTheEntryTypeMovesTheEntry() {
+        this.entry.setEntryType(TSwitchingMatrixEntry.FEC_ENTRY);
+        assertNull(this.switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertSame(this.entry, this.switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.FEC_ENTRY));
+        // A FEC is not a label, so it does not take the label space.
+        assertFalse(this.switchingMatrix.labelIsAlreadyUsed(LABEL));
+    }
+
+    @Test
+    public void changingTheSessionsMovesTheEntry() {
+        this.entry.setLocalTLDPSessionID(30);
+        this.entry.setUpstreamTLDPSessionID(40);
+        assertNull(this.switchingMatrix.getEntry(10));
+        assertNull(this.switchingMatrix.getEntry(20, 1));
+        assertIndexed(this.entry, 1, LABEL, 30, 40);
+        this.switchingMatrix.removeEntry(30, 1);
+        assertRemoved(1, LABEL, 30, 40);
+    }
+
+    @Test
+    public void changingOtherFieldsKeepsTheEntry() {
+        this.entry.setOutgoingLabel(500);
+        this.entry.setOutgoingPortID(4);
+        this.entry.setBackupOutgoingPortID(5);
+        assertIndexed(this.entry, 1, LABEL, 10, 20);
+        assertEquals(500, this.switchingMatrix.getOutgoingLabel(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertEquals(4, this.switchingMatrix.getOutgoingPortID(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+    }
+
+    @Test
+    public void duplicateKeysReturnTheOldestEntry() {
+        TSwitchingMatrixEntry newerEntry = newEntry(1, LABEL, 10, 20);
+        TSwitchingMatrixEntry newestEntry = newEntry(1, LABEL, 10, 20);
+        this.switchingMatrix.addEntry(newerEntry);
+        this.switchingMatrix.addEntry(newestEntry);
+        assertIndexed(this.entry, 1, LABEL, 10, 20);
+        this.switchingMatrix.removeEntry(this.entry);
+        assertIndexed(newerEntry, 1, LABEL, 10, 20);
+        this.switchingMatrix.removeEntry(newestEntry);
+        assertIndexed(newerEntry, 1, LABEL, 10, 20);
+        this.switchingMatrix.removeEntry(newerEntry);
+        assertRemoved(1, LABEL, 10, 20);
+    }
+
+    @Test
+    public void anOlderEntryMovedToAKeyIsReturnedFirst() {
+        TSwitchingMatrixEntry newerEntry = newEntry(1, OTHER_LABEL, 11, 21);
+        this.switchingMatrix.addEntry(newerEntry);
+        // The older entry reaches the key after the newer one.
+        this.otherEntry.setIncomingPortID(1);
+        assertIndexed(this.otherEntry, 1, OTHER_LABEL, 11, 21);
+        this.otherEntry.setIncomingPortID(2);
+        assertSame(newerEntry, this.switchingMatrix.getEntry(1, OTHER_LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertSame(newerEntry, this.switchingMatrix.getEntry(21, 1));
+        assertSame(this.otherEntry, this.switchingMatrix.getEntry(21, 2));
+    }
+
+    @Test
+    public void removingADuplicateKeyRemovesAllItsEntries() {
+        this.switchingMatrix.addEntry(newEntry(1, LABEL, 12, 22));
+        this.switchingMatrix.removeEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY);
+        assertRemoved(1, LABEL, 10, 20);
+        assertNull(this.switchingMatrix.getEntry(12));
+        assertNull(this.switchingMatrix.getEntry(22, 1));
+    }
+
+    @Test
+    public void removingADuplicateSessionRemovesOnlyThatPort() {
+        TSwitchingMatrixEntry entryOnAnotherPort = newEntry(3, 300, 10, 20);
+        this.switchingMatrix.addEntry(entryOnAnotherPort);
+        this.switchingMatrix.removeEntry(10, 1);
+        assertNull(this.switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertIndexed(entryOnAnotherPort, 3, 300, 10, 20);
+    }
+
+    @Test
+    public void newLabelsSkipTheLabelsInUse() {
+        assertEquals(TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL, this.switchingMatrix.getNewLabel());
+        for (int label = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL; label < LABEL; label++) {
+            assertEquals(label, this.switchingMatrix.getNewLabel());
+            this.switchingMatrix.addEntry(newEntry(3, label, TSwitchingMatrixEntry.UNDEFINED, TSwitchingMatrixEntry.UNDEFINED));
+        }
+        assertEquals(LABEL + 1, this.switchingMatrix.getNewLabel());
+    }
+
+    @Test
+    public void theLabelOfARemovedEntryIsReused() {
+        TSwitchingMatrixEntry firstEntry = newEntry(3, this.switchingMatrix.getNewLabel(), 12, 22);
+        this.switchingMatrix.addEntry(firstEntry);
+        TSwitchingMatrixEntry secondEntry = newEntry(3, this.switchingMatrix.getNewLabel(), 13, 23);
+        this.switchingMatrix.addEntry(secondEntry);
+        int nextLabel = this.switchingMatrix.getNewLabel();
+        assertTrue(nextLabel > secondEntry.getLabelOrFEC());
+        this.switchingMatrix.removeEntry(firstEntry);
+        assertFalse(this.switchingMatrix.labelIsAlreadyUsed(firstEntry.getLabelOrFEC()));
+        assertEquals(firstEntry.getLabelOrFEC(), this.switchingMatrix.getNewLabel());
+        this.switchingMatrix.addEntry(newEntry(3, firstEntry.getLabelOrFEC(), 14, 24));
+        assertEquals(nextLabel, this.switchingMatrix.getNewLabel());
+    }
+
+    @Test
+    public void aSharedLabelIsUsedUntilAllItsEntriesAreRemoved() {
+        int label = this.switchingMatrix.getNewLabel();
+        TSwitchingMatrixEntry firstEntry = newEntry(3, label, 12, 22);
+        TSwitchingMatrixEntry secondEntry = newEntry(4, label, 13, 23);
+        this.switchingMatrix.addEntry(firstEntry);
+        this.switchingMatrix.addEntry(secondEntry);
+        this.switchingMatrix.removeEntry(firstEntry);
+        assertTrue(this.switchingMatrix.labelIsAlreadyUsed(label));
+        assertTrue(this.switchingMatrix.getNewLabel() != label);
+        this.switchingMatrix.removeEntry(secondEntry);
+        assertFalse(this.switchingMatrix.labelIsAlreadyUsed(label));
+        assertEquals(label, this.switchingMatrix.getNewLabel());
+    }
+
+    @Test
+    public void noLabelIsAvailableWhenTheLabelSpaceIsExhausted() {
+        this.switchingMatrix.reset();
+        int label = this.switchingMatrix.getNewLabel();
+        TSwitchingMatrixEntry lastEntry = null;
+        while (label != TSwitchingMatrixEntry.LABEL_UNAVAILABLE) {
+            lastEntry = newEntry(1, label, TSwitchingMatrixEntry.UNDEFINED, TSwitchingMatrixEntry.UNDEFINED);
+            this.switchingMatrix.addEntry(lastEntry);
+            label = this.switchingMatrix.getNewLabel();
+        }
+        assertEquals(TSwitchingMatrixEntry.LABEL_SPACE - TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL + 1, this.switchingMatrix.getNumberOfEntries());
+        assertEquals(TSwitchingMatrixEntry.LABEL_SPACE, lastEntry.getLabelOrFEC());
+        assertEquals(TSwitchingMatrixEntry.LABEL_UNAVAILABLE, this.switchingMatrix.getNewLabel());
+        this.switchingMatrix.removeEntry(lastEntry);
+        assertEquals(TSwitchingMatrixEntry.LABEL_SPACE, this.switchingMatrix.getNewLabel());
+    }
+
+    @Test
+    public void lookupsDoNotWaitForTheMonitor() throws InterruptedException {
+        final TSwitchingMatrixEntry[] found = new TSwitchingMatrixEntry[3];
+        Thread lookupThread = new Thread() {
+            @Override
+            public void run() {
+                found[0] = switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY);
+                found[1] = switchingMatrix.getEntry(10);
+                found[2] = switchingMatrix.getEntry(20, 1);
+            }
+        };
+        this.switchingMatrix.getMonitor().lock();
+        try {
+            lookupThread.start();
+            lookupThread.join(LOOKUP_TIMEOUT);
+            assertFalse(lookupThread.isAlive());
+        } finally {
+            this.switchingMatrix.getMonitor().unLock();
+        }
+        assertSame(this.entry, found[0]);
+        assertSame(this.entry, found[1]);
+        assertSame(this.entry, found[2]);
+    }
+
+    @Test
+    public void lookupsAreNotBlockedByConcurrentWrites() throws InterruptedException {
+        final boolean[] stop = {false};
+        Thread writerThread = new Thread() {
+            @Override
+            public void run() {
+                int label = OTHER_LABEL + 1;
+                while (!stop[0]) {
+                    switchingMatrix.addEntry(newEntry(3, label, TSwitchingMatrixEntry.UNDEFINED, TSwitchingMatrixEntry.UNDEFINED));
+                    switchingMatrix.removeEntry(3, label, TSwitchingMatrixEntry.LABEL_ENTRY);
+                    label++;
+                }
+            }
+        };
+        long lookups = 0;
+        long writesBefore = this.switchingMatrix.getWrites();
+        writerThread.start();
+        try {
+            while ((lookups < CONCURRENT_LOOKUPS) || (this.switchingMatrix.getWrites() - writesBefore < CONCURRENT_WRITES)) {
+                assertSame(this.entry, this.switchingMatrix.getEntry(1, LABEL, TSwitchingMatrixEntry.LABEL_ENTRY));
+                lookups++;
+            }
+        } finally {
+            stop[0] = true;
+            writerThread.join();
+        }
+        // A lookup only waits when the thread doing a write is preempted while
+        // holding the write lock.
+        assertTrue(this.switchingMatrix.getBlockedLookups() * 100 < lookups);
+        assertTrue(this.switchingMatrix.getOptimisticLookups() * 100 > lookups * 99);
+        assertEquals(2, this.switchingMatrix.getNumberOfEntries());
+    }
+
+    @Test
+    public void theLastWithdrawalAttemptExpiresOnTheNextTick() {
+        TTimingWheel timingWheel = new TTimingWheel();
+        this.switchingMatrix.reset();
+        this.switchingMatrix.setTimingWheel(timingWheel);
+        this.switchingMatrix.addEntry(this.entry);
+        this.entry.setOutgoingLabel(TSwitchingMatrixEntry.REMOVING_LABEL);
+        assertTrue(this.entry.getTimeOut() > 0);
+        this.entry.expireTimeOutOnNextTick();
+        assertEquals(0, this.entry.getTimeOut());
+        assertEquals(1, timingWheel.advance(1).size());
+        this.entry.resetTimeOut();
+        assertTrue(timingWheel.advance(1).isEmpty());
+    }
+
+    private TSwitchingMatrixEntry newEntry(int incomingPortID, int label, int localTLDPSessionID, int upstreamTLDPSessionID) {
+        TSwitchingMatrixEntry switchingMatrixEntry = new TSwitchingMatrixEntry();
+        switchingMatrixEntry.setIncomingPortID(incomingPortID);
+        switchingMatrixEntry.setLabelOrFEC(label);
+        switchingMatrixEntry.setEntryType(TSwitchingMatrixEntry.LABEL_ENTRY);
+        switchingMatrixEntry.setLocalTLDPSessionID(localTLDPSessionID);
+        switchingMatrixEntry.setUpstreamTLDPSessionID(upstreamTLDPSessionID);
+        return switchingMatrixEntry;
+    }
+
+    private void assertIndexed(TSwitchingMatrixEntry switchingMatrixEntry, int incomingPortID, int label, int localTLDPSessionID, int upstreamTLDPSessionID) {
+        assertSame(switchingMatrixEntry, this.switchingMatrix.getEntry(incomingPortID, label, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertTrue(this.switchingMatrix.existsEntry(incomingPortID, label, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertSame(switchingMatrixEntry, this.switchingMatrix.getEntry(localTLDPSessionID));
+        assertSame(switchingMatrixEntry, this.switchingMatrix.getEntry(upstreamTLDPSessionID, incomingPortID));
+    }
+
+    private void assertRemoved(int incomingPortID, int label, int localTLDPSessionID, int upstreamTLDPSessionID) {
+        assertNull(this.switchingMatrix.getEntry(incomingPortID, label, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertFalse(this.switchingMatrix.existsEntry(incomingPortID, label, TSwitchingMatrixEntry.LABEL_ENTRY));
+        assertNull(this.switchingMatrix.getEntry(localTLDPSessionID));
+        assertNull(this.switchingMatrix.getEntry(upstreamTLDPSessionID, incomingPortID));
+        assertFalse(this.switchingMatrix.labelIsAlreadyUsed(label));
+        // The entry that was not removed is still found.
+        assertIndexed(this.otherEntry, this.otherEntry.getIncomingPortID(), this.otherEntry.getLabelOrFEC(), this.otherEntry.getLocalTLDPSessionID(), this.otherEntry.getUpstreamTLDPSessionID());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.util.Iterator;
+import java.util.TreeSet;
+import org.junit.Test;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.scenario.TRemoteNode;
+import simMPLS.scenario.TTopology;
+
+/**
+ * This class checks the distributed simulation of a scenario.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TDistributedWorkerTest {
+
+    @Test
+    public void loaderOnlyBuildsTheLocalNodes() {
+        TreeSet localNodeIDs = new TreeSet();
+        localNodeIDs.add(Integer.valueOf(1));
+        TOSMLoader loader = new TOSMLoader();
+        assertTrue(loader.cargar(new File("examples", "NonPrioritizedTraffic.osm"), localNodeIDs));
+        TTopology topology = loader.getScenario().getTopology();
+        assertTrue(topology.obtenerNumeroDeNodos() > 1);
+        Iterator nodesIterator = topology.getNodesIterator();
+        while (nodesIterator.hasNext()) {
+            simMPLS.scenario.TNode node = (simMPLS.scenario.TNode) nodesIterator.next();
+            assertEquals(node.getID() != 1, node instanceof TRemoteNode);
+        }
+    }
+
+    @Test
+    public void workersSimulateTheWholeScenario() throws Exception {
+        File scenarioFile = new File("examples", "NonPrioritizedTraffic.osm");
+        TOSMLoader loader = new TOSMLoader();
+        assertTrue(loader.cargar(scenarioFile));
+        int numberOfNodes = loader.getScenario().getTopology().obtenerNumeroDeNodos();
+        ServerSocket freePort = new ServerSocket(0);
+        int port = freePort.getLocalPort();
+        freePort.close();
+        final TDistributedCoordinator coordinator = new TDistributedCoordinator(port, 2);
+        final Exception[] failures = new Exception[3];
+        Thread coordinatorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    coordinator.run();
+                } catch (Exception e) {
+                    failures[0] = e;
+                }
+            }
+        });
+        coordinatorThread.start();
+        TDistributedWorker[] workers = new TDistributedWorker[2];
+        Thread[] workerThreads = new Thread[2];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new TDistributedWorker("localhost", port, scenarioFile);
+            final TDistributedWorker worker = workers[i];
+            final int failure = i + 1;
+            workerThreads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runWhenCoordinatorListens(worker);
+                    } catch (Exception e) {
+                        failures[failure] = e;
+                    }
+                }
+            });
+            workerThreads[i].start();
+        }
+        coordinatorThread.join(60000);
+        for (int i = 0; i < workerThreads.length; i++) {
+            workerThreads[i].join(60000);
+        }
+        for (int i = 0; i < failures.length; i++) {
+            assertNull(failures[i]);
+        }
+        assertTrue(coordinator.getNumberOfWindows() > 0);
+        assertTrue(coordinator.getNumberOfBoundaryPackets() > 0);
+        assertEquals(numberOfNodes, workers[0].getNumberOfNodes() + workers[1].getNumberOfNodes());
+        assertEquals(coordinator.getNumberOfWindows(), workers[0].getNumberOfWindows());
+    }
+
+    private static void runWhenCoordinatorListens(TDistributedWorker worker) throws IOException, ClassNotFoundException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                worker.run();
+                return;
+            } catch (ConnectException e) {
+                if (attempt == 100) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+}
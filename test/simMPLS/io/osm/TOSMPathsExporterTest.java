@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.osm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+import simMPLS.scenario.TScenario;
+
+/**
+ * This class checks that the shortest paths of a scenario are exported from
+ * the command line.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TOSMPathsExporterTest {
+
+    @Test
+    public void pathsOfAllNodesAreExported() throws IOException {
+        TOSMLoader loader = new TOSMLoader();
+        File scenarioFile = new File("examples", "NonPrioritizedTraffic.osm");
+        assertTrue(loader.cargar(scenarioFile));
+        TScenario scenario = loader.getScenario();
+        int numberOfNodes = scenario.getTopology().obtenerNumeroDeNodos();
+        File pathsFile = File.createTempFile("TOSMPathsExporterTest", ".txt");
+        try {
+            TOSMPathsExporter.main(new String[]{scenarioFile.getPath(), pathsFile.getPath()});
+            List<String> lines = Files.readAllLines(pathsFile.toPath(), StandardCharsets.UTF_8);
+            assertEquals(3 + 2 * numberOfNodes, lines.size());
+            assertEquals(numberOfNodes + 1, lines.get(0).split(" ").length);
+            assertEquals("#Distancias", lines.get(1));
+            assertEquals("#Saltos", lines.get(2 + numberOfNodes));
+        } finally {
+            pathsFile.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongArgumentsAreRejected() throws IOException {
+        TOSMPathsExporter.main(new String[]{"scenario.osm"});
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.osm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import simMPLS.hardware.timer.TTimer;
+import simMPLS.scenario.TScenario;
+
+/**
+ * This class checks that the simulation options of a scenario are saved to
+ * disk and loaded back, and that scenarios saved without them get the
+ * defaults.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TOSMSaverTest {
+
+    @Test
+    public void scenariosWithoutOptionsGetTheDefaults() {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        assertEquals(TTimer.FIXED_TICK_ENGINE, scenario.obtenerMotorSimulacion());
+        assertFalse(scenario.obtenerAvanceRapidoEnReposo());
+        assertFalse(scenario.obtenerPlanificacionPorActividad());
+        assertFalse(scenario.obtenerElisionDeBarreras());
+        assertFalse(scenario.obtenerHilosVirtuales());
+        assertEquals(Runtime.getRuntime().availableProcessors(), scenario.obtenerNumeroDeParticiones());
+        assertEquals(0, scenario.obtenerEpocaRABAN());
+        assertFalse(scenario.obtenerMultitrayecto());
+    }
+
+    @Test
+    public void simulationEngineIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerMotorSimulacion(TTimer.DISCRETE_EVENT_ENGINE);
+        assertEquals(TTimer.DISCRETE_EVENT_ENGINE, saveAndLoad(scenario).obtenerMotorSimulacion());
+    }
+
+    @Test
+    public void idleFastForwardIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerAvanceRapidoEnReposo(true);
+        assertTrue(saveAndLoad(scenario).obtenerAvanceRapidoEnReposo());
+    }
+
+    @Test
+    public void activeSetSchedulingIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerPlanificacionPorActividad(true);
+        assertTrue(saveAndLoad(scenario).obtenerPlanificacionPorActividad());
+    }
+
+    @Test
+    public void barrierElisionIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerElisionDeBarreras(true);
+        assertTrue(saveAndLoad(scenario).obtenerElisionDeBarreras());
+    }
+
+    @Test
+    public void virtualThreadsAreSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerHilosVirtuales(true);
+        assumeTrue(scenario.obtenerHilosVirtuales());
+        assertTrue(saveAndLoad(scenario).obtenerHilosVirtuales());
+    }
+
+    @Test
+    public void numberOfPartitionsIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerNumeroDeParticiones(3);
+        assertEquals(3, saveAndLoad(scenario).obtenerNumeroDeParticiones());
+    }
+
+    @Test
+    public void rabanEpochIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerEpocaRABAN(100000);
+        assertEquals(100000, saveAndLoad(scenario).obtenerEpocaRABAN());
+    }
+
+    @Test
+    public void multipathIsSaved() throws IOException {
+        TScenario scenario = load(new File("examples", "NonPrioritizedTraffic.osm"));
+        scenario.ponerMultitrayecto(true);
+        assertTrue(saveAndLoad(scenario).obtenerMultitrayecto());
+    }
+
+    private static TScenario load(File scenarioFile) {
+        TOSMLoader loader = new TOSMLoader();
+        assertTrue(loader.cargar(scenarioFile));
+        return loader.getScenario();
+    }
+
+    private static TScenario saveAndLoad(TScenario scenario) throws IOException {
+        File scenarioFile = File.createTempFile("TOSMSaverTest", ".osm");
+        try {
+            assertTrue(new TOSMSaver(scenario).save(scenarioFile, true));
+            return load(scenarioFile);
+        } finally {
+            scenarioFile.delete();
+        }
+    }
+}
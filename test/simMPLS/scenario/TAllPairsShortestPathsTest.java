@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import simMPLS.io.osm.TOSMLoader;
+
+/**
+ * This class checks that the parallel all-pairs solver finds the same next
+ * hops as the routing of the topology on the examples bundled with the
+ * simulator.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TAllPairsShortestPathsTest {
+
+    private static final String[] EXAMPLES = {
+        "NonPrioritizedTraffic.osm",
+        "EntranceByActiveLERAndNormaLER.osm",
+        "PrioritizedTraffic.osm"
+    };
+
+    @Test
+    public void nextHopsAreTheOnesOfTheTopology() {
+        for (String exampleName : EXAMPLES) {
+            TTopology topology = load(exampleName);
+            TAllPairsShortestPaths paths = topology.calcularCaminosEntreTodosLosPares(false);
+            List<TNode> nodes = getNodes(topology);
+            assertTrue(nodes.size() > 1);
+            for (TNode origin : nodes) {
+                for (TNode destination : nodes) {
+                    if (origin != destination) {
+                        assertEquals(exampleName + " " + origin.getID() + " -> " + destination.getID(), topology.obtenerSalto(origin.getID(), destination.getID()), paths.obtenerSalto(origin, destination));
+                    }
+                }
+            }
+        }
+    }
+
+    private static TTopology load(String exampleName) {
+        TOSMLoader loader = new TOSMLoader();
+        assertTrue(loader.cargar(new File("examples", exampleName)));
+        return loader.getScenario().getTopology();
+    }
+
+    private static List<TNode> getNodes(TTopology topology) {
+        List<TNode> nodes = new ArrayList<TNode>();
+        Iterator nodesIterator = topology.getNodesIterator();
+        while (nodesIterator.hasNext()) {
+            nodes.add((TNode) nodesIterator.next());
+        }
+        return nodes;
+    }
+}
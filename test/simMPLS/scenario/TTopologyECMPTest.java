@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 (C) The OpenSimMPLS contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.TreeSet;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import simMPLS.io.osm.TOSMLoader;
+
+/**
+ * This class checks the equal-cost multipath routing of the topology on a
+ * diamond of four LSRs, where node 1 reaches node 4 through node 2 and
+ * through node 3 at the same cost.
+ *
+ * @author The OpenSimMPLS contributors
+ * @version 2.0
+ */
+public class TTopologyECMPTest {
+
+    private static final String[] DIAMOND = {
+        "@?Escenario",
+        "#Temporizacion#1000000#100#",
+        "@!Escenario",
+        "@?Topologia",
+        "#LSR#1#LSR 1#10.0.0.1#0#true#false#0#0#10240#1024#",
+        "#LSR#2#LSR 2#10.0.0.2#0#true#false#100#0#10240#1024#",
+        "#LSR#3#LSR 3#10.0.0.3#0#true#false#0#100#10240#1024#",
+        "#LSR#4#LSR 4#10.0.0.4#0#true#false#100#100#10240#1024#",
+        "#EnlaceInterno#5#Link 1-2#false#1000#10.0.0.1#0#10.0.0.2#0#",
+        "#EnlaceInterno#6#Link 1-3#false#1000#10.0.0.1#1#10.0.0.3#0#",
+        "#EnlaceInterno#7#Link 2-4#false#1000#10.0.0.2#1#10.0.0.4#0#",
+        "#EnlaceInterno#8#Link 3-4#false#1000#10.0.0.3#1#10.0.0.4#1#",
+        "@!Topologia"
+    };
+
+    private static final int NUMBER_OF_FLOWS = 100;
+
+    private static TTopology topology;
+
+    @BeforeClass
+    public static void loadDiamond() throws IOException {
+        File scenarioFile = File.createTempFile("TTopologyECMPTest", ".osm");
+        try {
+            Writer writer = new FileWriter(scenarioFile);
+            try {
+                for (String line : DIAMOND) {
+                    writer.write(line + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+            TOSMLoader loader = new TOSMLoader();
+            assertTrue(loader.cargar(scenarioFile));
+            topology = loader.getScenario().getTopology();
+        } finally {
+            scenarioFile.delete();
+        }
+    }
+
+    @Test
+    public void bothEqualCostHopsAreReturned() {
+        assertArrayEquals(new int[]{2, 3}, topology.obtenerSaltosECMP(1, 4));
+        assertArrayEquals(new int[]{2, 3}, topology.obtenerSaltosECMP(4, 1));
+        assertArrayEquals(new int[]{1, 4}, topology.obtenerSaltosECMP(2, 3));
+    }
+
+    @Test
+    public void bothEqualCostRABANHopsAreReturned() {
+        assertArrayEquals(new int[]{2, 3}, topology.obtenerSaltosECMPRABAN(1, 4));
+        assertArrayEquals(new int[]{2, 3}, topology.obtenerSaltosECMPRABAN(4, 1));
+        assertArrayEquals(new int[]{1, 4}, topology.obtenerSaltosECMPRABAN(2, 3));
+    }
+
+    @Test
+    public void aSingleShortestPathGivesASingleHop() {
+        assertArrayEquals(new int[]{2}, topology.obtenerSaltosECMP(1, 2));
+        assertArrayEquals(new int[]{2}, topology.obtenerSaltosECMPRABAN(1, 2));
+    }
+
+    @Test
+    public void flowsAreSpreadOverTheHops() {
+        int hops[] = topology.obtenerSaltosECMP(1, 4);
+        TreeSet chosenHops = new TreeSet();
+        for (int flow = 0; flow < NUMBER_OF_FLOWS; flow++) {
+            chosenHops.add(Integer.valueOf(TTopology.elegirSaltoDeFlujo(hops, flow)));
+        }
+        assertEquals(2, chosenHops.size());
+        assertTrue(chosenHops.contains(Integer.valueOf(2)));
+        assertTrue(chosenHops.contains(Integer.valueOf(3)));
+    }
+
+    @Test
+    public void aFlowAlwaysTakesTheSameHop() {
+        for (int flow = 0; flow < NUMBER_OF_FLOWS; flow++) {
+            int hop = TTopology.elegirSaltoDeFlujo(topology.obtenerSaltosECMP(1, 4), flow);
+            assertEquals(hop, TTopology.elegirSaltoDeFlujo(topology.obtenerSaltosECMP(1, 4), flow));
+            assertEquals(hop, TTopology.elegirSaltoDeFlujo(topology.obtenerSaltosECMPRABAN(1, 4), flow));
+        }
+    }
+
+    @Test
+    public void noHopIsChosenWithoutPath() {
+        assertEquals(TTopology.SIN_CAMINO, TTopology.elegirSaltoDeFlujo(new int[0], 7));
+    }
+
+    @Test
+    public void multipathChoosesTheHopOfTheFlow() {
+        topology.ponerMultitrayecto(true);
+        try {
+            for (int flow = 0; flow < NUMBER_OF_FLOWS; flow++) {
+                String hopAddress = "10.0.0." + TTopology.elegirSaltoDeFlujo(topology.obtenerSaltosECMP(1, 4), flow);
+                assertEquals(hopAddress, topology.obtenerIPSaltoECMP("10.0.0.1", "10.0.0.4", flow));
+                assertEquals(hopAddress, topology.getECMPNextHopRABANIPv4Address("10.0.0.1", "10.0.0.4", flow));
+            }
+        } finally {
+            topology.ponerMultitrayecto(false);
+        }
+    }
+}